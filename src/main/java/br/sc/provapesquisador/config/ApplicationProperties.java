@@ -1,6 +1,13 @@
 package br.sc.provapesquisador.config;
 
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 /**
  * Properties specific to Prova Pesquisador.
@@ -9,4 +16,970 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+public class ApplicationProperties {
+
+    private final Pessoa pessoa = new Pessoa();
+
+    private final Cache cache = new Cache();
+
+    private final Security security = new Security();
+
+    private final Mail mail = new Mail();
+
+    public Pessoa getPessoa() {
+        return pessoa;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Security getSecurity() {
+        return security;
+    }
+
+    public Mail getMail() {
+        return mail;
+    }
+
+    public static class Pessoa {
+
+        private final CpfIndex cpfIndex = new CpfIndex();
+
+        private final SearchIndex searchIndex = new SearchIndex();
+
+        private final AvatarStore avatarStore = new AvatarStore();
+
+        private final ImportJobs importJobs = new ImportJobs();
+
+        public CpfIndex getCpfIndex() {
+            return cpfIndex;
+        }
+
+        public SearchIndex getSearchIndex() {
+            return searchIndex;
+        }
+
+        public AvatarStore getAvatarStore() {
+            return avatarStore;
+        }
+
+        public ImportJobs getImportJobs() {
+            return importJobs;
+        }
+
+        public static class CpfIndex {
+
+            private boolean enabled = true;
+
+            private long expectedInsertions = 1_000_000;
+
+            private double falsePositiveProbability = 0.01;
+
+            private Duration rebuildInterval = Duration.ofHours(1);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public long getExpectedInsertions() {
+                return expectedInsertions;
+            }
+
+            public void setExpectedInsertions(long expectedInsertions) {
+                this.expectedInsertions = expectedInsertions;
+            }
+
+            public double getFalsePositiveProbability() {
+                return falsePositiveProbability;
+            }
+
+            public void setFalsePositiveProbability(double falsePositiveProbability) {
+                this.falsePositiveProbability = falsePositiveProbability;
+            }
+
+            public Duration getRebuildInterval() {
+                return rebuildInterval;
+            }
+
+            public void setRebuildInterval(Duration rebuildInterval) {
+                this.rebuildInterval = rebuildInterval;
+            }
+        }
+
+        public static class SearchIndex {
+
+            private boolean enabled = false;
+
+            private Duration rebuildInterval = Duration.ofHours(1);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public Duration getRebuildInterval() {
+                return rebuildInterval;
+            }
+
+            public void setRebuildInterval(Duration rebuildInterval) {
+                this.rebuildInterval = rebuildInterval;
+            }
+        }
+
+        public static class AvatarStore {
+
+            private String directory = Paths.get(System.getProperty("java.io.tmpdir"), "provapesquisador", "avatars").toString();
+
+            private Duration cacheTime = Duration.ofDays(365);
+
+            private List<Integer> thumbnailSizes = List.of(48, 128, 512);
+
+            private int maxPendingThumbnails = 64;
+
+            /**
+             * Largest avatars decoded to make their thumbnails, in pixels: a decoded pixel takes 4 bytes of heap.
+             */
+            private long maxImagePixels = 16_000_000;
+
+            public String getDirectory() {
+                return directory;
+            }
+
+            public void setDirectory(String directory) {
+                this.directory = directory;
+            }
+
+            public Duration getCacheTime() {
+                return cacheTime;
+            }
+
+            public void setCacheTime(Duration cacheTime) {
+                this.cacheTime = cacheTime;
+            }
+
+            public List<Integer> getThumbnailSizes() {
+                return thumbnailSizes;
+            }
+
+            public void setThumbnailSizes(List<Integer> thumbnailSizes) {
+                this.thumbnailSizes = thumbnailSizes;
+            }
+
+            public int getMaxPendingThumbnails() {
+                return maxPendingThumbnails;
+            }
+
+            public void setMaxPendingThumbnails(int maxPendingThumbnails) {
+                this.maxPendingThumbnails = maxPendingThumbnails;
+            }
+
+            public long getMaxImagePixels() {
+                return maxImagePixels;
+            }
+
+            public void setMaxImagePixels(long maxImagePixels) {
+                this.maxImagePixels = maxImagePixels;
+            }
+        }
+
+        public static class ImportJobs {
+
+            private String directory = Paths.get(System.getProperty("java.io.tmpdir"), "provapesquisador", "import-jobs").toString();
+
+            private int poolSize = 2;
+
+            private int queueCapacity = 100;
+
+            private Duration shutdownTimeout = Duration.ofSeconds(30);
+
+            public String getDirectory() {
+                return directory;
+            }
+
+            public void setDirectory(String directory) {
+                this.directory = directory;
+            }
+
+            public int getPoolSize() {
+                return poolSize;
+            }
+
+            public void setPoolSize(int poolSize) {
+                this.poolSize = poolSize;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+
+            public Duration getShutdownTimeout() {
+                return shutdownTimeout;
+            }
+
+            public void setShutdownTimeout(Duration shutdownTimeout) {
+                this.shutdownTimeout = shutdownTimeout;
+            }
+        }
+    }
+
+    /**
+     * Ehcache regions, see {@link CacheConfiguration}. Regions are configured by name, and default to the
+     * {@code jhipster.cache.ehcache} entries and time to live.
+     */
+    public static class Cache {
+
+        private String diskDirectory = Paths.get(System.getProperty("java.io.tmpdir"), "provapesquisador", "cache").toString();
+
+        private final Map<String, Region> regions = new HashMap<>();
+
+        private final WarmUp warmUp = new WarmUp();
+
+        private final Invalidation invalidation = new Invalidation();
+
+        public String getDiskDirectory() {
+            return diskDirectory;
+        }
+
+        public void setDiskDirectory(String diskDirectory) {
+            this.diskDirectory = diskDirectory;
+        }
+
+        public Map<String, Region> getRegions() {
+            return regions;
+        }
+
+        public WarmUp getWarmUp() {
+            return warmUp;
+        }
+
+        public Invalidation getInvalidation() {
+            return invalidation;
+        }
+
+        public static class Region {
+
+            /**
+             * Entries kept on heap, or {@code heapSize} bytes.
+             */
+            private Long heapEntries;
+
+            private DataSize heapSize;
+
+            private DataSize offHeapSize;
+
+            /**
+             * Size of a disk tier kept in {@code disk-directory} across restarts.
+             */
+            private DataSize diskSize;
+
+            private Duration timeToLive;
+
+            /**
+             * Entries of the Spring cache of the same name also kept in a lock-free map in front of Ehcache, for
+             * {@code near-time-to-live}; none by default.
+             */
+            private Integer nearEntries;
+
+            private Duration nearTimeToLive = Duration.ofSeconds(10);
+
+            public Long getHeapEntries() {
+                return heapEntries;
+            }
+
+            public void setHeapEntries(Long heapEntries) {
+                this.heapEntries = heapEntries;
+            }
+
+            public DataSize getHeapSize() {
+                return heapSize;
+            }
+
+            public void setHeapSize(DataSize heapSize) {
+                this.heapSize = heapSize;
+            }
+
+            public DataSize getOffHeapSize() {
+                return offHeapSize;
+            }
+
+            public void setOffHeapSize(DataSize offHeapSize) {
+                this.offHeapSize = offHeapSize;
+            }
+
+            public DataSize getDiskSize() {
+                return diskSize;
+            }
+
+            public void setDiskSize(DataSize diskSize) {
+                this.diskSize = diskSize;
+            }
+
+            public Duration getTimeToLive() {
+                return timeToLive;
+            }
+
+            public void setTimeToLive(Duration timeToLive) {
+                this.timeToLive = timeToLive;
+            }
+
+            public Integer getNearEntries() {
+                return nearEntries;
+            }
+
+            public void setNearEntries(Integer nearEntries) {
+                this.nearEntries = nearEntries;
+            }
+
+            public Duration getNearTimeToLive() {
+                return nearTimeToLive;
+            }
+
+            public void setNearTimeToLive(Duration nearTimeToLive) {
+                this.nearTimeToLive = nearTimeToLive;
+            }
+        }
+
+        public static class WarmUp {
+
+            private boolean enabled = true;
+
+            private Duration timeBudget = Duration.ofSeconds(30);
+
+            private int users = 1000;
+
+            private int pessoas = 10000;
+
+            private int batchSize = 100;
+
+            /**
+             * The ids of the most read pessoas, written every {@code snapshot-interval} and on shutdown for the next
+             * warm-up.
+             */
+            private String pessoaReadsFile = Paths
+                .get(System.getProperty("java.io.tmpdir"), "provapesquisador", "pessoa-reads.txt")
+                .toString();
+
+            private Duration snapshotInterval = Duration.ofMinutes(5);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public Duration getTimeBudget() {
+                return timeBudget;
+            }
+
+            public void setTimeBudget(Duration timeBudget) {
+                this.timeBudget = timeBudget;
+            }
+
+            public int getUsers() {
+                return users;
+            }
+
+            public void setUsers(int users) {
+                this.users = users;
+            }
+
+            public int getPessoas() {
+                return pessoas;
+            }
+
+            public void setPessoas(int pessoas) {
+                this.pessoas = pessoas;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public String getPessoaReadsFile() {
+                return pessoaReadsFile;
+            }
+
+            public void setPessoaReadsFile(String pessoaReadsFile) {
+                this.pessoaReadsFile = pessoaReadsFile;
+            }
+
+            public Duration getSnapshotInterval() {
+                return snapshotInterval;
+            }
+
+            public void setSnapshotInterval(Duration snapshotInterval) {
+                this.snapshotInterval = snapshotInterval;
+            }
+        }
+
+        public static class Invalidation {
+
+            private boolean enabled = false;
+
+            /**
+             * The port receiving the invalidations of the peers, published in the Eureka metadata.
+             */
+            private int port = 8781;
+
+            /**
+             * The address the port is bound to: the internal address of the node, which its peers reach.
+             */
+            private String bindAddress = "127.0.0.1";
+
+            private String serviceId = "provapesquisador";
+
+            /**
+             * Base64 key signing the invalidations, shared by all the nodes and used for nothing else.
+             */
+            private String secret;
+
+            private Duration batchInterval = Duration.ofMillis(100);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getPort() {
+                return port;
+            }
+
+            public void setPort(int port) {
+                this.port = port;
+            }
+
+            public String getBindAddress() {
+                return bindAddress;
+            }
+
+            public void setBindAddress(String bindAddress) {
+                this.bindAddress = bindAddress;
+            }
+
+            public String getServiceId() {
+                return serviceId;
+            }
+
+            public void setServiceId(String serviceId) {
+                this.serviceId = serviceId;
+            }
+
+            public String getSecret() {
+                return secret;
+            }
+
+            public void setSecret(String secret) {
+                this.secret = secret;
+            }
+
+            public Duration getBatchInterval() {
+                return batchInterval;
+            }
+
+            public void setBatchInterval(Duration batchInterval) {
+                this.batchInterval = batchInterval;
+            }
+        }
+    }
+
+    public static class Security {
+
+        private final TokenCache tokenCache = new TokenCache();
+
+        private final Jwt jwt = new Jwt();
+
+        private final Revocation revocation = new Revocation();
+
+        private final RefreshToken refreshToken = new RefreshToken();
+
+        private final Password password = new Password();
+
+        private final AuthenticationExecutor authenticationExecutor = new AuthenticationExecutor();
+
+        private final RateLimit rateLimit = new RateLimit();
+
+        public TokenCache getTokenCache() {
+            return tokenCache;
+        }
+
+        public Jwt getJwt() {
+            return jwt;
+        }
+
+        public Revocation getRevocation() {
+            return revocation;
+        }
+
+        public RefreshToken getRefreshToken() {
+            return refreshToken;
+        }
+
+        public Password getPassword() {
+            return password;
+        }
+
+        public AuthenticationExecutor getAuthenticationExecutor() {
+            return authenticationExecutor;
+        }
+
+        public RateLimit getRateLimit() {
+            return rateLimit;
+        }
+
+        public static class TokenCache {
+
+            private boolean enabled = true;
+
+            /**
+             * Verified tokens kept until they expire.
+             */
+            private int maxEntries = 10000;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(int maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+        }
+
+        public static class Jwt {
+
+            /**
+             * {@code HS512} with the {@code jhipster.security.authentication.jwt} secret, or {@code RS256} or
+             * {@code ES256} with rotated key pairs published in {@code /.well-known/jwks.json}.
+             */
+            private String algorithm = "HS512";
+
+            /**
+             * Age of the signing key when the next one is created.
+             */
+            private Duration rotationInterval = Duration.ofDays(7);
+
+            /**
+             * Time a new key is published before it signs tokens, so that the edge has fetched it by then.
+             */
+            private Duration publicationDelay = Duration.ofMinutes(10);
+
+            /**
+             * Interval of the reloads of the keys, which also rotate them.
+             */
+            private Duration refreshInterval = Duration.ofMinutes(1);
+
+            /**
+             * Base64 256-bit AES key encrypting the private keys of the {@code RS256} and {@code ES256} modes.
+             */
+            private String keyEncryptionKey;
+
+            public String getAlgorithm() {
+                return algorithm;
+            }
+
+            public void setAlgorithm(String algorithm) {
+                this.algorithm = algorithm;
+            }
+
+            public Duration getRotationInterval() {
+                return rotationInterval;
+            }
+
+            public void setRotationInterval(Duration rotationInterval) {
+                this.rotationInterval = rotationInterval;
+            }
+
+            public Duration getPublicationDelay() {
+                return publicationDelay;
+            }
+
+            public void setPublicationDelay(Duration publicationDelay) {
+                this.publicationDelay = publicationDelay;
+            }
+
+            public Duration getRefreshInterval() {
+                return refreshInterval;
+            }
+
+            public void setRefreshInterval(Duration refreshInterval) {
+                this.refreshInterval = refreshInterval;
+            }
+
+            public String getKeyEncryptionKey() {
+                return keyEncryptionKey;
+            }
+
+            public void setKeyEncryptionKey(String keyEncryptionKey) {
+                this.keyEncryptionKey = keyEncryptionKey;
+            }
+        }
+
+        public static class Revocation {
+
+            /**
+             * Interval of the reloads of the revocations made by the other nodes.
+             */
+            private Duration refreshInterval = Duration.ofSeconds(10);
+
+            public Duration getRefreshInterval() {
+                return refreshInterval;
+            }
+
+            public void setRefreshInterval(Duration refreshInterval) {
+                this.refreshInterval = refreshInterval;
+            }
+        }
+
+        public static class RefreshToken {
+
+            /**
+             * Validity of the refresh tokens issued without remember-me, which use the remember-me validity of the
+             * access tokens otherwise. Rotating a refresh token doesn't extend it.
+             */
+            private Duration tokenValidity = Duration.ofDays(1);
+
+            public Duration getTokenValidity() {
+                return tokenValidity;
+            }
+
+            public void setTokenValidity(Duration tokenValidity) {
+                this.tokenValidity = tokenValidity;
+            }
+        }
+
+        public static class Password {
+
+            /**
+             * {@code bcrypt} or {@code argon2}, for the new hashes. The hashes of another algorithm or of a lower cost
+             * are upgraded on the next successful login.
+             */
+            private String algorithm = "bcrypt";
+
+            /**
+             * Log2 of the BCrypt rounds.
+             */
+            private int bcryptStrength = 10;
+
+            /**
+             * Memory of the Argon2 hashes, in KiB.
+             */
+            private int argon2Memory = 19456;
+
+            private int argon2Iterations = 2;
+
+            private int argon2Parallelism = 1;
+
+            public String getAlgorithm() {
+                return algorithm;
+            }
+
+            public void setAlgorithm(String algorithm) {
+                this.algorithm = algorithm;
+            }
+
+            public int getBcryptStrength() {
+                return bcryptStrength;
+            }
+
+            public void setBcryptStrength(int bcryptStrength) {
+                this.bcryptStrength = bcryptStrength;
+            }
+
+            public int getArgon2Memory() {
+                return argon2Memory;
+            }
+
+            public void setArgon2Memory(int argon2Memory) {
+                this.argon2Memory = argon2Memory;
+            }
+
+            public int getArgon2Iterations() {
+                return argon2Iterations;
+            }
+
+            public void setArgon2Iterations(int argon2Iterations) {
+                this.argon2Iterations = argon2Iterations;
+            }
+
+            public int getArgon2Parallelism() {
+                return argon2Parallelism;
+            }
+
+            public void setArgon2Parallelism(int argon2Parallelism) {
+                this.argon2Parallelism = argon2Parallelism;
+            }
+        }
+
+        public static class AuthenticationExecutor {
+
+            /**
+             * Threads hashing the passwords of the logins, which caps their CPU.
+             */
+            private int poolSize = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+            /**
+             * Logins waiting for a thread, beyond which they are refused with a 503.
+             */
+            private int queueCapacity = 100;
+
+            public int getPoolSize() {
+                return poolSize;
+            }
+
+            public void setPoolSize(int poolSize) {
+                this.poolSize = poolSize;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+        }
+
+        public static class RateLimit {
+
+            private boolean enabled = true;
+
+            /**
+             * Token buckets kept in memory, the least recently used ones are forgotten beyond.
+             */
+            private int maxBuckets = 100000;
+
+            /**
+             * Addresses or CIDR blocks of the proxies whose {@code X-Forwarded-For} gives the client IP.
+             */
+            private List<String> trustedProxies = new ArrayList<>();
+
+            private final Endpoint authenticate = new Endpoint(new Limit(20, Duration.ofMinutes(1)), new Limit(5, Duration.ofMinutes(1)));
+
+            private final Endpoint passwordReset = new Endpoint(new Limit(5, Duration.ofMinutes(1)), new Limit(3, Duration.ofHours(1)));
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getMaxBuckets() {
+                return maxBuckets;
+            }
+
+            public void setMaxBuckets(int maxBuckets) {
+                this.maxBuckets = maxBuckets;
+            }
+
+            public List<String> getTrustedProxies() {
+                return trustedProxies;
+            }
+
+            public void setTrustedProxies(List<String> trustedProxies) {
+                this.trustedProxies = trustedProxies;
+            }
+
+            public Endpoint getAuthenticate() {
+                return authenticate;
+            }
+
+            public Endpoint getPasswordReset() {
+                return passwordReset;
+            }
+
+            public static class Endpoint {
+
+                private final Limit perIp;
+
+                private final Limit perLogin;
+
+                public Endpoint(Limit perIp, Limit perLogin) {
+                    this.perIp = perIp;
+                    this.perLogin = perLogin;
+                }
+
+                public Limit getPerIp() {
+                    return perIp;
+                }
+
+                public Limit getPerLogin() {
+                    return perLogin;
+                }
+            }
+
+            /**
+             * A token bucket of {@code capacity} requests, refilled at {@code capacity} requests per {@code period}.
+             */
+            public static class Limit {
+
+                private int capacity;
+
+                private Duration period;
+
+                public Limit(int capacity, Duration period) {
+                    this.capacity = capacity;
+                    this.period = period;
+                }
+
+                public int getCapacity() {
+                    return capacity;
+                }
+
+                public void setCapacity(int capacity) {
+                    this.capacity = capacity;
+                }
+
+                public Duration getPeriod() {
+                    return period;
+                }
+
+                public void setPeriod(Duration period) {
+                    this.period = period;
+                }
+            }
+        }
+    }
+
+    public static class Mail {
+
+        private final Outbox outbox = new Outbox();
+
+        public Outbox getOutbox() {
+            return outbox;
+        }
+
+        /**
+         * The outbox of the mails, see {@code MailOutboxService}.
+         */
+        public static class Outbox {
+
+            /**
+             * Whether this node sends the mails of the outbox: all the nodes queue them.
+             */
+            private boolean enabled = true;
+
+            private Duration pollInterval = Duration.ofSeconds(5);
+
+            /**
+             * Threads sending the mails, each over its own SMTP connection.
+             */
+            private int poolSize = 2;
+
+            /**
+             * Mails sent over a single SMTP connection.
+             */
+            private int batchSize = 50;
+
+            /**
+             * How long a batch is claimed by its thread, before another one may send it again.
+             */
+            private Duration lockDuration = Duration.ofMinutes(5);
+
+            /**
+             * Attempts to send a mail before it is dead-lettered.
+             */
+            private int maxAttempts = 8;
+
+            /**
+             * The delay before the second attempt, doubled after each failure up to {@code max-backoff}.
+             */
+            private Duration initialBackoff = Duration.ofSeconds(30);
+
+            private Duration maxBackoff = Duration.ofHours(1);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public Duration getPollInterval() {
+                return pollInterval;
+            }
+
+            public void setPollInterval(Duration pollInterval) {
+                this.pollInterval = pollInterval;
+            }
+
+            public int getPoolSize() {
+                return poolSize;
+            }
+
+            public void setPoolSize(int poolSize) {
+                this.poolSize = poolSize;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public Duration getLockDuration() {
+                return lockDuration;
+            }
+
+            public void setLockDuration(Duration lockDuration) {
+                this.lockDuration = lockDuration;
+            }
+
+            public int getMaxAttempts() {
+                return maxAttempts;
+            }
+
+            public void setMaxAttempts(int maxAttempts) {
+                this.maxAttempts = maxAttempts;
+            }
+
+            public Duration getInitialBackoff() {
+                return initialBackoff;
+            }
+
+            public void setInitialBackoff(Duration initialBackoff) {
+                this.initialBackoff = initialBackoff;
+            }
+
+            public Duration getMaxBackoff() {
+                return maxBackoff;
+            }
+
+            public void setMaxBackoff(Duration maxBackoff) {
+                this.maxBackoff = maxBackoff;
+            }
+        }
+    }
+}
@@ -23,8 +23,11 @@ public class AsyncConfiguration implements AsyncConfigurer {
 
     private final TaskExecutionProperties taskExecutionProperties;
 
-    public AsyncConfiguration(TaskExecutionProperties taskExecutionProperties) {
+    private final ApplicationProperties applicationProperties;
+
+    public AsyncConfiguration(TaskExecutionProperties taskExecutionProperties, ApplicationProperties applicationProperties) {
         this.taskExecutionProperties = taskExecutionProperties;
+        this.applicationProperties = applicationProperties;
     }
 
     @Override
@@ -39,6 +42,63 @@ public class AsyncConfiguration implements AsyncConfigurer {
         return new ExceptionHandlingAsyncTaskExecutor(executor);
     }
 
+    /**
+     * Executor of the pessoa import jobs, apart from the {@code taskExecutor} so that long imports never hold up the
+     * mails and thumbnails. Its queue is bounded: jobs it rejects fail at once instead of waiting unseen.
+     */
+    @Bean(name = "importJobExecutor")
+    public ThreadPoolTaskExecutor importJobExecutor() {
+        log.debug("Creating Import Job Task Executor");
+        ApplicationProperties.Pessoa.ImportJobs importJobs = applicationProperties.getPessoa().getImportJobs();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(importJobs.getPoolSize());
+        executor.setMaxPoolSize(importJobs.getPoolSize());
+        executor.setQueueCapacity(importJobs.getQueueCapacity());
+        executor.setThreadNamePrefix("import-job-");
+        // running jobs are interrupted between two chunks, and resumed from their checkpoint on the next start
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.setAwaitTerminationMillis(importJobs.getShutdownTimeout().toMillis());
+        return executor;
+    }
+
+    /**
+     * Executor of the password checks of the logins, so that a burst of logins queues up here instead of holding all the
+     * web workers. Its queue is bounded: logins it rejects are refused at once.
+     */
+    @Bean(name = "authenticationExecutor")
+    public ThreadPoolTaskExecutor authenticationExecutor() {
+        log.debug("Creating Authentication Task Executor");
+        ApplicationProperties.Security.AuthenticationExecutor authenticationExecutor = applicationProperties
+            .getSecurity()
+            .getAuthenticationExecutor();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(authenticationExecutor.getPoolSize());
+        executor.setMaxPoolSize(authenticationExecutor.getPoolSize());
+        executor.setQueueCapacity(authenticationExecutor.getQueueCapacity());
+        executor.setThreadNamePrefix("authentication-");
+        return executor;
+    }
+
+    /**
+     * Executor of the outbox workers sending the mails, apart from the {@code taskExecutor} so that a burst of mails
+     * never holds up the other asynchronous tasks. It has no queue: the workers drain the outbox until it is empty, so
+     * a worker rejected while all of them are busy has nothing left to do.
+     */
+    @Bean(name = "mailExecutor")
+    public ThreadPoolTaskExecutor mailExecutor() {
+        log.debug("Creating Mail Task Executor");
+        ApplicationProperties.Mail.Outbox outbox = applicationProperties.getMail().getOutbox();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(outbox.getPoolSize());
+        executor.setMaxPoolSize(outbox.getPoolSize());
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("mail-");
+        // the batches being sent are given the time to finish, the workers stop before their next one
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return new SimpleAsyncUncaughtExceptionHandler();
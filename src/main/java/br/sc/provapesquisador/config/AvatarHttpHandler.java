@@ -0,0 +1,140 @@
+package br.sc.provapesquisador.config;
+
+import br.sc.provapesquisador.security.jwt.TokenProvider;
+import br.sc.provapesquisador.service.PessoaAvatarFileStore;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.resource.PathResourceManager;
+import io.undertow.server.handlers.resource.ResourceHandler;
+import io.undertow.util.ETag;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+import io.undertow.util.MimeMappings;
+import io.undertow.util.StatusCodes;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Undertow handler serving the files of the {@link PessoaAvatarFileStore} under {@code /avatars}, ahead of the
+ * servlet and Spring MVC.
+ * <p>
+ * Undertow's {@link ResourceHandler} sends the files with {@code FileChannel.transferTo} (sendfile), so avatar
+ * bytes never go through the heap. It also answers {@code Range}, {@code If-None-Match} (the ETag is the file
+ * hash) and {@code If-Modified-Since} requests.
+ * <p>
+ * The handler runs before Spring Security, so it checks the JWT of the {@code Authorization} header itself with the
+ * {@link TokenProvider}, and lets only the browser cache the avatars. An {@code img} tag can't send that header, so the
+ * web app loads the avatars through axios ({@code pessoa-avatar.tsx}).
+ * <p>
+ * A {@code size} query parameter serves the smallest thumbnail at least that large instead, when there is one,
+ * see {@link PessoaAvatarFileStore#thumbnail}.
+ */
+class AvatarHttpHandler implements HttpHandler {
+
+    static final String PATH = "/avatars";
+
+    static final String SIZE_PARAMETER = "size";
+
+    private static final HttpString X_CONTENT_TYPE_OPTIONS = new HttpString("X-Content-Type-Options");
+
+    private static final String BEARER = "Bearer ";
+
+    private final Supplier<PessoaAvatarFileStore> store;
+
+    private final Supplier<TokenProvider> tokenProvider;
+
+    private final String cacheControl;
+
+    private final ResourceHandler resourceHandler;
+
+    /**
+     * @param directory the store directory, created if needed.
+     * @param store the store, only looked up when the first avatar is requested.
+     * @param tokenProvider the provider checking the JWTs, only looked up when the first avatar is requested.
+     * @param cacheSeconds the {@code max-age} of the avatars.
+     */
+    AvatarHttpHandler(Path directory, Supplier<PessoaAvatarFileStore> store, Supplier<TokenProvider> tokenProvider, int cacheSeconds) {
+        this.store = store;
+        this.tokenProvider = tokenProvider;
+        this.cacheControl = "private, max-age=" + cacheSeconds;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.resourceHandler =
+            new ResourceHandler(
+                PathResourceManager
+                    .builder()
+                    .setBase(directory)
+                    .setFollowLinks(false)
+                    .setETagFunction(path -> new ETag(false, stripExtension(path.getFileName().toString())))
+                    .build()
+            )
+                .setDirectoryListingEnabled(false)
+                .setMimeMappings(MimeMappings.builder(true).addMapping("webp", "image/webp").build())
+                .setCacheTime(cacheSeconds);
+    }
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        if (exchange.isInIoThread()) {
+            // materializing a file may block on the database
+            exchange.dispatch(this);
+            return;
+        }
+        if (!isAuthenticated(exchange)) {
+            exchange.setStatusCode(StatusCodes.UNAUTHORIZED);
+            exchange.endExchange();
+            return;
+        }
+        String fileName = exchange.getRelativePath().startsWith("/")
+            ? exchange.getRelativePath().substring(1)
+            : exchange.getRelativePath();
+        Deque<String> size = exchange.getQueryParameters().get(SIZE_PARAMETER);
+        if (size != null && !size.isEmpty()) {
+            String thumbnail;
+            try {
+                thumbnail = store.get().thumbnail(fileName, Integer.parseInt(size.getFirst()));
+            } catch (NumberFormatException e) {
+                exchange.setStatusCode(StatusCodes.BAD_REQUEST);
+                exchange.endExchange();
+                return;
+            }
+            // avatars that are not readable images have no thumbnails, serve the original instead
+            if (store.get().materialize(thumbnail)) {
+                fileName = thumbnail;
+            }
+        }
+        Optional<String> relativePath = store.get().resolve(fileName);
+        if (relativePath.isEmpty() || !store.get().materialize(fileName)) {
+            exchange.setStatusCode(StatusCodes.NOT_FOUND);
+            exchange.endExchange();
+            return;
+        }
+        exchange.getResponseHeaders().put(X_CONTENT_TYPE_OPTIONS, "nosniff");
+        // in place of the public Cache-Control of the ResourceHandler
+        exchange.addResponseCommitListener(committed -> committed.getResponseHeaders().put(Headers.CACHE_CONTROL, cacheControl));
+        exchange.setRelativePath("/" + relativePath.get());
+        resourceHandler.handleRequest(exchange);
+    }
+
+    private boolean isAuthenticated(HttpServerExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst(Headers.AUTHORIZATION);
+        return (
+            authorization != null &&
+            authorization.startsWith(BEARER) &&
+            tokenProvider.get().getValidAuthentication(authorization.substring(BEARER.length())).isPresent()
+        );
+    }
+
+    private static String stripExtension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? fileName : fileName.substring(0, dot);
+    }
+}
@@ -1,16 +1,39 @@
 package br.sc.provapesquisador.config;
 
+import br.sc.provapesquisador.repository.ListeningTimestampsCacheFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.Set;
+import javax.cache.Caching;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import org.ehcache.config.builders.*;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.impl.config.persistence.DefaultPersistenceConfiguration;
 import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
 import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.actuate.metrics.cache.JCacheCacheMeterBinderProvider;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.boot.info.BuildProperties;
 import org.springframework.boot.info.GitProperties;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.jcache.JCacheCache;
+import org.springframework.cache.jcache.JCacheCacheManager;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
 import org.springframework.cloud.client.serviceregistry.Registration;
@@ -24,23 +47,94 @@ public class CacheConfiguration {
 
     private GitProperties gitProperties;
     private BuildProperties buildProperties;
-    private final javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration;
+    private final JHipsterProperties.Cache.Ehcache ehcache;
+    private final ApplicationProperties.Cache cache;
 
-    public CacheConfiguration(JHipsterProperties jHipsterProperties) {
-        JHipsterProperties.Cache.Ehcache ehcache = jHipsterProperties.getCache().getEhcache();
+    public CacheConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
+        this.ehcache = jHipsterProperties.getCache().getEhcache();
+        this.cache = applicationProperties.getCache();
+    }
 
-        jcacheConfiguration =
-            Eh107Configuration.fromEhcacheCacheConfiguration(
-                CacheConfigurationBuilder
-                    .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(ehcache.getMaxEntries()))
-                    .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ehcache.getTimeToLiveSeconds())))
-                    .build()
+    /**
+     * The Ehcache JCache manager, in place of the Spring Boot one to give it a persistence directory when a region
+     * has a disk tier.
+     */
+    @Bean
+    public javax.cache.CacheManager jCacheCacheManager(ObjectProvider<JCacheManagerCustomizer> cacheManagerCustomizers) {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        javax.cache.CacheManager cacheManager;
+        if (cache.getRegions().values().stream().anyMatch(region -> region.getDiskSize() != null)) {
+            DefaultConfiguration configuration = new DefaultConfiguration(
+                provider.getDefaultClassLoader(),
+                new DefaultPersistenceConfiguration(Paths.get(cache.getDiskDirectory()).toFile())
             );
+            cacheManager = provider.getCacheManager(provider.getDefaultURI(), configuration);
+        } else {
+            cacheManager = provider.getCacheManager();
+        }
+        cacheManagerCustomizers.orderedStream().forEach(customizer -> customizer.customize(cacheManager));
+        return cacheManager;
+    }
+
+    /**
+     * The Spring cache manager, putting a {@link CoalescingNearCache} in front of the regions with
+     * {@code near-entries}.
+     */
+    @Bean
+    public org.springframework.cache.CacheManager cacheManager(javax.cache.CacheManager jCacheCacheManager) {
+        return new JCacheCacheManager(jCacheCacheManager) {
+            @Override
+            protected org.springframework.cache.Cache decorateCache(org.springframework.cache.Cache cache) {
+                ApplicationProperties.Cache.Region region = CacheConfiguration.this.cache.getRegions().get(cache.getName());
+                if (region == null || region.getNearEntries() == null) {
+                    return super.decorateCache(cache);
+                }
+                return super.decorateCache(new CoalescingNearCache(cache, region.getNearEntries(), region.getNearTimeToLive()));
+            }
+        };
+    }
+
+    /**
+     * The metrics of the region behind a {@link CoalescingNearCache}, with its near hits and misses, loads and loads
+     * coalesced with a concurrent one.
+     */
+    @Bean
+    public CacheMeterBinderProvider<CoalescingNearCache> coalescingNearCacheMeterBinderProvider() {
+        JCacheCacheMeterBinderProvider jCacheMeterBinderProvider = new JCacheCacheMeterBinderProvider();
+        return (cache, tags) ->
+            registry -> {
+                if (cache.getDelegate() instanceof JCacheCache) {
+                    jCacheMeterBinderProvider.getMeterBinder((JCacheCache) cache.getDelegate(), tags).bindTo(registry);
+                }
+                Tags cacheTags = Tags.of(tags).and("cache", cache.getName());
+                FunctionCounter
+                    .builder("cache.near.gets", cache, CoalescingNearCache::getNearHits)
+                    .tags(cacheTags)
+                    .tag("result", "hit")
+                    .register(registry);
+                FunctionCounter
+                    .builder("cache.near.gets", cache, CoalescingNearCache::getNearMisses)
+                    .tags(cacheTags)
+                    .tag("result", "miss")
+                    .register(registry);
+                FunctionCounter.builder("cache.loads", cache, CoalescingNearCache::getLoads).tags(cacheTags).register(registry);
+                FunctionCounter
+                    .builder("cache.loads.coalesced", cache, CoalescingNearCache::getCoalescedLoads)
+                    .tags(cacheTags)
+                    .register(registry);
+            };
     }
 
     @Bean
-    public HibernatePropertiesCustomizer hibernatePropertiesCustomizer(javax.cache.CacheManager cacheManager) {
-        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+    public HibernatePropertiesCustomizer hibernatePropertiesCustomizer(
+        javax.cache.CacheManager cacheManager,
+        ListeningTimestampsCacheFactory timestampsCacheFactory
+    ) {
+        return hibernateProperties -> {
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+            // tells the CacheInvalidationBus about the tables whose cached queries are stale
+            hibernateProperties.put(AvailableSettings.QUERY_CACHE_FACTORY, timestampsCacheFactory);
+        };
     }
 
     @Bean
@@ -52,17 +146,99 @@ public class CacheConfiguration {
             createCache(cm, br.sc.provapesquisador.domain.Authority.class.getName());
             createCache(cm, br.sc.provapesquisador.domain.User.class.getName() + ".authorities");
             createCache(cm, br.sc.provapesquisador.domain.Pessoa.class.getName());
+            createCache(cm, br.sc.provapesquisador.repository.PessoaRepository.QUERY_CACHE);
+            createCache(cm, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME);
+            createCache(cm, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME);
             // jhipster-needle-ehcache-add-entry
         };
     }
 
+    /**
+     * Hit, miss and put counters of the Hibernate query cache regions, from the JCache statistics of their caches
+     * rather than from the Hibernate statistics, which would cost every session and query. A cached result that
+     * Hibernate then finds stale by the update timestamps of its tables counts as a hit.
+     */
+    @Bean
+    public MeterBinder queryCacheMetrics(javax.cache.CacheManager jCacheCacheManager) {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        return registry -> {
+            for (String region : new String[] { br.sc.provapesquisador.repository.PessoaRepository.QUERY_CACHE }) {
+                // publishes the CacheStatisticsMXBean of the region, Ehcache keeps its statistics anyway
+                jCacheCacheManager.enableStatistics(region, true);
+                queryCacheCounter("hibernate.query.cache.requests", mBeanServer, region, "CacheHits")
+                    .tag("result", "hit")
+                    .register(registry);
+                queryCacheCounter("hibernate.query.cache.requests", mBeanServer, region, "CacheMisses")
+                    .tag("result", "miss")
+                    .register(registry);
+                queryCacheCounter("hibernate.query.cache.puts", mBeanServer, region, "CachePuts").register(registry);
+            }
+        };
+    }
+
+    private static FunctionCounter.Builder<MBeanServer> queryCacheCounter(
+        String name,
+        MBeanServer mBeanServer,
+        String region,
+        String attribute
+    ) {
+        return FunctionCounter
+            .builder(
+                name,
+                mBeanServer,
+                server -> {
+                    try {
+                        ObjectName pattern = new ObjectName("javax.cache:type=CacheStatistics,Cache=" + region + ",*");
+                        Set<ObjectName> names = server.queryNames(pattern, null);
+                        return names.isEmpty() ? 0 : ((Number) server.getAttribute(names.iterator().next(), attribute)).doubleValue();
+                    } catch (JMException e) {
+                        return 0;
+                    }
+                }
+            )
+            .tag("region", region);
+    }
+
     private void createCache(javax.cache.CacheManager cm, String cacheName) {
         javax.cache.Cache<Object, Object> cache = cm.getCache(cacheName);
         if (cache != null) {
             cache.clear();
         } else {
-            cm.createCache(cacheName, jcacheConfiguration);
+            cm.createCache(cacheName, Eh107Configuration.fromEhcacheCacheConfiguration(regionConfiguration(cacheName)));
+        }
+    }
+
+    /**
+     * The configuration of a region, from {@code application.cache.regions} then {@code jhipster.cache.ehcache}.
+     *
+     * @param cacheName the name of the region.
+     * @return the Ehcache configuration of the region.
+     */
+    org.ehcache.config.CacheConfiguration<Object, Object> regionConfiguration(String cacheName) {
+        ApplicationProperties.Cache.Region region = cache.getRegions().getOrDefault(cacheName, new ApplicationProperties.Cache.Region());
+        ResourcePoolsBuilder resourcePools = ResourcePoolsBuilder.newResourcePoolsBuilder();
+        if (region.getHeapSize() != null) {
+            resourcePools = resourcePools.heap(region.getHeapSize().toBytes(), MemoryUnit.B);
+        } else {
+            long heapEntries = region.getHeapEntries() != null ? region.getHeapEntries() : ehcache.getMaxEntries();
+            resourcePools = resourcePools.heap(heapEntries, EntryUnit.ENTRIES);
+        }
+        if (region.getOffHeapSize() != null) {
+            resourcePools = resourcePools.offheap(region.getOffHeapSize().toBytes(), MemoryUnit.B);
+        }
+        if (region.getDiskSize() != null) {
+            resourcePools = resourcePools.disk(region.getDiskSize().toBytes(), MemoryUnit.B, true);
         }
+        Duration timeToLive = region.getTimeToLive() != null ? region.getTimeToLive() : Duration.ofSeconds(ehcache.getTimeToLiveSeconds());
+        return CacheConfigurationBuilder
+            .newCacheConfigurationBuilder(Object.class, Object.class, resourcePools)
+            .withExpiry(
+                // one entry per table, which must never go away: cached query results of a table without timestamp look current
+                RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME.equals(cacheName)
+                    ? ExpiryPolicyBuilder.noExpiration()
+                    : ExpiryPolicyBuilder.timeToLiveExpiration(timeToLive)
+            )
+            .build();
     }
 
     @Autowired(required = false)
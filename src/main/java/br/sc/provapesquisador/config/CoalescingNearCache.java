@@ -0,0 +1,190 @@
+package br.sc.provapesquisador.config;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+/**
+ * A Spring cache in front of another, usually an Ehcache region, for its hottest keys.
+ * <p>
+ * Up to {@code maxEntries} values are kept in a {@link ConcurrentHashMap} for {@code timeToLive}, read without the
+ * serialization, expiry and statistics of the region. The loads of {@link #get(Object, Callable)}, used by the
+ * {@code @Cacheable(sync = true)} methods, are single-flight: concurrent misses on a key wait for the first one
+ * instead of querying the database each, so an expired hot key doesn't end in a thundering herd.
+ */
+public class CoalescingNearCache implements Cache {
+
+    private final Cache delegate;
+
+    private final int maxEntries;
+
+    private final long timeToLiveNanos;
+
+    private final Map<Object, NearEntry> near = new ConcurrentHashMap<>();
+
+    private final Map<Object, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder nearHits = new LongAdder();
+
+    private final LongAdder nearMisses = new LongAdder();
+
+    private final LongAdder loads = new LongAdder();
+
+    private final LongAdder coalescedLoads = new LongAdder();
+
+    public CoalescingNearCache(Cache delegate, int maxEntries, Duration timeToLive) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.timeToLiveNanos = timeToLive.toNanos();
+    }
+
+    public Cache getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = getNear(key);
+        if (value == null) {
+            value = delegate.get(key);
+            if (value != null) {
+                putNear(key, value);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        Object stored = value != null ? value.get() : null;
+        if (stored != null && type != null && !type.isInstance(stored)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + stored);
+        }
+        return (T) stored;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper value = get(key);
+        if (value != null) {
+            return (T) value.get();
+        }
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> pending = loading.putIfAbsent(key, load);
+        if (pending != null) {
+            coalescedLoads.increment();
+            try {
+                return (T) pending.join();
+            } catch (CompletionException e) {
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+        loads.increment();
+        try {
+            T loaded = valueLoader.call();
+            // an eviction during the load removed it from the loading ones: the loaded value may be stale
+            if (loading.get(key) == load) {
+                put(key, loaded);
+            }
+            load.complete(loaded);
+            return loaded;
+        } catch (Exception e) {
+            load.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            loading.remove(key, load);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        putNear(key, new SimpleValueWrapper(value));
+    }
+
+    @Override
+    public void evict(Object key) {
+        loading.remove(key);
+        near.remove(key);
+        delegate.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        loading.clear();
+        near.clear();
+        delegate.clear();
+    }
+
+    public long getNearHits() {
+        return nearHits.sum();
+    }
+
+    public long getNearMisses() {
+        return nearMisses.sum();
+    }
+
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    public long getCoalescedLoads() {
+        return coalescedLoads.sum();
+    }
+
+    private ValueWrapper getNear(Object key) {
+        NearEntry entry = near.get(key);
+        if (entry != null && System.nanoTime() - entry.created < timeToLiveNanos) {
+            nearHits.increment();
+            return entry.value;
+        }
+        if (entry != null) {
+            near.remove(key, entry);
+        }
+        nearMisses.increment();
+        return null;
+    }
+
+    private void putNear(Object key, ValueWrapper value) {
+        if (near.size() >= maxEntries && !near.containsKey(key)) {
+            // no recency is kept on reads: any entry makes room, the hot ones come back on their next read
+            Iterator<Object> keys = near.keySet().iterator();
+            if (keys.hasNext()) {
+                near.remove(keys.next());
+            }
+        }
+        near.put(key, new NearEntry(value, System.nanoTime()));
+    }
+
+    private static final class NearEntry {
+
+        private final ValueWrapper value;
+
+        private final long created;
+
+        private NearEntry(ValueWrapper value, long created) {
+            this.value = value;
+            this.created = created;
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package br.sc.provapesquisador.config;
 
+import br.sc.provapesquisador.management.SecurityMetersService;
 import br.sc.provapesquisador.security.*;
 import br.sc.provapesquisador.security.jwt.*;
+import br.sc.provapesquisador.security.ratelimit.RateLimitFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Map;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpMethod;
@@ -11,7 +15,9 @@ import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -27,8 +33,14 @@ public class SecurityConfiguration {
 
     private final JHipsterProperties jHipsterProperties;
 
+    private final ApplicationProperties applicationProperties;
+
     private final TokenProvider tokenProvider;
 
+    private final SecurityMetersService securityMetersService;
+
+    private final ObjectMapper mapper;
+
     private final CorsFilter corsFilter;
     private final SecurityProblemSupport problemSupport;
 
@@ -36,17 +48,43 @@ public class SecurityConfiguration {
         TokenProvider tokenProvider,
         CorsFilter corsFilter,
         JHipsterProperties jHipsterProperties,
-        SecurityProblemSupport problemSupport
+        ApplicationProperties applicationProperties,
+        SecurityProblemSupport problemSupport,
+        SecurityMetersService securityMetersService,
+        ObjectMapper mapper
     ) {
         this.tokenProvider = tokenProvider;
+        this.securityMetersService = securityMetersService;
+        this.mapper = mapper;
         this.corsFilter = corsFilter;
         this.problemSupport = problemSupport;
         this.jHipsterProperties = jHipsterProperties;
+        this.applicationProperties = applicationProperties;
     }
 
+    /**
+     * The encoder of the {@code application.security.password.algorithm}, prefixing the hashes with their algorithm.
+     * <p>
+     * The hashes without a prefix are the BCrypt ones created before. All the hashes of another algorithm or of a lower
+     * cost are upgraded on the next login, through {@code UserService.updatePassword}.
+     */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        ApplicationProperties.Security.Password password = applicationProperties.getSecurity().getPassword();
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(password.getBcryptStrength());
+        Argon2PasswordEncoder argon2 = new Argon2PasswordEncoder(
+            16,
+            32,
+            password.getArgon2Parallelism(),
+            password.getArgon2Memory(),
+            password.getArgon2Iterations()
+        );
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(
+            password.getAlgorithm(),
+            Map.of("bcrypt", bcrypt, "argon2", argon2)
+        );
+        passwordEncoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return passwordEncoder;
     }
 
     @Bean
@@ -86,19 +124,21 @@ public class SecurityConfiguration {
             .sessionManagement()
             .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
         .and()
-            .authorizeRequests()
+            .authorizeHttpRequests()
+            .antMatchers("/.well-known/jwks.json").permitAll()
             .antMatchers("/api/authenticate").permitAll()
+            .antMatchers("/api/authenticate/refresh").permitAll()
             .antMatchers("/api/register").permitAll()
             .antMatchers("/api/activate").permitAll()
             .antMatchers("/api/account/reset-password/init").permitAll()
             .antMatchers("/api/account/reset-password/finish").permitAll()
-            .antMatchers("/api/admin/**").hasAuthority(AuthoritiesConstants.ADMIN)
+            .antMatchers("/api/admin/**").access(AuthorityAuthorizationManager.hasAuthority(AuthoritiesConstants.ADMIN))
             .antMatchers("/api/**").authenticated()
             .antMatchers("/management/health").permitAll()
             .antMatchers("/management/health/**").permitAll()
             .antMatchers("/management/info").permitAll()
             .antMatchers("/management/prometheus").permitAll()
-            .antMatchers("/management/**").hasAuthority(AuthoritiesConstants.ADMIN)
+            .antMatchers("/management/**").access(AuthorityAuthorizationManager.hasAuthority(AuthoritiesConstants.ADMIN))
         .and()
             .httpBasic()
         .and()
@@ -108,6 +148,6 @@ public class SecurityConfiguration {
     }
 
     private JWTConfigurer securityConfigurerAdapter() {
-        return new JWTConfigurer(tokenProvider);
+        return new JWTConfigurer(tokenProvider, new RateLimitFilter(applicationProperties, securityMetersService, mapper));
     }
 }
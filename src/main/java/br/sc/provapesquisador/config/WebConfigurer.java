@@ -2,12 +2,17 @@ package br.sc.provapesquisador.config;
 
 import static java.net.URLDecoder.decode;
 
+import br.sc.provapesquisador.security.jwt.TokenProvider;
+import br.sc.provapesquisador.service.PessoaAvatarFileStore;
+import io.undertow.Handlers;
 import java.io.File;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import javax.servlet.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.embedded.undertow.UndertowServletWebServerFactory;
 import org.springframework.boot.web.server.*;
 import org.springframework.boot.web.servlet.ServletContextInitializer;
 import org.springframework.boot.web.servlet.server.ConfigurableServletWebServerFactory;
@@ -34,9 +39,24 @@ public class WebConfigurer implements ServletContextInitializer, WebServerFactor
 
     private final JHipsterProperties jHipsterProperties;
 
-    public WebConfigurer(Environment env, JHipsterProperties jHipsterProperties) {
+    private final ApplicationProperties applicationProperties;
+
+    private final ObjectProvider<PessoaAvatarFileStore> pessoaAvatarFileStore;
+
+    private final ObjectProvider<TokenProvider> tokenProvider;
+
+    public WebConfigurer(
+        Environment env,
+        JHipsterProperties jHipsterProperties,
+        ApplicationProperties applicationProperties,
+        ObjectProvider<PessoaAvatarFileStore> pessoaAvatarFileStore,
+        ObjectProvider<TokenProvider> tokenProvider
+    ) {
         this.env = env;
         this.jHipsterProperties = jHipsterProperties;
+        this.applicationProperties = applicationProperties;
+        this.pessoaAvatarFileStore = pessoaAvatarFileStore;
+        this.tokenProvider = tokenProvider;
     }
 
     @Override
@@ -49,12 +69,34 @@ public class WebConfigurer implements ServletContextInitializer, WebServerFactor
     }
 
     /**
-     * Customize the Servlet engine: Mime types, the document root, the cache.
+     * Customize the Servlet engine: Mime types, the document root, the cache, the avatar files.
      */
     @Override
     public void customize(WebServerFactory server) {
         // When running in an IDE or with ./mvnw spring-boot:run, set location of the static web assets.
         setLocationForStaticAssets(server);
+        setAvatarHandler(server);
+    }
+
+    /**
+     * Serve {@code /avatars} from the local avatar store with Undertow, before the request reaches the servlet.
+     * The store and the token provider are looked up lazily, the web server is created before the persistence layer.
+     */
+    private void setAvatarHandler(WebServerFactory server) {
+        if (server instanceof UndertowServletWebServerFactory) {
+            ApplicationProperties.Pessoa.AvatarStore properties = applicationProperties.getPessoa().getAvatarStore();
+            AvatarHttpHandler avatarHandler = new AvatarHttpHandler(
+                Paths.get(properties.getDirectory()),
+                pessoaAvatarFileStore::getObject,
+                tokenProvider::getObject,
+                (int) properties.getCacheTime().getSeconds()
+            );
+            ((UndertowServletWebServerFactory) server).addDeploymentInfoCustomizers(deploymentInfo ->
+                    deploymentInfo.addInitialHandlerChainWrapper(next ->
+                        Handlers.path(next).addPrefixPath(AvatarHttpHandler.PATH, avatarHandler)
+                    )
+                );
+        }
     }
 
     private void setLocationForStaticAssets(WebServerFactory server) {
@@ -0,0 +1,147 @@
+package br.sc.provapesquisador.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+/**
+ * A key pair signing the JWTs in the asymmetric modes, shared by all the nodes.
+ * <p>
+ * The private key signs the tokens for a rotation interval, the public key is published in the JWKS until the last
+ * token it signed has expired. The private key is as sensitive as the shared HS512 secret it replaces.
+ */
+@Entity
+@Table(name = "jwt_signing_key")
+public class JwtSigningKey implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The {@code kid} of the tokens signed with the key.
+     */
+    @Id
+    @Size(max = 36)
+    @Column(name = "id", length = 36)
+    private String id;
+
+    /**
+     * The JWS algorithm, {@code RS256} or {@code ES256}.
+     */
+    @NotNull
+    @Size(max = 8)
+    @Column(name = "algorithm", length = 8, nullable = false)
+    private String algorithm;
+
+    /**
+     * The Base64 X.509 encoding of the public key.
+     */
+    @NotNull
+    @Size(max = 1000)
+    @Column(name = "public_key", length = 1000, nullable = false)
+    private String publicKey;
+
+    /**
+     * The Base64 PKCS #8 encoding of the private key.
+     */
+    @NotNull
+    @Size(max = 4000)
+    @Column(name = "private_key", length = 4000, nullable = false)
+    private String privateKey;
+
+    @NotNull
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate;
+
+    public String getId() {
+        return this.id;
+    }
+
+    public JwtSigningKey id(String id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getAlgorithm() {
+        return this.algorithm;
+    }
+
+    public JwtSigningKey algorithm(String algorithm) {
+        this.setAlgorithm(algorithm);
+        return this;
+    }
+
+    public void setAlgorithm(String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    public String getPublicKey() {
+        return this.publicKey;
+    }
+
+    public JwtSigningKey publicKey(String publicKey) {
+        this.setPublicKey(publicKey);
+        return this;
+    }
+
+    public void setPublicKey(String publicKey) {
+        this.publicKey = publicKey;
+    }
+
+    public String getPrivateKey() {
+        return this.privateKey;
+    }
+
+    public JwtSigningKey privateKey(String privateKey) {
+        this.setPrivateKey(privateKey);
+        return this;
+    }
+
+    public void setPrivateKey(String privateKey) {
+        this.privateKey = privateKey;
+    }
+
+    public Instant getCreatedDate() {
+        return this.createdDate;
+    }
+
+    public JwtSigningKey createdDate(Instant createdDate) {
+        this.setCreatedDate(createdDate);
+        return this;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof JwtSigningKey)) {
+            return false;
+        }
+        return id != null && id.equals(((JwtSigningKey) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "JwtSigningKey{" +
+            "id='" + getId() + "'" +
+            ", algorithm='" + getAlgorithm() + "'" +
+            ", createdDate='" + getCreatedDate() + "'" +
+            "}";
+    }
+}
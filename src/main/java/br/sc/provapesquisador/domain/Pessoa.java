@@ -1,7 +1,11 @@
 package br.sc.provapesquisador.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.io.Serializable;
+import java.text.Normalizer;
 import java.time.LocalDate;
+import java.util.Locale;
+import java.util.regex.Pattern;
 import javax.persistence.*;
 import javax.validation.constraints.*;
 import org.hibernate.annotations.Cache;
@@ -17,6 +21,8 @@ public class Pessoa implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
     @SequenceGenerator(name = "sequenceGenerator")
@@ -37,19 +43,29 @@ public class Pessoa implements Serializable {
     @Column(name = "email", length = 400, nullable = false)
     private String email;
 
-    @Lob
-    @Column(name = "avatar")
-    private byte[] avatar;
-
     @Column(name = "avatar_content_type")
     private String avatarContentType;
 
+    /**
+     * SHA-256 of the avatar content, which is kept apart in {@link PessoaAvatar} so that listing and caching
+     * pessoas never loads it. {@code null} when the pessoa has no avatar.
+     */
+    @JsonIgnore
+    @Column(name = "avatar_hash", length = 64)
+    private String avatarHash;
+
     @Column(name = "birth_date")
     private LocalDate birthDate;
 
     @Column(name = "excluded")
     private Boolean excluded;
 
+    /**
+     * Lower case, accent free copy of {@link #name}, used by the name search.
+     */
+    @Column(name = "search_name", length = 150)
+    private String searchName;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
 
     public Long getId() {
@@ -104,30 +120,40 @@ public class Pessoa implements Serializable {
         this.email = email;
     }
 
-    public byte[] getAvatar() {
-        return this.avatar;
+    public String getAvatarContentType() {
+        return this.avatarContentType;
     }
 
-    public Pessoa avatar(byte[] avatar) {
-        this.setAvatar(avatar);
+    public Pessoa avatarContentType(String avatarContentType) {
+        this.avatarContentType = avatarContentType;
         return this;
     }
 
-    public void setAvatar(byte[] avatar) {
-        this.avatar = avatar;
+    public void setAvatarContentType(String avatarContentType) {
+        this.avatarContentType = avatarContentType;
     }
 
-    public String getAvatarContentType() {
-        return this.avatarContentType;
+    public String getAvatarHash() {
+        return this.avatarHash;
     }
 
-    public Pessoa avatarContentType(String avatarContentType) {
-        this.avatarContentType = avatarContentType;
+    public Pessoa avatarHash(String avatarHash) {
+        this.setAvatarHash(avatarHash);
         return this;
     }
 
-    public void setAvatarContentType(String avatarContentType) {
-        this.avatarContentType = avatarContentType;
+    public void setAvatarHash(String avatarHash) {
+        this.avatarHash = avatarHash;
+    }
+
+    /**
+     * The URL the avatar is served from: a file of the local avatar store, named after its hash,
+     * so that it can be cached by clients for good.
+     *
+     * @return the avatar URL, or {@code null} when the pessoa has no avatar.
+     */
+    public String getAvatarUrl() {
+        return avatarHash == null ? null : "/avatars/" + PessoaAvatar.fileName(avatarHash, avatarContentType);
     }
 
     public LocalDate getBirthDate() {
@@ -158,6 +184,26 @@ public class Pessoa implements Serializable {
 
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
+    @PrePersist
+    @PreUpdate
+    private void updateSearchName() {
+        this.searchName = normalizeSearchTerm(this.name);
+    }
+
+    /**
+     * Normalize a name the same way {@code search_name} is stored: lower case and without diacritics,
+     * so "João" and "joao" match each other.
+     *
+     * @param value the value to normalize.
+     * @return the normalized value.
+     */
+    public static String normalizeSearchTerm(String value) {
+        if (value == null) {
+            return null;
+        }
+        return DIACRITICS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -183,8 +229,8 @@ public class Pessoa implements Serializable {
             ", name='" + getName() + "'" +
             ", cpf='" + getCpf() + "'" +
             ", email='" + getEmail() + "'" +
-            ", avatar='" + getAvatar() + "'" +
             ", avatarContentType='" + getAvatarContentType() + "'" +
+            ", avatarHash='" + getAvatarHash() + "'" +
             ", birthDate='" + getBirthDate() + "'" +
             ", excluded='" + getExcluded() + "'" +
             "}";
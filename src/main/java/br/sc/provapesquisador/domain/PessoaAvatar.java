@@ -0,0 +1,169 @@
+package br.sc.provapesquisador.domain;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.persistence.*;
+import javax.validation.constraints.*;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * The avatar content of a {@link Pessoa}, stored in its own table so that it is only read when the avatar itself
+ * is requested. The content type and hash stay on the pessoa row.
+ * <p>
+ * Not second-level cached: avatars are served with {@code ETag} and {@code Cache-Control} headers instead.
+ */
+@Entity
+@Table(name = "pessoa_avatar")
+public class PessoaAvatar implements Persistable<Long>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * File extensions of the image types served as such from the avatar store, any other type is served
+     * as {@code application/octet-stream}.
+     */
+    private static final Map<String, String> EXTENSIONS = Map.of(
+        "image/png",
+        "png",
+        "image/jpeg",
+        "jpg",
+        "image/jpg",
+        "jpg",
+        "image/gif",
+        "gif",
+        "image/webp",
+        "webp",
+        "image/bmp",
+        "bmp"
+    );
+
+    public static final String DEFAULT_EXTENSION = "bin";
+
+    /**
+     * Extensions of the thumbnails by extension of the original: photos stay jpeg, other images become png.
+     * Types without an {@link javax.imageio.ImageIO} writer have no thumbnails.
+     */
+    private static final Map<String, String> THUMBNAIL_EXTENSIONS = Map.of("jpg", "jpg", "png", "png", "gif", "png", "bmp", "png");
+
+    /**
+     * The id of the {@link Pessoa} owning this avatar.
+     */
+    @Id
+    @Column(name = "pessoa_id")
+    private Long id;
+
+    @NotNull
+    @Lob
+    @Column(name = "content", nullable = false)
+    private byte[] content;
+
+    @Transient
+    private boolean persisted;
+
+    @Override
+    public Long getId() {
+        return this.id;
+    }
+
+    public PessoaAvatar id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public byte[] getContent() {
+        return this.content;
+    }
+
+    public PessoaAvatar content(byte[] content) {
+        this.setContent(content);
+        return this;
+    }
+
+    public void setContent(byte[] content) {
+        this.content = content;
+    }
+
+    /**
+     * The id is assigned from the pessoa, so it can't tell new avatars apart: without this,
+     * saving a new avatar would first select it.
+     */
+    @Override
+    public boolean isNew() {
+        return !this.persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    private void markPersisted() {
+        this.persisted = true;
+    }
+
+    /**
+     * The name of an avatar in the local avatar store: its hash, with an extension giving its content type.
+     *
+     * @param hash the avatar hash.
+     * @param contentType the avatar content type.
+     * @return the file name.
+     */
+    public static String fileName(String hash, String contentType) {
+        String extension = contentType == null ? null : EXTENSIONS.get(contentType.toLowerCase(Locale.ROOT));
+        return hash + "." + (extension != null ? extension : DEFAULT_EXTENSION);
+    }
+
+    /**
+     * The name of a thumbnail in the local avatar store: the avatar hash and the thumbnail size, with an extension
+     * giving the thumbnail format.
+     *
+     * @param fileName the avatar file name, built by {@link #fileName}.
+     * @param size the thumbnail width and height.
+     * @return the thumbnail file name, or the avatar file name if there are no thumbnails for its type.
+     */
+    public static String thumbnailFileName(String fileName, int size) {
+        int dot = fileName.lastIndexOf('.');
+        String extension = THUMBNAIL_EXTENSIONS.get(fileName.substring(dot + 1));
+        return extension == null ? fileName : fileName.substring(0, dot) + "-" + size + "." + extension;
+    }
+
+    /**
+     * The extensions {@link #fileName} and {@link #thumbnailFileName} may use.
+     *
+     * @return the extensions.
+     */
+    public static Set<String> extensions() {
+        Set<String> extensions = new HashSet<>(EXTENSIONS.values());
+        extensions.add(DEFAULT_EXTENSION);
+        return extensions;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PessoaAvatar)) {
+            return false;
+        }
+        return id != null && id.equals(((PessoaAvatar) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PessoaAvatar{" +
+            "id=" + getId() +
+            "}";
+    }
+}
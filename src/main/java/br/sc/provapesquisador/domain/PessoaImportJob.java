@@ -0,0 +1,294 @@
+package br.sc.provapesquisador.domain;
+
+import br.sc.provapesquisador.domain.enumeration.ImportJobStatus;
+import java.io.Serializable;
+import java.time.Instant;
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+/**
+ * An asynchronous import of {@link Pessoa} entities from an uploaded file, and its progress.
+ * <p>
+ * The progress is updated in the transaction of each chunk of imported rows, so {@link #checkpointLine} always
+ * matches the rows committed: an interrupted job is resumed after it.
+ */
+@Entity
+@Table(name = "pessoa_import_job")
+public class PessoaImportJob implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    @Column(name = "id")
+    private Long id;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 16, nullable = false)
+    private ImportJobStatus status;
+
+    /**
+     * The extension of the file format.
+     */
+    @NotNull
+    @Size(max = 16)
+    @Column(name = "format", length = 16, nullable = false)
+    private String format;
+
+    /**
+     * The name of the uploaded file in the import job directory, deleted when the job ends.
+     */
+    @NotNull
+    @Size(max = 64)
+    @Column(name = "file_name", length = 64, nullable = false)
+    private String fileName;
+
+    @Size(max = 50)
+    @Column(name = "created_by", length = 50)
+    private String createdBy;
+
+    @NotNull
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate;
+
+    /**
+     * When the job was last started, or resumed.
+     */
+    @Column(name = "started_date")
+    private Instant startedDate;
+
+    @Column(name = "finished_date")
+    private Instant finishedDate;
+
+    /**
+     * The last line of the file imported.
+     */
+    @NotNull
+    @Column(name = "checkpoint_line", nullable = false)
+    private Long checkpointLine;
+
+    @NotNull
+    @Column(name = "rows_imported", nullable = false)
+    private Long rowsImported;
+
+    @NotNull
+    @Column(name = "rows_rejected", nullable = false)
+    private Long rowsRejected;
+
+    /**
+     * The rows processed when the job was last started, to measure the throughput of the current run.
+     */
+    @NotNull
+    @Column(name = "started_rows", nullable = false)
+    private Long startedRows;
+
+    @Size(max = 1000)
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public PessoaImportJob id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public ImportJobStatus getStatus() {
+        return this.status;
+    }
+
+    public PessoaImportJob status(ImportJobStatus status) {
+        this.setStatus(status);
+        return this;
+    }
+
+    public void setStatus(ImportJobStatus status) {
+        this.status = status;
+    }
+
+    public String getFormat() {
+        return this.format;
+    }
+
+    public PessoaImportJob format(String format) {
+        this.setFormat(format);
+        return this;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public String getFileName() {
+        return this.fileName;
+    }
+
+    public PessoaImportJob fileName(String fileName) {
+        this.setFileName(fileName);
+        return this;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getCreatedBy() {
+        return this.createdBy;
+    }
+
+    public PessoaImportJob createdBy(String createdBy) {
+        this.setCreatedBy(createdBy);
+        return this;
+    }
+
+    public void setCreatedBy(String createdBy) {
+        this.createdBy = createdBy;
+    }
+
+    public Instant getCreatedDate() {
+        return this.createdDate;
+    }
+
+    public PessoaImportJob createdDate(Instant createdDate) {
+        this.setCreatedDate(createdDate);
+        return this;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public Instant getStartedDate() {
+        return this.startedDate;
+    }
+
+    public PessoaImportJob startedDate(Instant startedDate) {
+        this.setStartedDate(startedDate);
+        return this;
+    }
+
+    public void setStartedDate(Instant startedDate) {
+        this.startedDate = startedDate;
+    }
+
+    public Instant getFinishedDate() {
+        return this.finishedDate;
+    }
+
+    public PessoaImportJob finishedDate(Instant finishedDate) {
+        this.setFinishedDate(finishedDate);
+        return this;
+    }
+
+    public void setFinishedDate(Instant finishedDate) {
+        this.finishedDate = finishedDate;
+    }
+
+    public Long getCheckpointLine() {
+        return this.checkpointLine;
+    }
+
+    public PessoaImportJob checkpointLine(Long checkpointLine) {
+        this.setCheckpointLine(checkpointLine);
+        return this;
+    }
+
+    public void setCheckpointLine(Long checkpointLine) {
+        this.checkpointLine = checkpointLine;
+    }
+
+    public Long getRowsImported() {
+        return this.rowsImported;
+    }
+
+    public PessoaImportJob rowsImported(Long rowsImported) {
+        this.setRowsImported(rowsImported);
+        return this;
+    }
+
+    public void setRowsImported(Long rowsImported) {
+        this.rowsImported = rowsImported;
+    }
+
+    public Long getRowsRejected() {
+        return this.rowsRejected;
+    }
+
+    public PessoaImportJob rowsRejected(Long rowsRejected) {
+        this.setRowsRejected(rowsRejected);
+        return this;
+    }
+
+    public void setRowsRejected(Long rowsRejected) {
+        this.rowsRejected = rowsRejected;
+    }
+
+    public Long getStartedRows() {
+        return this.startedRows;
+    }
+
+    public PessoaImportJob startedRows(Long startedRows) {
+        this.setStartedRows(startedRows);
+        return this;
+    }
+
+    public void setStartedRows(Long startedRows) {
+        this.startedRows = startedRows;
+    }
+
+    public String getErrorMessage() {
+        return this.errorMessage;
+    }
+
+    public PessoaImportJob errorMessage(String errorMessage) {
+        this.setErrorMessage(errorMessage);
+        return this;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PessoaImportJob)) {
+            return false;
+        }
+        return id != null && id.equals(((PessoaImportJob) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PessoaImportJob{" +
+            "id=" + getId() +
+            ", status='" + getStatus() + "'" +
+            ", format='" + getFormat() + "'" +
+            ", fileName='" + getFileName() + "'" +
+            ", createdBy='" + getCreatedBy() + "'" +
+            ", createdDate='" + getCreatedDate() + "'" +
+            ", startedDate='" + getStartedDate() + "'" +
+            ", finishedDate='" + getFinishedDate() + "'" +
+            ", checkpointLine=" + getCheckpointLine() +
+            ", rowsImported=" + getRowsImported() +
+            ", rowsRejected=" + getRowsRejected() +
+            "}";
+    }
+}
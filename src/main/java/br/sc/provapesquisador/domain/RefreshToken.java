@@ -0,0 +1,199 @@
+package br.sc.provapesquisador.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+/**
+ * A refresh token, renewing the access tokens of a login without its password.
+ * <p>
+ * Each refresh token is used once, and replaced by the next one of its family. Only the SHA-256 hash of the token is
+ * stored, and a used token is kept until the family expires so that replaying it revokes the whole family.
+ */
+@Entity
+@Table(name = "refresh_token")
+public class RefreshToken implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    @Column(name = "id")
+    private Long id;
+
+    /**
+     * The hex SHA-256 hash of the token.
+     */
+    @NotNull
+    @Size(min = 64, max = 64)
+    @Column(name = "token_hash", length = 64, nullable = false, unique = true)
+    private String tokenHash;
+
+    @NotNull
+    @Size(max = 50)
+    @Column(name = "login", length = 50, nullable = false)
+    private String login;
+
+    /**
+     * The tokens issued by rotation from the same authentication.
+     */
+    @NotNull
+    @Size(max = 36)
+    @Column(name = "family_id", length = 36, nullable = false)
+    private String familyId;
+
+    @NotNull
+    @Column(name = "remember_me", nullable = false)
+    private Boolean rememberMe;
+
+    @NotNull
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate;
+
+    /**
+     * The expiration of the family, which rotation doesn't extend.
+     */
+    @NotNull
+    @Column(name = "expiration_date", nullable = false)
+    private Instant expirationDate;
+
+    @Column(name = "used_date")
+    private Instant usedDate;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public RefreshToken id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTokenHash() {
+        return this.tokenHash;
+    }
+
+    public RefreshToken tokenHash(String tokenHash) {
+        this.setTokenHash(tokenHash);
+        return this;
+    }
+
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+
+    public String getLogin() {
+        return this.login;
+    }
+
+    public RefreshToken login(String login) {
+        this.setLogin(login);
+        return this;
+    }
+
+    public void setLogin(String login) {
+        this.login = login;
+    }
+
+    public String getFamilyId() {
+        return this.familyId;
+    }
+
+    public RefreshToken familyId(String familyId) {
+        this.setFamilyId(familyId);
+        return this;
+    }
+
+    public void setFamilyId(String familyId) {
+        this.familyId = familyId;
+    }
+
+    public Boolean getRememberMe() {
+        return this.rememberMe;
+    }
+
+    public RefreshToken rememberMe(Boolean rememberMe) {
+        this.setRememberMe(rememberMe);
+        return this;
+    }
+
+    public void setRememberMe(Boolean rememberMe) {
+        this.rememberMe = rememberMe;
+    }
+
+    public Instant getCreatedDate() {
+        return this.createdDate;
+    }
+
+    public RefreshToken createdDate(Instant createdDate) {
+        this.setCreatedDate(createdDate);
+        return this;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public Instant getExpirationDate() {
+        return this.expirationDate;
+    }
+
+    public RefreshToken expirationDate(Instant expirationDate) {
+        this.setExpirationDate(expirationDate);
+        return this;
+    }
+
+    public void setExpirationDate(Instant expirationDate) {
+        this.expirationDate = expirationDate;
+    }
+
+    public Instant getUsedDate() {
+        return this.usedDate;
+    }
+
+    public RefreshToken usedDate(Instant usedDate) {
+        this.setUsedDate(usedDate);
+        return this;
+    }
+
+    public void setUsedDate(Instant usedDate) {
+        this.usedDate = usedDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RefreshToken)) {
+            return false;
+        }
+        return id != null && id.equals(((RefreshToken) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "RefreshToken{" +
+            "id=" + getId() +
+            ", login='" + getLogin() + "'" +
+            ", familyId='" + getFamilyId() + "'" +
+            ", rememberMe='" + getRememberMe() + "'" +
+            ", createdDate='" + getCreatedDate() + "'" +
+            ", expirationDate='" + getExpirationDate() + "'" +
+            ", usedDate='" + getUsedDate() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,144 @@
+package br.sc.provapesquisador.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+/**
+ * A revocation of JWTs before their expiration: either a single token, by its {@code jti}, or all the tokens of a
+ * user issued until the revocation.
+ * <p>
+ * The revocation is deleted once the tokens it revokes have expired.
+ */
+@Entity
+@Table(name = "token_revocation")
+public class TokenRevocation implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    @Column(name = "id")
+    private Long id;
+
+    /**
+     * The {@code jti} of the revoked token, or none when all the tokens of the user are revoked.
+     */
+    @Size(max = 36)
+    @Column(name = "token_id", length = 36)
+    private String tokenId;
+
+    /**
+     * The login of the user whose tokens are all revoked, or none when a single token is revoked.
+     */
+    @Size(max = 50)
+    @Column(name = "login", length = 50)
+    private String login;
+
+    @NotNull
+    @Column(name = "revoked_date", nullable = false)
+    private Instant revokedDate;
+
+    /**
+     * The expiration of the last token the revocation applies to.
+     */
+    @NotNull
+    @Column(name = "expiration_date", nullable = false)
+    private Instant expirationDate;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public TokenRevocation id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTokenId() {
+        return this.tokenId;
+    }
+
+    public TokenRevocation tokenId(String tokenId) {
+        this.setTokenId(tokenId);
+        return this;
+    }
+
+    public void setTokenId(String tokenId) {
+        this.tokenId = tokenId;
+    }
+
+    public String getLogin() {
+        return this.login;
+    }
+
+    public TokenRevocation login(String login) {
+        this.setLogin(login);
+        return this;
+    }
+
+    public void setLogin(String login) {
+        this.login = login;
+    }
+
+    public Instant getRevokedDate() {
+        return this.revokedDate;
+    }
+
+    public TokenRevocation revokedDate(Instant revokedDate) {
+        this.setRevokedDate(revokedDate);
+        return this;
+    }
+
+    public void setRevokedDate(Instant revokedDate) {
+        this.revokedDate = revokedDate;
+    }
+
+    public Instant getExpirationDate() {
+        return this.expirationDate;
+    }
+
+    public TokenRevocation expirationDate(Instant expirationDate) {
+        this.setExpirationDate(expirationDate);
+        return this;
+    }
+
+    public void setExpirationDate(Instant expirationDate) {
+        this.expirationDate = expirationDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TokenRevocation)) {
+            return false;
+        }
+        return id != null && id.equals(((TokenRevocation) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TokenRevocation{" +
+            "id=" + getId() +
+            ", tokenId='" + getTokenId() + "'" +
+            ", login='" + getLogin() + "'" +
+            ", revokedDate='" + getRevokedDate() + "'" +
+            ", expirationDate='" + getExpirationDate() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,17 @@
+package br.sc.provapesquisador.domain.enumeration;
+
+/**
+ * The ImportJobStatus enumeration.
+ */
+public enum ImportJobStatus {
+    /**
+     * Waiting for a thread of the import executor.
+     */
+    QUEUED,
+    /**
+     * Importing, or interrupted by a shutdown and resumed when the node restarts.
+     */
+    RUNNING,
+    COMPLETED,
+    FAILED,
+}
@@ -0,0 +1,15 @@
+package br.sc.provapesquisador.domain.enumeration;
+
+/**
+ * The OutgoingMailStatus enumeration.
+ */
+public enum OutgoingMailStatus {
+    /**
+     * Waiting for its next attempt, or being sent: the sent mails are deleted.
+     */
+    PENDING,
+    /**
+     * Given up after its last attempt, kept for inspection.
+     */
+    DEAD,
+}
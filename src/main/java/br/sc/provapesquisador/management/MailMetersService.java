@@ -0,0 +1,77 @@
+package br.sc.provapesquisador.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Service;
+
+@Service
+public class MailMetersService {
+
+    public static final String OUTBOX_DEPTH_METER_NAME = "mail.outbox.depth";
+    public static final String OUTBOX_DEPTH_METER_DESCRIPTION = "Indicates the mails in the outbox, by status.";
+    public static final String OUTBOX_DEPTH_METER_STATUS_DIMENSION = "status";
+
+    public static final String MESSAGES_METER_NAME = "mail.outbox.messages";
+    public static final String MESSAGES_METER_DESCRIPTION = "Indicates the attempts to send the mails of the outbox, by result.";
+    public static final String MESSAGES_METER_BASE_UNIT = "messages";
+    public static final String MESSAGES_METER_RESULT_DIMENSION = "result";
+
+    public static final String SEND_METER_NAME = "mail.outbox.send";
+    public static final String SEND_METER_DESCRIPTION = "Indicates the time to send a batch of mails over an SMTP connection.";
+
+    private final MeterRegistry registry;
+
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter deadCounter;
+    private final Timer sendTimer;
+
+    public MailMetersService(MeterRegistry registry) {
+        this.registry = registry;
+        this.sentCounter = messagesCounterForResultBuilder("sent").register(registry);
+        this.retriedCounter = messagesCounterForResultBuilder("retried").register(registry);
+        this.deadCounter = messagesCounterForResultBuilder("dead").register(registry);
+        this.sendTimer = Timer.builder(SEND_METER_NAME).description(SEND_METER_DESCRIPTION).register(registry);
+    }
+
+    private Counter.Builder messagesCounterForResultBuilder(String result) {
+        return Counter
+            .builder(MESSAGES_METER_NAME)
+            .baseUnit(MESSAGES_METER_BASE_UNIT)
+            .description(MESSAGES_METER_DESCRIPTION)
+            .tag(MESSAGES_METER_RESULT_DIMENSION, result);
+    }
+
+    /**
+     * @param status the status of the mails, as a tag.
+     * @param depth counts the mails of the status, when the metrics are read.
+     */
+    public void registerOutboxDepth(String status, Supplier<Number> depth) {
+        Gauge
+            .builder(OUTBOX_DEPTH_METER_NAME, depth)
+            .description(OUTBOX_DEPTH_METER_DESCRIPTION)
+            .tag(OUTBOX_DEPTH_METER_STATUS_DIMENSION, status)
+            .strongReference(true)
+            .register(registry);
+    }
+
+    public void trackSent(int count) {
+        this.sentCounter.increment(count);
+    }
+
+    public void trackRetried() {
+        this.retriedCounter.increment();
+    }
+
+    public void trackDead() {
+        this.deadCounter.increment();
+    }
+
+    public void recordSend(long nanos) {
+        this.sendTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -2,6 +2,9 @@ package br.sc.provapesquisador.management;
 
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -13,16 +16,42 @@ public class SecurityMetersService {
     public static final String INVALID_TOKENS_METER_BASE_UNIT = "errors";
     public static final String INVALID_TOKENS_METER_CAUSE_DIMENSION = "cause";
 
+    public static final String TOKEN_CACHE_METER_NAME = "security.authentication.token-cache";
+    public static final String TOKEN_CACHE_METER_DESCRIPTION =
+        "Indicates the lookups of the tokens presented by the clients in the cache of the verified tokens.";
+    public static final String TOKEN_CACHE_METER_RESULT_DIMENSION = "result";
+
+    public static final String RATE_LIMIT_METER_NAME = "security.rate-limit.rejections";
+    public static final String RATE_LIMIT_METER_DESCRIPTION =
+        "Indicates the requests rejected by the rate limits of the authentication endpoints.";
+    public static final String RATE_LIMIT_METER_BASE_UNIT = "requests";
+    public static final String RATE_LIMIT_METER_ENDPOINT_DIMENSION = "endpoint";
+    public static final String RATE_LIMIT_METER_KEY_DIMENSION = "key";
+    public static final List<String> RATE_LIMIT_ENDPOINTS = List.of("authenticate", "password-reset");
+    public static final List<String> RATE_LIMIT_KEYS = List.of("ip", "login");
+
     private final Counter tokenInvalidSignatureCounter;
     private final Counter tokenExpiredCounter;
     private final Counter tokenUnsupportedCounter;
     private final Counter tokenMalformedCounter;
+    private final Counter tokenRevokedCounter;
+    private final Counter tokenCacheHitCounter;
+    private final Counter tokenCacheMissCounter;
+    private final Map<String, Counter> rateLimitCounters = new HashMap<>();
 
     public SecurityMetersService(MeterRegistry registry) {
         this.tokenInvalidSignatureCounter = invalidTokensCounterForCauseBuilder("invalid-signature").register(registry);
         this.tokenExpiredCounter = invalidTokensCounterForCauseBuilder("expired").register(registry);
         this.tokenUnsupportedCounter = invalidTokensCounterForCauseBuilder("unsupported").register(registry);
         this.tokenMalformedCounter = invalidTokensCounterForCauseBuilder("malformed").register(registry);
+        this.tokenRevokedCounter = invalidTokensCounterForCauseBuilder("revoked").register(registry);
+        this.tokenCacheHitCounter = tokenCacheCounterForResultBuilder("hit").register(registry);
+        this.tokenCacheMissCounter = tokenCacheCounterForResultBuilder("miss").register(registry);
+        for (String endpoint : RATE_LIMIT_ENDPOINTS) {
+            for (String key : RATE_LIMIT_KEYS) {
+                rateLimitCounters.put(endpoint + '/' + key, rateLimitCounterBuilder(endpoint, key).register(registry));
+            }
+        }
     }
 
     private Counter.Builder invalidTokensCounterForCauseBuilder(String cause) {
@@ -33,6 +62,22 @@ public class SecurityMetersService {
             .tag(INVALID_TOKENS_METER_CAUSE_DIMENSION, cause);
     }
 
+    private Counter.Builder tokenCacheCounterForResultBuilder(String result) {
+        return Counter
+            .builder(TOKEN_CACHE_METER_NAME)
+            .description(TOKEN_CACHE_METER_DESCRIPTION)
+            .tag(TOKEN_CACHE_METER_RESULT_DIMENSION, result);
+    }
+
+    private Counter.Builder rateLimitCounterBuilder(String endpoint, String key) {
+        return Counter
+            .builder(RATE_LIMIT_METER_NAME)
+            .baseUnit(RATE_LIMIT_METER_BASE_UNIT)
+            .description(RATE_LIMIT_METER_DESCRIPTION)
+            .tag(RATE_LIMIT_METER_ENDPOINT_DIMENSION, endpoint)
+            .tag(RATE_LIMIT_METER_KEY_DIMENSION, key);
+    }
+
     public void trackTokenInvalidSignature() {
         this.tokenInvalidSignatureCounter.increment();
     }
@@ -48,4 +93,24 @@ public class SecurityMetersService {
     public void trackTokenMalformed() {
         this.tokenMalformedCounter.increment();
     }
+
+    public void trackTokenRevoked() {
+        this.tokenRevokedCounter.increment();
+    }
+
+    public void trackTokenCacheHit() {
+        this.tokenCacheHitCounter.increment();
+    }
+
+    public void trackTokenCacheMiss() {
+        this.tokenCacheMissCounter.increment();
+    }
+
+    /**
+     * @param endpoint one of the {@link #RATE_LIMIT_ENDPOINTS}.
+     * @param key one of the {@link #RATE_LIMIT_KEYS}, the one whose bucket was empty.
+     */
+    public void trackRateLimited(String endpoint, String key) {
+        this.rateLimitCounters.get(endpoint + '/' + key).increment();
+    }
 }
@@ -0,0 +1,14 @@
+package br.sc.provapesquisador.repository;
+
+import br.sc.provapesquisador.domain.JwtSigningKey;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data SQL repository for the JwtSigningKey entity.
+ */
+@Repository
+public interface JwtSigningKeyRepository extends JpaRepository<JwtSigningKey, String> {
+    List<JwtSigningKey> findAllByOrderByCreatedDateDesc();
+}
@@ -0,0 +1,81 @@
+package br.sc.provapesquisador.repository;
+
+import java.util.function.Consumer;
+import org.hibernate.cache.internal.StandardTimestampsCacheFactory;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.cache.spi.TimestampsCache;
+import org.hibernate.cache.spi.TimestampsCacheFactory;
+import org.hibernate.cache.spi.TimestampsRegion;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the standard Hibernate update timestamps cache, telling a listener about the tables it invalidates.
+ * <p>
+ * Hibernate invalidates the tables written by a transaction once it completes, so the listener sees the committed
+ * writes only, including the ones of {@link PessoaRepositoryWithBulkInsert#insertAll}.
+ */
+@Component
+public class ListeningTimestampsCacheFactory implements TimestampsCacheFactory {
+
+    private volatile Consumer<String[]> listener = spaces -> {};
+
+    public void setListener(Consumer<String[]> listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public TimestampsCache buildTimestampsCache(CacheImplementor cacheManager, TimestampsRegion timestampsRegion) {
+        return new ListeningTimestampsCache(StandardTimestampsCacheFactory.INSTANCE.buildTimestampsCache(cacheManager, timestampsRegion));
+    }
+
+    public class ListeningTimestampsCache implements TimestampsCache {
+
+        private final TimestampsCache delegate;
+
+        ListeningTimestampsCache(TimestampsCache delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public TimestampsRegion getRegion() {
+            return delegate.getRegion();
+        }
+
+        @Override
+        public void preInvalidate(String[] spaces, SharedSessionContractImplementor session) {
+            delegate.preInvalidate(spaces, session);
+        }
+
+        @Override
+        public void invalidate(String[] spaces, SharedSessionContractImplementor session) {
+            delegate.invalidate(spaces, session);
+            listener.accept(spaces);
+        }
+
+        /**
+         * Invalidate tables written by another node, without telling the listener.
+         *
+         * @param spaces the tables.
+         * @param session a session of this node.
+         */
+        public void invalidateSilently(String[] spaces, SharedSessionContractImplementor session) {
+            delegate.invalidate(spaces, session);
+        }
+
+        @Override
+        public boolean isUpToDate(String[] spaces, Long timestamp, SharedSessionContractImplementor session) {
+            return delegate.isUpToDate(spaces, timestamp, session);
+        }
+
+        @Override
+        public void clear() {
+            delegate.clear();
+        }
+
+        @Override
+        public void destroy() {
+            delegate.destroy();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package br.sc.provapesquisador.repository;
+
+import br.sc.provapesquisador.domain.OutgoingMail;
+import br.sc.provapesquisador.domain.enumeration.OutgoingMailStatus;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data SQL repository for the OutgoingMail entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface OutgoingMailRepository extends JpaRepository<OutgoingMail, Long> {
+    /**
+     * The pending mails due for an attempt and not claimed by a live worker, the most overdue first.
+     */
+    @Query(
+        "select m.id from OutgoingMail m where m.status = :status and m.nextAttemptDate <= :now " +
+        "and (m.lockedUntil is null or m.lockedUntil < :now) order by m.nextAttemptDate, m.id"
+    )
+    List<Long> findDueIds(@Param("status") OutgoingMailStatus status, @Param("now") Instant now, Pageable pageable);
+
+    /**
+     * Claim the mails not claimed by a live worker in the meantime.
+     */
+    @Modifying
+    @Query(
+        "update OutgoingMail m set m.lockedBy = :claim, m.lockedUntil = :until " +
+        "where m.id in :ids and (m.lockedUntil is null or m.lockedUntil < :now)"
+    )
+    int claim(@Param("ids") Collection<Long> ids, @Param("claim") String claim, @Param("until") Instant until, @Param("now") Instant now);
+
+    List<OutgoingMail> findAllByLockedByOrderByNextAttemptDateAscIdAsc(String lockedBy);
+
+    long countByStatus(OutgoingMailStatus status);
+}
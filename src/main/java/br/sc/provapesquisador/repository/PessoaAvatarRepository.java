@@ -0,0 +1,26 @@
+package br.sc.provapesquisador.repository;
+
+import br.sc.provapesquisador.domain.PessoaAvatar;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data SQL repository for the PessoaAvatar entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface PessoaAvatarRepository extends JpaRepository<PessoaAvatar, Long> {
+    @Modifying
+    @Query("update PessoaAvatar a set a.content = :content where a.id = :id")
+    int updateContent(@Param("id") Long id, @Param("content") byte[] content);
+
+    @Modifying
+    @Query("delete from PessoaAvatar a where a.id = :id")
+    int deleteByPessoaId(@Param("id") Long id);
+
+    @Query("select a.content from PessoaAvatar a, Pessoa p where p.id = a.id and p.avatarHash = :hash")
+    List<byte[]> findContentByHash(@Param("hash") String hash, Pageable pageable);
+}
@@ -0,0 +1,28 @@
+package br.sc.provapesquisador.repository;
+
+import br.sc.provapesquisador.domain.PessoaImportJob;
+import br.sc.provapesquisador.domain.enumeration.ImportJobStatus;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data SQL repository for the PessoaImportJob entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface PessoaImportJobRepository extends JpaRepository<PessoaImportJob, Long> {
+    List<PessoaImportJob> findAllByStatusInOrderById(Collection<ImportJobStatus> statuses);
+
+    /**
+     * Record the progress of a running job, in the transaction of the rows it imported.
+     */
+    @Modifying
+    @Query(
+        "update PessoaImportJob j set j.checkpointLine = :line, j.rowsImported = j.rowsImported + :imported, " +
+        "j.rowsRejected = j.rowsRejected + :rejected where j.id = :id"
+    )
+    int checkpoint(@Param("id") Long id, @Param("line") long line, @Param("imported") long imported, @Param("rejected") long rejected);
+}
@@ -0,0 +1,126 @@
+package br.sc.provapesquisador.repository;
+
+import br.sc.provapesquisador.domain.Pessoa;
+import br.sc.provapesquisador.domain.Pessoa_;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.data.util.ClassTypeInformation;
+
+/**
+ * The shape of a {@link Pessoa} query: a JPQL condition on the {@code p} alias with positional parameters,
+ * independent of the parameter values.
+ * <p>
+ * The count statement and the select statement of each sort are built once per shape. Queries of the same shape
+ * thus run the very same JPQL strings, whose translation Hibernate keeps in its query plan cache, instead of
+ * building and translating a new Criteria query each time.
+ */
+public final class PessoaQueryShape {
+
+    private static final Set<String> SORTABLE = Set.of(
+        Pessoa_.ID,
+        Pessoa_.NAME,
+        Pessoa_.CPF,
+        Pessoa_.EMAIL,
+        Pessoa_.BIRTH_DATE,
+        Pessoa_.EXCLUDED
+    );
+
+    /**
+     * Sorts kept per shape: a dashboard uses a handful of them.
+     */
+    private static final int MAX_SORTS = 16;
+
+    private final String condition;
+
+    private final String where;
+
+    private final int parameterCount;
+
+    private final String countJpql;
+
+    private final Map<Sort, String> selectJpql = new ConcurrentHashMap<>();
+
+    /**
+     * @param where the JPQL condition, with parameters {@code ?1} to {@code ?parameterCount}, or empty to match
+     * all the rows.
+     * @param parameterCount the number of parameters of the condition.
+     */
+    public PessoaQueryShape(String where, int parameterCount) {
+        this.condition = where;
+        this.where = where.isEmpty() ? "" : " where " + where;
+        this.parameterCount = parameterCount;
+        this.countJpql = "select count(p) from Pessoa p" + this.where;
+    }
+
+    public int getParameterCount() {
+        return parameterCount;
+    }
+
+    public String getCountJpql() {
+        return countJpql;
+    }
+
+    /**
+     * @return the JPQL condition, or empty if the shape matches all the rows.
+     */
+    String getCondition() {
+        return condition;
+    }
+
+    /**
+     * The select statement of this shape in a given order, then by id so that pages are stable.
+     *
+     * @param sort the order, on {@link Pessoa} properties.
+     * @return the JPQL statement.
+     * @throws PropertyReferenceException if the sort is not on a sortable property.
+     */
+    public String getSelectJpql(Sort sort) {
+        String jpql = selectJpql.get(sort);
+        if (jpql == null) {
+            jpql = buildSelectJpql(sort);
+            if (selectJpql.size() < MAX_SORTS) {
+                selectJpql.putIfAbsent(sort, jpql);
+            }
+        }
+        return jpql;
+    }
+
+    private String buildSelectJpql(Sort sort) {
+        StringBuilder jpql = new StringBuilder("select p from Pessoa p").append(where).append(" order by ");
+        boolean byId = false;
+        for (Sort.Order order : sort) {
+            String property = order.getProperty();
+            String path = path(property);
+            jpql.append(order.isIgnoreCase() ? "lower(" + path + ")" : path).append(order.isAscending() ? " asc, " : " desc, ");
+            byId |= Pessoa_.ID.equals(property);
+        }
+        if (!byId) {
+            return jpql.append("p.id asc").toString();
+        }
+        return jpql.substring(0, jpql.length() - 2);
+    }
+
+    /**
+     * The path of a sortable property on the {@code p} alias.
+     *
+     * @throws PropertyReferenceException if the property is not sortable.
+     */
+    static String path(String property) {
+        if (!SORTABLE.contains(property)) {
+            throw new PropertyReferenceException(property, ClassTypeInformation.from(Pessoa.class), List.of());
+        }
+        return "p." + property;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PessoaQueryShape{" +
+            "countJpql='" + countJpql + "'" +
+            "}";
+    }
+}
@@ -1,7 +1,15 @@
 package br.sc.provapesquisador.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
 import br.sc.provapesquisador.domain.Pessoa;
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
@@ -13,19 +21,78 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface PessoaRepository extends JpaRepository<Pessoa, Long>, JpaSpecificationExecutor<Pessoa> {
+public interface PessoaRepository
+    extends
+        PessoaRepositoryWithKeyset,
+        PessoaRepositoryWithExport,
+        PessoaRepositoryWithBulkInsert,
+        PessoaRepositoryWithQueryShape,
+        JpaRepository<Pessoa, Long>,
+        JpaSpecificationExecutor<Pessoa> {
+    /**
+     * Hibernate query cache region of the searches and their counts. Their results are invalidated by the writes to
+     * the {@code pessoa} table, through the update timestamps of Hibernate.
+     */
+    String QUERY_CACHE = "pessoaQueries";
+
     @Query(value = "SELECT * FROM pessoa as p where p.excluded = false", nativeQuery = true)
     Page<Pessoa> findAll(Pageable pageable);
 
-    @Query(value = "SELECT * FROM pessoa as p where p.name LIKE %:name% and p.excluded = false", nativeQuery = true)
+    /**
+     * Search by name, ignoring case and accents (the parameter must be normalized with
+     * {@link Pessoa#normalizeSearchTerm(String)}). Exact matches come first, then names starting with the term,
+     * then names with a word starting with the term, then any other substring match.
+     */
+    @Query(
+        value = "select p from Pessoa p where p.searchName like concat('%', :name, '%') and p.excluded = false " +
+        "order by case when p.searchName = :name then 0 when p.searchName like concat(:name, '%') then 1 " +
+        "when p.searchName like concat('% ', :name, '%') then 2 else 3 end, length(p.searchName)",
+        countQuery = "select count(p) from Pessoa p where p.searchName like concat('%', :name, '%') and p.excluded = false"
+    )
+    @QueryHints({ @QueryHint(name = HINT_CACHEABLE, value = "true"), @QueryHint(name = HINT_CACHE_REGION, value = QUERY_CACHE) })
     Page<Pessoa> findAllByName(@Param("name") String name, Pageable pageable);
 
-    @Query(value = "SELECT * FROM pessoa as p where p.cpf LIKE %:cpf% and p.excluded = false", nativeQuery = true)
+    @Query("select p from Pessoa p where p.cpf like concat('%', :cpf, '%') and p.excluded = false")
+    @QueryHints({ @QueryHint(name = HINT_CACHEABLE, value = "true"), @QueryHint(name = HINT_CACHE_REGION, value = QUERY_CACHE) })
     Page<Pessoa> findAllByCpf(@Param("cpf") String cpf, Pageable pageable);
 
-    @Query(value = "SELECT * FROM pessoa as p where p.email LIKE %:email% and p.excluded = false", nativeQuery = true)
+    /**
+     * Search by email, ignoring case (the parameter must be lower case).
+     */
+    @Query("select p from Pessoa p where lower(p.email) like concat('%', :email, '%') and p.excluded = false")
+    @QueryHints({ @QueryHint(name = HINT_CACHEABLE, value = "true"), @QueryHint(name = HINT_CACHE_REGION, value = QUERY_CACHE) })
     Page<Pessoa> findAllByEmail(@Param("email") String email, Pageable pageable);
 
     @Query(value = "SELECT * FROM pessoa as p where p.birth_date = :birthdate and p.excluded = false", nativeQuery = true)
     Page<Pessoa> findAllByBirthDate(@Param("birthdate") LocalDate birthdate, Pageable pageable);
+
+    boolean existsByCpf(String cpf);
+
+    @Query("select p.cpf from Pessoa p where p.cpf in :cpfs")
+    List<String> findAllCpfsIn(@Param("cpfs") Collection<String> cpfs);
+
+    boolean existsByAvatarHash(String avatarHash);
+
+    long countByAvatarHash(String avatarHash);
+
+    @Query("select p.cpf from Pessoa p")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<String> streamAllCpfs();
+
+    @Query("select p.id as id, p.name as name, p.email as email, p.cpf as cpf from Pessoa p where p.excluded = false")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<SearchFields> streamAllSearchFields();
+
+    /**
+     * Projection of the searchable fields of a {@link Pessoa}.
+     */
+    interface SearchFields {
+        Long getId();
+
+        String getName();
+
+        String getEmail();
+
+        String getCpf();
+    }
 }
@@ -0,0 +1,28 @@
+package br.sc.provapesquisador.repository;
+
+import br.sc.provapesquisador.domain.Pessoa;
+import java.util.List;
+
+/**
+ * Bulk inserts of new {@link Pessoa} rows, bypassing the persistence context: ids are allocated in blocks and
+ * rows are sent with a single JDBC batch.
+ */
+public interface PessoaRepositoryWithBulkInsert {
+    /**
+     * Allocate ids from the {@code sequence_generator} sequence, the way the {@code sequenceGenerator} of the
+     * entities does: each sequence value reserves the block of 50 ids ending at it.
+     *
+     * @param count the number of ids needed.
+     * @return the ids, in increasing order.
+     */
+    long[] allocateIds(int count);
+
+    /**
+     * Insert new pessoas, in a single JDBC batch within the current transaction. The pessoas must already have their
+     * ids, and are not attached to the persistence context nor cached. The cached queries on the table are
+     * invalidated.
+     *
+     * @param pessoas the pessoas to insert.
+     */
+    void insertAll(List<Pessoa> pessoas);
+}
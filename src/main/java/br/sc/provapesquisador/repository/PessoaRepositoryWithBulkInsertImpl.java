@@ -0,0 +1,114 @@
+package br.sc.provapesquisador.repository;
+
+import br.sc.provapesquisador.domain.Pessoa;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.List;
+import javax.persistence.EntityManager;
+import java.io.Serializable;
+import org.hibernate.Session;
+import org.hibernate.cache.spi.TimestampsCache;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+
+public class PessoaRepositoryWithBulkInsertImpl implements PessoaRepositoryWithBulkInsert {
+
+    /**
+     * The sequence of the {@code sequenceGenerator} and its increment, which is also the allocation size of the
+     * generator: see the initial schema changelog.
+     */
+    private static final String SEQUENCE = "sequence_generator";
+
+    private static final int INCREMENT = 50;
+
+    private static final String INSERT =
+        "insert into pessoa (id, name, search_name, cpf, email, birth_date, excluded) values (?, ?, ?, ?, ?, ?, ?)";
+
+    private final EntityManager entityManager;
+
+    public PessoaRepositoryWithBulkInsertImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public long[] allocateIds(int count) {
+        long[] ids = new long[count];
+        int blocks = (count + INCREMENT - 1) / INCREMENT;
+        if (blocks == 0) {
+            return ids;
+        }
+        Dialect dialect = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        // PostgreSQL reserves all the blocks in one round trip, other databases one block at a time
+        String sql = dialect instanceof PostgreSQL81Dialect
+            ? "select nextval('" + SEQUENCE + "') from generate_series(1, " + blocks + ")"
+            : dialect.getSequenceNextValString(SEQUENCE);
+        entityManager
+            .unwrap(Session.class)
+            .doWork(connection -> {
+                int allocated = 0;
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    while (allocated < count) {
+                        try (ResultSet values = statement.executeQuery()) {
+                            while (values.next() && allocated < count) {
+                                long last = values.getLong(1);
+                                for (long id = last - INCREMENT + 1; id <= last && allocated < count; id++) {
+                                    ids[allocated++] = id;
+                                }
+                            }
+                        }
+                    }
+                }
+            });
+        return ids;
+    }
+
+    @Override
+    public void insertAll(List<Pessoa> pessoas) {
+        if (pessoas.isEmpty()) {
+            return;
+        }
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        invalidateQueryCache(session);
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+                for (Pessoa pessoa : pessoas) {
+                    statement.setLong(1, pessoa.getId());
+                    statement.setString(2, pessoa.getName());
+                    statement.setString(3, Pessoa.normalizeSearchTerm(pessoa.getName()));
+                    statement.setString(4, pessoa.getCpf());
+                    statement.setString(5, pessoa.getEmail());
+                    if (pessoa.getBirthDate() != null) {
+                        statement.setObject(6, pessoa.getBirthDate());
+                    } else {
+                        statement.setNull(6, Types.DATE);
+                    }
+                    if (pessoa.getExcluded() != null) {
+                        statement.setBoolean(7, pessoa.getExcluded());
+                    } else {
+                        statement.setNull(7, Types.BOOLEAN);
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    /**
+     * Invalidate the cached queries on the {@code pessoa} table the way Hibernate does for its own writes: at once, so
+     * that no query result is cached while the transaction runs, and again once it completes.
+     */
+    private static void invalidateQueryCache(SessionImplementor session) {
+        SessionFactoryImplementor factory = session.getFactory();
+        if (!factory.getSessionFactoryOptions().isQueryCacheEnabled()) {
+            return;
+        }
+        Serializable[] spaces = factory.getMetamodel().entityPersister(Pessoa.class).getQuerySpaces();
+        TimestampsCache timestamps = factory.getCache().getTimestampsCache();
+        timestamps.preInvalidate(spaces, session);
+        session.getActionQueue().registerProcess((success, completed) -> timestamps.invalidate(spaces, completed));
+    }
+}
@@ -0,0 +1,22 @@
+package br.sc.provapesquisador.repository;
+
+import br.sc.provapesquisador.domain.Pessoa;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Forward-only reading of all the {@link Pessoa} rows matching a filter, for exports: the rows are read from a
+ * database cursor a few at a time, and none of them stays in the persistence context.
+ */
+public interface PessoaRepositoryWithExport {
+    /**
+     * Read the rows of a query shape, ordered by id, within the current transaction.
+     *
+     * @param shape the filter.
+     * @param parameters the parameters of the shape.
+     * @param fetchSize the number of rows fetched from the cursor at a time.
+     * @param action called for each row; the row is detached once it returns.
+     * @return the number of rows read.
+     */
+    long scrollAll(PessoaQueryShape shape, List<Object> parameters, int fetchSize, Consumer<Pessoa> action);
+}
@@ -0,0 +1,52 @@
+package br.sc.provapesquisador.repository;
+
+import br.sc.provapesquisador.domain.Pessoa;
+import br.sc.provapesquisador.domain.Pessoa_;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.springframework.data.domain.Sort;
+
+public class PessoaRepositoryWithExportImpl implements PessoaRepositoryWithExport {
+
+    private final EntityManager entityManager;
+
+    public PessoaRepositoryWithExportImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public long scrollAll(PessoaQueryShape shape, List<Object> parameters, int fetchSize, Consumer<Pessoa> action) {
+        TypedQuery<Pessoa> query = entityManager.createQuery(shape.getSelectJpql(Sort.by(Pessoa_.ID)), Pessoa.class);
+        for (int i = 0; i < parameters.size(); i++) {
+            query.setParameter(i + 1, parameters.get(i));
+        }
+
+        long count = 0;
+        // read only: no dirty-checking snapshots; cache ignored: an export must not evict the cached pessoas
+        try (
+            ScrollableResults rows = query
+                .unwrap(Query.class)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE)
+                .scroll(ScrollMode.FORWARD_ONLY)
+        ) {
+            while (rows.next()) {
+                Pessoa pessoa = (Pessoa) rows.get(0);
+                try {
+                    action.accept(pessoa);
+                } finally {
+                    entityManager.detach(pessoa);
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,34 @@
+package br.sc.provapesquisador.repository;
+
+import br.sc.provapesquisador.domain.Pessoa;
+import java.util.List;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Keyset (seek) pagination for {@link Pessoa}: pages are read after the last row of the previous page
+ * instead of at an offset, and no count query is issued.
+ */
+public interface PessoaRepositoryWithKeyset {
+    /**
+     * Read the rows of a query shape following a position, ordered by {@code order} and then by id.
+     * <p>
+     * Null values of a nullable sort property are ordered as a value greater than any other, last when ascending and
+     * first when descending as PostgreSQL orders them, so that each page is a range scan of the index of the order.
+     *
+     * @param shape the filter.
+     * @param parameters the parameters of the shape.
+     * @param order the sort property and direction.
+     * @param lastValue the sort property value of the last row of the previous page.
+     * @param lastId the id of the last row of the previous page, or {@code null} for the first page.
+     * @param limit the maximum number of rows to read.
+     * @return the rows.
+     */
+    List<Pessoa> findAllAfter(
+        PessoaQueryShape shape,
+        List<Object> parameters,
+        Sort.Order order,
+        Object lastValue,
+        Long lastId,
+        int limit
+    );
+}
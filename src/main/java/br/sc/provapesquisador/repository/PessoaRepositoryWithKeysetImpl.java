@@ -0,0 +1,78 @@
+package br.sc.provapesquisador.repository;
+
+import br.sc.provapesquisador.domain.Pessoa;
+import br.sc.provapesquisador.domain.Pessoa_;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import org.springframework.data.domain.Sort;
+
+public class PessoaRepositoryWithKeysetImpl implements PessoaRepositoryWithKeyset {
+
+    /**
+     * The value standing for null in the order of the nullable sort properties, greater than any other value, as in
+     * the {@code (coalesce(key, sentinel), id)} indexes of {@code 20261018210000_added_keyset_null_indexes_Pessoa.xml}.
+     */
+    private static final Map<String, String> NULL_SENTINELS = Map.of(
+        Pessoa_.BIRTH_DATE,
+        "cast('9999-12-31' as date)",
+        Pessoa_.EXCLUDED,
+        "true"
+    );
+
+    private final EntityManager entityManager;
+
+    public PessoaRepositoryWithKeysetImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Pessoa> findAllAfter(
+        PessoaQueryShape shape,
+        List<Object> parameters,
+        Sort.Order order,
+        Object lastValue,
+        Long lastId,
+        int limit
+    ) {
+        List<Object> values = new ArrayList<>(parameters);
+        List<String> where = new ArrayList<>();
+        if (!shape.getCondition().isEmpty()) {
+            where.add("(" + shape.getCondition() + ")");
+        }
+        String direction = order.isAscending() ? " asc" : " desc";
+        String beyond = order.isAscending() ? " > " : " < ";
+        String bound = order.isAscending() ? " >= " : " <= ";
+        String sentinel = NULL_SENTINELS.get(order.getProperty());
+        String key = PessoaQueryShape.path(order.getProperty());
+        if (sentinel != null) {
+            key = "coalesce(" + key + ", " + sentinel + ")";
+        }
+        if (lastId != null) {
+            values.add(lastId);
+            String id = "p.id" + beyond + "?" + values.size();
+            if (Pessoa_.ID.equals(order.getProperty())) {
+                where.add(id);
+            } else {
+                String value = sentinel;
+                if (lastValue != null) {
+                    values.add(lastValue);
+                    value = "?" + values.size();
+                }
+                // (key, id) after (value, lastId), written so that the key bound is an index range condition
+                where.add(key + bound + value + " and (" + key + beyond + value + " or " + id + ")");
+            }
+        }
+        String orderBy = Pessoa_.ID.equals(order.getProperty()) ? "p.id" + direction : key + direction + ", p.id" + direction;
+
+        String jpql =
+            "select p from Pessoa p" + (where.isEmpty() ? "" : " where " + String.join(" and ", where)) + " order by " + orderBy;
+        TypedQuery<Pessoa> query = entityManager.createQuery(jpql, Pessoa.class);
+        for (int i = 0; i < values.size(); i++) {
+            query.setParameter(i + 1, values.get(i));
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+}
@@ -0,0 +1,30 @@
+package br.sc.provapesquisador.repository;
+
+import br.sc.provapesquisador.domain.Pessoa;
+import java.util.List;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Queries of {@link Pessoa} by a precompiled {@link PessoaQueryShape} and its parameter values.
+ */
+public interface PessoaRepositoryWithQueryShape {
+    /**
+     * Read a page of the rows matching a query shape. The total is only counted when the page does not tell it.
+     *
+     * @param shape the query shape.
+     * @param parameters the values of the shape parameters, in order.
+     * @param pageable the page and its sort.
+     * @return the page.
+     */
+    Page<Pessoa> findAll(PessoaQueryShape shape, List<Object> parameters, Pageable pageable);
+
+    /**
+     * Count the rows matching a query shape.
+     *
+     * @param shape the query shape.
+     * @param parameters the values of the shape parameters, in order.
+     * @return the number of rows.
+     */
+    long count(PessoaQueryShape shape, List<Object> parameters);
+}
@@ -0,0 +1,43 @@
+package br.sc.provapesquisador.repository;
+
+import br.sc.provapesquisador.domain.Pessoa;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+
+public class PessoaRepositoryWithQueryShapeImpl implements PessoaRepositoryWithQueryShape {
+
+    private final EntityManager entityManager;
+
+    public PessoaRepositoryWithQueryShapeImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Page<Pessoa> findAll(PessoaQueryShape shape, List<Object> parameters, Pageable pageable) {
+        TypedQuery<Pessoa> query = bind(entityManager.createQuery(shape.getSelectJpql(pageable.getSort()), Pessoa.class), parameters);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(shape, parameters));
+    }
+
+    @Override
+    public long count(PessoaQueryShape shape, List<Object> parameters) {
+        return bind(entityManager.createQuery(shape.getCountJpql(), Long.class), parameters).getSingleResult();
+    }
+
+    private static <T> TypedQuery<T> bind(TypedQuery<T> query, List<Object> parameters) {
+        // the shape and parameters are normalized by the planner, so equivalent criteria share their cached results
+        query.setHint(QueryHints.HINT_CACHEABLE, true).setHint(QueryHints.HINT_CACHE_REGION, PessoaRepository.QUERY_CACHE);
+        for (int i = 0; i < parameters.size(); i++) {
+            query.setParameter(i + 1, parameters.get(i));
+        }
+        return query;
+    }
+}
@@ -0,0 +1,37 @@
+package br.sc.provapesquisador.repository;
+
+import br.sc.provapesquisador.domain.RefreshToken;
+import java.time.Instant;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data SQL repository for the RefreshToken entity.
+ */
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    Optional<RefreshToken> findOneByTokenHash(String tokenHash);
+
+    /**
+     * Mark a token as used, unless a concurrent refresh already did.
+     *
+     * @return {@code 1} if the token was unused, {@code 0} otherwise.
+     */
+    @Modifying
+    @Query("update RefreshToken t set t.usedDate = :now where t.id = :id and t.usedDate is null")
+    int markUsed(@Param("id") Long id, @Param("now") Instant now);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.familyId = :familyId")
+    int deleteFamily(@Param("familyId") String familyId);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.login = :login")
+    int deleteAllByLogin(@Param("login") String login);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.expirationDate < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
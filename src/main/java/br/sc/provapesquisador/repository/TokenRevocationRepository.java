@@ -0,0 +1,20 @@
+package br.sc.provapesquisador.repository;
+
+import br.sc.provapesquisador.domain.TokenRevocation;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data SQL repository for the TokenRevocation entity.
+ */
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+    List<TokenRevocation> findAllByRevokedDateAfterAndExpirationDateAfter(Instant revokedDate, Instant expirationDate);
+
+    @Modifying
+    @Query("delete from TokenRevocation r where r.expirationDate < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,32 @@
+package br.sc.provapesquisador.security;
+
+import java.util.Collection;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * The principal of a verified JWT, with the bitmask of its {@link Authorities} to check them without allocating.
+ */
+public class AuthenticatedUser extends User {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long authorityMask;
+
+    public AuthenticatedUser(String username, Collection<? extends GrantedAuthority> authorities) {
+        super(username, "", authorities);
+        this.authorityMask = Authorities.mask(authorities);
+    }
+
+    /**
+     * @param bits the bits of some {@link Authorities}.
+     * @return whether the user has any of them.
+     */
+    public boolean hasAnyAuthority(long bits) {
+        return (authorityMask & bits) != 0;
+    }
+
+    public long getAuthorityMask() {
+        return authorityMask;
+    }
+}
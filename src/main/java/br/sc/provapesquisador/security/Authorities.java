@@ -0,0 +1,67 @@
+package br.sc.provapesquisador.security;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * The authorities of {@link AuthoritiesConstants}, interned: a single {@link GrantedAuthority} and a bit each.
+ * <p>
+ * The bits are only known to this node, so the tokens keep carrying the names of the authorities, and their
+ * principals carry the bitmask of those: see {@link AuthenticatedUser}. Other authorities are granted as well, without
+ * a bit.
+ */
+public final class Authorities {
+
+    private static final List<String> INTERNED_NAMES = List.of(
+        AuthoritiesConstants.ADMIN,
+        AuthoritiesConstants.USER,
+        AuthoritiesConstants.ANONYMOUS
+    );
+
+    private static final Map<String, GrantedAuthority> INTERNED = new HashMap<>();
+
+    private static final Map<String, Long> BITS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < INTERNED_NAMES.size(); i++) {
+            INTERNED.put(INTERNED_NAMES.get(i), new SimpleGrantedAuthority(INTERNED_NAMES.get(i)));
+            BITS.put(INTERNED_NAMES.get(i), 1L << i);
+        }
+    }
+
+    private Authorities() {}
+
+    /**
+     * @param name the name of the authority.
+     * @return the interned authority, or a new one if it is not one of {@link AuthoritiesConstants}.
+     */
+    public static GrantedAuthority of(String name) {
+        GrantedAuthority authority = INTERNED.get(name);
+        return authority != null ? authority : new SimpleGrantedAuthority(name);
+    }
+
+    /**
+     * @param name the name of the authority.
+     * @return the bit of the authority, or {@code 0} if it is not one of {@link AuthoritiesConstants}.
+     */
+    public static long bit(String name) {
+        Long bit = BITS.get(name);
+        return bit != null ? bit : 0;
+    }
+
+    /**
+     * @param authorities some authorities.
+     * @return the bits of those of {@link AuthoritiesConstants}.
+     */
+    public static long mask(Collection<? extends GrantedAuthority> authorities) {
+        long mask = 0;
+        for (GrantedAuthority authority : authorities) {
+            mask |= bit(authority.getAuthority());
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,42 @@
+package br.sc.provapesquisador.security;
+
+import java.util.function.Supplier;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+
+/**
+ * An {@link AuthorizationManager} granting access to the authentications with an authority, checked on the bitmask of
+ * the principals of the JWTs: see {@link AuthenticatedUser}.
+ * <p>
+ * Unlike Spring Security's, it doesn't copy the authorities of the authentication to check them.
+ *
+ * @param <T> the type of the object checked.
+ */
+public final class AuthorityAuthorizationManager<T> implements AuthorizationManager<T> {
+
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private final String authority;
+
+    private AuthorityAuthorizationManager(String authority) {
+        this.authority = authority;
+    }
+
+    /**
+     * @param authority the name of the authority.
+     * @param <T> the type of the object checked.
+     * @return a manager granting access to the authentications with the authority.
+     */
+    public static <T> AuthorityAuthorizationManager<T> hasAuthority(String authority) {
+        return new AuthorityAuthorizationManager<>(authority);
+    }
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, T object) {
+        Authentication current = authentication.get();
+        return current != null && current.isAuthenticated() && SecurityUtils.hasAuthority(current, authority) ? GRANTED : DENIED;
+    }
+}
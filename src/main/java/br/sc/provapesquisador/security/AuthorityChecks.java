@@ -0,0 +1,21 @@
+package br.sc.provapesquisador.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+/**
+ * The authority checks of the method security expressions, as {@code @authorityChecks.hasAuthority(authentication, ...)}:
+ * they check the bitmask of the principals of the JWTs, where {@code hasAuthority(...)} copies their authorities.
+ */
+@Component("authorityChecks")
+public class AuthorityChecks {
+
+    /**
+     * @param authentication the authentication of the invocation.
+     * @param authority the name of the authority.
+     * @return whether the authentication has the authority.
+     */
+    public boolean hasAuthority(Authentication authentication, String authority) {
+        return authentication != null && authentication.isAuthenticated() && SecurityUtils.hasAuthority(authentication, authority);
+    }
+}
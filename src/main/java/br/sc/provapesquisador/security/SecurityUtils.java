@@ -1,8 +1,6 @@
 package br.sc.provapesquisador.security;
 
-import java.util.Arrays;
 import java.util.Optional;
-import java.util.stream.Stream;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
@@ -58,7 +56,7 @@ public final class SecurityUtils {
      */
     public static boolean isAuthenticated() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return authentication != null && getAuthorities(authentication).noneMatch(AuthoritiesConstants.ANONYMOUS::equals);
+        return authentication != null && !hasAuthority(authentication, AuthoritiesConstants.ANONYMOUS);
     }
 
     /**
@@ -69,9 +67,15 @@ public final class SecurityUtils {
      */
     public static boolean hasCurrentUserAnyOfAuthorities(String... authorities) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return (
-            authentication != null && getAuthorities(authentication).anyMatch(authority -> Arrays.asList(authorities).contains(authority))
-        );
+        if (authentication == null) {
+            return false;
+        }
+        for (String authority : authorities) {
+            if (hasAuthority(authentication, authority)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -91,10 +95,23 @@ public final class SecurityUtils {
      * @return true if the current user has the authority, false otherwise.
      */
     public static boolean hasCurrentUserThisAuthority(String authority) {
-        return hasCurrentUserAnyOfAuthorities(authority);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && hasAuthority(authentication, authority);
     }
 
-    private static Stream<String> getAuthorities(Authentication authentication) {
-        return authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority);
+    /**
+     * Checks the bitmask of the principals of the JWTs, and the authorities of the other authentications.
+     */
+    static boolean hasAuthority(Authentication authentication, String authority) {
+        long bit = Authorities.bit(authority);
+        if (bit != 0 && authentication.getPrincipal() instanceof AuthenticatedUser) {
+            return ((AuthenticatedUser) authentication.getPrincipal()).hasAnyAuthority(bit);
+        }
+        for (GrantedAuthority granted : authentication.getAuthorities()) {
+            if (authority.equals(granted.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
     }
 }
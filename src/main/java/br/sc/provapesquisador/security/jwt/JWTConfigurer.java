@@ -1,5 +1,6 @@
 package br.sc.provapesquisador.security.jwt;
 
+import br.sc.provapesquisador.security.ratelimit.RateLimitFilter;
 import org.springframework.security.config.annotation.SecurityConfigurerAdapter;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.DefaultSecurityFilterChain;
@@ -9,12 +10,17 @@ public class JWTConfigurer extends SecurityConfigurerAdapter<DefaultSecurityFilt
 
     private final TokenProvider tokenProvider;
 
-    public JWTConfigurer(TokenProvider tokenProvider) {
+    private final RateLimitFilter rateLimitFilter;
+
+    public JWTConfigurer(TokenProvider tokenProvider, RateLimitFilter rateLimitFilter) {
         this.tokenProvider = tokenProvider;
+        this.rateLimitFilter = rateLimitFilter;
     }
 
     @Override
     public void configure(HttpSecurity http) {
+        // the anonymous requests are limited before any token is verified
+        http.addFilterBefore(rateLimitFilter, UsernamePasswordAuthenticationFilter.class);
         JWTFilter customFilter = new JWTFilter(tokenProvider);
         http.addFilterBefore(customFilter, UsernamePasswordAuthenticationFilter.class);
     }
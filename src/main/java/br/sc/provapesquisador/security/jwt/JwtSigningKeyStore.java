@@ -0,0 +1,347 @@
+package br.sc.provapesquisador.security.jwt;
+
+import br.sc.provapesquisador.config.ApplicationProperties;
+import br.sc.provapesquisador.domain.JwtSigningKey;
+import br.sc.provapesquisador.repository.JwtSigningKeyRepository;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * The rotated key pairs signing the JWTs in the {@code RS256} and {@code ES256} modes of {@link TokenProvider}.
+ * <p>
+ * The keys are stored as {@link JwtSigningKey} entities, so all the nodes sign and verify with the same ones. Every
+ * {@code application.security.jwt.refresh-interval} the keys are reloaded, and a new key is created once the newest
+ * one is older than {@code rotation-interval}. A new key only signs tokens after {@code publication-delay}, while the
+ * gateways fetch it from the JWKS, and a key is deleted once the last token it may have signed has expired.
+ * <p>
+ * The private keys are stored encrypted with AES-GCM under {@code application.security.jwt.key-encryption-key}, with
+ * their {@code kid} as associated data: a private key can't be read from the database, nor moved to another key.
+ */
+@Component
+public class JwtSigningKeyStore {
+
+    private static final long RELOAD_ON_UNKNOWN_KID_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final String KEY_ENCRYPTION = "AES/GCM/NoPadding";
+
+    private static final int IV_LENGTH = 12;
+
+    private static final int TAG_LENGTH = 128;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Logger log = LoggerFactory.getLogger(JwtSigningKeyStore.class);
+
+    private final ApplicationProperties.Security.Jwt properties;
+
+    private final SignatureAlgorithm algorithm;
+
+    private final Duration maxTokenValidity;
+
+    private final SecretKey keyEncryptionKey;
+
+    private final JwtSigningKeyRepository jwtSigningKeyRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * The keys, the newest first, or none until first used.
+     */
+    private volatile List<SigningKey> keys;
+
+    private volatile long lastReload;
+
+    public JwtSigningKeyStore(
+        ApplicationProperties applicationProperties,
+        JHipsterProperties jHipsterProperties,
+        JwtSigningKeyRepository jwtSigningKeyRepository,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.properties = applicationProperties.getSecurity().getJwt();
+        this.algorithm = SignatureAlgorithm.forName(properties.getAlgorithm());
+        if (algorithm != SignatureAlgorithm.HS512 && algorithm != SignatureAlgorithm.RS256 && algorithm != SignatureAlgorithm.ES256) {
+            throw new IllegalArgumentException("Unsupported application.security.jwt.algorithm " + algorithm);
+        }
+        JHipsterProperties.Security.Authentication.Jwt jwt = jHipsterProperties.getSecurity().getAuthentication().getJwt();
+        this.maxTokenValidity = Duration.ofSeconds(Math.max(jwt.getTokenValidityInSeconds(), jwt.getTokenValidityInSecondsForRememberMe()));
+        this.keyEncryptionKey = isAsymmetric() ? keyEncryptionKey(properties.getKeyEncryptionKey()) : null;
+        this.jwtSigningKeyRepository = jwtSigningKeyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * @return whether the tokens are signed with the key pairs of the store, rather than the shared HS512 secret.
+     */
+    public boolean isAsymmetric() {
+        return algorithm != SignatureAlgorithm.HS512;
+    }
+
+    /**
+     * @return the key to sign new tokens with: the newest one published for {@code publication-delay}.
+     */
+    public SigningKey getSigningKey() {
+        Instant published = Instant.now().minus(properties.getPublicationDelay());
+        List<SigningKey> current = keys().stream().filter(key -> key.getAlgorithm() == algorithm).collect(Collectors.toList());
+        return current
+            .stream()
+            .filter(key -> !key.getCreatedDate().isAfter(published))
+            .findFirst()
+            // the first key of the cluster, not published for long yet
+            .orElseGet(() -> current.get(current.size() - 1));
+    }
+
+    /**
+     * The key of a token, reloaded when unknown as it may have just been created by another node.
+     *
+     * @param kid the {@code kid} of the token.
+     * @return the key, or none if it doesn't exist or no longer verifies tokens.
+     */
+    public Optional<SigningKey> getVerificationKey(String kid) {
+        if (kid == null) {
+            return Optional.empty();
+        }
+        Optional<SigningKey> key = find(kid);
+        if (key.isEmpty() && System.nanoTime() - lastReload > RELOAD_ON_UNKNOWN_KID_NANOS) {
+            refresh();
+            key = find(kid);
+        }
+        return key;
+    }
+
+    /**
+     * @return the public keys verifying the tokens, as a JSON Web Key Set.
+     */
+    public Map<String, Object> getJwks() {
+        List<Map<String, Object>> jwks = isAsymmetric() ? keys().stream().map(SigningKey::toJwk).collect(Collectors.toList()) : List.of();
+        return Map.of("keys", jwks);
+    }
+
+    /**
+     * Reload the keys, creating a new one when the signing key is older than the rotation interval and deleting the
+     * ones no live token was signed with.
+     */
+    @Scheduled(
+        initialDelayString = "${application.security.jwt.refresh-interval:PT1M}",
+        fixedDelayString = "${application.security.jwt.refresh-interval:PT1M}"
+    )
+    public synchronized void refresh() {
+        if (!isAsymmetric()) {
+            return;
+        }
+        Instant now = Instant.now();
+        List<JwtSigningKey> stored = transactionTemplate.execute(status -> {
+            List<JwtSigningKey> all = new ArrayList<>(jwtSigningKeyRepository.findAllByOrderByCreatedDateDesc());
+            Optional<JwtSigningKey> newest = all.stream().filter(key -> algorithm.getValue().equals(key.getAlgorithm())).findFirst();
+            if (newest.isEmpty() || newest.get().getCreatedDate().isBefore(now.minus(properties.getRotationInterval()))) {
+                JwtSigningKey created = jwtSigningKeyRepository.save(generate(now));
+                log.info("Created the JWT signing key {}", created.getId());
+                all.add(0, created);
+            }
+            // a key signs until the next one is published, then its tokens live up to the longest token validity
+            Instant retired = now.minus(properties.getPublicationDelay()).minus(maxTokenValidity);
+            List<JwtSigningKey> expired = new ArrayList<>();
+            for (int next = 0; next < all.size() - 1; next++) {
+                if (all.get(next).getCreatedDate().isBefore(retired)) {
+                    expired.add(all.get(next + 1));
+                }
+            }
+            if (!expired.isEmpty()) {
+                jwtSigningKeyRepository.deleteAll(expired);
+                all.removeAll(expired);
+                log.info("Deleted the JWT signing keys {}", expired.stream().map(JwtSigningKey::getId).collect(Collectors.toList()));
+            }
+            return all;
+        });
+        keys =
+            Collections.unmodifiableList(stored.stream().map(key -> SigningKey.decode(key, keyEncryptionKey)).collect(Collectors.toList()));
+        lastReload = System.nanoTime();
+    }
+
+    private List<SigningKey> keys() {
+        List<SigningKey> loaded = keys;
+        if (loaded == null) {
+            refresh();
+            loaded = keys;
+        }
+        return loaded;
+    }
+
+    private Optional<SigningKey> find(String kid) {
+        return keys().stream().filter(key -> key.getKid().equals(kid)).findFirst();
+    }
+
+    private JwtSigningKey generate(Instant now) {
+        KeyPair keyPair = Keys.keyPairFor(algorithm);
+        String kid = UUID.randomUUID().toString();
+        return new JwtSigningKey()
+            .id(kid)
+            .algorithm(algorithm.getValue())
+            .publicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()))
+            .privateKey(encrypt(keyPair.getPrivate().getEncoded(), kid))
+            .createdDate(now);
+    }
+
+    private static SecretKey keyEncryptionKey(String base64Key) {
+        if (StringUtils.isBlank(base64Key)) {
+            throw new IllegalArgumentException("application.security.jwt.key-encryption-key is required to store the signing keys");
+        }
+        byte[] key = Base64.getDecoder().decode(base64Key);
+        if (key.length != 32) {
+            throw new IllegalArgumentException("application.security.jwt.key-encryption-key must be a Base64 256-bit AES key");
+        }
+        return new SecretKeySpec(key, "AES");
+    }
+
+    /**
+     * @return the Base64 of the IV followed by the encrypted private key and its tag.
+     */
+    private String encrypt(byte[] privateKey, String kid) {
+        byte[] iv = new byte[IV_LENGTH];
+        RANDOM.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance(KEY_ENCRYPTION);
+            cipher.init(Cipher.ENCRYPT_MODE, keyEncryptionKey, new GCMParameterSpec(TAG_LENGTH, iv));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            byte[] encrypted = cipher.doFinal(privateKey);
+            return Base64.getEncoder().encodeToString(ByteBuffer.allocate(iv.length + encrypted.length).put(iv).put(encrypted).array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] decrypt(String encrypted, String kid, SecretKey keyEncryptionKey) throws GeneralSecurityException {
+        byte[] bytes = Base64.getDecoder().decode(encrypted);
+        Cipher cipher = Cipher.getInstance(KEY_ENCRYPTION);
+        cipher.init(Cipher.DECRYPT_MODE, keyEncryptionKey, new GCMParameterSpec(TAG_LENGTH, bytes, 0, IV_LENGTH));
+        cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+        return cipher.doFinal(bytes, IV_LENGTH, bytes.length - IV_LENGTH);
+    }
+
+    /**
+     * A decoded {@link JwtSigningKey}.
+     */
+    public static final class SigningKey {
+
+        private final String kid;
+
+        private final SignatureAlgorithm algorithm;
+
+        private final PrivateKey privateKey;
+
+        private final PublicKey publicKey;
+
+        private final Instant createdDate;
+
+        SigningKey(String kid, SignatureAlgorithm algorithm, PrivateKey privateKey, PublicKey publicKey, Instant createdDate) {
+            this.kid = kid;
+            this.algorithm = algorithm;
+            this.privateKey = privateKey;
+            this.publicKey = publicKey;
+            this.createdDate = createdDate;
+        }
+
+        static SigningKey decode(JwtSigningKey key, SecretKey keyEncryptionKey) {
+            SignatureAlgorithm algorithm = SignatureAlgorithm.forName(key.getAlgorithm());
+            try {
+                KeyFactory keyFactory = KeyFactory.getInstance(algorithm.getFamilyName().equals("ECDSA") ? "EC" : "RSA");
+                return new SigningKey(
+                    key.getId(),
+                    algorithm,
+                    keyFactory.generatePrivate(new PKCS8EncodedKeySpec(decrypt(key.getPrivateKey(), key.getId(), keyEncryptionKey))),
+                    keyFactory.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(key.getPublicKey()))),
+                    key.getCreatedDate()
+                );
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Invalid JWT signing key " + key.getId(), e);
+            }
+        }
+
+        public String getKid() {
+            return kid;
+        }
+
+        public SignatureAlgorithm getAlgorithm() {
+            return algorithm;
+        }
+
+        public PrivateKey getPrivateKey() {
+            return privateKey;
+        }
+
+        public PublicKey getPublicKey() {
+            return publicKey;
+        }
+
+        public Instant getCreatedDate() {
+            return createdDate;
+        }
+
+        Map<String, Object> toJwk() {
+            Map<String, Object> jwk = new LinkedHashMap<>();
+            jwk.put("kid", kid);
+            jwk.put("use", "sig");
+            jwk.put("alg", algorithm.getValue());
+            if (publicKey instanceof RSAPublicKey) {
+                RSAPublicKey rsa = (RSAPublicKey) publicKey;
+                jwk.put("kty", "RSA");
+                jwk.put("n", base64Url(rsa.getModulus(), (rsa.getModulus().bitLength() + 7) / 8));
+                jwk.put("e", base64Url(rsa.getPublicExponent(), (rsa.getPublicExponent().bitLength() + 7) / 8));
+            } else {
+                ECPublicKey ec = (ECPublicKey) publicKey;
+                jwk.put("kty", "EC");
+                jwk.put("crv", "P-256");
+                jwk.put("x", base64Url(ec.getW().getAffineX(), 32));
+                jwk.put("y", base64Url(ec.getW().getAffineY(), 32));
+            }
+            return jwk;
+        }
+
+        /**
+         * The unsigned big-endian bytes of a JWK parameter, of a fixed length.
+         */
+        private static String base64Url(BigInteger value, int length) {
+            byte[] bytes = value.toByteArray();
+            byte[] unsigned = new byte[length];
+            int copied = Math.min(bytes.length, length);
+            System.arraycopy(bytes, bytes.length - copied, unsigned, length - copied, copied);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(unsigned);
+        }
+    }
+}
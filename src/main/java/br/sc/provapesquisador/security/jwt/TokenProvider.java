@@ -1,21 +1,34 @@
 package br.sc.provapesquisador.security.jwt;
 
+import br.sc.provapesquisador.config.ApplicationProperties;
 import br.sc.provapesquisador.management.SecurityMetersService;
+import br.sc.provapesquisador.security.AuthenticatedUser;
+import br.sc.provapesquisador.security.Authorities;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import org.ehcache.UserManagedCache;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.builders.UserManagedCacheBuilder;
+import org.ehcache.expiry.ExpiryPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ObjectUtils;
 import tech.jhipster.config.JHipsterProperties;
@@ -39,7 +52,55 @@ public class TokenProvider {
 
     private final SecurityMetersService securityMetersService;
 
-    public TokenProvider(JHipsterProperties jHipsterProperties, SecurityMetersService securityMetersService) {
+    private final ApplicationProperties.Security.TokenCache tokenCache;
+
+    /**
+     * The verified tokens by SHA-256 hash, until they expire: Ehcache expires each one with its token, and evicts a
+     * sampled one when {@code application.security.token-cache.max-entries} are kept.
+     */
+    private final UserManagedCache<ByteBuffer, VerifiedToken> verifiedTokens;
+
+    /**
+     * The authorities by {@code auth} claim: there are only a few combinations of them.
+     */
+    private final Map<String, List<GrantedAuthority>> authoritiesByClaim = new ConcurrentHashMap<>();
+
+    private final JwtSigningKeyStore signingKeyStore;
+
+    private final TokenRevocationList revocationList;
+
+    public TokenProvider(
+        JHipsterProperties jHipsterProperties,
+        ApplicationProperties applicationProperties,
+        SecurityMetersService securityMetersService,
+        JwtSigningKeyStore signingKeyStore,
+        TokenRevocationList revocationList
+    ) {
+        if (signingKeyStore.isAsymmetric()) {
+            log.debug("Using the rotated JWT signing keys");
+            key = null;
+            jwtParser = Jwts.parserBuilder().setSigningKeyResolver(new KidSigningKeyResolver()).build();
+        } else {
+            key = secretKey(jHipsterProperties);
+            jwtParser = Jwts.parserBuilder().setSigningKey(key).build();
+        }
+        this.tokenValidityInMilliseconds = 1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSeconds();
+        this.tokenValidityInMillisecondsForRememberMe =
+            1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSecondsForRememberMe();
+
+        this.tokenCache = applicationProperties.getSecurity().getTokenCache();
+        this.verifiedTokens =
+            UserManagedCacheBuilder
+                .newUserManagedCacheBuilder(ByteBuffer.class, VerifiedToken.class)
+                .withResourcePools(ResourcePoolsBuilder.heap(tokenCache.getMaxEntries()))
+                .withExpiry(new UntilTokenExpiration())
+                .build(true);
+        this.securityMetersService = securityMetersService;
+        this.signingKeyStore = signingKeyStore;
+        this.revocationList = revocationList;
+    }
+
+    private Key secretKey(JHipsterProperties jHipsterProperties) {
         byte[] keyBytes;
         String secret = jHipsterProperties.getSecurity().getAuthentication().getJwt().getBase64Secret();
         if (!ObjectUtils.isEmpty(secret)) {
@@ -53,13 +114,7 @@ public class TokenProvider {
             secret = jHipsterProperties.getSecurity().getAuthentication().getJwt().getSecret();
             keyBytes = secret.getBytes(StandardCharsets.UTF_8);
         }
-        key = Keys.hmacShaKeyFor(keyBytes);
-        jwtParser = Jwts.parserBuilder().setSigningKey(key).build();
-        this.tokenValidityInMilliseconds = 1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSeconds();
-        this.tokenValidityInMillisecondsForRememberMe =
-            1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSecondsForRememberMe();
-
-        this.securityMetersService = securityMetersService;
+        return Keys.hmacShaKeyFor(keyBytes);
     }
 
     public String createToken(Authentication authentication, boolean rememberMe) {
@@ -73,34 +128,66 @@ public class TokenProvider {
             validity = new Date(now + this.tokenValidityInMilliseconds);
         }
 
-        return Jwts
+        JwtBuilder builder = Jwts
             .builder()
+            .setId(UUID.randomUUID().toString())
             .setSubject(authentication.getName())
-            .claim(AUTHORITIES_KEY, authorities)
-            .signWith(key, SignatureAlgorithm.HS512)
-            .setExpiration(validity)
-            .compact();
+            .setIssuedAt(new Date(now))
+            .claim(AUTHORITIES_KEY, authorities);
+        if (signingKeyStore.isAsymmetric()) {
+            JwtSigningKeyStore.SigningKey signingKey = signingKeyStore.getSigningKey();
+            builder.setHeaderParam(JwsHeader.KEY_ID, signingKey.getKid()).signWith(signingKey.getPrivateKey(), signingKey.getAlgorithm());
+        } else {
+            builder.signWith(key, SignatureAlgorithm.HS512);
+        }
+        return builder.setExpiration(validity).compact();
     }
 
     public Authentication getAuthentication(String token) {
-        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        VerifiedToken verified = verify(token);
+        return new UsernamePasswordAuthenticationToken(verified.principal, token, verified.principal.getAuthorities());
+    }
+
+    /**
+     * Verify a token, once until it expires.
+     *
+     * @param token the token.
+     * @return the authentication of the token, or none if the token isn't valid.
+     */
+    public Optional<Authentication> getValidAuthentication(String token) {
+        return tryVerify(token)
+            .map(verified -> new UsernamePasswordAuthenticationToken(verified.principal, token, verified.principal.getAuthorities()));
+    }
 
-        Collection<? extends GrantedAuthority> authorities = Arrays
-            .stream(claims.get(AUTHORITIES_KEY).toString().split(","))
-            .filter(auth -> !auth.trim().isEmpty())
-            .map(SimpleGrantedAuthority::new)
-            .collect(Collectors.toList());
+    public boolean validateToken(String authToken) {
+        return tryVerify(authToken).isPresent();
+    }
 
-        User principal = new User(claims.getSubject(), "", authorities);
+    /**
+     * Revoke a valid token until it expires, on all the nodes.
+     *
+     * @param token the token.
+     */
+    public void revokeToken(String token) {
+        tryVerify(token)
+            .filter(verified -> verified.tokenId != null && verified.expiration != Long.MAX_VALUE)
+            .ifPresent(verified -> revocationList.revokeToken(verified.tokenId, Instant.ofEpochMilli(verified.expiration)));
+    }
 
-        return new UsernamePasswordAuthenticationToken(principal, token, authorities);
+    @PreDestroy
+    public void close() {
+        verifiedTokens.close();
     }
 
-    public boolean validateToken(String authToken) {
+    private Optional<VerifiedToken> tryVerify(String authToken) {
         try {
-            jwtParser.parseClaimsJws(authToken);
+            VerifiedToken verified = verify(authToken);
+            if (!revocationList.isRevoked(verified.tokenId, verified.principal.getUsername(), verified.issuedAt)) {
+                return Optional.of(verified);
+            }
+            this.securityMetersService.trackTokenRevoked();
 
-            return true;
+            log.trace("Revoked JWT token of {}.", verified.principal.getUsername());
         } catch (ExpiredJwtException e) {
             this.securityMetersService.trackTokenExpired();
 
@@ -121,6 +208,107 @@ public class TokenProvider {
             log.error("Token validation error {}", e.getMessage());
         }
 
-        return false;
+        return Optional.empty();
+    }
+
+    private VerifiedToken verify(String token) {
+        if (!tokenCache.isEnabled() || ObjectUtils.isEmpty(token)) {
+            return parse(token);
+        }
+        ByteBuffer hash = hash(token);
+        VerifiedToken verified = verifiedTokens.get(hash);
+        if (verified != null) {
+            securityMetersService.trackTokenCacheHit();
+            return verified;
+        }
+        securityMetersService.trackTokenCacheMiss();
+        verified = parse(token);
+        if (verified.expiration != Long.MAX_VALUE) {
+            verifiedTokens.put(hash, verified);
+        }
+        return verified;
+    }
+
+    private VerifiedToken parse(String token) {
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+
+        List<GrantedAuthority> authorities = authoritiesByClaim.computeIfAbsent(
+            claims.get(AUTHORITIES_KEY).toString(),
+            claim ->
+                Arrays
+                    .stream(claim.split(","))
+                    .filter(auth -> !auth.trim().isEmpty())
+                    .map(Authorities::of)
+                    .collect(Collectors.toUnmodifiableList())
+        );
+
+        AuthenticatedUser principal = new AuthenticatedUser(claims.getSubject(), authorities);
+        long expiration = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+        long issuedAt = claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0;
+
+        return new VerifiedToken(principal, claims.getId(), issuedAt, expiration);
+    }
+
+    private static ByteBuffer hash(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Verifies the tokens with the public key of their {@code kid}: tokens without one, or with a deleted one, are
+     * rejected before their signature is checked.
+     */
+    private class KidSigningKeyResolver extends SigningKeyResolverAdapter {
+
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            return signingKeyStore
+                .getVerificationKey(header.getKeyId())
+                .filter(signingKey -> signingKey.getAlgorithm().getValue().equals(header.getAlgorithm()))
+                .map(JwtSigningKeyStore.SigningKey::getPublicKey)
+                .orElseThrow(() -> new SignatureException("Unknown JWT signing key " + header.getKeyId()));
+        }
+    }
+
+    /**
+     * Expires the verified tokens with themselves.
+     */
+    private static final class UntilTokenExpiration implements ExpiryPolicy<ByteBuffer, VerifiedToken> {
+
+        @Override
+        public Duration getExpiryForCreation(ByteBuffer hash, VerifiedToken verified) {
+            return Duration.ofMillis(Math.max(0, verified.expiration - System.currentTimeMillis()));
+        }
+
+        @Override
+        public Duration getExpiryForAccess(ByteBuffer hash, Supplier<? extends VerifiedToken> verified) {
+            return null;
+        }
+
+        @Override
+        public Duration getExpiryForUpdate(ByteBuffer hash, Supplier<? extends VerifiedToken> oldVerified, VerifiedToken verified) {
+            return getExpiryForCreation(hash, verified);
+        }
+    }
+
+    private static final class VerifiedToken {
+
+        private final AuthenticatedUser principal;
+
+        private final String tokenId;
+
+        private final long issuedAt;
+
+        private final long expiration;
+
+        private VerifiedToken(AuthenticatedUser principal, String tokenId, long issuedAt, long expiration) {
+            this.principal = principal;
+            this.tokenId = tokenId;
+            this.issuedAt = issuedAt;
+            this.expiration = expiration;
+        }
     }
 }
@@ -0,0 +1,162 @@
+package br.sc.provapesquisador.security.jwt;
+
+import br.sc.provapesquisador.domain.TokenRevocation;
+import br.sc.provapesquisador.repository.TokenRevocationRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * The JWTs revoked before their expiration, checked in memory on each request.
+ * <p>
+ * The revocations are stored as {@link TokenRevocation} entities, applied locally once committed and reloaded from
+ * the other nodes every {@code application.security.revocation.refresh-interval}. They are forgotten once the tokens
+ * they revoke have expired, so that the lists only hold the revocations of live tokens.
+ */
+@Component
+public class TokenRevocationList {
+
+    /**
+     * Revocations are reloaded from this long before the last reload, as their transactions may have committed after it.
+     */
+    private static final Duration RELOAD_OVERLAP = Duration.ofMinutes(1);
+
+    private final Logger log = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    /**
+     * The expiration of the revoked tokens, by {@code jti}.
+     */
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    /**
+     * The date until which all the tokens of the users are revoked, by login.
+     */
+    private final Map<String, Long> revokedUsers = new ConcurrentHashMap<>();
+
+    private final Duration maxTokenValidity;
+
+    private final TokenRevocationRepository tokenRevocationRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * The date of the last reload, or none until first used.
+     */
+    private volatile Instant loadedDate;
+
+    public TokenRevocationList(
+        JHipsterProperties jHipsterProperties,
+        TokenRevocationRepository tokenRevocationRepository,
+        PlatformTransactionManager transactionManager
+    ) {
+        JHipsterProperties.Security.Authentication.Jwt jwt = jHipsterProperties.getSecurity().getAuthentication().getJwt();
+        this.maxTokenValidity = Duration.ofSeconds(Math.max(jwt.getTokenValidityInSeconds(), jwt.getTokenValidityInSecondsForRememberMe()));
+        this.tokenRevocationRepository = tokenRevocationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Whether a token is revoked, without any database access once loaded.
+     *
+     * @param tokenId the {@code jti} of the token, if any.
+     * @param login the subject of the token.
+     * @param issuedAt the {@code iat} of the token in milliseconds, or {@code 0} if it has none. As it is rounded down
+     *                 to the second, the tokens issued in the second of the revocation of their user are revoked too.
+     * @return whether the token is revoked.
+     */
+    public boolean isRevoked(String tokenId, String login, long issuedAt) {
+        if (loadedDate == null) {
+            refresh();
+        }
+        if (tokenId != null && revokedTokens.containsKey(tokenId)) {
+            return true;
+        }
+        Long revokedUntil = login != null ? revokedUsers.get(login) : null;
+        return revokedUntil != null && issuedAt < revokedUntil;
+    }
+
+    /**
+     * Revoke a token until it expires, once the current transaction commits.
+     *
+     * @param tokenId the {@code jti} of the token.
+     * @param expiration the expiration of the token.
+     */
+    public void revokeToken(String tokenId, Instant expiration) {
+        save(new TokenRevocation().tokenId(tokenId).revokedDate(Instant.now()).expirationDate(expiration));
+    }
+
+    /**
+     * Revoke all the tokens of a user issued until now, once the current transaction commits.
+     *
+     * @param login the login of the user.
+     */
+    public void revokeUser(String login) {
+        Instant now = Instant.now();
+        save(new TokenRevocation().login(login).revokedDate(now).expirationDate(now.plus(maxTokenValidity)));
+    }
+
+    /**
+     * Reload the revocations of the other nodes, and forget the ones of expired tokens.
+     */
+    @Scheduled(
+        initialDelayString = "${application.security.revocation.refresh-interval:PT10S}",
+        fixedDelayString = "${application.security.revocation.refresh-interval:PT10S}"
+    )
+    public synchronized void refresh() {
+        Instant now = Instant.now();
+        Instant since = loadedDate != null ? loadedDate.minus(RELOAD_OVERLAP) : Instant.EPOCH;
+        List<TokenRevocation> revocations = tokenRevocationRepository.findAllByRevokedDateAfterAndExpirationDateAfter(since, now);
+        revocations.forEach(this::apply);
+        long nowMillis = now.toEpochMilli();
+        long maxTokenValidityMillis = maxTokenValidity.toMillis();
+        revokedTokens.values().removeIf(expiration -> expiration < nowMillis);
+        revokedUsers.values().removeIf(revokedUntil -> revokedUntil + maxTokenValidityMillis < nowMillis);
+        loadedDate = now;
+    }
+
+    /**
+     * Delete the revocations of expired tokens.
+     * <p>
+     * This is scheduled to get fired every hour.
+     */
+    @Scheduled(cron = "0 30 * * * ?")
+    public void removeExpiredRevocations() {
+        Integer deleted = transactionTemplate.execute(status -> tokenRevocationRepository.deleteExpired(Instant.now()));
+        log.debug("Deleted {} expired token revocations", deleted);
+    }
+
+    private void save(TokenRevocation revocation) {
+        tokenRevocationRepository.save(revocation);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        apply(revocation);
+                    }
+                }
+            );
+        } else {
+            apply(revocation);
+        }
+    }
+
+    private void apply(TokenRevocation revocation) {
+        if (revocation.getTokenId() != null) {
+            revokedTokens.put(revocation.getTokenId(), revocation.getExpirationDate().toEpochMilli());
+        } else {
+            revokedUsers.merge(revocation.getLogin(), revocation.getRevokedDate().toEpochMilli(), Math::max);
+        }
+    }
+}
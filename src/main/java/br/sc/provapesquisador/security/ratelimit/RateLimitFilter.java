@@ -0,0 +1,281 @@
+package br.sc.provapesquisador.security.ratelimit;
+
+import br.sc.provapesquisador.config.ApplicationProperties;
+import br.sc.provapesquisador.management.SecurityMetersService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Rate limits the endpoints hashing a password or sending a mail for anonymous clients, before they authenticate.
+ * <p>
+ * Each request takes a token from the bucket of its client IP, then from the bucket of the login it is for, read from
+ * its body. The requests finding an empty bucket are answered {@code 429 Too Many Requests} with a
+ * {@code Retry-After}, and counted by {@link SecurityMetersService#trackRateLimited(String, String)}.
+ * <p>
+ * Behind a proxy, all the clients would share the bucket of the proxy, so the client IP is read from the
+ * {@code X-Forwarded-For} header of the requests coming from {@code application.security.rate-limit.trusted-proxies}: the
+ * last address of the header that is not a trusted proxy. Undertow's own {@code server.forward-headers-strategy} trusts
+ * the header from any client, letting them pick a new bucket for each request.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    /**
+     * The largest body read for its login: the limited endpoints only take a few short fields.
+     */
+    static final int MAX_BODY_SIZE = 8192;
+
+    private static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+    /**
+     * IPv4 or IPv6 literals: the {@link IpAddressMatcher} would resolve any other address through the DNS.
+     */
+    private static final Pattern IP_ADDRESS = Pattern.compile(
+        "((25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)\\.){3}(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)|[0-9a-fA-F.]*:[0-9a-fA-F:.]*"
+    );
+
+    private final boolean enabled;
+
+    private final List<Endpoint> endpoints;
+
+    private final List<IpAddressMatcher> trustedProxies;
+
+    private final SecurityMetersService securityMetersService;
+
+    public RateLimitFilter(ApplicationProperties applicationProperties, SecurityMetersService securityMetersService, ObjectMapper mapper) {
+        this(applicationProperties, securityMetersService, mapper, System::nanoTime);
+    }
+
+    RateLimitFilter(
+        ApplicationProperties applicationProperties,
+        SecurityMetersService securityMetersService,
+        ObjectMapper mapper,
+        LongSupplier nanoClock
+    ) {
+        ApplicationProperties.Security.RateLimit properties = applicationProperties.getSecurity().getRateLimit();
+        this.enabled = properties.isEnabled();
+        this.securityMetersService = securityMetersService;
+        this.trustedProxies = properties.getTrustedProxies().stream().map(IpAddressMatcher::new).collect(Collectors.toList());
+        this.endpoints =
+            List.of(
+                new Endpoint(
+                    "authenticate",
+                    new AntPathRequestMatcher("/api/authenticate", "POST"),
+                    properties.getAuthenticate(),
+                    properties.getMaxBuckets(),
+                    nanoClock,
+                    body -> username(mapper, body)
+                ),
+                new Endpoint(
+                    "password-reset",
+                    new AntPathRequestMatcher("/api/account/reset-password/init", "POST"),
+                    properties.getPasswordReset(),
+                    properties.getMaxBuckets(),
+                    nanoClock,
+                    body -> new String(body, StandardCharsets.UTF_8)
+                )
+            );
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || endpoints.stream().noneMatch(endpoint -> endpoint.matcher.matches(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        Endpoint endpoint = endpoints.stream().filter(candidate -> candidate.matcher.matches(request)).findFirst().orElseThrow();
+        long wait = endpoint.perIp.tryAcquire(clientIp(request));
+        if (wait > 0) {
+            reject(response, endpoint, "ip", wait);
+            return;
+        }
+        byte[] body = request.getContentLengthLong() > MAX_BODY_SIZE ? null : request.getInputStream().readNBytes(MAX_BODY_SIZE + 1);
+        if (body == null || body.length > MAX_BODY_SIZE) {
+            response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            return;
+        }
+        String login = endpoint.login.apply(body);
+        if (StringUtils.hasText(login)) {
+            wait = endpoint.perLogin.tryAcquire(login.trim().toLowerCase(Locale.ENGLISH));
+            if (wait > 0) {
+                reject(response, endpoint, "login", wait);
+                return;
+            }
+        }
+        filterChain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+
+    /**
+     * @return the address of the client: the peer address, or when the peer is a trusted proxy, the last address of its
+     * {@code X-Forwarded-For} that is not a trusted proxy.
+     */
+    String clientIp(HttpServletRequest request) {
+        String clientIp = request.getRemoteAddr();
+        if (!isTrustedProxy(clientIp)) {
+            return clientIp;
+        }
+        List<String> forwarded = new ArrayList<>();
+        for (Enumeration<String> headers = request.getHeaders(X_FORWARDED_FOR); headers.hasMoreElements();) {
+            for (String address : headers.nextElement().split(",")) {
+                if (StringUtils.hasText(address)) {
+                    forwarded.add(address.trim());
+                }
+            }
+        }
+        // each proxy appends the address it got the request from, only the ones added by the trusted proxies are true
+        for (int i = forwarded.size() - 1; i >= 0; i--) {
+            clientIp = forwarded.get(i);
+            if (!isTrustedProxy(clientIp)) {
+                return clientIp;
+            }
+        }
+        return clientIp;
+    }
+
+    private boolean isTrustedProxy(String address) {
+        if (address == null || !IP_ADDRESS.matcher(address).matches()) {
+            return false;
+        }
+        try {
+            return trustedProxies.stream().anyMatch(proxy -> proxy.matches(address));
+        } catch (IllegalArgumentException e) {
+            // not a valid IPv6 address
+            return false;
+        }
+    }
+
+    private void reject(HttpServletResponse response, Endpoint endpoint, String key, long waitNanos) {
+        securityMetersService.trackRateLimited(endpoint.name, key);
+        long seconds = (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+    }
+
+    /**
+     * @return the {@code username} of a {@code LoginVM}, or none if the body is not one: the controller rejects it.
+     */
+    private static String username(ObjectMapper mapper, byte[] body) {
+        try {
+            return mapper.readTree(body).path("username").asText(null);
+        } catch (JsonProcessingException e) {
+            return null;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Endpoint {
+
+        private final String name;
+
+        private final AntPathRequestMatcher matcher;
+
+        private final TokenBuckets perIp;
+
+        private final TokenBuckets perLogin;
+
+        private final Function<byte[], String> login;
+
+        Endpoint(
+            String name,
+            AntPathRequestMatcher matcher,
+            ApplicationProperties.Security.RateLimit.Endpoint limits,
+            int maxBuckets,
+            LongSupplier nanoClock,
+            Function<byte[], String> login
+        ) {
+            this.name = name;
+            this.matcher = matcher;
+            this.perIp = new TokenBuckets(limits.getPerIp(), maxBuckets, nanoClock);
+            this.perLogin = new TokenBuckets(limits.getPerLogin(), maxBuckets, nanoClock);
+            this.login = login;
+        }
+    }
+
+    /**
+     * The request, with its body read for its login served again to the controller.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // the body is already in memory, all of it can be read without blocking
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(), encoding != null ? encoding : "UTF-8"));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package br.sc.provapesquisador.security.ratelimit;
+
+import br.sc.provapesquisador.config.ApplicationProperties;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets by key, of a same {@link ApplicationProperties.Security.RateLimit.Limit}.
+ * <p>
+ * A bucket is a single {@link AtomicLong} holding its theoretical arrival time, the generic cell rate algorithm
+ * formulation of a token bucket: it is taken with a compare-and-set and never locks. Only the lookup of the buckets
+ * locks, on one of {@link #STRIPES} access-ordered maps chosen by the hash of the key, which forget their least
+ * recently used buckets beyond their share of {@code max-buckets}. A forgotten bucket is full again when next used.
+ */
+final class TokenBuckets {
+
+    private static final int STRIPES = 16;
+
+    /**
+     * The nanoseconds refilling one token.
+     */
+    private final long emissionInterval;
+
+    /**
+     * How far in the future the theoretical arrival time may be while a token remains: the time to refill all but one.
+     */
+    private final long tolerance;
+
+    private final LongSupplier nanoClock;
+
+    private final List<Map<String, AtomicLong>> stripes = new ArrayList<>(STRIPES);
+
+    TokenBuckets(ApplicationProperties.Security.RateLimit.Limit limit, int maxBuckets, LongSupplier nanoClock) {
+        if (limit.getCapacity() < 1) {
+            throw new IllegalArgumentException("The capacity of a rate limit must be positive");
+        }
+        this.emissionInterval = limit.getPeriod().toNanos() / limit.getCapacity();
+        this.tolerance = emissionInterval * (limit.getCapacity() - 1);
+        this.nanoClock = nanoClock;
+        int maxStripeSize = Math.max(1, maxBuckets / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes.add(
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, AtomicLong> eldest) {
+                        return size() > maxStripeSize;
+                    }
+                }
+            );
+        }
+    }
+
+    /**
+     * Take a token from the bucket of a key.
+     *
+     * @param key the key of the bucket.
+     * @return {@code 0} if a token was taken, otherwise the nanoseconds until the next one.
+     */
+    long tryAcquire(String key) {
+        long now = nanoClock.getAsLong();
+        AtomicLong bucket = bucket(key, now);
+        while (true) {
+            long arrival = bucket.get();
+            // an idle bucket is full: it doesn't save the tokens of the past
+            long start = arrival - now > 0 ? arrival : now;
+            long wait = start - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(arrival, start + emissionInterval)) {
+                return 0;
+            }
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Map<String, AtomicLong> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private AtomicLong bucket(String key, long now) {
+        Map<String, AtomicLong> stripe = stripes.get((key.hashCode() & Integer.MAX_VALUE) % STRIPES);
+        synchronized (stripe) {
+            return stripe.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package br.sc.provapesquisador.service;
+
+import br.sc.provapesquisador.config.ApplicationProperties;
+import br.sc.provapesquisador.repository.ListeningTimestampsCacheFactory;
+import br.sc.provapesquisador.service.dto.CacheInvalidationDTO;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.cache.spi.TimestampsCache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps the caches of the nodes of a cluster consistent, as each node has its own Ehcache regions.
+ * <p>
+ * The committed writes of this node are batched, every {@code application.cache.invalidation.batch-interval}, into
+ * a {@link CacheInvalidationDTO} broadcast to the peers by the {@link CacheInvalidationTransport}: the updated and
+ * deleted cached entities, the tables of the query cache invalidated by Hibernate, and the keys evicted from the
+ * Spring caches through {@link #evict(String, Object)}. The peers evict the same entries from their own caches.
+ */
+@Service
+public class CacheInvalidationBus {
+
+    private final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private final ApplicationProperties.Cache.Invalidation properties;
+
+    private final CacheInvalidationTransport transport;
+
+    private final CacheManager cacheManager;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final ListeningTimestampsCacheFactory timestampsCacheFactory;
+
+    private CacheInvalidationDTO pending = new CacheInvalidationDTO();
+
+    public CacheInvalidationBus(
+        ApplicationProperties applicationProperties,
+        CacheInvalidationTransport transport,
+        CacheManager cacheManager,
+        EntityManagerFactory entityManagerFactory,
+        ListeningTimestampsCacheFactory timestampsCacheFactory
+    ) {
+        this.properties = applicationProperties.getCache().getInvalidation();
+        this.transport = transport;
+        this.cacheManager = cacheManager;
+        this.entityManagerFactory = entityManagerFactory;
+        this.timestampsCacheFactory = timestampsCacheFactory;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        EventListenerRegistry listeners = sessionFactory().getServiceRegistry().getService(EventListenerRegistry.class);
+        EntityInvalidationListener listener = new EntityInvalidationListener();
+        listeners.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        listeners.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+        timestampsCacheFactory.setListener(spaces -> record(invalidation -> Collections.addAll(invalidation.getTables(), spaces)));
+        transport.start(this::apply);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (properties.isEnabled()) {
+            flush();
+            transport.stop();
+        }
+    }
+
+    /**
+     * Evict a key from a Spring cache of this node, and once the current transaction is committed, from the peers.
+     *
+     * @param cacheName the name of the cache.
+     * @param key the key, sent as its string value.
+     */
+    public void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Runnable broadcast = () ->
+            record(invalidation -> invalidation.getCaches().computeIfAbsent(cacheName, name -> new TreeSet<>()).add(key.toString()));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        broadcast.run();
+                    }
+                }
+            );
+        } else {
+            broadcast.run();
+        }
+    }
+
+    /**
+     * Broadcast the invalidations recorded since the last flush.
+     */
+    @Scheduled(fixedDelayString = "${application.cache.invalidation.batch-interval:PT0.1S}")
+    public void flush() {
+        broadcastPending();
+    }
+
+    CompletableFuture<Void> broadcastPending() {
+        CacheInvalidationDTO invalidation;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            invalidation = pending;
+            pending = new CacheInvalidationDTO();
+        }
+        return transport.broadcast(invalidation);
+    }
+
+    /**
+     * Evict from the caches of this node the entries invalidated by a peer.
+     *
+     * @param invalidation the invalidations of the peer.
+     */
+    void apply(CacheInvalidationDTO invalidation) {
+        invalidation
+            .getCaches()
+            .forEach((cacheName, keys) -> {
+                Cache cache = cacheManager.getCache(cacheName);
+                if (cache != null) {
+                    keys.forEach(cache::evict);
+                }
+            });
+        invalidation.getEntities().forEach(this::evictEntities);
+        if (!invalidation.getTables().isEmpty()) {
+            invalidateTables(invalidation.getTables());
+        }
+    }
+
+    private void evictEntities(String entityName, Set<String> ids) {
+        SessionFactoryImplementor sessionFactory = sessionFactory();
+        EntityPersister persister = sessionFactory.getMetamodel().entityPersister(entityName);
+        Class<?> idClass = persister.getIdentifierType().getReturnedClass();
+        Collection<CollectionPersister> collections = sessionFactory.getMetamodel().collectionPersisters().values();
+        for (String id : ids) {
+            Object identifier = DefaultConversionService.getSharedInstance().convert(id, idClass);
+            sessionFactory.getCache().evictEntityData(entityName, (Serializable) identifier);
+            collections
+                .stream()
+                .filter(collection -> collection.hasCache() && collection.getOwnerEntityPersister() == persister)
+                .forEach(collection -> sessionFactory.getCache().evictCollectionData(collection.getRole(), (Serializable) identifier));
+        }
+    }
+
+    private void invalidateTables(Set<String> tables) {
+        SessionFactoryImplementor sessionFactory = sessionFactory();
+        TimestampsCache timestamps = sessionFactory.getCache().getTimestampsCache();
+        if (!(timestamps instanceof ListeningTimestampsCacheFactory.ListeningTimestampsCache)) {
+            return;
+        }
+        try (Session session = sessionFactory.openSession()) {
+            ((ListeningTimestampsCacheFactory.ListeningTimestampsCache) timestamps).invalidateSilently(
+                    tables.toArray(new String[0]),
+                    (SharedSessionContractImplementor) session
+                );
+        }
+    }
+
+    private synchronized void record(Consumer<CacheInvalidationDTO> change) {
+        change.accept(pending);
+    }
+
+    private SessionFactoryImplementor sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    }
+
+    private class EntityInvalidationListener implements PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            recordEntity(event.getPersister(), event.getId());
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            recordEntity(event.getPersister(), event.getId());
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) {}
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) {}
+
+        @Override
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return persister.canWriteToCache();
+        }
+
+        private void recordEntity(EntityPersister persister, Serializable id) {
+            log.trace("Invalidating {}#{} on the peers", persister.getEntityName(), id);
+            record(invalidation ->
+                invalidation.getEntities().computeIfAbsent(persister.getEntityName(), name -> new TreeSet<>()).add(id.toString())
+            );
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package br.sc.provapesquisador.service;
+
+import br.sc.provapesquisador.config.ApplicationProperties;
+import br.sc.provapesquisador.service.dto.CacheInvalidationDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.stereotype.Service;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Sends the {@link CacheInvalidationDTO cache invalidations} of this node to its peers, and receives theirs.
+ * <p>
+ * The peers are the instances of {@code application.cache.invalidation.service-id} known to the
+ * {@link DiscoveryClient}, which publish their invalidation port in their {@value #PORT_METADATA} metadata. Each
+ * node listens on that port of its {@code application.cache.invalidation.bind-address} with the JDK HTTP server, apart
+ * from the web server and its security: invalidations are JSON posts signed with an HMAC of the shared
+ * {@code application.cache.invalidation.secret}, which must not be the key of the JWTs. Delivery is best effort, the
+ * time to live of the regions bounds the staleness left by a lost invalidation.
+ */
+@Service
+public class CacheInvalidationTransport {
+
+    /**
+     * The instance metadata holding the invalidation port of a node.
+     */
+    public static final String PORT_METADATA = "cache-invalidation-port";
+
+    static final String PATH = "/cache-invalidations";
+
+    private static final String SIGNATURE_HEADER = "X-Signature";
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(2);
+
+    private final Logger log = LoggerFactory.getLogger(CacheInvalidationTransport.class);
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final ApplicationProperties.Cache.Invalidation properties;
+
+    private final String jwtSecret;
+
+    private final DiscoveryClient discoveryClient;
+
+    private final ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+
+    private HttpServer server;
+
+    public CacheInvalidationTransport(
+        ApplicationProperties applicationProperties,
+        JHipsterProperties jHipsterProperties,
+        DiscoveryClient discoveryClient,
+        ObjectMapper objectMapper
+    ) {
+        this.properties = applicationProperties.getCache().getInvalidation();
+        this.jwtSecret = jHipsterProperties.getSecurity().getAuthentication().getJwt().getBase64Secret();
+        this.discoveryClient = discoveryClient;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Listen to the invalidations of the peers.
+     *
+     * @param receiver called with each invalidation of another node.
+     * @throws IOException if the port can't be bound.
+     * @throws IllegalStateException if the secret or the bind address is missing, or if the secret is the key of the JWTs.
+     */
+    public synchronized void start(Consumer<CacheInvalidationDTO> receiver) throws IOException {
+        if (StringUtils.isBlank(properties.getSecret())) {
+            throw new IllegalStateException("application.cache.invalidation.secret is required to invalidate the caches of the peers");
+        }
+        if (properties.getSecret().equals(jwtSecret)) {
+            throw new IllegalStateException("application.cache.invalidation.secret must not be the key of the JWTs");
+        }
+        if (StringUtils.isBlank(properties.getBindAddress())) {
+            throw new IllegalStateException("application.cache.invalidation.bind-address is required to listen to the peers");
+        }
+        server = HttpServer.create(new InetSocketAddress(properties.getBindAddress(), properties.getPort()), 0);
+        server.createContext(PATH, exchange -> receive(exchange, receiver));
+        server.start();
+        log.info("Listening to the cache invalidations of the peers on {}", getAddress());
+    }
+
+    /**
+     * @return the port receiving the invalidations, which is the configured one unless it is 0.
+     */
+    public synchronized int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    synchronized InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    /**
+     * Send an invalidation to all the peers.
+     *
+     * @param invalidation the invalidation, whose origin is set to this node.
+     * @return completed once every peer has answered or failed.
+     */
+    public CompletableFuture<Void> broadcast(CacheInvalidationDTO invalidation) {
+        invalidation.setOrigin(nodeId);
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(invalidation);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        String signature = sign(body);
+        List<CompletableFuture<Void>> sent = discoveryClient
+            .getInstances(properties.getServiceId())
+            .stream()
+            .filter(instance -> instance.getMetadata().containsKey(PORT_METADATA))
+            .map(instance -> send(instance, body, signature))
+            .collect(Collectors.toList());
+        return CompletableFuture.allOf(sent.toArray(new CompletableFuture[0]));
+    }
+
+    private CompletableFuture<Void> send(ServiceInstance instance, byte[] body, String signature) {
+        URI uri = URI.create("http://" + instance.getHost() + ":" + instance.getMetadata().get(PORT_METADATA) + PATH);
+        HttpRequest request = HttpRequest
+            .newBuilder(uri)
+            .timeout(TIMEOUT)
+            .header("Content-Type", "application/json")
+            .header(SIGNATURE_HEADER, signature)
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build();
+        return httpClient
+            .sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .handle((response, error) -> {
+                if (error != null) {
+                    log.warn("Could not send the cache invalidations to {}: {}", uri, error.getMessage());
+                } else if (response.statusCode() >= 300) {
+                    log.warn("Cache invalidations refused by {} with status {}", uri, response.statusCode());
+                }
+                return null;
+            });
+    }
+
+    private void receive(HttpExchange exchange, Consumer<CacheInvalidationDTO> receiver) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readAllBytes();
+            }
+            String signature = exchange.getRequestHeaders().getFirst(SIGNATURE_HEADER);
+            if (signature == null || !MessageDigest.isEqual(sign(body).getBytes(), signature.getBytes())) {
+                log.warn("Rejected cache invalidations with a wrong signature from {}", exchange.getRemoteAddress());
+                exchange.sendResponseHeaders(403, -1);
+                return;
+            }
+            CacheInvalidationDTO invalidation = objectMapper.readValue(body, CacheInvalidationDTO.class);
+            if (!nodeId.equals(invalidation.getOrigin())) {
+                log.debug("Received cache invalidations {}", invalidation);
+                receiver.accept(invalidation);
+            }
+            exchange.sendResponseHeaders(204, -1);
+        } catch (RuntimeException e) {
+            log.warn("Could not apply the cache invalidations: {}", e.getMessage());
+            exchange.sendResponseHeaders(500, -1);
+        }
+    }
+
+    private String sign(byte[] body) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(Base64.getDecoder().decode(properties.getSecret()), ALGORITHM));
+            return Base64.getEncoder().encodeToString(mac.doFinal(body));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
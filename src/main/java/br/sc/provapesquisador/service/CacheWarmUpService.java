@@ -0,0 +1,139 @@
+package br.sc.provapesquisador.service;
+
+import br.sc.provapesquisador.config.ApplicationProperties;
+import br.sc.provapesquisador.domain.User;
+import br.sc.provapesquisador.repository.PessoaRepository;
+import br.sc.provapesquisador.repository.UserRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Loads the hottest entries of the user and Pessoa cache regions on startup.
+ * <p>
+ * The warm-up runs as an {@link ApplicationRunner}: Spring Boot only reports the readiness state as accepting traffic
+ * once the runners have returned, so a node joins the load balancer with warm caches. The most recently modified
+ * activated users are loaded into {@code usersByLogin} and {@code usersByEmail}, and the most read pessoas of the
+ * last {@link PessoaReadTracker} snapshot into the Pessoa entity region. Batches are loaded in parallel on the
+ * {@code taskExecutor}, and the warm-up gives up on the batches left once {@code application.cache.warm-up.time-budget}
+ * is spent.
+ */
+@Service
+public class CacheWarmUpService implements ApplicationRunner {
+
+    private final Logger log = LoggerFactory.getLogger(CacheWarmUpService.class);
+
+    private final ApplicationProperties.Cache.WarmUp properties;
+
+    private final UserRepository userRepository;
+
+    private final PessoaRepository pessoaRepository;
+
+    private final PessoaReadTracker pessoaReadTracker;
+
+    private final Executor taskExecutor;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public CacheWarmUpService(
+        ApplicationProperties applicationProperties,
+        UserRepository userRepository,
+        PessoaRepository pessoaRepository,
+        PessoaReadTracker pessoaReadTracker,
+        @Qualifier("taskExecutor") Executor taskExecutor,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.properties = applicationProperties.getCache().getWarmUp();
+        this.userRepository = userRepository;
+        this.pessoaRepository = pessoaRepository;
+        this.pessoaReadTracker = pessoaReadTracker;
+        this.taskExecutor = taskExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (properties.isEnabled()) {
+            warmUp();
+        }
+    }
+
+    /**
+     * Load the hottest users and pessoas into their cache regions, within the time budget.
+     *
+     * @return the number of users and pessoas loaded.
+     */
+    public long warmUp() {
+        long start = System.nanoTime();
+        long deadline = start + properties.getTimeBudget().toNanos();
+        AtomicLong loaded = new AtomicLong();
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+
+        PageRequest recentlyModified = PageRequest.of(0, properties.getUsers(), Sort.by(Sort.Order.desc("lastModifiedDate")));
+        List<User> users = transactionTemplate.execute(status ->
+            userRepository.findAllByIdNotNullAndActivatedIsTrue(recentlyModified).getContent()
+        );
+        submit(
+            users,
+            deadline,
+            batch ->
+                batch.forEach(user -> {
+                    userRepository.findOneWithAuthoritiesByLogin(user.getLogin());
+                    if (user.getEmail() != null) {
+                        userRepository.findOneWithAuthoritiesByEmailIgnoreCase(user.getEmail());
+                    }
+                    loaded.incrementAndGet();
+                }),
+            batches
+        );
+        submit(pessoaReadTracker.readSnapshot(), deadline, batch -> loaded.addAndGet(pessoaRepository.findAllById(batch).size()), batches);
+
+        try {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).get(remaining, TimeUnit.NANOSECONDS);
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            log.info("Warmed up the caches with {} entries in {} ms", loaded.get(), elapsed);
+        } catch (TimeoutException e) {
+            log.warn("Cache warm-up stopped after {} with {} entries", properties.getTimeBudget(), loaded.get());
+        } catch (ExecutionException e) {
+            log.warn("Cache warm-up failed with {} entries: {}", loaded.get(), e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return loaded.get();
+    }
+
+    private <T> void submit(List<T> items, long deadline, Consumer<List<T>> load, List<CompletableFuture<Void>> batches) {
+        for (int from = 0; from < items.size(); from += properties.getBatchSize()) {
+            List<T> batch = items.subList(from, Math.min(from + properties.getBatchSize(), items.size()));
+            batches.add(
+                CompletableFuture.runAsync(
+                    () -> {
+                        // batches still queued once the budget is spent are dropped
+                        if (System.nanoTime() < deadline) {
+                            transactionTemplate.executeWithoutResult(status -> load.accept(batch));
+                        }
+                    },
+                    taskExecutor
+                )
+            );
+        }
+    }
+}
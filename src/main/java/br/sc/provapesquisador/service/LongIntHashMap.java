@@ -0,0 +1,120 @@
+package br.sc.provapesquisador.service;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map of {@code long} keys to non-negative {@code int} values, without boxing.
+ * <p>
+ * Linear probing over parallel key and value arrays, kept at most half full. Removals shift the following entries
+ * back, so there are no tombstones. Not thread-safe.
+ */
+final class LongIntHashMap {
+
+    /**
+     * Returned for the missing keys, and marking the empty slots.
+     */
+    static final int ABSENT = -1;
+
+    private long[] keys;
+
+    private int[] values;
+
+    private int mask;
+
+    private int size;
+
+    LongIntHashMap() {
+        allocate(16);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the value of the key, or {@link #ABSENT}.
+     */
+    int get(long key) {
+        for (int slot = slot(key);; slot = (slot + 1) & mask) {
+            if (values[slot] == ABSENT || keys[slot] == key) {
+                return values[slot];
+            }
+        }
+    }
+
+    /**
+     * @param value a non-negative value.
+     */
+    void put(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value " + value);
+        }
+        int slot = slot(key);
+        while (values[slot] != ABSENT && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (values[slot] == ABSENT) {
+            if (++size > (mask + 1) >> 1) {
+                grow();
+                put(key, value);
+                return;
+            }
+            keys[slot] = key;
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * @return the removed value, or {@link #ABSENT}.
+     */
+    int remove(long key) {
+        int gap = slot(key);
+        while (values[gap] != ABSENT && keys[gap] != key) {
+            gap = (gap + 1) & mask;
+        }
+        int removed = values[gap];
+        if (removed == ABSENT) {
+            return ABSENT;
+        }
+        // move back the next entries of the run that may take the gap: those whose home is not after it
+        for (int slot = (gap + 1) & mask; values[slot] != ABSENT; slot = (slot + 1) & mask) {
+            if (((slot - slot(keys[slot])) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        values[gap] = ABSENT;
+        size--;
+        return removed;
+    }
+
+    void clear() {
+        Arrays.fill(values, ABSENT);
+        size = 0;
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldValues.length << 1);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != ABSENT) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, ABSENT);
+        mask = capacity - 1;
+        size = 0;
+    }
+}
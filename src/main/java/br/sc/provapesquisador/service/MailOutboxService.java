@@ -0,0 +1,263 @@
+package br.sc.provapesquisador.service;
+
+import br.sc.provapesquisador.config.ApplicationProperties;
+import br.sc.provapesquisador.domain.OutgoingMail;
+import br.sc.provapesquisador.domain.enumeration.OutgoingMailStatus;
+import br.sc.provapesquisador.management.MailMetersService;
+import br.sc.provapesquisador.repository.OutgoingMailRepository;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import javax.annotation.PreDestroy;
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Service sending the {@link OutgoingMail mails of the outbox} on the {@code mailExecutor}.
+ * <p>
+ * The mails are queued in the transaction sending them, and a worker is started once it commits. The workers claim
+ * the due mails batch after batch, send each batch over a single SMTP connection, delete the mails sent and retry the
+ * others with an exponential backoff, until {@code application.mail.outbox.max-attempts} dead-letters them. The mails
+ * are sent at least once: those of a node stopped while sending them are sent again once their lock expires.
+ */
+@Service
+public class MailOutboxService {
+
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(MailOutboxService.class);
+
+    private final ApplicationProperties.Mail.Outbox properties;
+
+    private final JHipsterProperties jHipsterProperties;
+
+    private final OutgoingMailRepository outgoingMailRepository;
+
+    private final JavaMailSender javaMailSender;
+
+    private final ThreadPoolTaskExecutor mailExecutor;
+
+    private final MailMetersService mailMetersService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile boolean stopping;
+
+    public MailOutboxService(
+        ApplicationProperties applicationProperties,
+        JHipsterProperties jHipsterProperties,
+        OutgoingMailRepository outgoingMailRepository,
+        JavaMailSender javaMailSender,
+        @Qualifier("mailExecutor") ThreadPoolTaskExecutor mailExecutor,
+        MailMetersService mailMetersService,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.properties = applicationProperties.getMail().getOutbox();
+        this.jHipsterProperties = jHipsterProperties;
+        this.outgoingMailRepository = outgoingMailRepository;
+        this.javaMailSender = javaMailSender;
+        this.mailExecutor = mailExecutor;
+        this.mailMetersService = mailMetersService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        for (OutgoingMailStatus status : OutgoingMailStatus.values()) {
+            String tag = status.name().toLowerCase(Locale.ENGLISH);
+            mailMetersService.registerOutboxDepth(tag, () -> outgoingMailRepository.countByStatus(status));
+        }
+    }
+
+    /**
+     * Queue a mail, sent once the current transaction commits.
+     *
+     * @param to the recipient.
+     * @param subject the subject.
+     * @param content the content.
+     * @param isMultipart whether the content is sent in a multipart message.
+     * @param isHtml whether the content is HTML.
+     */
+    @Transactional
+    public void enqueue(String to, String subject, String content, boolean isMultipart, boolean isHtml) {
+        enqueue(List.of(new OutgoingMail().recipient(to).subject(subject).content(content).multipart(isMultipart).html(isHtml)));
+    }
+
+    /**
+     * Queue several mails, in batched inserts, sent once the current transaction commits.
+     *
+     * @param mails the mails, of which only the recipient, subject, content, multipart and html are set.
+     */
+    @Transactional
+    public void enqueue(List<OutgoingMail> mails) {
+        Instant now = Instant.now();
+        for (OutgoingMail mail : mails) {
+            mail.status(OutgoingMailStatus.PENDING).attempts(0).createdDate(now).nextAttemptDate(now);
+        }
+        outgoingMailRepository.saveAll(mails);
+        log.debug("Queued {} mails", mails.size());
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    startWorker();
+                }
+            }
+        );
+    }
+
+    /**
+     * Start a worker sending the mails whose next attempt is due, joined by the others while it claims full batches.
+     */
+    @Scheduled(
+        initialDelayString = "${application.mail.outbox.poll-interval:PT5S}",
+        fixedDelayString = "${application.mail.outbox.poll-interval:PT5S}"
+    )
+    public void poll() {
+        startWorker();
+    }
+
+    /**
+     * Send the due mails, batch after batch, until none is left.
+     *
+     * @return the number of mails sent.
+     */
+    public int sendDueMails() {
+        int sent = 0;
+        List<OutgoingMail> batch;
+        while (!stopping && !(batch = claimBatch()).isEmpty()) {
+            if (batch.size() == properties.getBatchSize()) {
+                startWorker();
+            }
+            sent += send(batch);
+        }
+        return sent;
+    }
+
+    /**
+     * Stop the workers after the batch they are sending.
+     */
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+    }
+
+    private void startWorker() {
+        if (!properties.isEnabled() || stopping) {
+            return;
+        }
+        try {
+            mailExecutor.execute(this::sendDueMails);
+        } catch (TaskRejectedException e) {
+            // all the workers are busy: they send the new mails before they stop, or the next poll does
+            log.trace("All the mail workers are busy");
+        }
+    }
+
+    private List<OutgoingMail> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            PageRequest batch = PageRequest.of(0, properties.getBatchSize());
+            List<Long> ids = outgoingMailRepository.findDueIds(OutgoingMailStatus.PENDING, now, batch);
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            String claim = UUID.randomUUID().toString();
+            outgoingMailRepository.claim(ids, claim, now.plus(properties.getLockDuration()), now);
+            return outgoingMailRepository.findAllByLockedByOrderByNextAttemptDateAscIdAsc(claim);
+        });
+    }
+
+    private int send(List<OutgoingMail> batch) {
+        // sent in the order they were queued
+        Map<MimeMessage, OutgoingMail> messages = new LinkedHashMap<>();
+        Map<OutgoingMail, Exception> failures = new IdentityHashMap<>();
+        Map<OutgoingMail, Exception> malformed = new IdentityHashMap<>();
+        for (OutgoingMail mail : batch) {
+            try {
+                messages.put(toMimeMessage(mail), mail);
+            } catch (MessagingException | MailException e) {
+                malformed.put(mail, e);
+            }
+        }
+        if (!messages.isEmpty()) {
+            long start = System.nanoTime();
+            try {
+                javaMailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                // the messages not listed were sent, before the connection failed to close
+                e.getFailedMessages().forEach((message, failure) -> failures.put(messages.get(message), failure));
+            } catch (MailException e) {
+                messages.values().forEach(mail -> failures.put(mail, e));
+            }
+            mailMetersService.recordSend(System.nanoTime() - start);
+        }
+        List<Long> sent = new ArrayList<>();
+        for (OutgoingMail mail : batch) {
+            if (!failures.containsKey(mail) && !malformed.containsKey(mail)) {
+                sent.add(mail.getId());
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            outgoingMailRepository.deleteAllByIdInBatch(sent);
+            failures.forEach((mail, e) -> fail(mail, e, true));
+            // a mail that can't be built won't be sent by another attempt either
+            malformed.forEach((mail, e) -> fail(mail, e, false));
+        });
+        mailMetersService.trackSent(sent.size());
+        log.debug("Sent {} mails, {} failed", sent.size(), failures.size() + malformed.size());
+        return sent.size();
+    }
+
+    private MimeMessage toMimeMessage(OutgoingMail mail) throws MessagingException {
+        MimeMessage mimeMessage = javaMailSender.createMimeMessage();
+        MimeMessageHelper message = new MimeMessageHelper(mimeMessage, mail.getMultipart(), StandardCharsets.UTF_8.name());
+        message.setTo(mail.getRecipient());
+        message.setFrom(jHipsterProperties.getMail().getFrom());
+        message.setSubject(mail.getSubject());
+        message.setText(mail.getContent(), mail.getHtml());
+        return mimeMessage;
+    }
+
+    private void fail(OutgoingMail mail, Exception e, boolean retryable) {
+        int attempts = mail.getAttempts() + 1;
+        String error = StringUtils.abbreviate(String.valueOf(e.getMessage()), MAX_ERROR_MESSAGE_LENGTH);
+        mail.attempts(attempts).lockedBy(null).lockedUntil(null).lastError(error);
+        if (!retryable || attempts >= properties.getMaxAttempts()) {
+            log.error("Mail {} to '{}' could not be sent after {} attempts, dead-lettered", mail.getId(), mail.getRecipient(), attempts, e);
+            mail.status(OutgoingMailStatus.DEAD);
+            mailMetersService.trackDead();
+        } else {
+            Duration backoff = properties.getInitialBackoff().multipliedBy(1L << Math.min(attempts - 1, 20));
+            if (backoff.compareTo(properties.getMaxBackoff()) > 0) {
+                backoff = properties.getMaxBackoff();
+            }
+            log.warn("Mail {} to '{}' could not be sent, retrying in {}: {}", mail.getId(), mail.getRecipient(), backoff, error);
+            mail.nextAttemptDate(Instant.now().plus(backoff));
+            mailMetersService.trackRetried();
+        }
+        outgoingMailRepository.save(mail);
+    }
+}
@@ -1,17 +1,16 @@
 package br.sc.provapesquisador.service;
 
+import br.sc.provapesquisador.domain.OutgoingMail;
 import br.sc.provapesquisador.domain.User;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
-import javax.mail.MessagingException;
-import javax.mail.internet.MimeMessage;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.MessageSource;
-import org.springframework.mail.MailException;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.context.Context;
 import org.thymeleaf.spring5.SpringTemplateEngine;
@@ -20,7 +19,8 @@ import tech.jhipster.config.JHipsterProperties;
 /**
  * Service for sending emails.
  * <p>
- * We use the {@link Async} annotation to send emails asynchronously.
+ * The emails are queued in the outbox of the {@link MailOutboxService}, in the transaction sending them if any, and
+ * sent asynchronously once it commits.
  */
 @Service
 public class MailService {
@@ -31,9 +31,14 @@ public class MailService {
 
     private static final String BASE_URL = "baseUrl";
 
+    /**
+     * The emails of a bulk sending queued in a same transaction.
+     */
+    private static final int ENQUEUE_CHUNK_SIZE = 500;
+
     private final JHipsterProperties jHipsterProperties;
 
-    private final JavaMailSender javaMailSender;
+    private final MailOutboxService mailOutboxService;
 
     private final MessageSource messageSource;
 
@@ -41,17 +46,16 @@ public class MailService {
 
     public MailService(
         JHipsterProperties jHipsterProperties,
-        JavaMailSender javaMailSender,
+        MailOutboxService mailOutboxService,
         MessageSource messageSource,
         SpringTemplateEngine templateEngine
     ) {
         this.jHipsterProperties = jHipsterProperties;
-        this.javaMailSender = javaMailSender;
+        this.mailOutboxService = mailOutboxService;
         this.messageSource = messageSource;
         this.templateEngine = templateEngine;
     }
 
-    @Async
     public void sendEmail(String to, String subject, String content, boolean isMultipart, boolean isHtml) {
         log.debug(
             "Send email[multipart '{}' and html '{}'] to '{}' with subject '{}' and content={}",
@@ -61,50 +65,65 @@ public class MailService {
             subject,
             content
         );
-
-        // Prepare message using a Spring helper
-        MimeMessage mimeMessage = javaMailSender.createMimeMessage();
-        try {
-            MimeMessageHelper message = new MimeMessageHelper(mimeMessage, isMultipart, StandardCharsets.UTF_8.name());
-            message.setTo(to);
-            message.setFrom(jHipsterProperties.getMail().getFrom());
-            message.setSubject(subject);
-            message.setText(content, isHtml);
-            javaMailSender.send(mimeMessage);
-            log.debug("Sent email to User '{}'", to);
-        } catch (MailException | MessagingException e) {
-            log.warn("Email could not be sent to user '{}'", to, e);
-        }
+        mailOutboxService.enqueue(to, subject, content, isMultipart, isHtml);
     }
 
-    @Async
     public void sendEmailFromTemplate(User user, String templateName, String titleKey) {
-        if (user.getEmail() == null) {
-            log.debug("Email doesn't exist for user '{}'", user.getLogin());
-            return;
+        sendEmailFromTemplate(List.of(user), templateName, titleKey);
+    }
+
+    /**
+     * Send an email from a template to each of some users.
+     * <p>
+     * The users are grouped by language, whose locale, subject and template context are resolved once, then their
+     * emails are rendered with the parsed template cached by Thymeleaf and queued by chunks of
+     * {@value #ENQUEUE_CHUNK_SIZE}, each in a single transaction unless a transaction is already active.
+     *
+     * @param users the users.
+     * @param templateName the name of the template.
+     * @param titleKey the message key of the subject.
+     */
+    public void sendEmailFromTemplate(Collection<User> users, String templateName, String titleKey) {
+        Map<String, List<User>> usersByLangKey = new LinkedHashMap<>();
+        for (User user : users) {
+            if (user.getEmail() == null) {
+                log.debug("Email doesn't exist for user '{}'", user.getLogin());
+            } else {
+                usersByLangKey.computeIfAbsent(user.getLangKey(), langKey -> new ArrayList<>()).add(user);
+            }
+        }
+        List<OutgoingMail> chunk = new ArrayList<>();
+        usersByLangKey.forEach((langKey, recipients) -> {
+            Locale locale = Locale.forLanguageTag(langKey);
+            Context context = new Context(locale);
+            context.setVariable(BASE_URL, jHipsterProperties.getMail().getBaseUrl());
+            String subject = messageSource.getMessage(titleKey, null, locale);
+            for (User user : recipients) {
+                context.setVariable(USER, user);
+                String content = templateEngine.process(templateName, context);
+                chunk.add(new OutgoingMail().recipient(user.getEmail()).subject(subject).content(content).multipart(false).html(true));
+                if (chunk.size() == ENQUEUE_CHUNK_SIZE) {
+                    mailOutboxService.enqueue(chunk);
+                    chunk.clear();
+                }
+            }
+        });
+        if (!chunk.isEmpty()) {
+            mailOutboxService.enqueue(chunk);
         }
-        Locale locale = Locale.forLanguageTag(user.getLangKey());
-        Context context = new Context(locale);
-        context.setVariable(USER, user);
-        context.setVariable(BASE_URL, jHipsterProperties.getMail().getBaseUrl());
-        String content = templateEngine.process(templateName, context);
-        String subject = messageSource.getMessage(titleKey, null, locale);
-        sendEmail(user.getEmail(), subject, content, false, true);
+        log.debug("Sent email from template '{}' to {} users", templateName, users.size());
     }
 
-    @Async
     public void sendActivationEmail(User user) {
         log.debug("Sending activation email to '{}'", user.getEmail());
         sendEmailFromTemplate(user, "mail/activationEmail", "email.activation.title");
     }
 
-    @Async
     public void sendCreationEmail(User user) {
         log.debug("Sending creation email to '{}'", user.getEmail());
         sendEmailFromTemplate(user, "mail/creationEmail", "email.activation.title");
     }
 
-    @Async
     public void sendPasswordResetMail(User user) {
         log.debug("Sending password reset email to '{}'", user.getEmail());
         sendEmailFromTemplate(user, "mail/passwordResetEmail", "email.reset.title");
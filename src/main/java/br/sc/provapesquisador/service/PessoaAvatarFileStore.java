@@ -0,0 +1,231 @@
+package br.sc.provapesquisador.service;
+
+import br.sc.provapesquisador.config.ApplicationProperties;
+import br.sc.provapesquisador.domain.PessoaAvatar;
+import br.sc.provapesquisador.repository.PessoaAvatarRepository;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Content-addressed copy of the avatars on local disk, served from {@code /avatars} by the web server
+ * straight from the file system (see {@link br.sc.provapesquisador.config.WebConfigurer}).
+ * <p>
+ * Files are named by {@link PessoaAvatar#fileName} and spread over 256 sub-directories by the first two hash
+ * characters. The database stays the reference: the store is filled when avatars are saved on this node and
+ * on demand for the others, so the directory ({@code application.pessoa.avatar-store.directory}) can be
+ * wiped at any time.
+ * <p>
+ * Thumbnails ({@link PessoaAvatar#thumbnailFileName}) are stored next to the avatar they are made from. They are
+ * made in the background by the {@link PessoaAvatarThumbnailer} when avatars are saved, and on demand when missing.
+ */
+@Service
+public class PessoaAvatarFileStore {
+
+    private final Logger log = LoggerFactory.getLogger(PessoaAvatarFileStore.class);
+
+    private final Path directory;
+
+    private final List<Integer> thumbnailSizes;
+
+    private final long maxImagePixels;
+
+    private final Pattern fileNamePattern;
+
+    private final PessoaAvatarRepository pessoaAvatarRepository;
+
+    public PessoaAvatarFileStore(ApplicationProperties applicationProperties, PessoaAvatarRepository pessoaAvatarRepository) {
+        ApplicationProperties.Pessoa.AvatarStore properties = applicationProperties.getPessoa().getAvatarStore();
+        this.directory = Paths.get(properties.getDirectory()).toAbsolutePath();
+        this.thumbnailSizes = properties.getThumbnailSizes().stream().sorted().distinct().collect(Collectors.toList());
+        this.maxImagePixels = properties.getMaxImagePixels();
+        this.fileNamePattern =
+            Pattern.compile(
+                "([0-9a-f]{64})(?:-(" +
+                thumbnailSizes.stream().map(String::valueOf).collect(Collectors.joining("|")) +
+                "))?\\.(" +
+                String.join("|", PessoaAvatar.extensions()) +
+                ")"
+            );
+        this.pessoaAvatarRepository = pessoaAvatarRepository;
+    }
+
+    /**
+     * Resolve a file name against the store directory.
+     *
+     * @param fileName a file name built by {@link PessoaAvatar#fileName} or {@link #thumbnail}.
+     * @return the path of the file relative to the store directory, or empty if the name is not an avatar file name.
+     */
+    public Optional<String> resolve(String fileName) {
+        if (fileName == null || !fileNamePattern.matcher(fileName).matches()) {
+            return Optional.empty();
+        }
+        return Optional.of(fileName.substring(0, 2) + "/" + fileName);
+    }
+
+    /**
+     * The file name of the thumbnail to serve for a requested size: the smallest thumbnail at least that large.
+     *
+     * @param fileName the avatar file name, built by {@link PessoaAvatar#fileName}.
+     * @param size the requested width and height.
+     * @return the thumbnail file name, or the avatar file name if it is smaller than the requested size or has no
+     * thumbnails.
+     */
+    public String thumbnail(String fileName, int size) {
+        Optional<String> relativePath = resolve(fileName);
+        if (relativePath.isEmpty()) {
+            return fileName;
+        }
+        return thumbnailSizes
+            .stream()
+            .filter(thumbnailSize -> thumbnailSize >= size)
+            .findFirst()
+            .map(thumbnailSize -> PessoaAvatar.thumbnailFileName(fileName, thumbnailSize))
+            .orElse(fileName);
+    }
+
+    /**
+     * Write an avatar to the store, unless it is already there. Failures are only logged: the file will be
+     * loaded from the database when it is first requested.
+     *
+     * @param fileName the file name, built by {@link PessoaAvatar#fileName}.
+     * @param content the avatar content.
+     */
+    public void write(String fileName, byte[] content) {
+        Optional<String> relativePath = resolve(fileName);
+        if (relativePath.isEmpty()) {
+            return;
+        }
+        Path file = directory.resolve(relativePath.get());
+        if (Files.exists(file)) {
+            return;
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            // write aside then move, so that the file is never served half written
+            Path temporary = Files.createTempFile(file.getParent(), fileName, ".tmp");
+            try {
+                Files.write(temporary, content);
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            log.warn("Could not write avatar {} to {}: {}", fileName, directory, e.getMessage());
+        }
+    }
+
+    /**
+     * Write the thumbnails of an avatar to the store, skipping those already there.
+     *
+     * @param fileName the avatar file name, built by {@link PessoaAvatar#fileName}.
+     * @param content the avatar content.
+     */
+    public void writeThumbnails(String fileName, byte[] content) {
+        for (Integer size : thumbnailSizes) {
+            String thumbnail = PessoaAvatar.thumbnailFileName(fileName, size);
+            if (!thumbnail.equals(fileName)) {
+                writeThumbnail(thumbnail, content);
+            }
+        }
+    }
+
+    private void writeThumbnail(String thumbnail, byte[] content) {
+        Optional<String> relativePath = resolve(thumbnail);
+        if (relativePath.isEmpty() || Files.exists(directory.resolve(relativePath.get()))) {
+            return;
+        }
+        Matcher matcher = fileNamePattern.matcher(thumbnail);
+        matcher.matches();
+        try {
+            Optional<byte[]> rendered = PessoaAvatarThumbnails.render(
+                content,
+                Integer.parseInt(matcher.group(2)),
+                matcher.group(3),
+                maxImagePixels
+            );
+            if (rendered.isPresent()) {
+                write(thumbnail, rendered.get());
+            } else {
+                log.debug("Avatar {} is not a readable image, or is larger than {} pixels, no thumbnail", matcher.group(1), maxImagePixels);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not make thumbnail {}: {}", thumbnail, e.getMessage());
+        }
+    }
+
+    /**
+     * Make sure an avatar or thumbnail is in the store, reading the avatar from the database when it is not.
+     *
+     * @param fileName the requested file name.
+     * @return {@code true} if the file is available, {@code false} if there is no such avatar or thumbnail.
+     */
+    @Transactional(readOnly = true)
+    public boolean materialize(String fileName) {
+        Optional<String> relativePath = resolve(fileName);
+        if (relativePath.isEmpty()) {
+            return false;
+        }
+        if (Files.exists(directory.resolve(relativePath.get()))) {
+            return true;
+        }
+        Matcher matcher = fileNamePattern.matcher(fileName);
+        matcher.matches();
+        List<byte[]> contents = pessoaAvatarRepository.findContentByHash(matcher.group(1), PageRequest.of(0, 1));
+        if (contents.isEmpty()) {
+            return false;
+        }
+        if (matcher.group(2) == null) {
+            log.debug("Loading avatar {} into the avatar store", fileName);
+            write(fileName, contents.get(0));
+        } else {
+            // not made yet, or dropped by the thumbnailer when it was saturated
+            log.debug("Making thumbnail {} on demand", fileName);
+            writeThumbnail(fileName, contents.get(0));
+        }
+        return Files.exists(directory.resolve(relativePath.get()));
+    }
+
+    /**
+     * Find an avatar or thumbnail in the store, reading the avatar from the database when it is not there.
+     *
+     * @param fileName the requested file name.
+     * @return the file, or empty if there is no such avatar or thumbnail.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Path> find(String fileName) {
+        return materialize(fileName) ? resolve(fileName).map(directory::resolve) : Optional.empty();
+    }
+
+    /**
+     * Remove the files of an avatar that is no longer used, with its thumbnails.
+     *
+     * @param hash the avatar hash.
+     */
+    public void delete(String hash) {
+        Path subdirectory = directory.resolve(hash.substring(0, 2));
+        if (!Files.isDirectory(subdirectory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(subdirectory, hash + "*")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete avatar {} from {}: {}", hash, directory, e.getMessage());
+        }
+    }
+}
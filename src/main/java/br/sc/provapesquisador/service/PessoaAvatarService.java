@@ -0,0 +1,188 @@
+package br.sc.provapesquisador.service;
+
+import br.sc.provapesquisador.domain.Pessoa;
+import br.sc.provapesquisador.domain.PessoaAvatar;
+import br.sc.provapesquisador.repository.PessoaAvatarRepository;
+import br.sc.provapesquisador.repository.PessoaRepository;
+import br.sc.provapesquisador.service.dto.PessoaAvatarDTO;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service Implementation for managing the {@link PessoaAvatar} of a {@link Pessoa}.
+ * <p>
+ * The content lives in the {@code pessoa_avatar} table, while the pessoa row keeps its content type and
+ * SHA-256 hash: listings, the pessoa cache and conditional requests never read the content.
+ */
+@Service
+@Transactional
+public class PessoaAvatarService {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Logger log = LoggerFactory.getLogger(PessoaAvatarService.class);
+
+    private final PessoaAvatarRepository pessoaAvatarRepository;
+
+    private final PessoaRepository pessoaRepository;
+
+    private final PessoaAvatarFileStore pessoaAvatarFileStore;
+
+    private final PessoaAvatarThumbnailer pessoaAvatarThumbnailer;
+
+    public PessoaAvatarService(
+        PessoaAvatarRepository pessoaAvatarRepository,
+        PessoaRepository pessoaRepository,
+        PessoaAvatarFileStore pessoaAvatarFileStore,
+        PessoaAvatarThumbnailer pessoaAvatarThumbnailer
+    ) {
+        this.pessoaAvatarRepository = pessoaAvatarRepository;
+        this.pessoaRepository = pessoaRepository;
+        this.pessoaAvatarFileStore = pessoaAvatarFileStore;
+        this.pessoaAvatarThumbnailer = pessoaAvatarThumbnailer;
+    }
+
+    /**
+     * Set the {@link Pessoa#getAvatarHash() hash} of a pessoa for a new avatar content, before the pessoa is saved.
+     *
+     * @param pessoa the pessoa.
+     * @param content the new content, {@code null} to remove the avatar.
+     */
+    public void describe(Pessoa pessoa, byte[] content) {
+        if (content == null) {
+            pessoa.setAvatarHash(null);
+            pessoa.setAvatarContentType(null);
+        } else {
+            pessoa.setAvatarHash(hash(content));
+        }
+    }
+
+    /**
+     * Store the avatar content of a saved pessoa. The content is only written when its hash changed, to the
+     * database and to the local {@link PessoaAvatarFileStore}, and its thumbnails are then made in the background.
+     *
+     * @param pessoa the saved pessoa, described by {@link #describe}.
+     * @param previousHash the hash of the avatar currently stored, {@code null} if there is none.
+     * @param content the new content, {@code null} to remove the avatar.
+     */
+    public void store(Pessoa pessoa, String previousHash, byte[] content) {
+        String hash = pessoa.getAvatarHash();
+        if (Objects.equals(hash, previousHash)) {
+            return;
+        }
+        if (previousHash != null && !pessoaRepository.existsByAvatarHash(previousHash)) {
+            pessoaAvatarFileStore.delete(previousHash);
+        }
+        if (content == null) {
+            log.debug("Request to delete the avatar of Pessoa : {}", pessoa.getId());
+            pessoaAvatarRepository.deleteByPessoaId(pessoa.getId());
+        } else if (previousHash == null || pessoaAvatarRepository.updateContent(pessoa.getId(), content) == 0) {
+            log.debug("Request to save the avatar of Pessoa : {}", pessoa.getId());
+            pessoaAvatarRepository.save(new PessoaAvatar().id(pessoa.getId()).content(content));
+        } else {
+            log.debug("Request to update the avatar of Pessoa : {}", pessoa.getId());
+        }
+        if (content != null) {
+            String fileName = PessoaAvatar.fileName(hash, pessoa.getAvatarContentType());
+            pessoaAvatarFileStore.write(fileName, content);
+            pessoaAvatarThumbnailer.submit(fileName, content);
+        }
+    }
+
+    /**
+     * Get the avatar description of a pessoa, without its content.
+     *
+     * @param id the id of the pessoa.
+     * @return the avatar, or empty if the pessoa doesn't exist or has no avatar.
+     */
+    @Transactional(readOnly = true)
+    public Optional<PessoaAvatarDTO> findOne(Long id) {
+        log.debug("Request to get the avatar of Pessoa : {}", id);
+        return pessoaRepository
+            .findById(id)
+            .filter(pessoa -> pessoa.getAvatarHash() != null)
+            .map(pessoa -> new PessoaAvatarDTO(pessoa.getId(), pessoa.getAvatarHash(), pessoa.getAvatarContentType()));
+    }
+
+    /**
+     * Get the avatar content of a pessoa.
+     *
+     * @param id the id of the pessoa.
+     * @return the content, or empty if the pessoa has no avatar.
+     */
+    @Transactional(readOnly = true)
+    public Optional<byte[]> findContent(Long id) {
+        log.debug("Request to get the avatar content of Pessoa : {}", id);
+        return pessoaAvatarRepository.findById(id).map(PessoaAvatar::getContent);
+    }
+
+    /**
+     * Get the file of an avatar, loaded into the avatar store if needed.
+     *
+     * @param avatar the avatar.
+     * @return the avatar file, named by {@link PessoaAvatar#fileName}. Empty if the file can't be written.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Path> findFile(PessoaAvatarDTO avatar) {
+        log.debug("Request to get the avatar file of Pessoa : {}", avatar.getId());
+        return pessoaAvatarFileStore.find(PessoaAvatar.fileName(avatar.getHash(), avatar.getContentType()));
+    }
+
+    /**
+     * Get the file of an avatar thumbnail, made on demand if needed.
+     *
+     * @param avatar the avatar.
+     * @param size the requested width and height, the smallest thumbnail at least that large is returned.
+     * @return the thumbnail file, named by {@link PessoaAvatar#thumbnailFileName}; or the avatar file if it is smaller
+     * than the requested size or has no thumbnails. Empty if the file can't be made.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Path> findThumbnail(PessoaAvatarDTO avatar, int size) {
+        log.debug("Request to get the {}px avatar thumbnail of Pessoa : {}", size, avatar.getId());
+        String fileName = PessoaAvatar.fileName(avatar.getHash(), avatar.getContentType());
+        return pessoaAvatarFileStore.find(pessoaAvatarFileStore.thumbnail(fileName, size));
+    }
+
+    /**
+     * Delete the avatar of a pessoa, before the pessoa itself.
+     *
+     * @param id the id of the pessoa.
+     */
+    public void delete(Long id) {
+        log.debug("Request to delete the avatar of Pessoa : {}", id);
+        pessoaAvatarRepository.deleteByPessoaId(id);
+        pessoaRepository
+            .findById(id)
+            .map(Pessoa::getAvatarHash)
+            .ifPresent(hash -> {
+                if (pessoaRepository.countByAvatarHash(hash) <= 1) {
+                    pessoaAvatarFileStore.delete(hash);
+                }
+            });
+    }
+
+    /**
+     * The lower case hex SHA-256 of an avatar, as stored in {@code pessoa.avatar_hash}.
+     */
+    static String hash(byte[] content) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        char[] hex = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            hex[2 * i] = HEX[(digest[i] >> 4) & 0xf];
+            hex[2 * i + 1] = HEX[digest[i] & 0xf];
+        }
+        return new String(hex);
+    }
+}
@@ -0,0 +1,69 @@
+package br.sc.provapesquisador.service;
+
+import br.sc.provapesquisador.config.ApplicationProperties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+/**
+ * Makes the thumbnails of the saved avatars on the application task executor, so that the request saving the
+ * avatar doesn't wait for them.
+ * <p>
+ * At most {@code application.pessoa.avatar-store.max-pending-thumbnails} avatars wait for their thumbnails: this
+ * bounds the avatar contents held in memory and leaves the shared executor queue to the other tasks. Avatars
+ * saved beyond that, for instance by a bulk upload, are skipped and get their thumbnails when first requested
+ * (see {@link PessoaAvatarFileStore#materialize}). The task never runs on the caller thread.
+ */
+@Service
+public class PessoaAvatarThumbnailer {
+
+    private final Logger log = LoggerFactory.getLogger(PessoaAvatarThumbnailer.class);
+
+    private final PessoaAvatarFileStore pessoaAvatarFileStore;
+
+    private final Executor taskExecutor;
+
+    private final Semaphore pending;
+
+    public PessoaAvatarThumbnailer(
+        ApplicationProperties applicationProperties,
+        PessoaAvatarFileStore pessoaAvatarFileStore,
+        @Qualifier("taskExecutor") Executor taskExecutor
+    ) {
+        this.pessoaAvatarFileStore = pessoaAvatarFileStore;
+        this.taskExecutor = taskExecutor;
+        this.pending = new Semaphore(applicationProperties.getPessoa().getAvatarStore().getMaxPendingThumbnails());
+    }
+
+    /**
+     * Make the thumbnails of an avatar in the background, unless too many avatars are already waiting.
+     *
+     * @param fileName the avatar file name.
+     * @param content the avatar content.
+     * @return {@code true} if the thumbnails will be made, {@code false} if they were skipped.
+     */
+    public boolean submit(String fileName, byte[] content) {
+        if (!pending.tryAcquire()) {
+            log.debug("Too many pending thumbnails, skipping those of {}", fileName);
+            return false;
+        }
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    pessoaAvatarFileStore.writeThumbnails(fileName, content);
+                } finally {
+                    pending.release();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            pending.release();
+            log.debug("Task executor is saturated, skipping the thumbnails of {}", fileName);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package br.sc.provapesquisador.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Optional;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Scales avatars down to thumbnails with {@link ImageIO} and Java 2D.
+ */
+final class PessoaAvatarThumbnails {
+
+    private PessoaAvatarThumbnails() {}
+
+    /**
+     * Render a thumbnail fitting in a square, keeping the aspect ratio. Images are never scaled up.
+     *
+     * @param content the avatar content.
+     * @param size the thumbnail width and height.
+     * @param format the {@link ImageIO} format of the thumbnail, {@code jpg} or {@code png}.
+     * @param maxPixels the largest avatar decoded, in pixels.
+     * @return the thumbnail content, or empty if the avatar is not an image {@link ImageIO} can read, or is larger than
+     * {@code maxPixels}.
+     * @throws IOException if the avatar can't be decoded, or the thumbnail can't be encoded.
+     */
+    static Optional<byte[]> render(byte[] content, int size, String format, long maxPixels) throws IOException {
+        Optional<BufferedImage> read = read(content, maxPixels);
+        if (read.isEmpty()) {
+            return Optional.empty();
+        }
+        BufferedImage image = read.get();
+        double scale = Math.min(1.0, (double) size / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        boolean opaque = "jpg".equals(format);
+        // halve at most at each step: a single bilinear pass over a large factor skips most source pixels
+        do {
+            int stepWidth = Math.max(width, image.getWidth() / 2);
+            int stepHeight = Math.max(height, image.getHeight() / 2);
+            image = scale(image, stepWidth, stepHeight, opaque);
+        } while (image.getWidth() > width || image.getHeight() > height);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, format, out)) {
+            throw new IOException("No image writer for " + format);
+        }
+        return Optional.of(out.toByteArray());
+    }
+
+    /**
+     * Decode the first image of an avatar, once its header shows it is small enough: a few bytes of a compressed image
+     * may decode to gigabytes.
+     */
+    private static Optional<BufferedImage> read(byte[] content, long maxPixels) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(content))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return Optional.empty();
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+                    return Optional.empty();
+                }
+                return Optional.of(reader.read(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage image, int width, int height, boolean opaque) {
+        BufferedImage scaled = new BufferedImage(width, height, opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            if (opaque) {
+                // jpeg has no alpha channel, flatten transparent pixels on white rather than black
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+            }
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+}
@@ -0,0 +1,149 @@
+package br.sc.provapesquisador.service;
+
+import br.sc.provapesquisador.config.ApplicationProperties;
+import br.sc.provapesquisador.repository.PessoaRepository;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory membership filter for {@link br.sc.provapesquisador.domain.Pessoa} CPFs.
+ * <p>
+ * Answers "definitely not registered" without touching the database, so that the
+ * {@code /api/check-exists/{cpf}} endpoint only hits the {@code ux_pessoa__cpf} index when a CPF may exist.
+ * The filter is local to this node: it is rebuilt from the database on startup and then every
+ * {@code application.pessoa.cpf-index.rebuild-interval}, which also picks up writes made by other nodes
+ * and drops CPFs that were deleted. Uniqueness itself is still enforced by the database constraint.
+ * <p>
+ * The CPFs of the transactions still in flight are kept aside until they complete: a rebuild copies them into the new
+ * filter, as the stream of the CPF column doesn't see the writes committed after it started.
+ */
+@Service
+public class PessoaCpfIndex {
+
+    private final Logger log = LoggerFactory.getLogger(PessoaCpfIndex.class);
+
+    private final PessoaRepository pessoaRepository;
+
+    private final ApplicationProperties.Pessoa.CpfIndex properties;
+
+    private volatile CpfBloomFilter filter;
+
+    private volatile CpfBloomFilter rebuilding;
+
+    /**
+     * The CPFs added by the transactions not completed yet, by add.
+     */
+    private final Map<Object, String> inFlight = new ConcurrentHashMap<>();
+
+    public PessoaCpfIndex(PessoaRepository pessoaRepository, ApplicationProperties applicationProperties) {
+        this.pessoaRepository = pessoaRepository;
+        this.properties = applicationProperties.getPessoa().getCpfIndex();
+    }
+
+    /**
+     * Register a CPF that is being written. Must be called before the write is committed.
+     *
+     * @param cpf the CPF of the saved pessoa.
+     */
+    public void add(String cpf) {
+        if (cpf == null) {
+            return;
+        }
+        String normalized = normalize(cpf);
+        Object added = new Object();
+        // put in flight before reading "rebuilding": rebuild() publishes it before copying the CPFs in flight
+        inFlight.put(added, normalized);
+        boolean transactional = TransactionSynchronizationManager.isSynchronizationActive();
+        if (transactional) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        inFlight.remove(added);
+                    }
+                }
+            );
+        }
+        // read "rebuilding" before "filter": rebuild() publishes them in the opposite order
+        CpfBloomFilter next = rebuilding;
+        CpfBloomFilter current = filter;
+        if (next != null) {
+            next.put(normalized);
+        }
+        if (current != null) {
+            current.put(normalized);
+        }
+        if (!transactional) {
+            inFlight.remove(added);
+        }
+    }
+
+    /**
+     * Check whether a CPF may be registered.
+     *
+     * @param cpf the CPF to check.
+     * @return {@code false} if the CPF is certainly not registered, {@code true} if the database must be asked.
+     */
+    public boolean mightContain(String cpf) {
+        CpfBloomFilter current = filter;
+        return current == null || current.mightContain(normalize(cpf));
+    }
+
+    /**
+     * Rebuild the filter from the CPF column, streaming it so the entities are never loaded.
+     * <p>
+     * This is scheduled with a fixed delay, so it also runs once right after startup.
+     */
+    @Scheduled(fixedDelayString = "${application.pessoa.cpf-index.rebuild-interval:PT1H}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (!properties.isEnabled()) {
+            filter = null;
+            return;
+        }
+        long start = System.currentTimeMillis();
+        long rows = pessoaRepository.count();
+        CpfBloomFilter next = new CpfBloomFilter(
+            Math.max(properties.getExpectedInsertions(), rows * 2),
+            properties.getFalsePositiveProbability()
+        );
+        rebuilding = next;
+        // their writes may commit after the CPF column is streamed, and they have put theirs in the previous filter only
+        inFlight.values().forEach(next::put);
+        try (Stream<String> cpfs = pessoaRepository.streamAllCpfs()) {
+            cpfs.forEach(cpf -> next.put(normalize(cpf)));
+            filter = next;
+        } finally {
+            rebuilding = null;
+        }
+        log.debug(
+            "Rebuilt CPF index with {} rows in {} ms ({} bits, {} hash functions)",
+            rows,
+            System.currentTimeMillis() - start,
+            next.bitCount(),
+            next.hashFunctions()
+        );
+    }
+
+    /**
+     * Strip the usual CPF punctuation ({@code 000.000.000-00}) so formatted and raw input share the same key.
+     */
+    static String normalize(String cpf) {
+        StringBuilder normalized = new StringBuilder(cpf.length());
+        for (int i = 0; i < cpf.length(); i++) {
+            char c = cpf.charAt(i);
+            if (c != '.' && c != '-' && !Character.isWhitespace(c)) {
+                normalized.append(c);
+            }
+        }
+        return normalized.toString();
+    }
+}
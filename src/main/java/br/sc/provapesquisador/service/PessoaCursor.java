@@ -0,0 +1,123 @@
+package br.sc.provapesquisador.service;
+
+import br.sc.provapesquisador.domain.Pessoa;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.Map;
+import java.util.function.Function;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Position in a keyset paginated listing of {@link Pessoa}: the sort order plus the sort value and id of the
+ * last row already returned. It travels to clients as an opaque URL-safe token.
+ */
+public final class PessoaCursor {
+
+    private static final Map<String, SortKey> SORT_KEYS = Map.of(
+        "id",
+        new SortKey(Pessoa::getId, Long::valueOf),
+        "name",
+        new SortKey(Pessoa::getName, value -> value),
+        "cpf",
+        new SortKey(Pessoa::getCpf, value -> value),
+        "email",
+        new SortKey(Pessoa::getEmail, value -> value),
+        "birthDate",
+        new SortKey(Pessoa::getBirthDate, LocalDate::parse),
+        "excluded",
+        new SortKey(Pessoa::getExcluded, Boolean::valueOf)
+    );
+
+    private final Sort.Order order;
+
+    private final Object lastValue;
+
+    private final Long lastId;
+
+    private PessoaCursor(Sort.Order order, Object lastValue, Long lastId) {
+        this.order = order;
+        this.lastValue = lastValue;
+        this.lastId = lastId;
+    }
+
+    /**
+     * The cursor of the first page for a sort. Only the first sort order is used, ties are broken by id.
+     *
+     * @param sort the requested sort, by id when unsorted.
+     * @return the cursor.
+     * @throws IllegalArgumentException if the sort property is not supported.
+     */
+    public static PessoaCursor first(Sort sort) {
+        Sort.Order order = sort.stream().findFirst().orElse(Sort.Order.asc("id"));
+        sortKey(order.getProperty());
+        return new PessoaCursor(Sort.Order.by(order.getProperty()).with(order.getDirection()), null, null);
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}.
+     *
+     * @param token the token.
+     * @return the cursor.
+     * @throws IllegalArgumentException if the token is not valid.
+     */
+    public static PessoaCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":", 4);
+            SortKey key = sortKey(parts[0]);
+            Sort.Order order = Sort.Order.by(parts[0]).with(Sort.Direction.fromString(parts[1]));
+            Object lastValue = parts[3].isEmpty() ? null : key.parser.apply(parts[3].substring(1));
+            return new PessoaCursor(order, lastValue, Long.valueOf(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    public String encode() {
+        String value = lastValue == null ? "" : "=" + lastValue;
+        String raw = order.getProperty() + ":" + order.getDirection() + ":" + lastId + ":" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The cursor of the page following the given row.
+     *
+     * @param last the last row of the current page.
+     * @return the cursor.
+     */
+    public PessoaCursor next(Pessoa last) {
+        return new PessoaCursor(order, sortKey(order.getProperty()).extractor.apply(last), last.getId());
+    }
+
+    public Sort.Order getOrder() {
+        return order;
+    }
+
+    public Object getLastValue() {
+        return lastValue;
+    }
+
+    public Long getLastId() {
+        return lastId;
+    }
+
+    private static SortKey sortKey(String property) {
+        SortKey key = SORT_KEYS.get(property);
+        if (key == null) {
+            throw new IllegalArgumentException("Unsupported sort property: " + property);
+        }
+        return key;
+    }
+
+    private static final class SortKey {
+
+        private final Function<Pessoa, Object> extractor;
+
+        private final Function<String, Object> parser;
+
+        SortKey(Function<Pessoa, Object> extractor, Function<String, Object> parser) {
+            this.extractor = extractor;
+            this.parser = parser;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package br.sc.provapesquisador.service;
+
+import br.sc.provapesquisador.domain.Pessoa;
+import br.sc.provapesquisador.repository.PessoaRepository;
+import br.sc.provapesquisador.service.criteria.PessoaCriteria;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service exporting the {@link Pessoa} entities matching a {@link PessoaCriteria}.
+ * <p>
+ * The criteria are planned by the {@link PessoaQueryPlanner}, as for the listings. Rows are read from a forward-only
+ * cursor ({@link PessoaRepository#scrollAll}) and written to the output as they come, so the memory used doesn't
+ * depend on the number of rows exported.
+ */
+@Service
+@Transactional(readOnly = true)
+public class PessoaExportService {
+
+    /**
+     * Rows fetched from the database cursor at a time.
+     */
+    static final int FETCH_SIZE = 1000;
+
+    private static final String[] COLUMNS = { "id", "name", "cpf", "email", "birthDate", "excluded", "avatarUrl" };
+
+    private final Logger log = LoggerFactory.getLogger(PessoaExportService.class);
+
+    private final PessoaRepository pessoaRepository;
+
+    private final PessoaQueryPlanner pessoaQueryPlanner;
+
+    private final ObjectMapper objectMapper;
+
+    public PessoaExportService(PessoaRepository pessoaRepository, PessoaQueryPlanner pessoaQueryPlanner, ObjectMapper objectMapper) {
+        this.pessoaRepository = pessoaRepository;
+        this.pessoaQueryPlanner = pessoaQueryPlanner;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write the pessoas matching the criteria to an output stream, ordered by id. The stream is flushed but not closed.
+     *
+     * @param criteria the criteria which the exported entities should match.
+     * @param format the export format.
+     * @param out the output stream.
+     * @return the number of exported entities.
+     * @throws IOException if the output can't be written.
+     */
+    public long export(PessoaCriteria criteria, PessoaFileFormat format, OutputStream out) throws IOException {
+        log.debug("Request to export Pessoas as {} by criteria : {}", format, criteria);
+        try {
+            return format == PessoaFileFormat.NDJSON ? exportNdjson(criteria, out) : exportCsv(criteria, out);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long exportNdjson(PessoaCriteria criteria, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        long count = scroll(
+            criteria,
+            pessoa -> {
+                try {
+                    generator.writeStartObject();
+                    generator.writeNumberField(COLUMNS[0], pessoa.getId());
+                    generator.writeStringField(COLUMNS[1], pessoa.getName());
+                    generator.writeStringField(COLUMNS[2], pessoa.getCpf());
+                    generator.writeStringField(COLUMNS[3], pessoa.getEmail());
+                    generator.writeStringField(COLUMNS[4], pessoa.getBirthDate() != null ? pessoa.getBirthDate().toString() : null);
+                    generator.writeFieldName(COLUMNS[5]);
+                    if (pessoa.getExcluded() != null) {
+                        generator.writeBoolean(pessoa.getExcluded());
+                    } else {
+                        generator.writeNull();
+                    }
+                    generator.writeStringField(COLUMNS[6], pessoa.getAvatarUrl());
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        );
+        generator.close();
+        return count;
+    }
+
+    private long exportCsv(PessoaCriteria criteria, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(String.join(",", COLUMNS));
+        writer.write("\r\n");
+        long count = scroll(
+            criteria,
+            pessoa -> {
+                try {
+                    writer.write(String.valueOf(pessoa.getId()));
+                    writeCsvField(writer, pessoa.getName());
+                    writeCsvField(writer, pessoa.getCpf());
+                    writeCsvField(writer, pessoa.getEmail());
+                    writeCsvField(writer, pessoa.getBirthDate() != null ? pessoa.getBirthDate().toString() : null);
+                    writeCsvField(writer, pessoa.getExcluded() != null ? pessoa.getExcluded().toString() : null);
+                    writeCsvField(writer, pessoa.getAvatarUrl());
+                    writer.write("\r\n");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        );
+        writer.flush();
+        return count;
+    }
+
+    private long scroll(PessoaCriteria criteria, Consumer<Pessoa> action) {
+        PessoaQueryPlanner.Plan plan = pessoaQueryPlanner.plan(criteria);
+        if (plan.isUnsatisfiable()) {
+            return 0;
+        }
+        return pessoaRepository.scrollAll(plan.getShape(), plan.getParameters(), FETCH_SIZE, action);
+    }
+
+    /**
+     * Write a separator and a field, quoted if it contains a separator, a quote or a line break.
+     */
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        writer.write(',');
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,44 @@
+package br.sc.provapesquisador.service;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * The file formats pessoas are exported to and imported from.
+ */
+public enum PessoaFileFormat {
+    /** One JSON object per line. */
+    NDJSON("application/x-ndjson", "ndjson"),
+    /** RFC 4180 comma separated values, with a header line. */
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+
+    private final String extension;
+
+    PessoaFileFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @param name the format name, ignoring case.
+     * @return the format, or empty if there is no such format.
+     */
+    public static Optional<PessoaFileFormat> of(String name) {
+        for (PessoaFileFormat format : values()) {
+            if (format.extension.equals(name.toLowerCase(Locale.ROOT))) {
+                return Optional.of(format);
+            }
+        }
+        return Optional.empty();
+    }
+}
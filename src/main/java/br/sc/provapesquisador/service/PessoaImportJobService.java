@@ -0,0 +1,269 @@
+package br.sc.provapesquisador.service;
+
+import br.sc.provapesquisador.config.ApplicationProperties;
+import br.sc.provapesquisador.domain.PessoaImportJob;
+import br.sc.provapesquisador.domain.enumeration.ImportJobStatus;
+import br.sc.provapesquisador.repository.PessoaImportJobRepository;
+import br.sc.provapesquisador.security.SecurityUtils;
+import br.sc.provapesquisador.service.dto.PessoaImportJobDTO;
+import br.sc.provapesquisador.service.dto.PessoaImportReportDTO;
+import br.sc.provapesquisador.service.dto.PessoaImportReportDTO.RowError;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import javax.annotation.PreDestroy;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service running {@link PessoaImportJob asynchronous imports} of pessoas on the {@code importJobExecutor}.
+ * <p>
+ * Uploaded files are kept in {@code application.pessoa.import-jobs.directory} until their job ends. Jobs are
+ * imported by the {@link PessoaImportService}, whose chunk transactions also record the job checkpoint and
+ * counters: a job interrupted by a shutdown or a crash is resumed after its last committed chunk when the node
+ * holding its file starts again. The rejected rows are appended to an NDJSON file once their chunk is committed.
+ */
+@Service
+public class PessoaImportJobService {
+
+    private static final EnumSet<ImportJobStatus> UNFINISHED = EnumSet.of(ImportJobStatus.QUEUED, ImportJobStatus.RUNNING);
+
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(PessoaImportJobService.class);
+
+    private final Path directory;
+
+    private final PessoaImportJobRepository pessoaImportJobRepository;
+
+    private final PessoaImportService pessoaImportService;
+
+    private final ThreadPoolTaskExecutor importJobExecutor;
+
+    private final ObjectWriter errorWriter;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile boolean stopping;
+
+    public PessoaImportJobService(
+        ApplicationProperties applicationProperties,
+        PessoaImportJobRepository pessoaImportJobRepository,
+        PessoaImportService pessoaImportService,
+        @Qualifier("importJobExecutor") ThreadPoolTaskExecutor importJobExecutor,
+        ObjectMapper objectMapper,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.directory = Paths.get(applicationProperties.getPessoa().getImportJobs().getDirectory()).toAbsolutePath();
+        this.pessoaImportJobRepository = pessoaImportJobRepository;
+        this.pessoaImportService = pessoaImportService;
+        this.importJobExecutor = importJobExecutor;
+        this.errorWriter = objectMapper.writerFor(RowError.class);
+        // jobs are committed before being handed to the executor, even when submitted within a transaction
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Save a stream to the import job directory, and queue its import.
+     *
+     * @param format the format of the stream.
+     * @param in the stream, read to its end but not closed.
+     * @return the job, {@link ImportJobStatus#FAILED failed} if the executor queue is full.
+     * @throws IOException if the stream can't be read or saved.
+     */
+    public PessoaImportJobDTO submit(PessoaFileFormat format, InputStream in) throws IOException {
+        log.debug("Request to submit an import of Pessoas as {}", format);
+        Files.createDirectories(directory);
+        String fileName = UUID.randomUUID() + "." + format.getExtension();
+        Files.copy(in, directory.resolve(fileName));
+        PessoaImportJob job = transactionTemplate.execute(status ->
+            pessoaImportJobRepository.save(
+                new PessoaImportJob()
+                    .status(ImportJobStatus.QUEUED)
+                    .format(format.getExtension())
+                    .fileName(fileName)
+                    .createdBy(SecurityUtils.getCurrentUserLogin().orElse(null))
+                    .createdDate(Instant.now())
+                    .checkpointLine(0L)
+                    .rowsImported(0L)
+                    .rowsRejected(0L)
+                    .startedRows(0L)
+            )
+        );
+        // left over by a job of a previous database with the same id
+        Files.deleteIfExists(errorsFile(job.getId()));
+        return new PessoaImportJobDTO(schedule(job));
+    }
+
+    /**
+     * Get one import job by id.
+     *
+     * @param id the id of the job.
+     * @return the job.
+     */
+    @Transactional(readOnly = true)
+    public Optional<PessoaImportJobDTO> findOne(Long id) {
+        log.debug("Request to get PessoaImportJob : {}", id);
+        return pessoaImportJobRepository.findById(id).map(PessoaImportJobDTO::new);
+    }
+
+    /**
+     * Get the rows rejected by an import job so far, one {@link RowError} per line.
+     *
+     * @param id the id of the job.
+     * @return the path of the rejected rows file, which does not exist while no row is rejected, or empty if
+     * there is no such job.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Path> findErrors(Long id) {
+        log.debug("Request to get the errors of PessoaImportJob : {}", id);
+        return pessoaImportJobRepository.findById(id).map(job -> errorsFile(job.getId()));
+    }
+
+    /**
+     * Queue the unfinished jobs whose file is on this node, after a restart.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeJobs() {
+        for (PessoaImportJob job : pessoaImportJobRepository.findAllByStatusInOrderById(UNFINISHED)) {
+            if (Files.exists(directory.resolve(job.getFileName()))) {
+                log.info("Resuming import job {} after line {}", job.getId(), job.getCheckpointLine());
+                schedule(job);
+            } else {
+                log.debug("Import job {} has no file on this node", job.getId());
+            }
+        }
+    }
+
+    /**
+     * Interrupt the running jobs before the database goes away: they stop between two chunks, and stay
+     * {@link ImportJobStatus#RUNNING} to be resumed.
+     */
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+        importJobExecutor.shutdown();
+    }
+
+    private PessoaImportJob schedule(PessoaImportJob job) {
+        try {
+            importJobExecutor.execute(() -> run(job.getId()));
+            return job;
+        } catch (RejectedExecutionException e) {
+            log.warn("Import job {} rejected by the executor", job.getId());
+            return finish(job.getId(), ImportJobStatus.FAILED, "Too many import jobs, submit it again later");
+        }
+    }
+
+    private void run(Long id) {
+        PessoaImportJob job = transactionTemplate.execute(status ->
+            pessoaImportJobRepository
+                .findById(id)
+                .filter(found -> UNFINISHED.contains(found.getStatus()))
+                .map(found ->
+                    found
+                        .status(ImportJobStatus.RUNNING)
+                        .startedDate(Instant.now())
+                        .startedRows(found.getRowsImported() + found.getRowsRejected())
+                )
+                .orElse(null)
+        );
+        if (job == null) {
+            return;
+        }
+        PessoaFileFormat format = PessoaFileFormat.of(job.getFormat()).orElseThrow();
+        try (InputStream in = Files.newInputStream(directory.resolve(job.getFileName()))) {
+            PessoaImportReportDTO report = pessoaImportService.importPessoas(
+                format,
+                in,
+                job.getCheckpointLine(),
+                (line, imported, errors) -> checkpoint(id, line, imported, errors)
+            );
+            log.info("Import job {} completed : {}", id, report);
+            finish(id, ImportJobStatus.COMPLETED, null);
+        } catch (IOException | RuntimeException e) {
+            if (stopping) {
+                log.info("Import job {} interrupted by the shutdown, to be resumed", id);
+                return;
+            }
+            log.error("Import job {} failed", id, e);
+            finish(id, ImportJobStatus.FAILED, StringUtils.abbreviate(String.valueOf(e.getMessage()), MAX_ERROR_MESSAGE_LENGTH));
+        }
+    }
+
+    private void checkpoint(Long id, long line, long imported, List<RowError> errors) {
+        pessoaImportJobRepository.checkpoint(id, line, imported, errors.size());
+        if (!errors.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        appendErrors(id, errors);
+                    }
+                }
+            );
+        }
+    }
+
+    private void appendErrors(Long id, List<RowError> errors) {
+        try (
+            BufferedWriter writer = Files.newBufferedWriter(
+                errorsFile(id),
+                StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND
+            )
+        ) {
+            for (RowError error : errors) {
+                writer.write(errorWriter.writeValueAsString(error));
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            // the counters are committed, only the detail of these rows is lost
+            log.warn("Could not record the rejected rows of import job {}: {}", id, e.getMessage());
+        }
+    }
+
+    private PessoaImportJob finish(Long id, ImportJobStatus status, String errorMessage) {
+        PessoaImportJob job = transactionTemplate.execute(transaction -> {
+            PessoaImportJob found = pessoaImportJobRepository.findById(id).orElseThrow();
+            return found.status(status).finishedDate(Instant.now()).errorMessage(errorMessage);
+        });
+        try {
+            Files.deleteIfExists(directory.resolve(job.getFileName()));
+        } catch (IOException e) {
+            log.warn("Could not delete the file of import job {}: {}", id, e.getMessage());
+        }
+        return job;
+    }
+
+    private Path errorsFile(Long id) {
+        return directory.resolve(id + ".errors.ndjson");
+    }
+}
@@ -0,0 +1,399 @@
+package br.sc.provapesquisador.service;
+
+import br.sc.provapesquisador.domain.Pessoa;
+import br.sc.provapesquisador.repository.PessoaRepository;
+import br.sc.provapesquisador.service.dto.PessoaDTO;
+import br.sc.provapesquisador.service.dto.PessoaImportReportDTO;
+import br.sc.provapesquisador.service.dto.PessoaImportReportDTO.RowError;
+import br.sc.provapesquisador.service.mapper.PessoaMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service importing new {@link Pessoa} entities in bulk from a {@link PessoaFileFormat NDJSON or CSV} stream.
+ * <p>
+ * Rows are validated against the {@link PessoaDTO} constraints and written {@value #CHUNK_SIZE} at a time, each
+ * chunk in its own transaction: the ids of a chunk are allocated in blocks
+ * ({@link PessoaRepository#allocateIds}) and its rows are inserted with a single JDBC batch
+ * ({@link PessoaRepository#insertAll}). Invalid rows and rows whose CPF is already registered are reported and
+ * skipped, the others are imported. Avatars are not imported, and a missing {@code excluded} flag means
+ * {@code false}.
+ * <p>
+ * A {@link ChunkListener} can record the progress of an import in the transaction of each chunk, so that an
+ * interrupted import is resumed from the last chunk committed: see {@link PessoaImportJobService}.
+ */
+@Service
+public class PessoaImportService {
+
+    /**
+     * Rows written per transaction.
+     */
+    static final int CHUNK_SIZE = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(PessoaImportService.class);
+
+    private final PessoaRepository pessoaRepository;
+
+    private final PessoaMapper pessoaMapper;
+
+    private final PessoaCpfIndex pessoaCpfIndex;
+
+    private final PessoaSearchIndex pessoaSearchIndex;
+
+    private final Validator validator;
+
+    private final ObjectReader pessoaReader;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public PessoaImportService(
+        PessoaRepository pessoaRepository,
+        PessoaMapper pessoaMapper,
+        PessoaCpfIndex pessoaCpfIndex,
+        PessoaSearchIndex pessoaSearchIndex,
+        Validator validator,
+        ObjectMapper objectMapper,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.pessoaRepository = pessoaRepository;
+        this.pessoaMapper = pessoaMapper;
+        this.pessoaCpfIndex = pessoaCpfIndex;
+        this.pessoaSearchIndex = pessoaSearchIndex;
+        this.validator = validator;
+        this.pessoaReader = objectMapper.readerFor(PessoaDTO.class);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Import the pessoas of a stream. The ids of the rows, if any, are ignored.
+     *
+     * @param format the format of the stream.
+     * @param in the stream, read to its end but not closed.
+     * @return the import report.
+     * @throws IOException if the stream can't be read.
+     */
+    public PessoaImportReportDTO importPessoas(PessoaFileFormat format, InputStream in) throws IOException {
+        return importPessoas(format, in, 0, (line, imported, errors) -> {});
+    }
+
+    /**
+     * Import the pessoas of a stream from a given line, recording the progress of the import with each chunk.
+     * The ids of the rows, if any, are ignored.
+     *
+     * @param format the format of the stream.
+     * @param in the stream, read to its end but not closed.
+     * @param fromLine the last line already imported, from a previous {@link ChunkListener#chunkWritten checkpoint},
+     * or {@code 0} to import the whole stream.
+     * @param listener called in the transaction of each chunk.
+     * @return the import report, of the rows after {@code fromLine}.
+     * @throws IOException if the stream can't be read.
+     * @throws InterruptedIOException if the thread is interrupted: the chunks written so far are kept.
+     */
+    public PessoaImportReportDTO importPessoas(PessoaFileFormat format, InputStream in, long fromLine, ChunkListener listener)
+        throws IOException {
+        log.debug("Request to import Pessoas as {} from line {}", format, fromLine);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        RowReader rows = format == PessoaFileFormat.NDJSON ? new NdjsonRowReader(reader, fromLine) : new CsvRowReader(reader);
+        PessoaImportReportDTO report = new PessoaImportReportDTO();
+        Chunk chunk = new Chunk();
+        for (Row row = rows.next(); row != null; row = rows.next()) {
+            if (row.line <= fromLine) {
+                continue;
+            }
+            String error = row.error != null ? row.error : validate(row.pessoa);
+            if (error != null) {
+                chunk.errors.add(new RowError(row.line, error));
+            } else {
+                chunk.rows.add(row);
+            }
+            chunk.line = row.line;
+            if (chunk.rows.size() + chunk.errors.size() == CHUNK_SIZE) {
+                importChunk(chunk, listener, report);
+                chunk = new Chunk();
+            }
+        }
+        if (chunk.line > 0) {
+            importChunk(chunk, listener, report);
+        }
+        // rows rejected by the database are reported after the invalid rows of their chunk
+        report.getErrors().sort(Comparator.comparingLong(RowError::getLine));
+        log.debug("Imported Pessoas : {}", report);
+        return report;
+    }
+
+    private String validate(PessoaDTO pessoa) {
+        Set<ConstraintViolation<PessoaDTO>> violations = validator.validate(pessoa);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations
+            .stream()
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining("; "));
+    }
+
+    private void importChunk(Chunk chunk, ChunkListener listener, PessoaImportReportDTO report) throws InterruptedIOException {
+        if (Thread.interrupted()) {
+            throw new InterruptedIOException("Import interrupted before line " + chunk.line);
+        }
+        // rows of the previous chunks are committed, and found in the database
+        Map<String, Row> byCpf = new HashMap<>();
+        List<Row> rows = new ArrayList<>(chunk.rows.size());
+        for (Row row : chunk.rows) {
+            Row first = byCpf.putIfAbsent(row.pessoa.getCpf(), row);
+            if (first != null) {
+                chunk.errors.add(new RowError(row.line, "cpf: already imported on line " + first.line));
+            } else {
+                rows.add(row);
+            }
+        }
+        try {
+            write(rows, chunk.errors, chunk.line, listener, report);
+        } catch (DataIntegrityViolationException e) {
+            // a row conflicts with one written meanwhile, or is rejected by the database: find it row by row,
+            // each transaction recording the rows rejected before it
+            log.debug("Chunk rejected, importing its rows one at a time : {}", e.getMessage());
+            List<RowError> pending = new ArrayList<>(chunk.errors);
+            for (Row row : rows) {
+                List<RowError> before = pending.stream().filter(error -> error.getLine() < row.line).collect(Collectors.toList());
+                try {
+                    write(List.of(row), before, row.line, listener, report);
+                    pending.removeAll(before);
+                } catch (DataIntegrityViolationException rowException) {
+                    String reason = NestedExceptionUtils.getMostSpecificCause(rowException).getMessage();
+                    pending.add(new RowError(row.line, "rejected by the database: " + reason));
+                }
+            }
+            write(List.of(), pending, chunk.line, listener, report);
+        }
+    }
+
+    /**
+     * Insert rows and record the progress of the import in a transaction, then report them once committed.
+     */
+    private void write(List<Row> rows, List<RowError> errors, long line, ChunkListener listener, PessoaImportReportDTO report) {
+        List<RowError> written = transactionTemplate.execute(status -> {
+            List<RowError> rejected = new ArrayList<>(errors);
+            for (Row row : insert(rows)) {
+                rejected.add(new RowError(row.line, "cpf: already exists"));
+            }
+            listener.chunkWritten(line, rows.size() - (rejected.size() - errors.size()), rejected);
+            return rejected;
+        });
+        report.addImported(rows.size() - (written.size() - errors.size()));
+        written.forEach(error -> report.addError(error.getLine(), error.getMessage()));
+    }
+
+    /**
+     * Insert the rows whose CPF is not registered yet, in the current transaction.
+     *
+     * @return the rows that were not inserted.
+     */
+    private List<Row> insert(List<Row> rows) {
+        List<String> candidates = rows
+            .stream()
+            .map(row -> row.pessoa.getCpf())
+            .filter(pessoaCpfIndex::mightContain)
+            .collect(Collectors.toList());
+        Set<String> registered = candidates.isEmpty() ? Set.of() : new HashSet<>(pessoaRepository.findAllCpfsIn(candidates));
+        List<Row> rejected = new ArrayList<>();
+        List<Pessoa> pessoas = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            if (registered.contains(row.pessoa.getCpf())) {
+                rejected.add(row);
+                continue;
+            }
+            Pessoa pessoa = pessoaMapper.toEntity(row.pessoa);
+            if (pessoa.getExcluded() == null) {
+                pessoa.setExcluded(false);
+            }
+            pessoas.add(pessoa);
+        }
+        long[] ids = pessoaRepository.allocateIds(pessoas.size());
+        for (int i = 0; i < pessoas.size(); i++) {
+            pessoas.get(i).setId(ids[i]);
+            pessoaCpfIndex.add(pessoas.get(i).getCpf());
+        }
+        pessoaRepository.insertAll(pessoas);
+        pessoas.forEach(pessoaSearchIndex::index);
+        return rejected;
+    }
+
+    /**
+     * Records the progress of an import along with the rows it writes.
+     */
+    @FunctionalInterface
+    public interface ChunkListener {
+        /**
+         * Called in the transaction writing a chunk of rows: whatever it writes is committed or rolled back with them.
+         *
+         * @param line the last line of the stream covered by the transaction, which an import resumed later starts after.
+         * @param imported the number of rows imported by the transaction.
+         * @param errors the rows rejected up to {@code line} and not reported by a previous transaction.
+         */
+        void chunkWritten(long line, long imported, List<RowError> errors);
+    }
+
+    /**
+     * The rows read since the previous chunk was written: the valid ones, and the reason the others are rejected.
+     */
+    private static final class Chunk {
+
+        private final List<Row> rows = new ArrayList<>(CHUNK_SIZE);
+
+        private final List<RowError> errors = new ArrayList<>();
+
+        private long line;
+    }
+
+    /**
+     * A row of the imported stream: the pessoa it describes, or the reason it can't be read.
+     */
+    private static final class Row {
+
+        private final long line;
+
+        private final PessoaDTO pessoa;
+
+        private final String error;
+
+        private Row(long line, PessoaDTO pessoa, String error) {
+            this.line = line;
+            this.pessoa = pessoa;
+            this.error = error;
+        }
+    }
+
+    private interface RowReader {
+        /**
+         * @return the next row, or {@code null} at the end of the stream.
+         */
+        Row next() throws IOException;
+    }
+
+    private class NdjsonRowReader implements RowReader {
+
+        private final BufferedReader reader;
+
+        private final long fromLine;
+
+        private long line;
+
+        private NdjsonRowReader(BufferedReader reader, long fromLine) {
+            this.reader = reader;
+            this.fromLine = fromLine;
+        }
+
+        @Override
+        public Row next() throws IOException {
+            for (String text = reader.readLine(); text != null; text = reader.readLine()) {
+                line++;
+                // lines already imported are not parsed again
+                if (line <= fromLine || text.isBlank()) {
+                    continue;
+                }
+                try {
+                    PessoaDTO pessoa = pessoaReader.readValue(text);
+                    pessoa.setId(null);
+                    pessoa.setAvatar(null);
+                    pessoa.setAvatarContentType(null);
+                    return new Row(line, pessoa, null);
+                } catch (JsonProcessingException e) {
+                    return new Row(line, null, "invalid JSON: " + e.getOriginalMessage());
+                }
+            }
+            return null;
+        }
+    }
+
+    private static class CsvRowReader implements RowReader {
+
+        private final CsvReader csv;
+
+        private Map<String, Integer> columns;
+
+        private CsvRowReader(BufferedReader reader) {
+            this.csv = new CsvReader(reader);
+        }
+
+        @Override
+        public Row next() throws IOException {
+            if (columns == null) {
+                List<String> header = csv.readRecord();
+                if (header == null) {
+                    return null;
+                }
+                columns = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    // skip the byte order mark some spreadsheets write
+                    columns.putIfAbsent(header.get(i).replace("\uFEFF", "").trim(), i);
+                }
+            }
+            for (List<String> record = csv.readRecord(); record != null; record = csv.readRecord()) {
+                if (record.stream().allMatch(String::isBlank)) {
+                    continue;
+                }
+                return toRow(csv.getRecordLine(), record);
+            }
+            return null;
+        }
+
+        private Row toRow(long line, List<String> record) {
+            PessoaDTO pessoa = new PessoaDTO();
+            pessoa.setName(field(record, "name"));
+            pessoa.setCpf(field(record, "cpf"));
+            pessoa.setEmail(field(record, "email"));
+            String birthDate = field(record, "birthDate");
+            if (birthDate != null) {
+                try {
+                    pessoa.setBirthDate(LocalDate.parse(birthDate));
+                } catch (DateTimeParseException e) {
+                    return new Row(line, null, "birthDate: not a yyyy-MM-dd date");
+                }
+            }
+            String excluded = field(record, "excluded");
+            if (excluded != null) {
+                if (!excluded.equalsIgnoreCase("true") && !excluded.equalsIgnoreCase("false")) {
+                    return new Row(line, null, "excluded: not true or false");
+                }
+                pessoa.setExcluded(Boolean.valueOf(excluded));
+            }
+            return new Row(line, pessoa, null);
+        }
+
+        private String field(List<String> record, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= record.size() || record.get(index).isEmpty()) {
+                return null;
+            }
+            return record.get(index);
+        }
+    }
+}
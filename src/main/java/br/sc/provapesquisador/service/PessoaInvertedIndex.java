@@ -0,0 +1,364 @@
+package br.sc.provapesquisador.service;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trigram inverted index over the searchable fields of {@link br.sc.provapesquisador.domain.Pessoa}.
+ * <p>
+ * Every field value is split into its 3-character substrings, each of them pointing to a sorted
+ * {@code long[]} posting list of pessoa ids. A substring search intersects the posting lists of the
+ * term trigrams and then checks the candidates against the stored values, so terms need at least 3 characters.
+ * Values must be given already normalized (see {@link PessoaSearchIndex}).
+ * <p>
+ * Ids and trigrams are looked up in {@link LongIntHashMap}s, into slots of parallel arrays of values and of posting
+ * lists, so that neither the writes nor the searches box them.
+ */
+final class PessoaInvertedIndex {
+
+    static final int MIN_TERM_LENGTH = 3;
+
+    enum Field {
+        NAME,
+        EMAIL,
+        CPF,
+    }
+
+    private static final long[] EMPTY = new long[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * The slot of each pessoa id in {@link #values}.
+     */
+    private final LongIntHashMap documents = new LongIntHashMap();
+
+    /**
+     * The values of the pessoas, by field and then by slot.
+     */
+    private final String[][] values = new String[Field.values().length][16];
+
+    private final Slots documentSlots = new Slots();
+
+    /**
+     * The slot of each trigram in {@link #postingLists}, by field.
+     */
+    private final LongIntHashMap[] postings = new LongIntHashMap[Field.values().length];
+
+    private PostingList[] postingLists = new PostingList[16];
+
+    private final Slots postingSlots = new Slots();
+
+    private boolean loading;
+
+    /**
+     * The ids written since loading started, as keys.
+     */
+    private LongIntHashMap overridden = new LongIntHashMap();
+
+    PessoaInvertedIndex(boolean loading) {
+        this.loading = loading;
+        for (int i = 0; i < postings.length; i++) {
+            postings[i] = new LongIntHashMap();
+        }
+    }
+
+    /**
+     * Add or replace the values of a pessoa.
+     */
+    void put(long id, String name, String email, String cpf) {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                overridden.put(id, 0);
+            }
+            doRemove(id);
+            doPut(id, name, email, cpf);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                overridden.put(id, 0);
+            }
+            doRemove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add a pessoa read by the initial load, unless it was already written through {@link #put} or
+     * {@link #remove} since loading started, in which case the loaded values may be older.
+     */
+    void load(long id, String name, String email, String cpf) {
+        lock.writeLock().lock();
+        try {
+            if (overridden.get(id) == LongIntHashMap.ABSENT) {
+                doRemove(id);
+                doPut(id, name, email, cpf);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void finishLoading() {
+        lock.writeLock().lock();
+        try {
+            loading = false;
+            overridden = new LongIntHashMap();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the pessoas whose field contains the term.
+     *
+     * @param field the field to search.
+     * @param term the normalized term, at least {@link #MIN_TERM_LENGTH} characters long.
+     * @return the matching ids, in ascending order.
+     */
+    long[] search(Field field, String term) {
+        lock.readLock().lock();
+        try {
+            return doSearch(field, term);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Same as {@link #search}, but ordered like the database name search: exact matches first, then values
+     * starting with the term, then values with a word starting with the term, then the other matches.
+     */
+    long[] searchRanked(Field field, String term) {
+        lock.readLock().lock();
+        try {
+            long[] matches = doSearch(field, term);
+            long[] ranked = new long[matches.length];
+            String[] fieldValues = values[field.ordinal()];
+            int next = 0;
+            for (int rank = 0; rank < 4; rank++) {
+                for (long id : matches) {
+                    if (rank(fieldValues[documents.get(id)], term) == rank) {
+                        ranked[next++] = id;
+                    }
+                }
+            }
+            return ranked;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] doSearch(Field field, String term) {
+        long[] candidates = candidates(postings[field.ordinal()], term);
+        String[] fieldValues = values[field.ordinal()];
+        int matches = 0;
+        for (long id : candidates) {
+            String value = fieldValues[documents.get(id)];
+            if (value != null && value.contains(term)) {
+                candidates[matches++] = id;
+            }
+        }
+        return matches == candidates.length ? candidates : Arrays.copyOf(candidates, matches);
+    }
+
+    private static int rank(String value, String term) {
+        if (value.equals(term)) {
+            return 0;
+        }
+        if (value.startsWith(term)) {
+            return 1;
+        }
+        if (value.contains(" " + term)) {
+            return 2;
+        }
+        return 3;
+    }
+
+    private long[] candidates(LongIntHashMap fieldPostings, String term) {
+        long[] keys = trigrams(term);
+        if (keys.length == 0) {
+            return EMPTY;
+        }
+        PostingList[] lists = new PostingList[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            int slot = fieldPostings.get(keys[i]);
+            if (slot == LongIntHashMap.ABSENT) {
+                return EMPTY;
+            }
+            lists[i] = postingLists[slot];
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        long[] result = Arrays.copyOf(lists[0].ids, lists[0].size);
+        int size = result.length;
+        for (int i = 1; i < lists.length && size > 0; i++) {
+            size = intersect(result, size, lists[i]);
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Keep in {@code result} only the ids also present in {@code list}; both are sorted.
+     */
+    private static int intersect(long[] result, int size, PostingList list) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < size && j < list.size; i++) {
+            long id = result[i];
+            while (j < list.size && list.ids[j] < id) {
+                j++;
+            }
+            if (j < list.size && list.ids[j] == id) {
+                result[kept++] = id;
+            }
+        }
+        return kept;
+    }
+
+    private void doPut(long id, String name, String email, String cpf) {
+        int slot = documentSlots.acquire();
+        if (slot == values[0].length) {
+            for (int field = 0; field < values.length; field++) {
+                values[field] = Arrays.copyOf(values[field], slot << 1);
+            }
+        }
+        documents.put(id, slot);
+        values[Field.NAME.ordinal()][slot] = name;
+        values[Field.EMAIL.ordinal()][slot] = email;
+        values[Field.CPF.ordinal()][slot] = cpf;
+        for (int field = 0; field < values.length; field++) {
+            String value = values[field][slot];
+            if (value != null) {
+                for (long key : trigrams(value)) {
+                    postingList(field, key).add(id);
+                }
+            }
+        }
+    }
+
+    private PostingList postingList(int field, long key) {
+        int slot = postings[field].get(key);
+        if (slot == LongIntHashMap.ABSENT) {
+            slot = postingSlots.acquire();
+            if (slot == postingLists.length) {
+                postingLists = Arrays.copyOf(postingLists, slot << 1);
+            }
+            postingLists[slot] = new PostingList();
+            postings[field].put(key, slot);
+        }
+        return postingLists[slot];
+    }
+
+    private void doRemove(long id) {
+        int slot = documents.remove(id);
+        if (slot == LongIntHashMap.ABSENT) {
+            return;
+        }
+        for (int field = 0; field < values.length; field++) {
+            String value = values[field][slot];
+            values[field][slot] = null;
+            if (value != null) {
+                for (long key : trigrams(value)) {
+                    int listSlot = postings[field].get(key);
+                    if (listSlot != LongIntHashMap.ABSENT && postingLists[listSlot].remove(id) && postingLists[listSlot].size == 0) {
+                        postings[field].remove(key);
+                        postingLists[listSlot] = null;
+                        postingSlots.release(listSlot);
+                    }
+                }
+            }
+        }
+        documentSlots.release(slot);
+    }
+
+    /**
+     * The distinct trigrams of a value, each packed in a long as three 16-bit chars.
+     */
+    static long[] trigrams(String value) {
+        if (value.length() < MIN_TERM_LENGTH) {
+            return EMPTY;
+        }
+        long[] keys = new long[value.length() - 2];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ((long) value.charAt(i) << 32) | ((long) value.charAt(i + 1) << 16) | value.charAt(i + 2);
+        }
+        return Arrays.stream(keys).distinct().toArray();
+    }
+
+    /**
+     * Allocates the slots of parallel arrays, reusing the released ones first.
+     */
+    private static final class Slots {
+
+        private int[] released = new int[16];
+
+        private int releasedCount;
+
+        private int allocated;
+
+        /**
+         * @return a free slot: a released one, or else the next one, which may be the length of the arrays.
+         */
+        int acquire() {
+            return releasedCount > 0 ? released[--releasedCount] : allocated++;
+        }
+
+        void release(int slot) {
+            if (releasedCount == released.length) {
+                released = Arrays.copyOf(released, releasedCount << 1);
+            }
+            released[releasedCount++] = slot;
+        }
+    }
+
+    /**
+     * Growable sorted array of ids. Ids are usually allocated in increasing order, so additions are appends.
+     */
+    private static final class PostingList {
+
+        private long[] ids = new long[4];
+
+        private int size;
+
+        void add(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+    }
+}
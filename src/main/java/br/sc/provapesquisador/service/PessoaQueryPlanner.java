@@ -0,0 +1,282 @@
+package br.sc.provapesquisador.service;
+
+import br.sc.provapesquisador.domain.Pessoa;
+import br.sc.provapesquisador.repository.PessoaQueryShape;
+import br.sc.provapesquisador.service.criteria.PessoaCriteria;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Service;
+import tech.jhipster.service.filter.Filter;
+import tech.jhipster.service.filter.RangeFilter;
+import tech.jhipster.service.filter.StringFilter;
+
+/**
+ * Plans the {@link Pessoa} queries of a {@link PessoaCriteria}.
+ * <p>
+ * The criteria are first normalized: a single value {@code in} becomes {@code equals}, both inclusive bounds
+ * become a {@code between}, {@code specified} filters on mandatory columns are dropped or match nothing, and
+ * {@code distinct} is ignored as the queries have no joins. The filters keep the {@link tech.jhipster.service.QueryService}
+ * meaning otherwise, except that {@code contains} on the name ignores accents and searches {@code search_name},
+ * and on the email ignores case, to use the same indexes as the search endpoints.
+ * <p>
+ * The conditions are then ordered from the most selective and index friendly (equality on unique columns) to the
+ * least (negations), and the resulting {@link PessoaQueryShape} is cached by the structure of the filters: queries
+ * differing only by their values share the same shape and JPQL.
+ */
+@Service
+public class PessoaQueryPlanner {
+
+    /**
+     * Shapes kept at most, beyond which new shapes are built for each query.
+     */
+    static final int MAX_SHAPES = 1024;
+
+    /**
+     * Ranks of the conditions, from the first written to the last.
+     */
+    private static final int RANK_UNIQUE = 0;
+    private static final int RANK_EQUALS = 1;
+    private static final int RANK_RANGE = 2;
+    private static final int RANK_SEARCH = 3;
+    private static final int RANK_LOW_CARDINALITY = 4;
+    private static final int RANK_NEGATION = 5;
+
+    private static final Plan NOTHING = new Plan(null, List.of());
+
+    private final Map<String, PessoaQueryShape> shapes = new ConcurrentHashMap<>();
+
+    /**
+     * Plan the query of some criteria.
+     *
+     * @param criteria the criteria, may be {@code null} to match all the rows.
+     * @return the plan.
+     */
+    public Plan plan(PessoaCriteria criteria) {
+        Conditions conditions = new Conditions();
+        if (criteria != null) {
+            conditions.add(Field.ID, criteria.getId());
+            conditions.add(Field.CPF, criteria.getCpf());
+            conditions.add(Field.EMAIL, criteria.getEmail());
+            conditions.add(Field.BIRTH_DATE, criteria.getBirthDate());
+            conditions.add(Field.NAME, criteria.getName());
+            conditions.add(Field.EXCLUDED, criteria.getExcluded());
+        }
+        if (conditions.unsatisfiable) {
+            return NOTHING;
+        }
+        // stable: conditions of the same rank stay in field order
+        conditions.list.sort(Comparator.comparingInt(condition -> condition.rank));
+        String key = conditions.list
+            .stream()
+            .map(condition -> condition.expression + " " + condition.operator)
+            .collect(Collectors.joining(" and "));
+        PessoaQueryShape shape = shapes.get(key);
+        if (shape == null) {
+            shape = compile(conditions.list);
+            if (shapes.size() < MAX_SHAPES) {
+                shapes.putIfAbsent(key, shape);
+            }
+        }
+        List<Object> parameters = new ArrayList<>(shape.getParameterCount());
+        conditions.list.forEach(condition -> parameters.addAll(condition.values));
+        return new Plan(shape, parameters);
+    }
+
+    private static PessoaQueryShape compile(List<Condition> conditions) {
+        List<String> where = new ArrayList<>(conditions.size());
+        int parameter = 0;
+        for (Condition condition : conditions) {
+            String expression = condition.expression + " " + condition.operator;
+            if (condition.values.isEmpty()) {
+                where.add(expression);
+            } else if (condition.values.size() == 2) {
+                where.add(expression + " ?" + (parameter + 1) + " and ?" + (parameter + 2));
+            } else if (condition.values.get(0) instanceof Collection) {
+                where.add(expression + " (?" + (parameter + 1) + ")");
+            } else {
+                where.add(expression + " ?" + (parameter + 1));
+            }
+            parameter += condition.values.size();
+        }
+        return new PessoaQueryShape(String.join(" and ", where), parameter);
+    }
+
+    /**
+     * The planned query of some criteria.
+     */
+    public static final class Plan {
+
+        private final PessoaQueryShape shape;
+
+        private final List<Object> parameters;
+
+        private Plan(PessoaQueryShape shape, List<Object> parameters) {
+            this.shape = shape;
+            this.parameters = parameters;
+        }
+
+        /**
+         * @return whether the criteria can't match any row, in which case there is no query to run.
+         */
+        public boolean isUnsatisfiable() {
+            return shape == null;
+        }
+
+        public PessoaQueryShape getShape() {
+            return shape;
+        }
+
+        public List<Object> getParameters() {
+            return parameters;
+        }
+    }
+
+    /**
+     * The filterable fields, in the order their conditions are written when of the same rank.
+     */
+    private enum Field {
+        ID("p.id", true, false, null, null),
+        CPF("p.cpf", true, false, "p.cpf", Function.identity()),
+        EMAIL("p.email", false, false, "lower(p.email)", PessoaSearchIndex::normalizeEmail),
+        BIRTH_DATE("p.birthDate", false, true, null, null),
+        NAME("p.name", false, false, "p.searchName", Pessoa::normalizeSearchTerm),
+        EXCLUDED("p.excluded", false, true, null, null);
+
+        private final String path;
+
+        private final boolean unique;
+
+        private final boolean nullable;
+
+        /**
+         * The expression searched by the {@code contains} filters, matching its index, and the normalization of
+         * their value.
+         */
+        private final String searchPath;
+
+        private final Function<String, String> searchTerm;
+
+        Field(String path, boolean unique, boolean nullable, String searchPath, Function<String, String> searchTerm) {
+            this.path = path;
+            this.unique = unique;
+            this.nullable = nullable;
+            this.searchPath = searchPath;
+            this.searchTerm = searchTerm;
+        }
+    }
+
+    private static final class Condition {
+
+        private final int rank;
+
+        private final String expression;
+
+        private final String operator;
+
+        private final List<?> values;
+
+        private Condition(int rank, String expression, String operator, List<?> values) {
+            this.rank = rank;
+            this.expression = expression;
+            this.operator = operator;
+            this.values = values;
+        }
+    }
+
+    private static final class Conditions {
+
+        private final List<Condition> list = new ArrayList<>();
+
+        private boolean unsatisfiable;
+
+        private void add(Field field, Filter<?> filter) {
+            if (filter == null) {
+                return;
+            }
+            // as in QueryService: equals, then in, override all the other filters
+            if (filter.getEquals() != null) {
+                addEquals(field, filter.getEquals());
+                return;
+            }
+            if (filter.getIn() != null) {
+                Set<Object> values = new LinkedHashSet<>(filter.getIn());
+                if (values.isEmpty()) {
+                    unsatisfiable = true;
+                } else if (values.size() == 1) {
+                    addEquals(field, values.iterator().next());
+                } else {
+                    list.add(new Condition(equalsRank(field), field.path, "in", List.of(values)));
+                }
+                return;
+            }
+            if (filter instanceof StringFilter) {
+                StringFilter stringFilter = (StringFilter) filter;
+                if (stringFilter.getContains() != null) {
+                    String pattern = searchPattern(field, stringFilter.getContains());
+                    list.add(new Condition(RANK_SEARCH, field.searchPath, "like", List.of(pattern)));
+                }
+                if (stringFilter.getDoesNotContain() != null) {
+                    String pattern = searchPattern(field, stringFilter.getDoesNotContain());
+                    list.add(new Condition(RANK_NEGATION, field.searchPath, "not like", List.of(pattern)));
+                }
+            }
+            if (filter instanceof RangeFilter) {
+                addRange(field, (RangeFilter<?>) filter);
+            }
+            if (filter.getNotEquals() != null) {
+                list.add(new Condition(RANK_NEGATION, field.path, "<>", List.of(filter.getNotEquals())));
+            }
+            if (filter.getNotIn() != null && !filter.getNotIn().isEmpty()) {
+                list.add(new Condition(RANK_NEGATION, field.path, "not in", List.of(new LinkedHashSet<>(filter.getNotIn()))));
+            }
+            if (filter.getSpecified() != null) {
+                if (!field.nullable) {
+                    unsatisfiable |= !filter.getSpecified();
+                } else {
+                    String operator = filter.getSpecified() ? "is not null" : "is null";
+                    list.add(new Condition(RANK_LOW_CARDINALITY, field.path, operator, List.of()));
+                }
+            }
+        }
+
+        private void addEquals(Field field, Object value) {
+            list.add(new Condition(equalsRank(field), field.path, "=", List.of(value)));
+        }
+
+        private void addRange(Field field, RangeFilter<?> filter) {
+            if (filter.getGreaterThanOrEqual() != null && filter.getLessThanOrEqual() != null) {
+                List<Object> bounds = List.of(filter.getGreaterThanOrEqual(), filter.getLessThanOrEqual());
+                list.add(new Condition(RANK_RANGE, field.path, "between", bounds));
+            } else if (filter.getGreaterThanOrEqual() != null) {
+                list.add(new Condition(RANK_RANGE, field.path, ">=", List.of(filter.getGreaterThanOrEqual())));
+            } else if (filter.getLessThanOrEqual() != null) {
+                list.add(new Condition(RANK_RANGE, field.path, "<=", List.of(filter.getLessThanOrEqual())));
+            }
+            if (filter.getGreaterThan() != null) {
+                list.add(new Condition(RANK_RANGE, field.path, ">", List.of(filter.getGreaterThan())));
+            }
+            if (filter.getLessThan() != null) {
+                list.add(new Condition(RANK_RANGE, field.path, "<", List.of(filter.getLessThan())));
+            }
+        }
+
+        private static int equalsRank(Field field) {
+            if (field.unique) {
+                return RANK_UNIQUE;
+            }
+            return field == Field.EXCLUDED ? RANK_LOW_CARDINALITY : RANK_EQUALS;
+        }
+
+        private static String searchPattern(Field field, String value) {
+            return "%" + field.searchTerm.apply(value) + "%";
+        }
+    }
+}
@@ -1,32 +1,39 @@
 package br.sc.provapesquisador.service;
 
-import br.sc.provapesquisador.domain.*; // for static metamodels
 import br.sc.provapesquisador.domain.Pessoa;
 import br.sc.provapesquisador.repository.PessoaRepository;
 import br.sc.provapesquisador.service.criteria.PessoaCriteria;
 import br.sc.provapesquisador.service.dto.PessoaDTO;
 import br.sc.provapesquisador.service.mapper.PessoaMapper;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import javax.persistence.criteria.JoinType;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import tech.jhipster.service.QueryService;
 
 /**
  * Service for executing complex queries for {@link Pessoa} entities in the database.
- * The main input is a {@link PessoaCriteria} which gets converted to {@link Specification},
- * in a way that all the filters must apply.
+ * The main input is a {@link PessoaCriteria} which gets planned by the {@link PessoaQueryPlanner},
+ * in a way that all the filters must apply, whether the results are paged by offset or by keyset.
  * It returns a {@link List} of {@link PessoaDTO} or a {@link Page} of {@link PessoaDTO} which fulfills the criteria.
  */
 @Service
 @Transactional(readOnly = true)
-public class PessoaQueryService extends QueryService<Pessoa> {
+public class PessoaQueryService {
 
     private final Logger log = LoggerFactory.getLogger(PessoaQueryService.class);
 
@@ -34,9 +41,20 @@ public class PessoaQueryService extends QueryService<Pessoa> {
 
     private final PessoaMapper pessoaMapper;
 
-    public PessoaQueryService(PessoaRepository pessoaRepository, PessoaMapper pessoaMapper) {
+    private final PessoaSearchIndex pessoaSearchIndex;
+
+    private final PessoaQueryPlanner pessoaQueryPlanner;
+
+    public PessoaQueryService(
+        PessoaRepository pessoaRepository,
+        PessoaMapper pessoaMapper,
+        PessoaSearchIndex pessoaSearchIndex,
+        PessoaQueryPlanner pessoaQueryPlanner
+    ) {
         this.pessoaRepository = pessoaRepository;
         this.pessoaMapper = pessoaMapper;
+        this.pessoaSearchIndex = pessoaSearchIndex;
+        this.pessoaQueryPlanner = pessoaQueryPlanner;
     }
 
     /**
@@ -47,8 +65,24 @@ public class PessoaQueryService extends QueryService<Pessoa> {
     @Transactional(readOnly = true)
     public List<PessoaDTO> findByCriteria(PessoaCriteria criteria) {
         log.debug("find by criteria : {}", criteria);
-        final Specification<Pessoa> specification = createSpecification(criteria);
-        return pessoaMapper.toDto(pessoaRepository.findAll(specification));
+        return pessoaMapper.toDto(findAll(criteria, Pageable.unpaged()).getContent());
+    }
+
+    /**
+     * Return a {@link Page} of {@link Pessoa} which matches the criteria from the database, through the
+     * {@link PessoaQueryPlanner}.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param pageable The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<Pessoa> findAll(PessoaCriteria criteria, Pageable pageable) {
+        log.debug("find by criteria : {}, page: {}", criteria, pageable);
+        PessoaQueryPlanner.Plan plan = pessoaQueryPlanner.plan(criteria);
+        if (plan.isUnsatisfiable()) {
+            return Page.empty(pageable);
+        }
+        return pessoaRepository.findAll(plan.getShape(), plan.getParameters(), pageable);
     }
 
     /**
@@ -68,7 +102,9 @@ public class PessoaQueryService extends QueryService<Pessoa> {
     @Transactional(readOnly = true)
     public Page<Pessoa> findAllByName(String name, Pageable pageable) {
         log.debug("find by criteria : {}");
-        return pessoaRepository.findAllByName(name, pageable);
+        String term = Pessoa.normalizeSearchTerm(name);
+        return findAllInIndex(PessoaInvertedIndex.Field.NAME, term, pageable)
+            .orElseGet(() -> pessoaRepository.findAllByName(term, pageable));
     }
 
     /**
@@ -78,7 +114,7 @@ public class PessoaQueryService extends QueryService<Pessoa> {
     @Transactional(readOnly = true)
     public Page<Pessoa> findAllByCpf(String cpf, Pageable pageable) {
         log.debug("find by criteria : {}");
-        return pessoaRepository.findAllByCpf(cpf, pageable);
+        return findAllInIndex(PessoaInvertedIndex.Field.CPF, cpf, pageable).orElseGet(() -> pessoaRepository.findAllByCpf(cpf, pageable));
     }
 
     /**
@@ -88,7 +124,53 @@ public class PessoaQueryService extends QueryService<Pessoa> {
     @Transactional(readOnly = true)
     public Page<Pessoa> findAllByEmail(String email, Pageable pageable) {
         log.debug("find by criteria : {}");
-        return pessoaRepository.findAllByEmail(email, pageable);
+        String term = PessoaSearchIndex.normalizeEmail(email);
+        return findAllInIndex(PessoaInvertedIndex.Field.EMAIL, term, pageable)
+            .orElseGet(() -> pessoaRepository.findAllByEmail(term, pageable));
+    }
+
+    /**
+     * Resolve a search through the in-memory {@link PessoaSearchIndex}, loading only the requested page
+     * with a single {@code findAllById}.
+     * <p>
+     * The index keeps ids only, so it is used when the page is unsorted (ranked by relevance for names)
+     * or sorted by id; other sorts, short terms or a disabled index fall back to the database search.
+     */
+    private Optional<Page<Pessoa>> findAllInIndex(PessoaInvertedIndex.Field field, String term, Pageable pageable) {
+        Sort sort = pageable.getSort();
+        Sort.Order idOrder = sort.getOrderFor("id");
+        if (sort.isSorted() && (idOrder == null || sort.stream().count() > 1)) {
+            return Optional.empty();
+        }
+        boolean ranked = sort.isUnsorted() && field == PessoaInvertedIndex.Field.NAME;
+        return pessoaSearchIndex
+            .search(field, term, ranked)
+            .map(ids -> {
+                if (idOrder != null && idOrder.isDescending()) {
+                    reverse(ids);
+                }
+                int from = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), ids.length) : 0;
+                int to = pageable.isPaged() ? (int) Math.min((long) from + pageable.getPageSize(), ids.length) : ids.length;
+                long[] pageIds = Arrays.copyOfRange(ids, from, to);
+                Map<Long, Pessoa> byId = new HashMap<>();
+                pessoaRepository
+                    .findAllById(Arrays.stream(pageIds).boxed().collect(Collectors.toList()))
+                    .forEach(pessoa -> byId.put(pessoa.getId(), pessoa));
+                List<Pessoa> content = Arrays
+                    .stream(pageIds)
+                    .mapToObj(byId::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+                return new PageImpl<>(content, pageable, ids.length);
+            });
+    }
+
+    private static void reverse(long[] ids) {
+        for (int i = 0, j = ids.length - 1; i < j; i++, j--) {
+            long id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+        }
     }
 
     /**
@@ -97,11 +179,109 @@ public class PessoaQueryService extends QueryService<Pessoa> {
      */
     @Transactional(readOnly = true)
     public Page<Pessoa> findAllByBirthDate(LocalDate birthDate, Pageable pageable) {
-        log.debug("find by criteria : {}");
-        System.out.println(birthDate);
+        log.debug("find by birth date : {}", birthDate);
         return pessoaRepository.findAllByBirthDate(birthDate, pageable);
     }
 
+    /**
+     * Return the {@link Slice} of pessoas following a keyset cursor, without counting the total.
+     * @param cursor the position after which rows are read.
+     * @param size the page size.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Pessoa> findAll(PessoaCursor cursor, int size) {
+        log.debug("find after cursor : {}", cursor.encode());
+        return findAfter(notExcluded(), cursor, size);
+    }
+
+    /**
+     * Return the {@link Slice} of pessoas matching the criteria and following a keyset cursor, through the
+     * {@link PessoaQueryPlanner}.
+     * @param criteria the criteria which the entities should match.
+     * @param cursor the position after which rows are read.
+     * @param size the page size.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Pessoa> findAll(PessoaCriteria criteria, PessoaCursor cursor, int size) {
+        log.debug("find by criteria : {} after cursor : {}", criteria, cursor.encode());
+        return findAfter(criteria, cursor, size);
+    }
+
+    /**
+     * Return the {@link Slice} of pessoas matching the name and following a keyset cursor.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Pessoa> findAllByName(String name, PessoaCursor cursor, int size) {
+        log.debug("find by name after cursor : {}", cursor.encode());
+        PessoaCriteria criteria = notExcluded();
+        criteria.name().setContains(name);
+        return findAfter(criteria, cursor, size);
+    }
+
+    /**
+     * Return the {@link Slice} of pessoas matching the cpf and following a keyset cursor.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Pessoa> findAllByCpf(String cpf, PessoaCursor cursor, int size) {
+        log.debug("find by cpf after cursor : {}", cursor.encode());
+        PessoaCriteria criteria = notExcluded();
+        criteria.cpf().setContains(cpf);
+        return findAfter(criteria, cursor, size);
+    }
+
+    /**
+     * Return the {@link Slice} of pessoas matching the email and following a keyset cursor.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Pessoa> findAllByEmail(String email, PessoaCursor cursor, int size) {
+        log.debug("find by email after cursor : {}", cursor.encode());
+        PessoaCriteria criteria = notExcluded();
+        criteria.email().setContains(email);
+        return findAfter(criteria, cursor, size);
+    }
+
+    /**
+     * Return the {@link Slice} of pessoas matching the birthDate and following a keyset cursor.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Pessoa> findAllByBirthDate(LocalDate birthDate, PessoaCursor cursor, int size) {
+        log.debug("find by birthDate after cursor : {}", cursor.encode());
+        PessoaCriteria criteria = notExcluded();
+        criteria.birthDate().setEquals(birthDate);
+        return findAfter(criteria, cursor, size);
+    }
+
+    private Slice<Pessoa> findAfter(PessoaCriteria criteria, PessoaCursor cursor, int size) {
+        PageRequest page = PageRequest.of(0, size, Sort.by(cursor.getOrder()));
+        PessoaQueryPlanner.Plan plan = pessoaQueryPlanner.plan(criteria);
+        if (plan.isUnsatisfiable()) {
+            return new SliceImpl<>(List.of(), page, false);
+        }
+        List<Pessoa> rows = pessoaRepository.findAllAfter(
+            plan.getShape(),
+            plan.getParameters(),
+            cursor.getOrder(),
+            cursor.getLastValue(),
+            cursor.getLastId(),
+            size + 1
+        );
+        boolean hasNext = rows.size() > size;
+        List<Pessoa> content = hasNext ? rows.subList(0, size) : rows;
+        return new SliceImpl<>(content, page, hasNext);
+    }
+
+    private static PessoaCriteria notExcluded() {
+        PessoaCriteria criteria = new PessoaCriteria();
+        criteria.excluded().setEquals(false);
+        return criteria;
+    }
+
     /**
      * Return a {@link Page} of {@link PessoaDTO} which matches the criteria from the database.
      * @param criteria The object which holds all the filters, which the entities should match.
@@ -110,9 +290,7 @@ public class PessoaQueryService extends QueryService<Pessoa> {
      */
     @Transactional(readOnly = true)
     public Page<PessoaDTO> findByCriteria(PessoaCriteria criteria, Pageable page) {
-        log.debug("find by criteria : {}, page: {}", criteria, page);
-        final Specification<Pessoa> specification = createSpecification(criteria);
-        return pessoaRepository.findAll(specification, page).map(pessoaMapper::toDto);
+        return findAll(criteria, page).map(pessoaMapper::toDto);
     }
 
     /**
@@ -123,41 +301,7 @@ public class PessoaQueryService extends QueryService<Pessoa> {
     @Transactional(readOnly = true)
     public long countByCriteria(PessoaCriteria criteria) {
         log.debug("count by criteria : {}", criteria);
-        final Specification<Pessoa> specification = createSpecification(criteria);
-        return pessoaRepository.count(specification);
-    }
-
-    /**
-     * Function to convert {@link PessoaCriteria} to a {@link Specification}
-     * @param criteria The object which holds all the filters, which the entities should match.
-     * @return the matching {@link Specification} of the entity.
-     */
-    protected Specification<Pessoa> createSpecification(PessoaCriteria criteria) {
-        Specification<Pessoa> specification = Specification.where(null);
-        if (criteria != null) {
-            // This has to be called first, because the distinct method returns null
-            if (criteria.getDistinct() != null) {
-                specification = specification.and(distinct(criteria.getDistinct()));
-            }
-            if (criteria.getId() != null) {
-                specification = specification.and(buildRangeSpecification(criteria.getId(), Pessoa_.id));
-            }
-            if (criteria.getName() != null) {
-                specification = specification.and(buildStringSpecification(criteria.getName(), Pessoa_.name));
-            }
-            if (criteria.getCpf() != null) {
-                specification = specification.and(buildStringSpecification(criteria.getCpf(), Pessoa_.cpf));
-            }
-            if (criteria.getEmail() != null) {
-                specification = specification.and(buildStringSpecification(criteria.getEmail(), Pessoa_.email));
-            }
-            if (criteria.getBirthDate() != null) {
-                specification = specification.and(buildRangeSpecification(criteria.getBirthDate(), Pessoa_.birthDate));
-            }
-            if (criteria.getExcluded() != null) {
-                specification = specification.and(buildSpecification(criteria.getExcluded(), Pessoa_.excluded));
-            }
-        }
-        return specification;
+        PessoaQueryPlanner.Plan plan = pessoaQueryPlanner.plan(criteria);
+        return plan.isUnsatisfiable() ? 0 : pessoaRepository.count(plan.getShape(), plan.getParameters());
     }
 }
@@ -0,0 +1,134 @@
+package br.sc.provapesquisador.service;
+
+import br.sc.provapesquisador.config.ApplicationProperties;
+import br.sc.provapesquisador.domain.Pessoa;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Counts the reads of each {@link Pessoa}, so that the next startup can warm up the cache with the most read ones.
+ * <p>
+ * At most 4 times {@code application.cache.warm-up.pessoas} ids are counted. Every
+ * {@code application.cache.warm-up.snapshot-interval} and on shutdown, the most read ids are written to
+ * {@code application.cache.warm-up.pessoa-reads-file} and the counts are halved, so that the ids read long ago
+ * make room for the new ones.
+ */
+@Service
+public class PessoaReadTracker {
+
+    private final Logger log = LoggerFactory.getLogger(PessoaReadTracker.class);
+
+    private final Map<Long, LongAdder> counts = new ConcurrentHashMap<>();
+
+    private final int maxIds;
+
+    private final int maxTracked;
+
+    private final Path file;
+
+    public PessoaReadTracker(ApplicationProperties applicationProperties) {
+        ApplicationProperties.Cache.WarmUp warmUp = applicationProperties.getCache().getWarmUp();
+        this.maxIds = warmUp.getPessoas();
+        this.maxTracked = 4 * warmUp.getPessoas();
+        this.file = Paths.get(warmUp.getPessoaReadsFile()).toAbsolutePath();
+    }
+
+    /**
+     * Count a read.
+     *
+     * @param id the id of the read pessoa.
+     */
+    public void record(Long id) {
+        LongAdder count = counts.get(id);
+        if (count == null) {
+            if (counts.size() >= maxTracked) {
+                return;
+            }
+            count = counts.computeIfAbsent(id, key -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    /**
+     * @return the ids of the most read pessoas since the last snapshots, the most read first.
+     */
+    public List<Long> hottest() {
+        return counts
+            .entrySet()
+            .stream()
+            .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+            .filter(entry -> entry.getValue() > 0)
+            .sorted(Map.Entry.<Long, Long>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()))
+            .limit(maxIds)
+            .map(Map.Entry::getKey)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Write the most read ids, then halve the counts.
+     */
+    @Scheduled(
+        initialDelayString = "${application.cache.warm-up.snapshot-interval:PT5M}",
+        fixedDelayString = "${application.cache.warm-up.snapshot-interval:PT5M}"
+    )
+    @PreDestroy
+    public void snapshot() {
+        List<Long> hottest = hottest();
+        if (hottest.isEmpty()) {
+            return;
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            Path written = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            Files.write(written, hottest.stream().map(String::valueOf).collect(Collectors.toList()), StandardCharsets.UTF_8);
+            Files.move(written, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not write the most read pessoas to {}: {}", file, e.getMessage());
+        }
+        counts.forEach((id, count) -> {
+            long sum = count.sumThenReset();
+            if (sum > 1) {
+                count.add(sum / 2);
+            } else {
+                counts.remove(id, count);
+            }
+        });
+    }
+
+    /**
+     * @return the most read ids of the last snapshot, the most read first, or none if there is no snapshot.
+     */
+    public List<Long> readSnapshot() {
+        if (!Files.exists(file)) {
+            return Collections.emptyList();
+        }
+        try {
+            return Files
+                .readAllLines(file, StandardCharsets.UTF_8)
+                .stream()
+                .filter(line -> !line.isBlank())
+                .map(Long::valueOf)
+                .limit(maxIds)
+                .collect(Collectors.toList());
+        } catch (IOException | NumberFormatException e) {
+            log.warn("Could not read the most read pessoas from {}: {}", file, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package br.sc.provapesquisador.service;
+
+import br.sc.provapesquisador.config.ApplicationProperties;
+import br.sc.provapesquisador.domain.Pessoa;
+import br.sc.provapesquisador.repository.PessoaRepository;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory search index for {@link Pessoa} name, email and cpf, an alternative to the database search.
+ * <p>
+ * Enabled with {@code application.pessoa.search-index.enabled}. The index is loaded from the database on
+ * startup, kept current by {@link PessoaService} writes once they are committed, and reloaded every
+ * {@code application.pessoa.search-index.rebuild-interval} to pick up writes made by other nodes.
+ * Only pessoas that are not excluded are indexed, like the database search.
+ */
+@Service
+public class PessoaSearchIndex {
+
+    private final Logger log = LoggerFactory.getLogger(PessoaSearchIndex.class);
+
+    private final PessoaRepository pessoaRepository;
+
+    private final ApplicationProperties.Pessoa.SearchIndex properties;
+
+    private volatile PessoaInvertedIndex index;
+
+    private volatile PessoaInvertedIndex rebuilding;
+
+    public PessoaSearchIndex(PessoaRepository pessoaRepository, ApplicationProperties applicationProperties) {
+        this.pessoaRepository = pessoaRepository;
+        this.properties = applicationProperties.getPessoa().getSearchIndex();
+    }
+
+    /**
+     * Index a saved pessoa once the current transaction commits.
+     *
+     * @param pessoa the saved pessoa, with its id.
+     */
+    public void index(Pessoa pessoa) {
+        long id = pessoa.getId();
+        if (!Boolean.FALSE.equals(pessoa.getExcluded())) {
+            remove(id);
+            return;
+        }
+        String name = Pessoa.normalizeSearchTerm(pessoa.getName());
+        String email = normalizeEmail(pessoa.getEmail());
+        String cpf = pessoa.getCpf();
+        afterCommit(() -> apply(target -> target.put(id, name, email, cpf)));
+    }
+
+    /**
+     * Remove a deleted pessoa once the current transaction commits.
+     *
+     * @param id the id of the deleted pessoa.
+     */
+    public void remove(long id) {
+        afterCommit(() -> apply(target -> target.remove(id)));
+    }
+
+    /**
+     * Search the index.
+     *
+     * @param field the field to search.
+     * @param term the normalized term.
+     * @param ranked whether matches should be ordered by relevance instead of by id.
+     * @return the matching ids, or empty if the index is not available or the term is too short to be indexed.
+     */
+    Optional<long[]> search(PessoaInvertedIndex.Field field, String term, boolean ranked) {
+        PessoaInvertedIndex current = index;
+        if (current == null || term == null || term.length() < PessoaInvertedIndex.MIN_TERM_LENGTH) {
+            return Optional.empty();
+        }
+        return Optional.of(ranked ? current.searchRanked(field, term) : current.search(field, term));
+    }
+
+    /**
+     * Reload the index from the database. Scheduled with a fixed delay, so it also runs right after startup.
+     */
+    @Scheduled(fixedDelayString = "${application.pessoa.search-index.rebuild-interval:PT1H}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (!properties.isEnabled()) {
+            index = null;
+            return;
+        }
+        long start = System.currentTimeMillis();
+        PessoaInvertedIndex next = new PessoaInvertedIndex(true);
+        rebuilding = next;
+        try (Stream<PessoaRepository.SearchFields> rows = pessoaRepository.streamAllSearchFields()) {
+            rows.forEach(row ->
+                next.load(row.getId(), Pessoa.normalizeSearchTerm(row.getName()), normalizeEmail(row.getEmail()), row.getCpf())
+            );
+            next.finishLoading();
+            index = next;
+        } finally {
+            rebuilding = null;
+        }
+        log.debug("Rebuilt Pessoa search index with {} entries in {} ms", next.size(), System.currentTimeMillis() - start);
+    }
+
+    static String normalizeEmail(String email) {
+        return email == null ? null : email.toLowerCase(Locale.ROOT);
+    }
+
+    private void apply(Consumer<PessoaInvertedIndex> update) {
+        // read "rebuilding" before "index": rebuild() publishes them in the opposite order
+        PessoaInvertedIndex next = rebuilding;
+        PessoaInvertedIndex current = index;
+        if (next != null) {
+            update.accept(next);
+        }
+        if (current != null && current != next) {
+            update.accept(current);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        action.run();
+                    }
+                }
+            );
+        } else {
+            action.run();
+        }
+    }
+}
@@ -4,7 +4,6 @@ import br.sc.provapesquisador.domain.Pessoa;
 import br.sc.provapesquisador.repository.PessoaRepository;
 import br.sc.provapesquisador.service.dto.PessoaDTO;
 import br.sc.provapesquisador.service.mapper.PessoaMapper;
-import java.util.List;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,9 +25,28 @@ public class PessoaService {
 
     private final PessoaMapper pessoaMapper;
 
-    public PessoaService(PessoaRepository pessoaRepository, PessoaMapper pessoaMapper) {
+    private final PessoaCpfIndex pessoaCpfIndex;
+
+    private final PessoaSearchIndex pessoaSearchIndex;
+
+    private final PessoaAvatarService pessoaAvatarService;
+
+    private final PessoaReadTracker pessoaReadTracker;
+
+    public PessoaService(
+        PessoaRepository pessoaRepository,
+        PessoaMapper pessoaMapper,
+        PessoaCpfIndex pessoaCpfIndex,
+        PessoaSearchIndex pessoaSearchIndex,
+        PessoaAvatarService pessoaAvatarService,
+        PessoaReadTracker pessoaReadTracker
+    ) {
         this.pessoaRepository = pessoaRepository;
         this.pessoaMapper = pessoaMapper;
+        this.pessoaCpfIndex = pessoaCpfIndex;
+        this.pessoaSearchIndex = pessoaSearchIndex;
+        this.pessoaAvatarService = pessoaAvatarService;
+        this.pessoaReadTracker = pessoaReadTracker;
     }
 
     /**
@@ -40,8 +58,10 @@ public class PessoaService {
     public PessoaDTO save(PessoaDTO pessoaDTO) {
         log.debug("Request to save Pessoa : {}", pessoaDTO);
         Pessoa pessoa = pessoaMapper.toEntity(pessoaDTO);
-        pessoa = pessoaRepository.save(pessoa);
-        return pessoaMapper.toDto(pessoa);
+        pessoaCpfIndex.add(pessoa.getCpf());
+        pessoa = saveWithAvatar(pessoa, null, pessoaDTO.getAvatar());
+        pessoaSearchIndex.index(pessoa);
+        return toDtoWithAvatar(pessoa, pessoaDTO.getAvatar());
     }
 
     /**
@@ -52,9 +72,12 @@ public class PessoaService {
      */
     public PessoaDTO update(PessoaDTO pessoaDTO) {
         log.debug("Request to save Pessoa : {}", pessoaDTO);
+        String previousAvatarHash = pessoaRepository.findById(pessoaDTO.getId()).map(Pessoa::getAvatarHash).orElse(null);
         Pessoa pessoa = pessoaMapper.toEntity(pessoaDTO);
-        pessoa = pessoaRepository.save(pessoa);
-        return pessoaMapper.toDto(pessoa);
+        pessoaCpfIndex.add(pessoa.getCpf());
+        pessoa = saveWithAvatar(pessoa, previousAvatarHash, pessoaDTO.getAvatar());
+        pessoaSearchIndex.index(pessoa);
+        return toDtoWithAvatar(pessoa, pessoaDTO.getAvatar());
     }
 
     /**
@@ -69,11 +92,18 @@ public class PessoaService {
         return pessoaRepository
             .findById(pessoaDTO.getId())
             .map(existingPessoa -> {
+                String previousAvatarHash = existingPessoa.getAvatarHash();
                 pessoaMapper.partialUpdate(existingPessoa, pessoaDTO);
-
-                return existingPessoa;
+                pessoaCpfIndex.add(existingPessoa.getCpf());
+                if (pessoaDTO.getAvatar() == null) {
+                    return pessoaRepository.save(existingPessoa);
+                }
+                return saveWithAvatar(existingPessoa, previousAvatarHash, pessoaDTO.getAvatar());
+            })
+            .map(pessoa -> {
+                pessoaSearchIndex.index(pessoa);
+                return pessoa;
             })
-            .map(pessoaRepository::save)
             .map(pessoaMapper::toDto);
     }
 
@@ -98,7 +128,12 @@ public class PessoaService {
     @Transactional(readOnly = true)
     public Optional<PessoaDTO> findOne(Long id) {
         log.debug("Request to get Pessoa : {}", id);
-        return pessoaRepository.findById(id).map(pessoaMapper::toDto);
+        pessoaReadTracker.record(id);
+        return pessoaRepository
+            .findById(id)
+            .map(pessoa ->
+                toDtoWithAvatar(pessoa, pessoa.getAvatarHash() == null ? null : pessoaAvatarService.findContent(id).orElse(null))
+            );
     }
 
     /**
@@ -108,18 +143,43 @@ public class PessoaService {
      */
     public void delete(Long id) {
         log.debug("Request to delete Pessoa : {}", id);
+        pessoaAvatarService.delete(id);
         pessoaRepository.deleteById(id);
+        pessoaSearchIndex.remove(id);
     }
 
+    /**
+     * Check if a pessoa is registered with the given cpf.
+     * <p>
+     * The in-memory {@link PessoaCpfIndex} rules out unknown CPFs, the remaining ones are confirmed
+     * through the {@code ux_pessoa__cpf} unique index.
+     *
+     * @param cpf the cpf to look for.
+     * @return {@code true} if a pessoa with this cpf exists.
+     */
+    @Transactional(readOnly = true)
     public boolean checkExistsCpf(String cpf) {
-        List<Pessoa> pessoas = pessoaRepository.findAll();
-        if (pessoas.size() != 0 && pessoas != null) {
-            for (Pessoa pessoa : pessoas) {
-                if (cpf.equals(pessoa.getCpf())) {
-                    return true;
-                }
-            }
+        log.debug("Request to check if Pessoa exists by cpf : {}", cpf);
+        if (!pessoaCpfIndex.mightContain(cpf)) {
+            return false;
         }
-        return false;
+        return pessoaRepository.existsByCpf(cpf);
+    }
+
+    private Pessoa saveWithAvatar(Pessoa pessoa, String previousAvatarHash, byte[] avatar) {
+        pessoaAvatarService.describe(pessoa, avatar);
+        Pessoa result = pessoaRepository.save(pessoa);
+        pessoaAvatarService.store(result, previousAvatarHash, avatar);
+        return result;
+    }
+
+    /**
+     * The pessoa entity only references its avatar, the single pessoa DTO also carries its content
+     * so that it can be edited and saved back.
+     */
+    private PessoaDTO toDtoWithAvatar(Pessoa pessoa, byte[] avatar) {
+        PessoaDTO pessoaDTO = pessoaMapper.toDto(pessoa);
+        pessoaDTO.setAvatar(avatar);
+        return pessoaDTO;
     }
 }
@@ -0,0 +1,183 @@
+package br.sc.provapesquisador.service;
+
+import br.sc.provapesquisador.config.ApplicationProperties;
+import br.sc.provapesquisador.domain.Authority;
+import br.sc.provapesquisador.domain.RefreshToken;
+import br.sc.provapesquisador.domain.User;
+import br.sc.provapesquisador.repository.RefreshTokenRepository;
+import br.sc.provapesquisador.repository.UserRepository;
+import br.sc.provapesquisador.security.Authorities;
+import br.sc.provapesquisador.security.jwt.TokenProvider;
+import br.sc.provapesquisador.service.dto.AuthenticationTokensDTO;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Service issuing and rotating the {@link RefreshToken refresh tokens}.
+ * <p>
+ * A refresh renews the access token from the cached user and its authorities, without the password check of a login,
+ * so that the access tokens can be short-lived.
+ */
+@Service
+@Transactional
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    private final UserRepository userRepository;
+
+    private final TokenProvider tokenProvider;
+
+    private final Duration tokenValidity;
+
+    private final Duration tokenValidityForRememberMe;
+
+    public RefreshTokenService(
+        RefreshTokenRepository refreshTokenRepository,
+        UserRepository userRepository,
+        TokenProvider tokenProvider,
+        ApplicationProperties applicationProperties,
+        JHipsterProperties jHipsterProperties
+    ) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.tokenProvider = tokenProvider;
+        this.tokenValidity = applicationProperties.getSecurity().getRefreshToken().getTokenValidity();
+        this.tokenValidityForRememberMe =
+            Duration.ofSeconds(jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSecondsForRememberMe());
+    }
+
+    /**
+     * Issue the first refresh token of an authentication.
+     *
+     * @param login the login of the authenticated user.
+     * @param rememberMe whether the user asked to be remembered.
+     * @return the refresh token.
+     */
+    public String issue(String login, boolean rememberMe) {
+        Instant now = Instant.now();
+        return save(login, UUID.randomUUID().toString(), rememberMe, now.plus(rememberMe ? tokenValidityForRememberMe : tokenValidity));
+    }
+
+    /**
+     * Exchange a refresh token for a new access token and the next refresh token of its family.
+     * <p>
+     * A refresh token is used once: replaying it revokes its whole family, as either the client or an attacker holds a
+     * stolen token.
+     *
+     * @param refreshToken the refresh token.
+     * @return the new tokens, or none if the refresh token is unknown, expired, replayed, or its user is no longer active.
+     */
+    public Optional<AuthenticationTokensDTO> refresh(String refreshToken) {
+        Instant now = Instant.now();
+        Optional<RefreshToken> found = refreshTokenRepository.findOneByTokenHash(hash(refreshToken));
+        if (found.isEmpty() || found.get().getExpirationDate().isBefore(now)) {
+            return Optional.empty();
+        }
+        RefreshToken used = found.get();
+        if (refreshTokenRepository.markUsed(used.getId(), now) == 0) {
+            log.warn("Revoking the refresh tokens of {} after the replay of one of them", used.getLogin());
+            refreshTokenRepository.deleteFamily(used.getFamilyId());
+            return Optional.empty();
+        }
+        return userRepository
+            .findOneWithAuthoritiesByLogin(used.getLogin())
+            .filter(User::isActivated)
+            .map(user -> {
+                List<GrantedAuthority> authorities = user
+                    .getAuthorities()
+                    .stream()
+                    .map(Authority::getName)
+                    .map(Authorities::of)
+                    .collect(Collectors.toList());
+                String accessToken = tokenProvider.createToken(
+                    new UsernamePasswordAuthenticationToken(user.getLogin(), null, authorities),
+                    used.getRememberMe()
+                );
+                String next = save(used.getLogin(), used.getFamilyId(), used.getRememberMe(), used.getExpirationDate());
+                return new AuthenticationTokensDTO(accessToken, next);
+            });
+    }
+
+    /**
+     * Revoke a refresh token and the other tokens of its family.
+     *
+     * @param refreshToken the refresh token.
+     */
+    public void revoke(String refreshToken) {
+        refreshTokenRepository
+            .findOneByTokenHash(hash(refreshToken))
+            .ifPresent(revoked -> refreshTokenRepository.deleteFamily(revoked.getFamilyId()));
+    }
+
+    /**
+     * Revoke all the refresh tokens of a user, when their password changes or their login is deleted or renamed: a
+     * user later registered with the same login must not inherit them.
+     *
+     * @param login the login of the user.
+     */
+    public void revokeUser(String login) {
+        int deleted = refreshTokenRepository.deleteAllByLogin(login);
+        log.debug("Revoked the {} refresh tokens of {}", deleted, login);
+    }
+
+    /**
+     * Expired refresh tokens should be deleted.
+     * <p>
+     * This is scheduled to get fired everyday, at 02:00 (am).
+     */
+    @Scheduled(cron = "0 0 2 * * ?")
+    public void removeExpiredTokens() {
+        int deleted = refreshTokenRepository.deleteExpired(Instant.now());
+        log.debug("Deleted {} expired refresh tokens", deleted);
+    }
+
+    private String save(String login, String familyId, boolean rememberMe, Instant expirationDate) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.save(
+            new RefreshToken()
+                .tokenHash(hash(refreshToken))
+                .login(login)
+                .familyId(familyId)
+                .rememberMe(rememberMe)
+                .createdDate(Instant.now())
+                .expirationDate(expirationDate)
+        );
+        return refreshToken;
+    }
+
+    private static String hash(String refreshToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(refreshToken.getBytes(StandardCharsets.UTF_8));
+            return String.format("%064x", new BigInteger(1, digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
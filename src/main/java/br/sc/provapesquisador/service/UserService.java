@@ -7,6 +7,7 @@ import br.sc.provapesquisador.repository.AuthorityRepository;
 import br.sc.provapesquisador.repository.UserRepository;
 import br.sc.provapesquisador.security.AuthoritiesConstants;
 import br.sc.provapesquisador.security.SecurityUtils;
+import br.sc.provapesquisador.security.jwt.TokenRevocationList;
 import br.sc.provapesquisador.service.dto.AdminUserDTO;
 import br.sc.provapesquisador.service.dto.UserDTO;
 import java.time.Instant;
@@ -15,10 +16,11 @@ import java.util.*;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,7 +31,7 @@ import tech.jhipster.security.RandomUtil;
  */
 @Service
 @Transactional
-public class UserService {
+public class UserService implements UserDetailsPasswordService {
 
     private final Logger log = LoggerFactory.getLogger(UserService.class);
 
@@ -39,18 +41,26 @@ public class UserService {
 
     private final AuthorityRepository authorityRepository;
 
-    private final CacheManager cacheManager;
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    private final TokenRevocationList tokenRevocationList;
+
+    private final RefreshTokenService refreshTokenService;
 
     public UserService(
         UserRepository userRepository,
         PasswordEncoder passwordEncoder,
         AuthorityRepository authorityRepository,
-        CacheManager cacheManager
+        CacheInvalidationBus cacheInvalidationBus,
+        TokenRevocationList tokenRevocationList,
+        RefreshTokenService refreshTokenService
     ) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authorityRepository = authorityRepository;
-        this.cacheManager = cacheManager;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.tokenRevocationList = tokenRevocationList;
+        this.refreshTokenService = refreshTokenService;
     }
 
     public Optional<User> activateRegistration(String key) {
@@ -76,6 +86,8 @@ public class UserService {
                 user.setPassword(passwordEncoder.encode(newPassword));
                 user.setResetKey(null);
                 user.setResetDate(null);
+                // the sessions renewed with the forgotten, maybe stolen, password end with it
+                refreshTokenService.revokeUser(user.getLogin());
                 this.clearUserCaches(user);
                 return user;
             });
@@ -193,6 +205,11 @@ public class UserService {
             .map(Optional::get)
             .map(user -> {
                 this.clearUserCaches(user);
+                if ((user.isActivated() && !userDTO.isActivated()) || !user.getLogin().equals(userDTO.getLogin().toLowerCase())) {
+                    // the sessions of a deactivated or renamed user end with it
+                    tokenRevocationList.revokeUser(user.getLogin());
+                    refreshTokenService.revokeUser(user.getLogin());
+                }
                 user.setLogin(userDTO.getLogin().toLowerCase());
                 user.setFirstName(userDTO.getFirstName());
                 user.setLastName(userDTO.getLastName());
@@ -223,6 +240,8 @@ public class UserService {
             .findOneByLogin(login)
             .ifPresent(user -> {
                 userRepository.delete(user);
+                tokenRevocationList.revokeUser(user.getLogin());
+                refreshTokenService.revokeUser(user.getLogin());
                 this.clearUserCaches(user);
                 log.debug("Deleted User: {}", user);
             });
@@ -266,11 +285,31 @@ public class UserService {
                 }
                 String encryptedPassword = passwordEncoder.encode(newPassword);
                 user.setPassword(encryptedPassword);
+                refreshTokenService.revokeUser(user.getLogin());
                 this.clearUserCaches(user);
                 log.debug("Changed password for User: {}", user);
             });
     }
 
+    /**
+     * Store the upgraded hash of the password of a user, after a successful login with an outdated one.
+     *
+     * @param user the authenticated user.
+     * @param newPassword the new hash of the password.
+     * @return the user with the new hash.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository
+            .findOneByLogin(user.getUsername())
+            .ifPresent(existingUser -> {
+                existingUser.setPassword(newPassword);
+                this.clearUserCaches(existingUser);
+                log.debug("Upgraded the password hash of User: {}", existingUser);
+            });
+        return org.springframework.security.core.userdetails.User.withUserDetails(user).password(newPassword).build();
+    }
+
     @Transactional(readOnly = true)
     public Page<AdminUserDTO> getAllManagedUsers(Pageable pageable) {
         return userRepository.findAll(pageable).map(AdminUserDTO::new);
@@ -317,9 +356,9 @@ public class UserService {
     }
 
     private void clearUserCaches(User user) {
-        Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE)).evict(user.getLogin());
+        cacheInvalidationBus.evict(UserRepository.USERS_BY_LOGIN_CACHE, user.getLogin());
         if (user.getEmail() != null) {
-            Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE)).evict(user.getEmail());
+            cacheInvalidationBus.evict(UserRepository.USERS_BY_EMAIL_CACHE, user.getEmail());
         }
     }
 }
@@ -0,0 +1,35 @@
+package br.sc.provapesquisador.service.dto;
+
+/**
+ * A DTO representing the tokens of an authentication - the access token and the refresh token renewing it.
+ */
+public class AuthenticationTokensDTO {
+
+    private String accessToken;
+    private String refreshToken;
+
+    public AuthenticationTokensDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public AuthenticationTokensDTO(String accessToken, String refreshToken) {
+        this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public void setAccessToken(String accessToken) {
+        this.accessToken = accessToken;
+    }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+}
@@ -0,0 +1,73 @@
+package br.sc.provapesquisador.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * A DTO batching the cache invalidations of a node for its peers: the tables whose cached queries are stale, the
+ * cached entities by entity name and id, and the keys of the Spring caches by cache name.
+ */
+public class CacheInvalidationDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String origin;
+
+    private Set<String> tables = new TreeSet<>();
+
+    private Map<String, Set<String>> entities = new TreeMap<>();
+
+    private Map<String, Set<String>> caches = new TreeMap<>();
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public void setOrigin(String origin) {
+        this.origin = origin;
+    }
+
+    public Set<String> getTables() {
+        return tables;
+    }
+
+    public void setTables(Set<String> tables) {
+        this.tables = tables;
+    }
+
+    public Map<String, Set<String>> getEntities() {
+        return entities;
+    }
+
+    public void setEntities(Map<String, Set<String>> entities) {
+        this.entities = entities;
+    }
+
+    public Map<String, Set<String>> getCaches() {
+        return caches;
+    }
+
+    public void setCaches(Map<String, Set<String>> caches) {
+        this.caches = caches;
+    }
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return tables.isEmpty() && entities.isEmpty() && caches.isEmpty();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CacheInvalidationDTO{" +
+            "origin='" + getOrigin() + "'" +
+            ", tables=" + getTables() +
+            ", entities=" + getEntities() +
+            ", caches=" + getCaches() +
+            "}";
+    }
+}
@@ -0,0 +1,78 @@
+package br.sc.provapesquisador.service.dto;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A DTO describing the avatar of a {@link br.sc.provapesquisador.domain.Pessoa}, without its content.
+ */
+public class PessoaAvatarDTO implements Serializable {
+
+    private Long id;
+
+    private String hash;
+
+    private String contentType;
+
+    public PessoaAvatarDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public PessoaAvatarDTO(Long id, String hash, String contentType) {
+        this.id = id;
+        this.hash = hash;
+        this.contentType = contentType;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PessoaAvatarDTO)) {
+            return false;
+        }
+
+        PessoaAvatarDTO pessoaAvatarDTO = (PessoaAvatarDTO) o;
+        return Objects.equals(this.id, pessoaAvatarDTO.id) && Objects.equals(this.hash, pessoaAvatarDTO.hash);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.id, this.hash);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PessoaAvatarDTO{" +
+            "id=" + getId() +
+            ", hash='" + getHash() + "'" +
+            ", contentType='" + getContentType() + "'" +
+            "}";
+    }
+}
@@ -28,6 +28,9 @@ public class PessoaDTO implements Serializable {
     private byte[] avatar;
 
     private String avatarContentType;
+
+    private String avatarUrl;
+
     private LocalDate birthDate;
 
     private Boolean excluded;
@@ -80,6 +83,14 @@ public class PessoaDTO implements Serializable {
         this.avatarContentType = avatarContentType;
     }
 
+    public String getAvatarUrl() {
+        return avatarUrl;
+    }
+
+    public void setAvatarUrl(String avatarUrl) {
+        this.avatarUrl = avatarUrl;
+    }
+
     public LocalDate getBirthDate() {
         return birthDate;
     }
@@ -125,7 +136,8 @@ public class PessoaDTO implements Serializable {
             ", name='" + getName() + "'" +
             ", cpf='" + getCpf() + "'" +
             ", email='" + getEmail() + "'" +
-            ", avatar='" + getAvatar() + "'" +
+            ", avatarContentType='" + getAvatarContentType() + "'" +
+            ", avatarUrl='" + getAvatarUrl() + "'" +
             ", birthDate='" + getBirthDate() + "'" +
             ", excluded='" + getExcluded() + "'" +
             "}";
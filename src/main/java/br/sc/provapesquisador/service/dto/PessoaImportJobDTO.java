@@ -0,0 +1,172 @@
+package br.sc.provapesquisador.service.dto;
+
+import br.sc.provapesquisador.domain.PessoaImportJob;
+import br.sc.provapesquisador.domain.enumeration.ImportJobStatus;
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A DTO reporting the progress of a {@link PessoaImportJob}: the rows processed so far, imported or rejected, and
+ * the throughput of its current run.
+ */
+public class PessoaImportJobDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    private ImportJobStatus status;
+
+    private String format;
+
+    private String createdBy;
+
+    private Instant createdDate;
+
+    private Instant startedDate;
+
+    private Instant finishedDate;
+
+    private long rowsProcessed;
+
+    private long rowsImported;
+
+    private long rowsRejected;
+
+    private double rowsPerSecond;
+
+    private String errorMessage;
+
+    public PessoaImportJobDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public PessoaImportJobDTO(PessoaImportJob job) {
+        this.id = job.getId();
+        this.status = job.getStatus();
+        this.format = job.getFormat();
+        this.createdBy = job.getCreatedBy();
+        this.createdDate = job.getCreatedDate();
+        this.startedDate = job.getStartedDate();
+        this.finishedDate = job.getFinishedDate();
+        this.rowsImported = job.getRowsImported();
+        this.rowsRejected = job.getRowsRejected();
+        this.rowsProcessed = rowsImported + rowsRejected;
+        this.errorMessage = job.getErrorMessage();
+        if (startedDate != null) {
+            // rows processed by the current run, or the last one, over its duration
+            Instant end = finishedDate != null ? finishedDate : Instant.now();
+            long millis = Math.max(Duration.between(startedDate, end).toMillis(), 1);
+            this.rowsPerSecond = (rowsProcessed - job.getStartedRows()) * 1000.0 / millis;
+        }
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public ImportJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ImportJobStatus status) {
+        this.status = status;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public void setCreatedBy(String createdBy) {
+        this.createdBy = createdBy;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public Instant getStartedDate() {
+        return startedDate;
+    }
+
+    public void setStartedDate(Instant startedDate) {
+        this.startedDate = startedDate;
+    }
+
+    public Instant getFinishedDate() {
+        return finishedDate;
+    }
+
+    public void setFinishedDate(Instant finishedDate) {
+        this.finishedDate = finishedDate;
+    }
+
+    public long getRowsProcessed() {
+        return rowsProcessed;
+    }
+
+    public void setRowsProcessed(long rowsProcessed) {
+        this.rowsProcessed = rowsProcessed;
+    }
+
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    public void setRowsImported(long rowsImported) {
+        this.rowsImported = rowsImported;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public void setRowsRejected(long rowsRejected) {
+        this.rowsRejected = rowsRejected;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PessoaImportJobDTO{" +
+            "id=" + getId() +
+            ", status='" + getStatus() + "'" +
+            ", rowsImported=" + getRowsImported() +
+            ", rowsRejected=" + getRowsRejected() +
+            ", rowsPerSecond=" + getRowsPerSecond() +
+            "}";
+    }
+}
@@ -0,0 +1,123 @@
+package br.sc.provapesquisador.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO reporting the outcome of a {@link br.sc.provapesquisador.domain.Pessoa} bulk import: the rows imported and
+ * the rows rejected, with the reason of the first {@value #MAX_ERRORS} rejections.
+ */
+public class PessoaImportReportDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int MAX_ERRORS = 1000;
+
+    private long imported;
+
+    private long rejected;
+
+    private List<RowError> errors = new ArrayList<>();
+
+    public long getImported() {
+        return imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<RowError> errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * Count imported rows.
+     *
+     * @param count the number of rows imported.
+     */
+    public void addImported(long count) {
+        this.imported += count;
+    }
+
+    /**
+     * Count a rejected row, and keep the reason if there are not too many already.
+     *
+     * @param line the line of the row in the imported file, from 1.
+     * @param message the reason the row was rejected.
+     */
+    public void addError(long line, String message) {
+        this.rejected++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new RowError(line, message));
+        }
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PessoaImportReportDTO{" +
+            "imported=" + getImported() +
+            ", rejected=" + getRejected() +
+            "}";
+    }
+
+    /**
+     * A rejected row.
+     */
+    public static class RowError implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private long line;
+
+        private String message;
+
+        public RowError() {
+            // Empty constructor needed for Jackson.
+        }
+
+        public RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public void setLine(long line) {
+            this.line = line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+
+        // prettier-ignore
+        @Override
+        public String toString() {
+            return "RowError{" +
+                "line=" + getLine() +
+                ", message='" + getMessage() + "'" +
+                "}";
+        }
+    }
+}
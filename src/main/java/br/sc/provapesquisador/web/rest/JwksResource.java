@@ -0,0 +1,38 @@
+package br.sc.provapesquisador.web.rest;
+
+import br.sc.provapesquisador.security.jwt.JwtSigningKeyStore;
+import java.time.Duration;
+import java.util.Map;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller publishing the public keys verifying the JWTs, for the gateways and sidecars.
+ */
+@RestController
+public class JwksResource {
+
+    /**
+     * Less than the default {@code application.security.jwt.publication-delay}, so that a new key is fetched before
+     * it signs tokens.
+     */
+    private static final Duration MAX_AGE = Duration.ofMinutes(5);
+
+    private final JwtSigningKeyStore jwtSigningKeyStore;
+
+    public JwksResource(JwtSigningKeyStore jwtSigningKeyStore) {
+        this.jwtSigningKeyStore = jwtSigningKeyStore;
+    }
+
+    /**
+     * {@code GET /.well-known/jwks.json} : get the JSON Web Key Set of the RS256 or ES256 signing keys.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the keys in body, none in the HS512 mode.
+     */
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> getJwks() {
+        return ResponseEntity.ok().cacheControl(CacheControl.maxAge(MAX_AGE).cachePublic()).body(jwtSigningKeyStore.getJwks());
+    }
+}
@@ -2,28 +2,54 @@ package br.sc.provapesquisador.web.rest;
 
 import br.sc.provapesquisador.domain.Pessoa;
 import br.sc.provapesquisador.repository.PessoaRepository;
+import br.sc.provapesquisador.security.AuthoritiesConstants;
+import br.sc.provapesquisador.service.PessoaAvatarService;
+import br.sc.provapesquisador.service.PessoaCursor;
+import br.sc.provapesquisador.service.PessoaExportService;
+import br.sc.provapesquisador.service.PessoaFileFormat;
+import br.sc.provapesquisador.service.PessoaImportJobService;
+import br.sc.provapesquisador.service.PessoaImportService;
 import br.sc.provapesquisador.service.PessoaQueryService;
 import br.sc.provapesquisador.service.PessoaService;
 import br.sc.provapesquisador.service.criteria.PessoaCriteria;
+import br.sc.provapesquisador.service.dto.PessoaAvatarDTO;
 import br.sc.provapesquisador.service.dto.PessoaDTO;
+import br.sc.provapesquisador.service.dto.PessoaImportJobDTO;
+import br.sc.provapesquisador.service.dto.PessoaImportReportDTO;
 import br.sc.provapesquisador.web.rest.errors.BadRequestAlertException;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import javax.ws.rs.Path;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
@@ -50,10 +76,30 @@ public class PessoaResource {
 
     private final PessoaQueryService pessoaQueryService;
 
-    public PessoaResource(PessoaService pessoaService, PessoaRepository pessoaRepository, PessoaQueryService pessoaQueryService) {
+    private final PessoaAvatarService pessoaAvatarService;
+
+    private final PessoaExportService pessoaExportService;
+
+    private final PessoaImportService pessoaImportService;
+
+    private final PessoaImportJobService pessoaImportJobService;
+
+    public PessoaResource(
+        PessoaService pessoaService,
+        PessoaRepository pessoaRepository,
+        PessoaQueryService pessoaQueryService,
+        PessoaAvatarService pessoaAvatarService,
+        PessoaExportService pessoaExportService,
+        PessoaImportService pessoaImportService,
+        PessoaImportJobService pessoaImportJobService
+    ) {
         this.pessoaService = pessoaService;
         this.pessoaRepository = pessoaRepository;
         this.pessoaQueryService = pessoaQueryService;
+        this.pessoaAvatarService = pessoaAvatarService;
+        this.pessoaExportService = pessoaExportService;
+        this.pessoaImportService = pessoaImportService;
+        this.pessoaImportJobService = pessoaImportJobService;
     }
 
     /**
@@ -146,21 +192,6 @@ public class PessoaResource {
         );
     }
 
-    //    /**
-    //     * {@code GET  /pessoas} : get all the pessoas.
-    //     *
-    //     * @param pageable the pagination information.
-    //     * @param criteria the criteria which the requested entities should match.
-    //     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of pessoas in body.
-    //     */
-    //    @GetMapping("/pessoas")
-    //    public ResponseEntity<List<PessoaDTO>> getAllPessoasOriginal(PessoaCriteria criteria, @org.springdoc.api.annotations.ParameterObject Pageable pageable) {
-    //        log.debug("REST request to get Pessoas by criteria: {}", criteria);
-    //        Page<PessoaDTO> page = pessoaQueryService.findByCriteria(criteria, pageable);
-    //        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
-    //        return ResponseEntity.ok().headers(headers).body(page.getContent());
-    //    }
-
     /**
      * {@code GET  /pessoas} : get all the pessoas by name.
      *
@@ -170,9 +201,18 @@ public class PessoaResource {
     @GetMapping("/pessoas-search-name/")
     public ResponseEntity<List<Pessoa>> getAllPessoasByName(
         @RequestParam(required = false) String name,
+        @RequestParam(required = false) String after,
         @org.springdoc.api.annotations.ParameterObject Pageable pageable
     ) {
         log.debug("REST request to get Pessoas by criteria: {}");
+        if (after != null) {
+            return getPessoasAfter(
+                after,
+                pageable,
+                (cursor, size) ->
+                    name != null ? pessoaQueryService.findAllByName(name, cursor, size) : pessoaQueryService.findAll(cursor, size)
+            );
+        }
         if (name != null) {
             Page<Pessoa> page = pessoaQueryService.findAllByName(name, pageable);
             HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
@@ -192,9 +232,18 @@ public class PessoaResource {
     @GetMapping("/pessoas-search-cpf/")
     public ResponseEntity<List<Pessoa>> getAllPessoasByCpf(
         @RequestParam(required = false) String cpf,
+        @RequestParam(required = false) String after,
         @org.springdoc.api.annotations.ParameterObject Pageable pageable
     ) {
         log.debug("REST request to get Pessoas by criteria: {}");
+        if (after != null) {
+            return getPessoasAfter(
+                after,
+                pageable,
+                (cursor, size) ->
+                    cpf != null ? pessoaQueryService.findAllByCpf(cpf, cursor, size) : pessoaQueryService.findAll(cursor, size)
+            );
+        }
         if (cpf != null) {
             Page<Pessoa> page = pessoaQueryService.findAllByCpf(cpf, pageable);
             HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
@@ -214,9 +263,18 @@ public class PessoaResource {
     @GetMapping("/pessoas-search-email/")
     public ResponseEntity<List<Pessoa>> getAllPessoasByEmail(
         @RequestParam(required = false) String email,
+        @RequestParam(required = false) String after,
         @org.springdoc.api.annotations.ParameterObject Pageable pageable
     ) {
         log.debug("REST request to get Pessoas by criteria: {}");
+        if (after != null) {
+            return getPessoasAfter(
+                after,
+                pageable,
+                (cursor, size) ->
+                    email != null ? pessoaQueryService.findAllByEmail(email, cursor, size) : pessoaQueryService.findAll(cursor, size)
+            );
+        }
         if (email != null) {
             Page<Pessoa> page = pessoaQueryService.findAllByEmail(email, pageable);
             HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
@@ -231,47 +289,117 @@ public class PessoaResource {
      * {@code GET  /pessoas} : get all the pessoas by birthDate.
      *
      * @param pageable the pagination information.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of pessoas in body.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of pessoas in body,
+     * or with status {@code 400 (Bad Request)} if the birth date is not a {@code yyyy-MM-dd} date.
      */
     @GetMapping("/pessoas-search-birthdate/")
     public ResponseEntity<List<Pessoa>> getAllPessoasByBirthDate(
         @RequestParam(required = false) String birthDate,
+        @RequestParam(required = false) String after,
         @org.springdoc.api.annotations.ParameterObject Pageable pageable
     ) {
-        log.debug("REST request to get Pessoas by criteria: {}");
-        if (birthDate != null) {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-            System.out.println("@@@@@@@@@@@@" + birthDate);
-            LocalDate localDate = LocalDate.parse(birthDate);
-            if (localDate != null) {
-                System.out.println(localDate);
-                Page<Pessoa> page = pessoaQueryService.findAllByBirthDate(localDate, pageable);
-                HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
-                return ResponseEntity.ok().headers(headers).body(page.getContent());
-            }
+        log.debug("REST request to get Pessoas by birth date: {}", birthDate);
+        LocalDate localDate;
+        try {
+            localDate = birthDate != null ? LocalDate.parse(birthDate) : null;
+        } catch (DateTimeParseException e) {
+            throw new BadRequestAlertException("Invalid birth date", ENTITY_NAME, "birthdateinvalid");
+        }
+        if (after != null) {
+            return getPessoasAfter(
+                after,
+                pageable,
+                (cursor, size) ->
+                    localDate != null
+                        ? pessoaQueryService.findAllByBirthDate(localDate, cursor, size)
+                        : pessoaQueryService.findAll(cursor, size)
+            );
+        }
+        if (localDate != null) {
+            Page<Pessoa> page = pessoaQueryService.findAllByBirthDate(localDate, pageable);
+            HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+            return ResponseEntity.ok().headers(headers).body(page.getContent());
         }
-        System.out.println("@@@@@@@@@@@@@@@@");
         Page<Pessoa> page = pessoaQueryService.findAll(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
     /**
-     * {@code GET  /pessoas} : get all the pessoas.
+     * {@code GET  /pessoas} : get all the pessoas matching the criteria.
+     * <p>
+     * Pessoas are listed whatever their {@code excluded} flag only when the criteria filter on it: by default
+     * excluded pessoas are not listed.
      *
+     * @param criteria the criteria which the requested entities should match.
      * @param pageable the pagination information.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of pessoas in body.
      */
     @GetMapping("/pessoas")
-    public ResponseEntity<List<Pessoa>> getAllPessoas(@org.springdoc.api.annotations.ParameterObject Pageable pageable) {
-        log.debug("REST request to get Pessoas: {}");
-        Page<Pessoa> page = pessoaQueryService.findAll(pageable);
+    public ResponseEntity<List<Pessoa>> getAllPessoas(
+        PessoaCriteria criteria,
+        @RequestParam(required = false) String after,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to get Pessoas by criteria: {}", criteria);
+        excludeByDefault(criteria);
+        if (after != null) {
+            return getPessoasAfter(after, pageable, (cursor, size) -> pessoaQueryService.findAll(criteria, cursor, size));
+        }
+        Page<Pessoa> page = pessoaQueryService.findAll(criteria, pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
     /**
-     * {@code GET  /pessoas/count} : count all the pessoas.
+     * Keyset pagination mode of the pessoa listings, used when the {@code after} parameter is present:
+     * an empty {@code after} reads the first page in the requested sort, and each page links to the next one
+     * with an opaque {@code after} cursor in its {@code Link} header. No total count is computed.
+     *
+     * @param after the cursor returned by the previous page, or empty for the first page.
+     * @param pageable the page size and, for the first page, the sort.
+     * @param query the query reading the page after a cursor.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of pessoas in body,
+     * or with status {@code 400 (Bad Request)} if the cursor or the sort is not valid.
+     */
+    private ResponseEntity<List<Pessoa>> getPessoasAfter(
+        String after,
+        Pageable pageable,
+        BiFunction<PessoaCursor, Integer, Slice<Pessoa>> query
+    ) {
+        PessoaCursor cursor;
+        try {
+            cursor = after.isEmpty() ? PessoaCursor.first(pageable.getSort()) : PessoaCursor.decode(after);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+        Slice<Pessoa> slice = query.apply(cursor, pageable.getPageSize());
+        HttpHeaders headers = new HttpHeaders();
+        if (slice.hasNext()) {
+            String next = cursor.next(slice.getContent().get(slice.getNumberOfElements() - 1)).encode();
+            String link = ServletUriComponentsBuilder
+                .fromCurrentRequest()
+                .replaceQueryParam("after", next)
+                .replaceQueryParam("page")
+                .replaceQueryParam("sort")
+                .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + link + ">; rel=\"next\"");
+        }
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * Filter out the excluded pessoas, unless the criteria filter on their {@code excluded} flag.
+     */
+    private static void excludeByDefault(PessoaCriteria criteria) {
+        if (criteria.getExcluded() == null) {
+            criteria.excluded().setEquals(false);
+        }
+    }
+
+    /**
+     * {@code GET  /pessoas/count} : count all the pessoas, without the excluded ones unless filtered on as for
+     * {@code GET /pessoas}.
      *
      * @param criteria the criteria which the requested entities should match.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the count in body.
@@ -279,9 +407,135 @@ public class PessoaResource {
     @GetMapping("/pessoas/count")
     public ResponseEntity<Long> countPessoas(PessoaCriteria criteria) {
         log.debug("REST request to count Pessoas by criteria: {}", criteria);
+        excludeByDefault(criteria);
         return ResponseEntity.ok().body(pessoaQueryService.countByCriteria(criteria));
     }
 
+    /**
+     * {@code GET  /pessoas/export} : export the pessoas matching the criteria, ordered by id.
+     * <p>
+     * The rows are streamed from a database cursor to the response as they are read: unlike paging through
+     * {@code GET /pessoas}, the whole export is a single query, and its memory use doesn't grow with its size.
+     * As for {@code GET /pessoas}, the excluded pessoas are exported only when the criteria filter on them.
+     *
+     * @param criteria the criteria which the exported entities should match.
+     * @param format {@code ndjson} (one JSON object per line, the default) or {@code csv}.
+     * @param response the response the pessoas are written to, with status {@code 200 (OK)},
+     * or {@code 400 (Bad Request)} if the format is unknown.
+     * @throws IOException if the response can't be written.
+     */
+    @GetMapping("/pessoas/export")
+    public void exportPessoas(
+        PessoaCriteria criteria,
+        @RequestParam(name = "format", defaultValue = "ndjson") String format,
+        HttpServletResponse response
+    ) throws IOException {
+        log.debug("REST request to export Pessoas as {} by criteria: {}", format, criteria);
+        excludeByDefault(criteria);
+        PessoaFileFormat exportFormat = PessoaFileFormat
+            .of(format)
+            .orElseThrow(() -> new BadRequestAlertException("Unknown export format", ENTITY_NAME, "formatinvalid"));
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(
+            HttpHeaders.CONTENT_DISPOSITION,
+            ContentDisposition.attachment().filename("pessoas." + exportFormat.getExtension()).build().toString()
+        );
+        pessoaExportService.export(criteria, exportFormat, response.getOutputStream());
+    }
+
+    /**
+     * {@code POST  /pessoas/import} : import new pessoas in bulk.
+     * <p>
+     * The request body is read as a stream, and its rows are validated and written a chunk at a time: invalid
+     * rows and rows whose CPF is already registered are reported and skipped, without aborting the import.
+     *
+     * @param format {@code ndjson} (one JSON object per line, the default) or {@code csv} (with a header line).
+     * @param request the request, whose body holds the pessoas.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the import report,
+     * or with status {@code 400 (Bad Request)} if the format is unknown.
+     * @throws IOException if the request body can't be read.
+     */
+    @PostMapping("/pessoas/import")
+    @PreAuthorize("@authorityChecks.hasAuthority(authentication, \"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<PessoaImportReportDTO> importPessoas(
+        @RequestParam(name = "format", defaultValue = "ndjson") String format,
+        HttpServletRequest request
+    ) throws IOException {
+        log.debug("REST request to import Pessoas as {}", format);
+        PessoaFileFormat importFormat = PessoaFileFormat
+            .of(format)
+            .orElseThrow(() -> new BadRequestAlertException("Unknown import format", ENTITY_NAME, "formatinvalid"));
+        PessoaImportReportDTO report = pessoaImportService.importPessoas(importFormat, request.getInputStream());
+        return ResponseEntity
+            .ok()
+            .headers(HeaderUtil.createAlert(applicationName, applicationName + ".pessoa.imported", String.valueOf(report.getImported())))
+            .body(report);
+    }
+
+    /**
+     * {@code POST  /pessoas/import-jobs} : import new pessoas in bulk, in the background.
+     * <p>
+     * The request body is saved and imported like {@code POST /pessoas/import} does, on an executor of its own:
+     * the progress of the import is polled from {@code GET /pessoas/import-jobs/:id}.
+     *
+     * @param format {@code ndjson} (one JSON object per line, the default) or {@code csv} (with a header line).
+     * @param request the request, whose body holds the pessoas.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and with body the new job,
+     * or with status {@code 400 (Bad Request)} if the format is unknown.
+     * @throws IOException if the request body can't be read or saved.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @PostMapping("/pessoas/import-jobs")
+    @PreAuthorize("@authorityChecks.hasAuthority(authentication, \"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<PessoaImportJobDTO> submitImportJob(
+        @RequestParam(name = "format", defaultValue = "ndjson") String format,
+        HttpServletRequest request
+    ) throws IOException, URISyntaxException {
+        log.debug("REST request to submit an import of Pessoas as {}", format);
+        PessoaFileFormat importFormat = PessoaFileFormat
+            .of(format)
+            .orElseThrow(() -> new BadRequestAlertException("Unknown import format", ENTITY_NAME, "formatinvalid"));
+        PessoaImportJobDTO job = pessoaImportJobService.submit(importFormat, request.getInputStream());
+        return ResponseEntity
+            .accepted()
+            .location(new URI("/api/pessoas/import-jobs/" + job.getId()))
+            .headers(HeaderUtil.createAlert(applicationName, applicationName + ".pessoa.importSubmitted", job.getId().toString()))
+            .body(job);
+    }
+
+    /**
+     * {@code GET  /pessoas/import-jobs/:id} : get the progress of the "id" import job.
+     *
+     * @param id the id of the job.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the job, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/pessoas/import-jobs/{id}")
+    @PreAuthorize("@authorityChecks.hasAuthority(authentication, \"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<PessoaImportJobDTO> getImportJob(@PathVariable Long id) {
+        log.debug("REST request to get PessoaImportJob : {}", id);
+        return ResponseUtil.wrapOrNotFound(pessoaImportJobService.findOne(id));
+    }
+
+    /**
+     * {@code GET  /pessoas/import-jobs/:id/errors} : get the rows rejected so far by the "id" import job.
+     *
+     * @param id the id of the job.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the rejected rows, one JSON
+     * object per line, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/pessoas/import-jobs/{id}/errors")
+    @PreAuthorize("@authorityChecks.hasAuthority(authentication, \"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<Resource> getImportJobErrors(@PathVariable Long id) {
+        log.debug("REST request to get the errors of PessoaImportJob : {}", id);
+        Optional<java.nio.file.Path> errors = pessoaImportJobService.findErrors(id);
+        if (errors.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Resource body = errors.get().toFile().exists() ? new FileSystemResource(errors.get()) : new ByteArrayResource(new byte[0]);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(PessoaFileFormat.NDJSON.getContentType())).body(body);
+    }
+
     /**
      * {@code GET  /pessoas/:id} : get the "id" pessoa.
      *
@@ -295,6 +549,74 @@ public class PessoaResource {
         return ResponseUtil.wrapOrNotFound(pessoaDTO);
     }
 
+    /**
+     * {@code GET  /pessoas/:id/avatar} : get the avatar of the "id" pessoa, or one of its thumbnails.
+     * <p>
+     * The {@code ETag} is the avatar hash, followed by the thumbnail size for thumbnails. Requests made through
+     * {@link Pessoa#getAvatarUrl()}, which is versioned by that hash, may be cached by the client for a year, other
+     * requests must be revalidated. The files are streamed from the local avatar store, like those of {@code /avatars}.
+     *
+     * @param id the id of the pessoa.
+     * @param version the avatar hash, as found in the avatar URL.
+     * @param size the requested width and height, to get the smallest thumbnail at least that large; the original
+     * avatar is returned if it has no thumbnail that large, or no thumbnails.
+     * @param headers the request headers, for {@code If-None-Match}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the avatar content,
+     * or with status {@code 304 (Not Modified)} if the client already has it,
+     * or with status {@code 404 (Not Found)} if the pessoa has no avatar.
+     */
+    @GetMapping("/pessoas/{id}/avatar")
+    public ResponseEntity<Resource> getPessoaAvatar(
+        @PathVariable Long id,
+        @RequestParam(name = "v", required = false) String version,
+        @RequestParam(name = "size", required = false) Integer size,
+        @RequestHeader HttpHeaders headers
+    ) {
+        log.debug("REST request to get the avatar of Pessoa : {}", id);
+        Optional<PessoaAvatarDTO> avatar = pessoaAvatarService.findOne(id);
+        if (avatar.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        String hash = avatar.get().getHash();
+        CacheControl cacheControl = hash.equals(version)
+            ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate()
+            : CacheControl.noCache().cachePrivate();
+        // served from the avatar store, streamed from the file rather than read into the heap; avatars that are not
+        // readable images have no thumbnails, the original is returned instead
+        Optional<java.nio.file.Path> file = size != null
+            ? pessoaAvatarService.findThumbnail(avatar.get(), size)
+            : pessoaAvatarService.findFile(avatar.get());
+        String tag = hash;
+        if (file.isPresent()) {
+            // named <hash>-<size>.<extension>, or <hash>.<extension> for the original
+            String fileName = file.get().getFileName().toString();
+            tag = fileName.substring(0, fileName.lastIndexOf('.'));
+        }
+        String eTag = "\"" + tag + "\"";
+        if (headers.getIfNoneMatch().stream().anyMatch(match -> match.equals(eTag) || match.equals("W/" + eTag) || match.equals("*"))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).cacheControl(cacheControl).build();
+        }
+        String contentType = avatar.get().getContentType();
+        MediaType avatarType = contentType != null ? MediaType.parseMediaType(contentType) : MediaType.APPLICATION_OCTET_STREAM;
+        if (file.isPresent()) {
+            MediaType fileType = tag.equals(hash)
+                ? avatarType
+                : MediaTypeFactory.getMediaType(file.get().getFileName().toString()).orElseThrow();
+            return ResponseEntity.ok().eTag(tag).cacheControl(cacheControl).contentType(fileType).body(new FileSystemResource(file.get()));
+        }
+        // the avatar store could not write the file
+        Optional<byte[]> content = pessoaAvatarService.findContent(id);
+        if (content.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity
+            .ok()
+            .eTag(hash)
+            .cacheControl(cacheControl)
+            .contentType(avatarType)
+            .body(new ByteArrayResource(content.get()));
+    }
+
     /**
      * {@code DELETE  /pessoas/:id} : delete the "id" pessoa.
      *
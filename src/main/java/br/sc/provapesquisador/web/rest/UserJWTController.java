@@ -2,16 +2,23 @@ package br.sc.provapesquisador.web.rest;
 
 import br.sc.provapesquisador.security.jwt.JWTFilter;
 import br.sc.provapesquisador.security.jwt.TokenProvider;
+import br.sc.provapesquisador.service.RefreshTokenService;
+import br.sc.provapesquisador.service.dto.AuthenticationTokensDTO;
 import br.sc.provapesquisador.web.rest.vm.LoginVM;
+import br.sc.provapesquisador.web.rest.vm.RefreshTokenVM;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.concurrent.CompletableFuture;
 import javax.validation.Valid;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 /**
@@ -25,24 +32,91 @@ public class UserJWTController {
 
     private final AuthenticationManagerBuilder authenticationManagerBuilder;
 
-    public UserJWTController(TokenProvider tokenProvider, AuthenticationManagerBuilder authenticationManagerBuilder) {
+    private final RefreshTokenService refreshTokenService;
+
+    private final TaskExecutor authenticationExecutor;
+
+    public UserJWTController(
+        TokenProvider tokenProvider,
+        AuthenticationManagerBuilder authenticationManagerBuilder,
+        RefreshTokenService refreshTokenService,
+        @Qualifier("authenticationExecutor") TaskExecutor authenticationExecutor
+    ) {
         this.tokenProvider = tokenProvider;
         this.authenticationManagerBuilder = authenticationManagerBuilder;
+        this.refreshTokenService = refreshTokenService;
+        this.authenticationExecutor = authenticationExecutor;
     }
 
+    /**
+     * {@code POST  /authenticate} : authenticate a user by its password, checked on the {@code authenticationExecutor}
+     * so that the web worker is released meanwhile.
+     *
+     * @param loginVM the credentials of the user.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the tokens in body, or with status
+     * {@code 503 (Service Unavailable)} if too many logins are already waiting.
+     */
     @PostMapping("/authenticate")
-    public ResponseEntity<JWTToken> authorize(@Valid @RequestBody LoginVM loginVM) {
+    public CompletableFuture<ResponseEntity<JWTToken>> authorize(@Valid @RequestBody LoginVM loginVM) {
         UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
             loginVM.getUsername(),
             loginVM.getPassword()
         );
 
-        Authentication authentication = authenticationManagerBuilder.getObject().authenticate(authenticationToken);
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-        String jwt = tokenProvider.createToken(authentication, loginVM.isRememberMe());
+        CompletableFuture<Authentication> authentication;
+        try {
+            authentication =
+                CompletableFuture.supplyAsync(
+                    () -> authenticationManagerBuilder.getObject().authenticate(authenticationToken),
+                    authenticationExecutor
+                );
+        } catch (TaskRejectedException e) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build()
+            );
+        }
+        return authentication.thenApply(authenticated -> {
+            String jwt = tokenProvider.createToken(authenticated, loginVM.isRememberMe());
+            String refreshToken = refreshTokenService.issue(authenticated.getName(), loginVM.isRememberMe());
+            HttpHeaders httpHeaders = new HttpHeaders();
+            httpHeaders.add(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + jwt);
+            return new ResponseEntity<>(new JWTToken(jwt, refreshToken), httpHeaders, HttpStatus.OK);
+        });
+    }
+
+    /**
+     * {@code POST  /authenticate/refresh} : renew the access token without the password, with a single-use refresh token.
+     *
+     * @param refreshTokenVM the refresh token, replaced by the one returned.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the new tokens in body.
+     * @throws BadCredentialsException {@code 401 (Unauthorized)} if the refresh token isn't valid.
+     */
+    @PostMapping("/authenticate/refresh")
+    public ResponseEntity<JWTToken> refresh(@Valid @RequestBody RefreshTokenVM refreshTokenVM) {
+        AuthenticationTokensDTO tokens = refreshTokenService
+            .refresh(refreshTokenVM.getRefreshToken())
+            .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
         HttpHeaders httpHeaders = new HttpHeaders();
-        httpHeaders.add(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + jwt);
-        return new ResponseEntity<>(new JWTToken(jwt), httpHeaders, HttpStatus.OK);
+        httpHeaders.add(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + tokens.getAccessToken());
+        return new ResponseEntity<>(new JWTToken(tokens.getAccessToken(), tokens.getRefreshToken()), httpHeaders, HttpStatus.OK);
+    }
+
+    /**
+     * {@code POST  /logout} : revoke the token of the request, on all the nodes, and the refresh token if given.
+     *
+     * @param authentication the authentication of the request, by its token.
+     * @param refreshTokenVM the refresh token of the session, if any.
+     * @return the {@link ResponseEntity} with status {@code 204 (No Content)}.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(Authentication authentication, @RequestBody(required = false) RefreshTokenVM refreshTokenVM) {
+        if (authentication.getCredentials() instanceof String) {
+            tokenProvider.revokeToken((String) authentication.getCredentials());
+        }
+        if (refreshTokenVM != null && refreshTokenVM.getRefreshToken() != null) {
+            refreshTokenService.revoke(refreshTokenVM.getRefreshToken());
+        }
+        return ResponseEntity.noContent().build();
     }
 
     /**
@@ -52,8 +126,11 @@ public class UserJWTController {
 
         private String idToken;
 
-        JWTToken(String idToken) {
+        private String refreshToken;
+
+        JWTToken(String idToken, String refreshToken) {
             this.idToken = idToken;
+            this.refreshToken = refreshToken;
         }
 
         @JsonProperty("id_token")
@@ -64,5 +141,14 @@ public class UserJWTController {
         void setIdToken(String idToken) {
             this.idToken = idToken;
         }
+
+        @JsonProperty("refresh_token")
+        String getRefreshToken() {
+            return refreshToken;
+        }
+
+        void setRefreshToken(String refreshToken) {
+            this.refreshToken = refreshToken;
+        }
     }
 }
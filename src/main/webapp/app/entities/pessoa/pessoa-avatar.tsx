@@ -0,0 +1,31 @@
+import React, { useEffect, useState } from 'react';
+import axios from 'axios';
+
+/**
+ * Avatar image loaded through axios, so that the request carries the JWT: a plain img src can't send it.
+ * The avatar URL is named by the avatar hash, so the browser cache answers repeated loads.
+ */
+export const PessoaAvatar = ({ url }: { url: string }) => {
+  const [src, setSrc] = useState<string>(null);
+
+  useEffect(() => {
+    let objectUrl: string = null;
+    let active = true;
+    axios.get<Blob>(url, { responseType: 'blob' }).then(response => {
+      if (active) {
+        objectUrl = URL.createObjectURL(response.data);
+        setSrc(objectUrl);
+      }
+    });
+    return () => {
+      active = false;
+      if (objectUrl) {
+        URL.revokeObjectURL(objectUrl);
+      }
+    };
+  }, [url]);
+
+  return src ? <img src={src} style={{ maxHeight: '30px' }} /> : null;
+};
+
+export default PessoaAvatar;
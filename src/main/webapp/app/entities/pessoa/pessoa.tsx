@@ -1,6 +1,6 @@
 import { FontAwesomeIcon } from '@fortawesome/react-fontawesome';
 import React, { useEffect, useState } from 'react';
-import { byteSize, getSortState, JhiItemCount, JhiPagination, openFile, TextFormat, Translate } from 'react-jhipster';
+import { getSortState, JhiItemCount, JhiPagination, TextFormat, Translate } from 'react-jhipster';
 import { Link, RouteComponentProps } from 'react-router-dom';
 import { Button, Col, FormGroup, Input, Row, Table } from 'reactstrap';
 
@@ -9,6 +9,7 @@ import { useAppDispatch, useAppSelector } from 'app/config/store';
 import { overridePaginationStateWithQueryParams } from 'app/shared/util/entity-utils';
 import { ASC, DESC, ITEMS_PER_PAGE, SORT } from 'app/shared/util/pagination.constants';
 
+import { PessoaAvatar } from './pessoa-avatar';
 import {
   getEntities,
   getSearchEntitiesByCpf,
@@ -212,17 +213,11 @@ export const Pessoa = (props: RouteComponentProps<{ url: string }>) => {
                   <td>{pessoa.cpf}</td>
                   <td>{pessoa.email}</td>
                   <td>
-                    {pessoa.avatar ? (
+                    {pessoa.avatarUrl ? (
                       <div>
-                        {pessoa.avatarContentType ? (
-                          <a onClick={openFile(pessoa.avatarContentType, pessoa.avatar)}>
-                            <img src={`data:${pessoa.avatarContentType};base64,${pessoa.avatar}`} style={{ maxHeight: '30px' }} />
-                            &nbsp;
-                          </a>
-                        ) : null}
-                        <span>
-                          {pessoa.avatarContentType}, {byteSize(pessoa.avatar)}
-                        </span>
+                        <PessoaAvatar url={`${pessoa.avatarUrl}?size=48`} />
+                        &nbsp;
+                        <span>{pessoa.avatarContentType}</span>
                       </div>
                     ) : null}
                   </td>
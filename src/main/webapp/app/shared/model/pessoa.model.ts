@@ -7,6 +7,7 @@ export interface IPessoa {
   email?: string;
   avatarContentType?: string | null;
   avatar?: string | null;
+  avatarUrl?: string | null;
   birthDate?: string | null;
   excluded?: boolean | null;
 }
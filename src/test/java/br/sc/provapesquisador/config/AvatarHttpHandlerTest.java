@@ -0,0 +1,191 @@
+package br.sc.provapesquisador.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import br.sc.provapesquisador.domain.Pessoa;
+import br.sc.provapesquisador.domain.PessoaAvatar;
+import br.sc.provapesquisador.repository.PessoaAvatarRepository;
+import br.sc.provapesquisador.security.jwt.TokenProvider;
+import br.sc.provapesquisador.service.PessoaAvatarFileStore;
+import io.undertow.Handlers;
+import io.undertow.Undertow;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+/**
+ * Tests for the {@link AvatarHttpHandler}, on a real Undertow server.
+ */
+class AvatarHttpHandlerTest {
+
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+    private static final String TOKEN = "valid-token";
+
+    @TempDir
+    Path directory;
+
+    private Undertow server;
+
+    private String hash;
+
+    private String origin;
+
+    private String baseUrl;
+
+    private PessoaAvatarFileStore store;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    public void setup() throws Exception {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getPessoa().getAvatarStore().setDirectory(directory.toString());
+        store = new PessoaAvatarFileStore(applicationProperties, mock(PessoaAvatarRepository.class));
+        hash = hex(MessageDigest.getInstance("SHA-256").digest(CONTENT));
+        store.write(PessoaAvatar.fileName(hash, "image/png"), CONTENT);
+
+        TokenProvider tokenProvider = mock(TokenProvider.class);
+        when(tokenProvider.getValidAuthentication(anyString())).thenReturn(Optional.empty());
+        when(tokenProvider.getValidAuthentication(TOKEN)).thenReturn(Optional.of(new UsernamePasswordAuthenticationToken("user", TOKEN)));
+        AvatarHttpHandler handler = new AvatarHttpHandler(directory, () -> store, () -> tokenProvider, 3600);
+        server =
+            Undertow
+                .builder()
+                .addHttpListener(0, "localhost")
+                .setHandler(Handlers.path().addPrefixPath(AvatarHttpHandler.PATH, handler))
+                .build();
+        server.start();
+        int port = ((InetSocketAddress) server.getListenerInfo().get(0).getAddress()).getPort();
+        origin = "http://localhost:" + port;
+        baseUrl = origin + AvatarHttpHandler.PATH + "/";
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void shouldServeAvatar() throws Exception {
+        HttpResponse<byte[]> response = send(HttpRequest.newBuilder(URI.create(baseUrl + hash + ".png")));
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo(CONTENT);
+        assertThat(response.headers().firstValue("Content-Type")).contains("image/png");
+        assertThat(response.headers().firstValue("ETag")).contains("\"" + hash + "\"");
+        assertThat(response.headers().firstValue("Cache-Control")).contains("private, max-age=3600");
+        assertThat(response.headers().firstValue("X-Content-Type-Options")).contains("nosniff");
+    }
+
+    @Test
+    void shouldRequireAValidToken() throws Exception {
+        HttpRequest anonymous = HttpRequest.newBuilder(URI.create(baseUrl + hash + ".png")).build();
+        HttpRequest forged = HttpRequest.newBuilder(URI.create(baseUrl + hash + ".png")).header("Authorization", "Bearer forged").build();
+
+        assertThat(client.send(anonymous, HttpResponse.BodyHandlers.discarding()).statusCode()).isEqualTo(401);
+        assertThat(client.send(forged, HttpResponse.BodyHandlers.discarding()).statusCode()).isEqualTo(401);
+    }
+
+    @Test
+    void shouldServeTheGridAvatarUrlWithTheToken() throws Exception {
+        // the Pessoa grid loads the avatars through axios, which sends the JWT, a plain img src could not
+        String gridUrl = origin + new Pessoa().avatarContentType("image/png").avatarHash(hash).getAvatarUrl() + "?size=48";
+
+        HttpResponse<byte[]> response = send(HttpRequest.newBuilder(URI.create(gridUrl)));
+        HttpResponse<Void> withoutToken = client.send(
+            HttpRequest.newBuilder(URI.create(gridUrl)).build(),
+            HttpResponse.BodyHandlers.discarding()
+        );
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo(CONTENT);
+        assertThat(withoutToken.statusCode()).isEqualTo(401);
+    }
+
+    @Test
+    void shouldServeRange() throws Exception {
+        HttpResponse<byte[]> response = send(HttpRequest.newBuilder(URI.create(baseUrl + hash + ".png")).header("Range", "bytes=2-4"));
+
+        assertThat(response.statusCode()).isEqualTo(206);
+        assertThat(new String(response.body(), StandardCharsets.US_ASCII)).isEqualTo("234");
+        assertThat(response.headers().firstValue("Content-Range")).contains("bytes 2-4/10");
+    }
+
+    @Test
+    void shouldAnswerConditionalRequests() throws Exception {
+        HttpResponse<byte[]> byETag = send(
+            HttpRequest.newBuilder(URI.create(baseUrl + hash + ".png")).header("If-None-Match", "\"" + hash + "\"")
+        );
+        assertThat(byETag.statusCode()).isEqualTo(304);
+
+        String later = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusDays(1));
+        HttpResponse<byte[]> byDate = send(HttpRequest.newBuilder(URI.create(baseUrl + hash + ".png")).header("If-Modified-Since", later));
+        assertThat(byDate.statusCode()).isEqualTo(304);
+    }
+
+    @Test
+    void shouldServeThumbnail() throws Exception {
+        BufferedImage image = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        String imageHash = hex(MessageDigest.getInstance("SHA-256").digest(png.toByteArray()));
+        store.write(imageHash + ".png", png.toByteArray());
+        store.writeThumbnails(imageHash + ".png", png.toByteArray());
+
+        HttpResponse<byte[]> response = send(HttpRequest.newBuilder(URI.create(baseUrl + imageHash + ".png?size=40")));
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(ImageIO.read(new ByteArrayInputStream(response.body()))).extracting("width", "height").containsExactly(48, 24);
+        assertThat(response.headers().firstValue("ETag")).contains("\"" + imageHash + "-48\"");
+    }
+
+    @Test
+    void shouldServeOriginalWithoutThumbnail() throws Exception {
+        HttpResponse<byte[]> response = send(HttpRequest.newBuilder(URI.create(baseUrl + hash + ".png?size=48")));
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo(CONTENT);
+
+        assertThat(send(HttpRequest.newBuilder(URI.create(baseUrl + hash + ".png?size=large"))).statusCode()).isEqualTo(400);
+    }
+
+    @Test
+    void shouldNotServeOtherFiles() throws Exception {
+        assertThat(send(HttpRequest.newBuilder(URI.create(baseUrl + "f".repeat(64) + ".png"))).statusCode()).isEqualTo(404);
+        assertThat(send(HttpRequest.newBuilder(URI.create(baseUrl + hash.substring(0, 2) + "/"))).statusCode()).isEqualTo(404);
+        assertThat(send(HttpRequest.newBuilder(URI.create(baseUrl + "..%2F" + hash + ".png"))).statusCode()).isEqualTo(404);
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.header("Authorization", "Bearer " + TOKEN).build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,82 @@
+package br.sc.provapesquisador.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.ResourcePools;
+import org.ehcache.config.ResourceType;
+import org.ehcache.config.SizedResourcePool;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.expiry.ExpiryPolicy;
+import org.hibernate.cache.spi.RegionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import tech.jhipster.config.JHipsterProperties;
+
+class CacheConfigurationTest {
+
+    private ApplicationProperties applicationProperties;
+
+    private br.sc.provapesquisador.config.CacheConfiguration cacheConfiguration;
+
+    @BeforeEach
+    public void setup() {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getCache().getEhcache().setMaxEntries(100);
+        jHipsterProperties.getCache().getEhcache().setTimeToLiveSeconds(3600);
+        applicationProperties = new ApplicationProperties();
+        cacheConfiguration = new br.sc.provapesquisador.config.CacheConfiguration(jHipsterProperties, applicationProperties);
+    }
+
+    @Test
+    void testRegionDefaultsToJHipsterProperties() {
+        CacheConfiguration<Object, Object> configuration = cacheConfiguration.regionConfiguration("usersByLogin");
+
+        ResourcePools pools = configuration.getResourcePools();
+        assertThat(pools.getResourceTypeSet()).containsExactly(ResourceType.Core.HEAP);
+        assertThat(pools.getPoolForResource(ResourceType.Core.HEAP).getSize()).isEqualTo(100);
+        assertThat(pools.getPoolForResource(ResourceType.Core.HEAP).getUnit()).isEqualTo(EntryUnit.ENTRIES);
+        assertThat(timeToLive(configuration)).isEqualTo(Duration.ofHours(1));
+    }
+
+    @Test
+    void testRegionWithTiers() {
+        ApplicationProperties.Cache.Region region = new ApplicationProperties.Cache.Region();
+        region.setHeapSize(DataSize.ofMegabytes(8));
+        region.setOffHeapSize(DataSize.ofMegabytes(64));
+        region.setDiskSize(DataSize.ofMegabytes(256));
+        region.setTimeToLive(Duration.ofMinutes(10));
+        applicationProperties.getCache().getRegions().put("pessoaQueries", region);
+
+        CacheConfiguration<Object, Object> configuration = cacheConfiguration.regionConfiguration("pessoaQueries");
+
+        ResourcePools pools = configuration.getResourcePools();
+        assertThat(pools.getPoolForResource(ResourceType.Core.HEAP).getSize()).isEqualTo(8 * 1024 * 1024);
+        assertThat(pools.getPoolForResource(ResourceType.Core.HEAP).getUnit()).isEqualTo(MemoryUnit.B);
+        assertThat(pools.getPoolForResource(ResourceType.Core.OFFHEAP).getSize()).isEqualTo(64 * 1024 * 1024);
+        SizedResourcePool disk = pools.getPoolForResource(ResourceType.Core.DISK);
+        assertThat(disk.getSize()).isEqualTo(256 * 1024 * 1024);
+        assertThat(disk.isPersistent()).isTrue();
+        assertThat(timeToLive(configuration)).isEqualTo(Duration.ofMinutes(10));
+    }
+
+    @Test
+    void testUpdateTimestampsNeverExpire() {
+        ApplicationProperties.Cache.Region region = new ApplicationProperties.Cache.Region();
+        region.setTimeToLive(Duration.ofMinutes(10));
+        applicationProperties.getCache().getRegions().put(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, region);
+
+        CacheConfiguration<Object, Object> configuration = cacheConfiguration.regionConfiguration(
+            RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME
+        );
+
+        assertThat(timeToLive(configuration)).isEqualTo(ExpiryPolicy.INFINITE);
+    }
+
+    private static Duration timeToLive(CacheConfiguration<Object, Object> configuration) {
+        return configuration.getExpiryPolicy().getExpiryForCreation("key", "value");
+    }
+}
@@ -0,0 +1,124 @@
+package br.sc.provapesquisador.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+class CoalescingNearCacheTest {
+
+    private ConcurrentMapCache delegate;
+
+    private CoalescingNearCache cache;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setup() {
+        delegate = new ConcurrentMapCache("usersByLogin");
+        cache = new CoalescingNearCache(delegate, 2, Duration.ofMinutes(1));
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    public void teardown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testCoalescesConcurrentLoads() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        List<CompletableFuture<String>> gets = new ArrayList<>();
+        gets.add(
+            CompletableFuture.supplyAsync(
+                () ->
+                    cache.get(
+                        "admin",
+                        () -> {
+                            calls.incrementAndGet();
+                            loading.countDown();
+                            release.await();
+                            return "loaded";
+                        }
+                    ),
+                executor
+            )
+        );
+        loading.await(5, TimeUnit.SECONDS);
+        for (int i = 0; i < 7; i++) {
+            gets.add(CompletableFuture.supplyAsync(() -> cache.get("admin", () -> "loaded again"), executor));
+        }
+        while (cache.getCoalescedLoads() < 7) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        for (CompletableFuture<String> get : gets) {
+            assertThat(get.get(5, TimeUnit.SECONDS)).isEqualTo("loaded");
+        }
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(cache.getLoads()).isEqualTo(1);
+        assertThat(cache.getCoalescedLoads()).isEqualTo(7);
+        assertThat(delegate.get("admin").get()).isEqualTo("loaded");
+    }
+
+    @Test
+    void testReadsTheHottestKeysFromTheNearCache() {
+        cache.put("admin", "cached");
+        delegate.evict("admin");
+
+        assertThat(cache.get("admin").get()).isEqualTo("cached");
+        assertThat(cache.getNearHits()).isEqualTo(1);
+    }
+
+    @Test
+    void testNearCacheIsBounded() {
+        cache.put("admin", "admin");
+        cache.put("user", "user");
+        cache.put("anonymous", "anonymous");
+        delegate.clear();
+
+        long cached = List.of("admin", "user", "anonymous").stream().filter(key -> cache.get(key) != null).count();
+        assertThat(cached).isEqualTo(2);
+    }
+
+    @Test
+    void testEvictsBothTiers() {
+        cache.put("admin", "cached");
+
+        cache.evict("admin");
+
+        assertThat(cache.get("admin")).isNull();
+        assertThat(delegate.get("admin")).isNull();
+    }
+
+    @Test
+    void testCachesNothingWhenTheLoadFails() {
+        assertThatThrownBy(() ->
+                cache.get(
+                    "admin",
+                    () -> {
+                        throw new IllegalStateException("database down");
+                    }
+                )
+            )
+            .isInstanceOf(Cache.ValueRetrievalException.class);
+
+        assertThat(cache.get("admin", () -> "loaded")).isEqualTo("loaded");
+    }
+}
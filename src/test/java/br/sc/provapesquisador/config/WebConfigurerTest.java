@@ -15,6 +15,7 @@ import java.util.*;
 import javax.servlet.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.web.embedded.undertow.UndertowServletWebServerFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.mock.env.MockEnvironment;
@@ -46,7 +47,10 @@ class WebConfigurerTest {
         env = new MockEnvironment();
         props = new JHipsterProperties();
 
-        webConfigurer = new WebConfigurer(env, props);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getPessoa().getAvatarStore().setDirectory("target/avatars");
+
+        webConfigurer = new WebConfigurer(env, props, applicationProperties, mock(ObjectProvider.class), mock(ObjectProvider.class));
     }
 
     @Test
@@ -74,6 +78,7 @@ class WebConfigurerTest {
         if (container.getDocumentRoot() != null) {
             assertThat(container.getDocumentRoot()).isEqualTo(new File("target/classes/static/"));
         }
+        assertThat(container.getDeploymentInfoCustomizers()).hasSize(1);
     }
 
     @Test
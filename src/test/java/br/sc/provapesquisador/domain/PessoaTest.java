@@ -20,4 +20,11 @@ class PessoaTest {
         pessoa1.setId(null);
         assertThat(pessoa1).isNotEqualTo(pessoa2);
     }
+
+    @Test
+    void normalizeSearchTermIgnoresCaseAndAccents() {
+        assertThat(Pessoa.normalizeSearchTerm("João Conceição")).isEqualTo("joao conceicao");
+        assertThat(Pessoa.normalizeSearchTerm("ÂNGELA")).isEqualTo("angela");
+        assertThat(Pessoa.normalizeSearchTerm(null)).isNull();
+    }
 }
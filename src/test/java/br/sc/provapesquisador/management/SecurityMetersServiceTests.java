@@ -36,9 +36,11 @@ class SecurityMetersServiceTests {
 
         meterRegistry.get(INVALID_TOKENS_METER_EXPECTED_NAME).tag("cause", "malformed").counter();
 
+        meterRegistry.get(INVALID_TOKENS_METER_EXPECTED_NAME).tag("cause", "revoked").counter();
+
         Collection<Counter> counters = meterRegistry.find(INVALID_TOKENS_METER_EXPECTED_NAME).counters();
 
-        assertThat(counters).hasSize(4);
+        assertThat(counters).hasSize(5);
     }
 
     @Test
@@ -66,5 +68,36 @@ class SecurityMetersServiceTests {
         securityMetersService.trackTokenMalformed();
 
         assertThat(meterRegistry.get(INVALID_TOKENS_METER_EXPECTED_NAME).tag("cause", "malformed").counter().count()).isEqualTo(1);
+
+        assertThat(meterRegistry.get(INVALID_TOKENS_METER_EXPECTED_NAME).tag("cause", "revoked").counter().count()).isZero();
+
+        securityMetersService.trackTokenRevoked();
+
+        assertThat(meterRegistry.get(INVALID_TOKENS_METER_EXPECTED_NAME).tag("cause", "revoked").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testTokenCacheCountersAreBoundToResults() {
+        securityMetersService.trackTokenCacheHit();
+        securityMetersService.trackTokenCacheHit();
+        securityMetersService.trackTokenCacheMiss();
+
+        assertThat(meterRegistry.get("security.authentication.token-cache").tag("result", "hit").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("security.authentication.token-cache").tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testRateLimitCountersAreBoundToEndpointsAndKeys() {
+        assertThat(meterRegistry.find("security.rate-limit.rejections").counters()).hasSize(4);
+
+        securityMetersService.trackRateLimited("authenticate", "login");
+        securityMetersService.trackRateLimited("password-reset", "ip");
+
+        assertThat(meterRegistry.get("security.rate-limit.rejections").tags("endpoint", "authenticate", "key", "login").counter().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.get("security.rate-limit.rejections").tags("endpoint", "authenticate", "key", "ip").counter().count())
+            .isZero();
+        assertThat(meterRegistry.get("security.rate-limit.rejections").tags("endpoint", "password-reset", "key", "ip").counter().count())
+            .isEqualTo(1);
     }
 }
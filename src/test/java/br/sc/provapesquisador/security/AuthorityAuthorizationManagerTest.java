@@ -0,0 +1,67 @@
+package br.sc.provapesquisador.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * Test class for the {@link AuthorityAuthorizationManager} and the {@link AuthorityChecks}.
+ */
+class AuthorityAuthorizationManagerTest {
+
+    private final AuthorityAuthorizationManager<Object> manager = AuthorityAuthorizationManager.hasAuthority(AuthoritiesConstants.ADMIN);
+
+    private final AuthorityChecks authorityChecks = new AuthorityChecks();
+
+    @Test
+    void testGrantsTheJwtPrincipalsWithTheAuthority() {
+        assertGranted(jwt(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER), true);
+        assertGranted(jwt(AuthoritiesConstants.USER), false);
+    }
+
+    @Test
+    void testGrantsTheOtherAuthenticationsWithTheAuthority() {
+        assertGranted(
+            new UsernamePasswordAuthenticationToken("admin", "admin", List.of(Authorities.of(AuthoritiesConstants.ADMIN))),
+            true
+        );
+        assertGranted(new UsernamePasswordAuthenticationToken("user", "user", List.of(Authorities.of(AuthoritiesConstants.USER))), false);
+    }
+
+    @Test
+    void testDeniesTheAnonymousAndTheUnauthenticated() {
+        assertGranted(
+            new AnonymousAuthenticationToken("key", "anonymous", List.of(Authorities.of(AuthoritiesConstants.ANONYMOUS))),
+            false
+        );
+        assertGranted(new UsernamePasswordAuthenticationToken("admin", "admin"), false);
+        assertGranted(null, false);
+    }
+
+    @Test
+    void testChecksTheAuthoritiesWithoutABit() {
+        AuthorityAuthorizationManager<Object> other = AuthorityAuthorizationManager.hasAuthority("ROLE_OTHER");
+
+        assertThat(other.check(() -> jwt("ROLE_OTHER"), null).isGranted()).isTrue();
+        assertThat(other.check(() -> jwt(AuthoritiesConstants.ADMIN), null).isGranted()).isFalse();
+    }
+
+    private void assertGranted(Authentication authentication, boolean granted) {
+        assertThat(manager.check(() -> authentication, null).isGranted()).isEqualTo(granted);
+        assertThat(authorityChecks.hasAuthority(authentication, AuthoritiesConstants.ADMIN)).isEqualTo(granted);
+    }
+
+    private static Authentication jwt(String... authorities) {
+        List<GrantedAuthority> granted = new ArrayList<>();
+        for (String authority : authorities) {
+            granted.add(Authorities.of(authority));
+        }
+        return new UsernamePasswordAuthenticationToken(new AuthenticatedUser("user", granted), "token", granted);
+    }
+}
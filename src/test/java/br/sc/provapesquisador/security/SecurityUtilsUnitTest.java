@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -98,4 +99,29 @@ class SecurityUtilsUnitTest {
         assertThat(SecurityUtils.hasCurrentUserNoneOfAuthorities(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN)).isFalse();
         assertThat(SecurityUtils.hasCurrentUserNoneOfAuthorities(AuthoritiesConstants.ANONYMOUS, AuthoritiesConstants.ADMIN)).isTrue();
     }
+
+    @Test
+    void testChecksTheAuthorityMaskOfAuthenticatedUsers() {
+        SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+        List<GrantedAuthority> authorities = List.of(Authorities.of(AuthoritiesConstants.ADMIN), Authorities.of("ROLE_AUDITOR"));
+        AuthenticatedUser user = new AuthenticatedUser("admin", authorities);
+        securityContext.setAuthentication(new UsernamePasswordAuthenticationToken(user, "token", authorities));
+        SecurityContextHolder.setContext(securityContext);
+
+        assertThat(user.getAuthorityMask()).isEqualTo(Authorities.bit(AuthoritiesConstants.ADMIN));
+        assertThat(SecurityUtils.isAuthenticated()).isTrue();
+        assertThat(SecurityUtils.hasCurrentUserThisAuthority(AuthoritiesConstants.ADMIN)).isTrue();
+        assertThat(SecurityUtils.hasCurrentUserThisAuthority(AuthoritiesConstants.USER)).isFalse();
+        assertThat(SecurityUtils.hasCurrentUserThisAuthority("ROLE_AUDITOR")).isTrue();
+        assertThat(SecurityUtils.hasCurrentUserAnyOfAuthorities(AuthoritiesConstants.USER, "ROLE_AUDITOR")).isTrue();
+        assertThat(SecurityUtils.hasCurrentUserAnyOfAuthorities(AuthoritiesConstants.USER, AuthoritiesConstants.ANONYMOUS)).isFalse();
+    }
+
+    @Test
+    void testInternsTheAuthoritiesOfTheConstants() {
+        assertThat(Authorities.of(AuthoritiesConstants.USER)).isSameAs(Authorities.of(AuthoritiesConstants.USER));
+        assertThat(Authorities.of("ROLE_AUDITOR").getAuthority()).isEqualTo("ROLE_AUDITOR");
+        assertThat(Authorities.bit("ROLE_AUDITOR")).isZero();
+        assertThat(Authorities.bit(AuthoritiesConstants.ADMIN) & Authorities.bit(AuthoritiesConstants.USER)).isZero();
+    }
 }
@@ -0,0 +1,204 @@
+package br.sc.provapesquisador.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import br.sc.provapesquisador.config.ApplicationProperties;
+import br.sc.provapesquisador.domain.JwtSigningKey;
+import br.sc.provapesquisador.management.SecurityMetersService;
+import br.sc.provapesquisador.repository.JwtSigningKeyRepository;
+import br.sc.provapesquisador.security.AuthoritiesConstants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.security.KeyFactory;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.transaction.PlatformTransactionManager;
+import tech.jhipster.config.JHipsterProperties;
+
+class JwtSigningKeyStoreTest {
+
+    private static final String KEY_ENCRYPTION_KEY = "a2V5LWVuY3J5cHRpb24ta2V5LW9mLXRoZS10ZXN0cy0=";
+
+    private final List<JwtSigningKey> stored = new ArrayList<>();
+
+    private JwtSigningKeyRepository jwtSigningKeyRepository;
+
+    private ApplicationProperties applicationProperties;
+
+    private JHipsterProperties jHipsterProperties;
+
+    @BeforeEach
+    public void setup() {
+        jwtSigningKeyRepository = mock(JwtSigningKeyRepository.class);
+        when(jwtSigningKeyRepository.findAllByOrderByCreatedDateDesc())
+            .thenAnswer(invocation ->
+                stored.stream().sorted(Comparator.comparing(JwtSigningKey::getCreatedDate).reversed()).collect(Collectors.toList())
+            );
+        when(jwtSigningKeyRepository.save(any(JwtSigningKey.class)))
+            .thenAnswer(invocation -> {
+                stored.add(invocation.getArgument(0));
+                return invocation.getArgument(0);
+            });
+        doAnswer(invocation -> {
+                invocation.<Iterable<JwtSigningKey>>getArgument(0).forEach(stored::remove);
+                return null;
+            })
+            .when(jwtSigningKeyRepository)
+            .deleteAll(anyIterable());
+
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getSecurity().getJwt().setAlgorithm("RS256");
+        applicationProperties.getSecurity().getJwt().setKeyEncryptionKey(KEY_ENCRYPTION_KEY);
+        jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setTokenValidityInSeconds(3600);
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setTokenValidityInSecondsForRememberMe(86400);
+    }
+
+    @Test
+    void testSignsAndVerifiesWithRS256() {
+        TokenProvider tokenProvider = tokenProvider(store());
+
+        String token = tokenProvider.createToken(authentication(), false);
+
+        assertThat(tokenProvider.getValidAuthentication(token)).isPresent();
+        assertThat(stored).hasSize(1);
+        assertThat(stored.get(0).getAlgorithm()).isEqualTo("RS256");
+    }
+
+    @Test
+    void testSignsAndVerifiesWithES256() {
+        applicationProperties.getSecurity().getJwt().setAlgorithm("ES256");
+        TokenProvider tokenProvider = tokenProvider(store());
+
+        String token = tokenProvider.createToken(authentication(), false);
+
+        assertThat(tokenProvider.getValidAuthentication(token)).isPresent();
+        assertThat(stored.get(0).getAlgorithm()).isEqualTo("ES256");
+    }
+
+    @Test
+    void testRotatedKeysStillVerifyTheirTokens() {
+        JwtSigningKeyStore store = store();
+        TokenProvider tokenProvider = tokenProvider(store);
+        String token = tokenProvider.createToken(authentication(), false);
+        String previousKid = store.getSigningKey().getKid();
+        stored.get(0).setCreatedDate(Instant.now().minus(Duration.ofDays(8)));
+
+        store.refresh();
+
+        assertThat(stored).hasSize(2);
+        // the new key is only published for now
+        assertThat(store.getSigningKey().getKid()).isEqualTo(previousKid);
+        assertThat(tokenProvider.getValidAuthentication(token)).isPresent();
+
+        applicationProperties.getSecurity().getJwt().setPublicationDelay(Duration.ZERO);
+        assertThat(store.getSigningKey().getKid()).isNotEqualTo(previousKid);
+        assertThat(tokenProvider.getValidAuthentication(tokenProvider.createToken(authentication(), false))).isPresent();
+        assertThat(tokenProvider.getValidAuthentication(token)).isPresent();
+    }
+
+    @Test
+    void testDeletesTheKeysOfExpiredTokens() {
+        JwtSigningKeyStore store = store();
+        store.refresh();
+        stored.get(0).setCreatedDate(Instant.now().minus(Duration.ofDays(30)));
+        store.refresh();
+        stored.forEach(key -> key.setCreatedDate(key.getCreatedDate().minus(Duration.ofDays(2))));
+
+        store.refresh();
+
+        assertThat(stored).hasSize(1);
+    }
+
+    @Test
+    void testRejectsTokensOfUnknownKeys() {
+        TokenProvider tokenProvider = tokenProvider(store());
+        String token = tokenProvider.createToken(authentication(), false);
+        stored.clear();
+
+        assertThat(tokenProvider(store()).getValidAuthentication(token)).isEmpty();
+    }
+
+    @Test
+    void testStoresThePrivateKeysEncrypted() {
+        store().refresh();
+
+        byte[] privateKey = Base64.getDecoder().decode(stored.get(0).getPrivateKey());
+        assertThatThrownBy(() -> KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(privateKey)))
+            .isInstanceOf(InvalidKeySpecException.class);
+    }
+
+    @Test
+    void testRejectsThePrivateKeysOfAnotherKeyEncryptionKeyOrKid() {
+        store().refresh();
+        applicationProperties.getSecurity().getJwt().setKeyEncryptionKey("b3RoZXIta2V5LWVuY3J5cHRpb24ta2V5LW9mLXRlc3Q=");
+
+        assertThatThrownBy(() -> store().refresh()).isInstanceOf(IllegalStateException.class);
+
+        applicationProperties.getSecurity().getJwt().setKeyEncryptionKey(KEY_ENCRYPTION_KEY);
+        stored.get(0).setId("another-kid");
+        assertThatThrownBy(() -> store().refresh()).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testRequiresAKeyEncryptionKey() {
+        applicationProperties.getSecurity().getJwt().setKeyEncryptionKey(null);
+
+        assertThatThrownBy(this::store).isInstanceOf(IllegalArgumentException.class);
+
+        applicationProperties.getSecurity().getJwt().setAlgorithm("HS512");
+        assertThat(store().isAsymmetric()).isFalse();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPublishesTheJwks() {
+        JwtSigningKeyStore store = store();
+        store.refresh();
+        applicationProperties.getSecurity().getJwt().setAlgorithm("ES256");
+        JwtSigningKeyStore ecStore = store();
+        ecStore.refresh();
+
+        List<Map<String, Object>> keys = (List<Map<String, Object>>) ecStore.getJwks().get("keys");
+
+        assertThat(keys).hasSize(2);
+        assertThat(keys).extracting(key -> key.get("kty")).containsExactly("EC", "RSA");
+        assertThat(keys.get(0)).containsKeys("kid", "crv", "x", "y").containsEntry("alg", "ES256");
+        assertThat(keys.get(1)).containsKeys("kid", "n", "e").containsEntry("e", "AQAB").containsEntry("alg", "RS256");
+    }
+
+    private JwtSigningKeyStore store() {
+        return new JwtSigningKeyStore(
+            applicationProperties,
+            jHipsterProperties,
+            jwtSigningKeyRepository,
+            mock(PlatformTransactionManager.class)
+        );
+    }
+
+    private TokenProvider tokenProvider(JwtSigningKeyStore store) {
+        SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
+        return new TokenProvider(jHipsterProperties, applicationProperties, securityMetersService, store, mock(TokenRevocationList.class));
+    }
+
+    private UsernamePasswordAuthenticationToken authentication() {
+        return new UsernamePasswordAuthenticationToken("user", "user", List.of(new SimpleGrantedAuthority(AuthoritiesConstants.USER)));
+    }
+}
@@ -1,7 +1,9 @@
 package br.sc.provapesquisador.security.jwt;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 
+import br.sc.provapesquisador.config.ApplicationProperties;
 import br.sc.provapesquisador.management.SecurityMetersService;
 import br.sc.provapesquisador.security.AuthoritiesConstants;
 import io.jsonwebtoken.Jwts;
@@ -15,6 +17,7 @@ import java.security.Key;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -28,6 +31,9 @@ class TokenProviderSecurityMetersTests {
 
     private static final long ONE_MINUTE = 60000;
     private static final String INVALID_TOKENS_METER_EXPECTED_NAME = "security.authentication.invalid-tokens";
+    private static final String TOKEN_CACHE_METER_EXPECTED_NAME = "security.authentication.token-cache";
+
+    private JHipsterProperties jHipsterProperties;
 
     private MeterRegistry meterRegistry;
 
@@ -35,19 +41,29 @@ class TokenProviderSecurityMetersTests {
 
     @BeforeEach
     public void setup() {
-        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties = new JHipsterProperties();
         String base64Secret = "fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8";
         jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(base64Secret);
 
         meterRegistry = new SimpleMeterRegistry();
 
-        SecurityMetersService securityMetersService = new SecurityMetersService(meterRegistry);
+        tokenProvider = tokenProvider(new ApplicationProperties());
+    }
 
-        tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+    private TokenProvider tokenProvider(ApplicationProperties applicationProperties) {
+        TokenProvider provider = new TokenProvider(
+            jHipsterProperties,
+            applicationProperties,
+            new SecurityMetersService(meterRegistry),
+            mock(JwtSigningKeyStore.class),
+            mock(TokenRevocationList.class)
+        );
+        String base64Secret = jHipsterProperties.getSecurity().getAuthentication().getJwt().getBase64Secret();
         Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
 
-        ReflectionTestUtils.setField(tokenProvider, "key", key);
-        ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", ONE_MINUTE);
+        ReflectionTestUtils.setField(provider, "key", key);
+        ReflectionTestUtils.setField(provider, "tokenValidityInMilliseconds", ONE_MINUTE);
+        return provider;
     }
 
     @Test
@@ -107,6 +123,36 @@ class TokenProviderSecurityMetersTests {
         assertThat(meterRegistry.get(INVALID_TOKENS_METER_EXPECTED_NAME).tag("cause", "malformed").counter().count()).isEqualTo(1);
     }
 
+    @Test
+    void testTokenCacheHitAndMissCount() {
+        String validToken = createValidToken();
+
+        tokenProvider.validateToken(validToken);
+        tokenProvider.getValidAuthentication(validToken);
+        tokenProvider.getValidAuthentication(validToken);
+
+        assertThat(meterRegistry.get(TOKEN_CACHE_METER_EXPECTED_NAME).tag("result", "miss").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(TOKEN_CACHE_METER_EXPECTED_NAME).tag("result", "hit").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void testTokenCacheKeepsAtMostItsMaxEntries() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSecurity().getTokenCache().setMaxEntries(2);
+        tokenProvider = tokenProvider(applicationProperties);
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            tokens.add(createValidToken());
+        }
+
+        tokens.forEach(tokenProvider::validateToken);
+        tokens.forEach(tokenProvider::validateToken);
+
+        assertThat(meterRegistry.get(TOKEN_CACHE_METER_EXPECTED_NAME).tag("result", "miss").counter().count()).isGreaterThanOrEqualTo(18);
+        assertThat(meterRegistry.get(TOKEN_CACHE_METER_EXPECTED_NAME).tag("result", "hit").counter().count()).isLessThanOrEqualTo(2);
+        assertThat(tokens).allMatch(tokenProvider::validateToken);
+    }
+
     private String createValidToken() {
         Authentication authentication = createAuthentication();
 
@@ -1,8 +1,12 @@
 package br.sc.provapesquisador.security.jwt;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 
+import br.sc.provapesquisador.config.ApplicationProperties;
 import br.sc.provapesquisador.management.SecurityMetersService;
+import br.sc.provapesquisador.security.AuthenticatedUser;
+import br.sc.provapesquisador.security.Authorities;
 import br.sc.provapesquisador.security.AuthoritiesConstants;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
@@ -36,7 +40,14 @@ class TokenProviderTest {
 
         SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
 
-        tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        tokenProvider =
+            new TokenProvider(
+                jHipsterProperties,
+                new ApplicationProperties(),
+                securityMetersService,
+                mock(JwtSigningKeyStore.class),
+                mock(TokenRevocationList.class)
+            );
         key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
 
         ReflectionTestUtils.setField(tokenProvider, "key", key);
@@ -88,6 +99,48 @@ class TokenProviderTest {
         assertThat(isTokenValid).isFalse();
     }
 
+    @Test
+    void testReturnFalseWhenVerifiedJWTExpires() throws InterruptedException {
+        // the expiration is rounded down to the second
+        ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", 2000);
+
+        Authentication authentication = createAuthentication();
+        String token = tokenProvider.createToken(authentication, false);
+
+        assertThat(tokenProvider.validateToken(token)).isTrue();
+        Thread.sleep(2100);
+        assertThat(tokenProvider.validateToken(token)).isFalse();
+    }
+
+    @Test
+    void testReturnAuthenticationOfVerifiedJWT() {
+        Authentication authentication = createAuthentication();
+        String token = tokenProvider.createToken(authentication, false);
+
+        assertThat(tokenProvider.getValidAuthentication(token)).isPresent();
+        Optional<Authentication> verified = tokenProvider.getValidAuthentication(token);
+
+        assertThat(verified).isPresent();
+        assertThat(verified.get().getName()).isEqualTo("anonymous");
+        assertThat(verified.get().getCredentials()).isEqualTo(token);
+        assertThat(verified.get().getAuthorities())
+            .extracting(GrantedAuthority::getAuthority)
+            .containsExactly(AuthoritiesConstants.ANONYMOUS);
+    }
+
+    @Test
+    void testReturnInternedAuthoritiesOfJWTs() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        String other = tokenProvider.createToken(createAuthentication(), true);
+
+        Authentication verified = tokenProvider.getAuthentication(token);
+
+        AuthenticatedUser principal = (AuthenticatedUser) verified.getPrincipal();
+        assertThat(principal.hasAnyAuthority(Authorities.bit(AuthoritiesConstants.ANONYMOUS))).isTrue();
+        assertThat(verified.getAuthorities()).first().isSameAs(Authorities.of(AuthoritiesConstants.ANONYMOUS));
+        assertThat(tokenProvider.getAuthentication(other).getAuthorities()).first().isSameAs(Authorities.of(AuthoritiesConstants.ANONYMOUS));
+    }
+
     @Test
     void testKeyIsSetFromSecretWhenSecretIsNotEmpty() {
         final String secret = "NwskoUmKHZtzGRKJKVjsJF7BtQMMxNWi";
@@ -96,7 +149,13 @@ class TokenProviderTest {
 
         SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
 
-        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        TokenProvider tokenProvider = new TokenProvider(
+            jHipsterProperties,
+            new ApplicationProperties(),
+            securityMetersService,
+            mock(JwtSigningKeyStore.class),
+            mock(TokenRevocationList.class)
+        );
 
         Key key = (Key) ReflectionTestUtils.getField(tokenProvider, "key");
         assertThat(key).isNotNull().isEqualTo(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)));
@@ -110,7 +169,13 @@ class TokenProviderTest {
 
         SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
 
-        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        TokenProvider tokenProvider = new TokenProvider(
+            jHipsterProperties,
+            new ApplicationProperties(),
+            securityMetersService,
+            mock(JwtSigningKeyStore.class),
+            mock(TokenRevocationList.class)
+        );
 
         Key key = (Key) ReflectionTestUtils.getField(tokenProvider, "key");
         assertThat(key).isNotNull().isEqualTo(Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret)));
@@ -0,0 +1,140 @@
+package br.sc.provapesquisador.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import br.sc.provapesquisador.config.ApplicationProperties;
+import br.sc.provapesquisador.domain.TokenRevocation;
+import br.sc.provapesquisador.management.SecurityMetersService;
+import br.sc.provapesquisador.repository.TokenRevocationRepository;
+import br.sc.provapesquisador.security.AuthoritiesConstants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.transaction.PlatformTransactionManager;
+import tech.jhipster.config.JHipsterProperties;
+
+class TokenRevocationListTest {
+
+    private final List<TokenRevocation> stored = new CopyOnWriteArrayList<>();
+
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    private JHipsterProperties jHipsterProperties;
+
+    @BeforeEach
+    public void setup() {
+        tokenRevocationRepository = mock(TokenRevocationRepository.class);
+        when(tokenRevocationRepository.findAllByRevokedDateAfterAndExpirationDateAfter(any(Instant.class), any(Instant.class)))
+            .thenAnswer(invocation ->
+                stored
+                    .stream()
+                    .filter(revocation -> revocation.getRevokedDate().isAfter(invocation.getArgument(0)))
+                    .filter(revocation -> revocation.getExpirationDate().isAfter(invocation.getArgument(1)))
+                    .collect(Collectors.toList())
+            );
+        when(tokenRevocationRepository.save(any(TokenRevocation.class)))
+            .thenAnswer(invocation -> {
+                stored.add(invocation.getArgument(0));
+                return invocation.getArgument(0);
+            });
+
+        jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties
+            .getSecurity()
+            .getAuthentication()
+            .getJwt()
+            .setBase64Secret("fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8");
+    }
+
+    @Test
+    void testRevokesASingleToken() {
+        TokenProvider tokenProvider = tokenProvider(revocationList());
+        String revoked = tokenProvider.createToken(authentication("user"), false);
+        String other = tokenProvider.createToken(authentication("user"), false);
+
+        tokenProvider.revokeToken(revoked);
+
+        assertThat(tokenProvider.getValidAuthentication(revoked)).isEmpty();
+        assertThat(tokenProvider.getValidAuthentication(other)).isPresent();
+        assertThat(stored).hasSize(1);
+        assertThat(stored.get(0).getLogin()).isNull();
+    }
+
+    @Test
+    void testRevokesTheTokensIssuedBeforeTheRevocationOfTheirUser() throws Exception {
+        TokenRevocationList revocationList = revocationList();
+        TokenProvider tokenProvider = tokenProvider(revocationList);
+        String revoked = tokenProvider.createToken(authentication("user"), true);
+        String other = tokenProvider.createToken(authentication("admin"), true);
+
+        revocationList.revokeUser("user");
+
+        assertThat(tokenProvider.getValidAuthentication(revoked)).isEmpty();
+        assertThat(tokenProvider.getValidAuthentication(other)).isPresent();
+        // the issue date is rounded down to the second
+        Thread.sleep(1000);
+        assertThat(tokenProvider.getValidAuthentication(tokenProvider.createToken(authentication("user"), true))).isPresent();
+    }
+
+    @Test
+    void testReloadsTheRevocationsOfTheOtherNodes() {
+        TokenRevocationList revocationList = revocationList();
+        TokenProvider tokenProvider = tokenProvider(revocationList);
+        String token = tokenProvider.createToken(authentication("user"), false);
+        assertThat(tokenProvider.getValidAuthentication(token)).isPresent();
+
+        tokenProvider(revocationList()).revokeToken(token);
+        assertThat(tokenProvider.getValidAuthentication(token)).isPresent();
+        revocationList.refresh();
+
+        assertThat(tokenProvider.getValidAuthentication(token)).isEmpty();
+    }
+
+    @Test
+    void testForgetsTheRevocationsOfExpiredTokens() {
+        TokenRevocationList revocationList = revocationList();
+        revocationList.refresh();
+        revocationList.revokeToken("expired", Instant.now().minus(Duration.ofMinutes(1)));
+        assertThat(revocationList.isRevoked("expired", "user", 0)).isTrue();
+
+        revocationList.refresh();
+
+        assertThat(revocationList.isRevoked("expired", "user", 0)).isFalse();
+    }
+
+    @Test
+    void testDoesNotLoadTheRevocationsOfExpiredTokens() {
+        Instant revoked = Instant.now().minus(Duration.ofDays(31));
+        stored.add(new TokenRevocation().login("user").revokedDate(revoked).expirationDate(revoked.plus(Duration.ofDays(30))));
+
+        assertThat(revocationList().isRevoked(null, "user", 0)).isFalse();
+    }
+
+    private TokenRevocationList revocationList() {
+        return new TokenRevocationList(jHipsterProperties, tokenRevocationRepository, mock(PlatformTransactionManager.class));
+    }
+
+    private TokenProvider tokenProvider(TokenRevocationList revocationList) {
+        return new TokenProvider(
+            jHipsterProperties,
+            new ApplicationProperties(),
+            new SecurityMetersService(new SimpleMeterRegistry()),
+            mock(JwtSigningKeyStore.class),
+            revocationList
+        );
+    }
+
+    private UsernamePasswordAuthenticationToken authentication(String login) {
+        return new UsernamePasswordAuthenticationToken(login, login, List.of(new SimpleGrantedAuthority(AuthoritiesConstants.USER)));
+    }
+}
@@ -0,0 +1,76 @@
+package br.sc.provapesquisador.security.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.sc.provapesquisador.ProvaPesquisadorApp;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Integration tests for the {@link RateLimitFilter} behind a proxy, on the embedded server configured as in production.
+ */
+@SpringBootTest(
+    classes = ProvaPesquisadorApp.class,
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "application.security.rate-limit.authenticate.per-ip.capacity=1"
+)
+class RateLimitFilterIT {
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void testIgnoresTheClientIpForwardedByAnUntrustedPeer() throws Exception {
+        assertThat(authenticate("203.0.113.1", "user1")).isEqualTo(HttpStatus.UNAUTHORIZED.value());
+
+        // a client forging the header still takes from the bucket of its own address
+        assertThat(authenticate("203.0.113.2", "user2")).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+    }
+
+    @Nested
+    @SpringBootTest(
+        classes = ProvaPesquisadorApp.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+            "application.security.rate-limit.authenticate.per-ip.capacity=1",
+            "application.security.rate-limit.trusted-proxies=127.0.0.1"
+        }
+    )
+    class BehindATrustedProxy {
+
+        @LocalServerPort
+        private int port;
+
+        @Test
+        void testLimitsEachForwardedClientIpInItsOwnBucket() throws Exception {
+            assertThat(authenticate(port, "203.0.113.1", "user1")).isEqualTo(HttpStatus.UNAUTHORIZED.value());
+            assertThat(authenticate(port, "203.0.113.1", "user2")).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+
+            assertThat(authenticate(port, "203.0.113.2", "user3")).isEqualTo(HttpStatus.UNAUTHORIZED.value());
+        }
+    }
+
+    private int authenticate(String clientIp, String login) throws Exception {
+        return authenticate(port, clientIp, login);
+    }
+
+    private int authenticate(int port, String clientIp, String login) throws Exception {
+        HttpRequest request = HttpRequest
+            .newBuilder(URI.create("http://localhost:" + port + "/api/authenticate"))
+            .header("Content-Type", "application/json")
+            // the peer is the loopback address, trusted as a proxy only where configured
+            .header("X-Forwarded-For", clientIp)
+            .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"" + login + "\",\"password\":\"wrong-password\"}"))
+            .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
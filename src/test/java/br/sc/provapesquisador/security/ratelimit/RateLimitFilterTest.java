@@ -0,0 +1,236 @@
+package br.sc.provapesquisador.security.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.sc.provapesquisador.config.ApplicationProperties;
+import br.sc.provapesquisador.management.SecurityMetersService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class RateLimitFilterTest {
+
+    private final AtomicLong nanoClock = new AtomicLong(42);
+
+    private ApplicationProperties applicationProperties;
+
+    private MeterRegistry meterRegistry;
+
+    private RateLimitFilter rateLimitFilter;
+
+    @BeforeEach
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        ApplicationProperties.Security.RateLimit.Endpoint authenticate = applicationProperties
+            .getSecurity()
+            .getRateLimit()
+            .getAuthenticate();
+        authenticate.getPerIp().setCapacity(5);
+        authenticate.getPerLogin().setCapacity(2);
+        authenticate.getPerLogin().setPeriod(Duration.ofSeconds(10));
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimitFilter =
+            new RateLimitFilter(applicationProperties, new SecurityMetersService(meterRegistry), new ObjectMapper(), nanoClock::get);
+    }
+
+    @Test
+    void testRejectsTheLoginsBeyondTheCapacityOfTheLogin() throws Exception {
+        assertThat(authenticate("10.0.0.1", "user").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(authenticate("10.0.0.2", "USER").getStatus()).isEqualTo(HttpStatus.OK.value());
+
+        MockHttpServletResponse response = authenticate("10.0.0.3", "user");
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(response.getHeader("Retry-After")).isEqualTo("5");
+        assertThat(authenticate("10.0.0.3", "admin").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(rejections("authenticate", "login")).isEqualTo(1);
+    }
+
+    @Test
+    void testRejectsTheLoginsBeyondTheCapacityOfTheClientIp() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertThat(authenticate("10.0.0.1", "user" + i).getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+
+        assertThat(authenticate("10.0.0.1", "other").getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(authenticate("10.0.0.2", "other").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(rejections("authenticate", "ip")).isEqualTo(1);
+    }
+
+    @Test
+    void testRefillsTheBucketsOverTime() throws Exception {
+        authenticate("10.0.0.1", "user");
+        authenticate("10.0.0.1", "user");
+        assertThat(authenticate("10.0.0.1", "user").getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+
+        nanoClock.addAndGet(Duration.ofSeconds(5).toNanos());
+
+        assertThat(authenticate("10.0.0.1", "user").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(authenticate("10.0.0.1", "user").getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+    }
+
+    @Test
+    void testReadsTheClientIpForwardedByTheTrustedProxies() {
+        applicationProperties.getSecurity().getRateLimit().setTrustedProxies(List.of("10.0.0.0/8", "192.168.1.1"));
+        rateLimitFilter =
+            new RateLimitFilter(applicationProperties, new SecurityMetersService(meterRegistry), new ObjectMapper(), nanoClock::get);
+
+        assertThat(rateLimitFilter.clientIp(forwarded("10.0.0.1", "203.0.113.1"))).isEqualTo("203.0.113.1");
+        assertThat(rateLimitFilter.clientIp(forwarded("10.0.0.1", "198.51.100.1, 203.0.113.1, 192.168.1.1"))).isEqualTo("203.0.113.1");
+        assertThat(rateLimitFilter.clientIp(forwarded("10.0.0.1", "198.51.100.1", "203.0.113.1"))).isEqualTo("203.0.113.1");
+        assertThat(rateLimitFilter.clientIp(forwarded("10.0.0.1", "unknown"))).isEqualTo("unknown");
+        assertThat(rateLimitFilter.clientIp(forwarded("10.0.0.1"))).isEqualTo("10.0.0.1");
+        assertThat(rateLimitFilter.clientIp(forwarded("203.0.113.9", "198.51.100.1"))).isEqualTo("203.0.113.9");
+    }
+
+    @Test
+    void testTrustsNoProxyByDefault() {
+        assertThat(rateLimitFilter.clientIp(forwarded("10.0.0.1", "203.0.113.1"))).isEqualTo("10.0.0.1");
+        assertThat(rateLimitFilter.clientIp(forwarded("127.0.0.1", "203.0.113.1"))).isEqualTo("127.0.0.1");
+    }
+
+    @Test
+    void testForwardsTheBodyReadForTheLogin() throws Exception {
+        MockHttpServletRequest request = post("/api/account/reset-password/init");
+        request.setContent(" User@Localhost ".getBytes(StandardCharsets.UTF_8));
+        MockFilterChain chain = new MockFilterChain();
+
+        rateLimitFilter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest().getReader().readLine()).isEqualTo(" User@Localhost ");
+    }
+
+    @Test
+    void testServesTheBodyReadForTheLoginToReadListeners() throws Exception {
+        MockHttpServletRequest request = post("/api/account/reset-password/init");
+        request.setContent("user@localhost".getBytes(StandardCharsets.UTF_8));
+        MockFilterChain chain = new MockFilterChain();
+        rateLimitFilter.doFilter(request, new MockHttpServletResponse(), chain);
+        ServletInputStream in = chain.getRequest().getInputStream();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        AtomicBoolean allDataRead = new AtomicBoolean();
+
+        in.setReadListener(
+            new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    while (in.isReady() && !in.isFinished()) {
+                        body.write(in.read());
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    allDataRead.set(true);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    throw new AssertionError(t);
+                }
+            }
+        );
+
+        assertThat(body.toString(StandardCharsets.UTF_8)).isEqualTo("user@localhost");
+        assertThat(allDataRead).isTrue();
+    }
+
+    @Test
+    void testLimitsThePasswordResetsByMail() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(requestPasswordReset("10.0.0." + i, "user@localhost").getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+
+        MockHttpServletResponse response = requestPasswordReset("10.0.0.9", "USER@localhost");
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(response.getHeader("Retry-After")).isEqualTo("1200");
+        assertThat(rejections("password-reset", "login")).isEqualTo(1);
+    }
+
+    @Test
+    void testRejectsTheLargeBodies() throws Exception {
+        MockHttpServletRequest request = post("/api/authenticate");
+        request.setContent(new byte[RateLimitFilter.MAX_BODY_SIZE + 1]);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        rateLimitFilter.doFilter(request, response, new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE.value());
+    }
+
+    @Test
+    void testIgnoresTheOtherRequests() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            rateLimitFilter.doFilter(new MockHttpServletRequest("GET", "/api/account"), response, new MockFilterChain());
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+    }
+
+    @Test
+    void testForgetsTheLeastRecentlyUsedBuckets() {
+        ApplicationProperties.Security.RateLimit.Limit limit = new ApplicationProperties.Security.RateLimit.Limit(1, Duration.ofHours(1));
+        TokenBuckets buckets = new TokenBuckets(limit, 160, nanoClock::get);
+
+        for (int i = 0; i < 10000; i++) {
+            assertThat(buckets.tryAcquire("key" + i)).isZero();
+        }
+
+        assertThat(buckets.size()).isLessThanOrEqualTo(160);
+        assertThat(buckets.tryAcquire("key9999")).isPositive();
+        assertThat(buckets.tryAcquire("key0")).isZero();
+    }
+
+    private MockHttpServletRequest post(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setServletPath(path);
+        return request;
+    }
+
+    private MockHttpServletRequest forwarded(String peer, String... xForwardedFor) {
+        MockHttpServletRequest request = post("/api/authenticate");
+        request.setRemoteAddr(peer);
+        for (String header : xForwardedFor) {
+            request.addHeader("X-Forwarded-For", header);
+        }
+        return request;
+    }
+
+    private MockHttpServletResponse authenticate(String ip, String username) throws Exception {
+        MockHttpServletRequest request = post("/api/authenticate");
+        request.setRemoteAddr(ip);
+        request.setContent(("{\"username\":\"" + username + "\",\"password\":\"password\"}").getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        rateLimitFilter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private MockHttpServletResponse requestPasswordReset(String ip, String mail) throws Exception {
+        MockHttpServletRequest request = post("/api/account/reset-password/init");
+        request.setRemoteAddr(ip);
+        request.setContent(mail.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        rateLimitFilter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private double rejections(String endpoint, String key) {
+        return meterRegistry.get(SecurityMetersService.RATE_LIMIT_METER_NAME).tags("endpoint", endpoint, "key", key).counter().count();
+    }
+}
@@ -0,0 +1,177 @@
+package br.sc.provapesquisador.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import br.sc.provapesquisador.config.ApplicationProperties;
+import br.sc.provapesquisador.repository.ListeningTimestampsCacheFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.service.spi.ServiceRegistryImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.discovery.simple.SimpleDiscoveryClient;
+import org.springframework.cloud.client.discovery.simple.SimpleDiscoveryProperties;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Runs several nodes in process, with a {@link SimpleDiscoveryClient} standing in for Eureka.
+ */
+class CacheInvalidationBusTest {
+
+    private static final String SERVICE_ID = "provapesquisador";
+
+    private static final String CACHE = "usersByLogin";
+
+    private static final String SECRET = "c2VjcmV0LXNoYXJlZC1ieS10aGUtbm9kZXMtb2YtdGhlLXRlc3Q=";
+
+    private static final String JWT_SECRET = "a2V5LW9mLXRoZS1qd3RzLW9mLXRoZS10ZXN0LW5vdC1zaGFyZWQ=";
+
+    private final SimpleDiscoveryProperties registry = new SimpleDiscoveryProperties();
+
+    private final List<Node> nodes = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() throws Exception {
+        List<DefaultServiceInstance> instances = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Node node = new Node();
+            nodes.add(node);
+            Map<String, String> metadata = Map.of(CacheInvalidationTransport.PORT_METADATA, String.valueOf(node.transport.getPort()));
+            instances.add(new DefaultServiceInstance("node-" + i, SERVICE_ID, "127.0.0.1", 8080, false, metadata));
+        }
+        registry.setInstances(Map.of(SERVICE_ID, instances));
+    }
+
+    @AfterEach
+    public void teardown() {
+        nodes.forEach(node -> node.bus.stop());
+    }
+
+    @Test
+    void testEvictsTheKeysOnThePeers() throws Exception {
+        nodes.forEach(node -> node.cacheManager.getCache(CACHE).put("alice", "cached"));
+
+        nodes.get(0).bus.evict(CACHE, "alice");
+        nodes.get(0).bus.broadcastPending().get(5, TimeUnit.SECONDS);
+
+        nodes.forEach(node -> assertThat(node.cacheManager.getCache(CACHE).get("alice")).isNull());
+    }
+
+    @Test
+    void testBatchesTheEvictionsUntilTheFlush() throws Exception {
+        nodes.forEach(node -> {
+            node.cacheManager.getCache(CACHE).put("alice", "cached");
+            node.cacheManager.getCache(CACHE).put("bob", "cached");
+        });
+
+        nodes.get(1).bus.evict(CACHE, "alice");
+        nodes.get(1).bus.evict(CACHE, "bob");
+
+        assertThat(nodes.get(2).cacheManager.getCache(CACHE).get("alice")).isNotNull();
+        nodes.get(1).bus.broadcastPending().get(5, TimeUnit.SECONDS);
+        assertThat(nodes.get(2).cacheManager.getCache(CACHE).get("alice")).isNull();
+        assertThat(nodes.get(2).cacheManager.getCache(CACHE).get("bob")).isNull();
+    }
+
+    @Test
+    void testRejectsUnsignedInvalidations() throws Exception {
+        nodes.get(0).cacheManager.getCache(CACHE).put("alice", "cached");
+
+        HttpRequest request = HttpRequest
+            .newBuilder(URI.create("http://127.0.0.1:" + nodes.get(0).transport.getPort() + CacheInvalidationTransport.PATH))
+            .header("X-Signature", "forged")
+            .POST(HttpRequest.BodyPublishers.ofString("{\"caches\":{\"usersByLogin\":[\"alice\"]}}"))
+            .build();
+        HttpResponse<Void> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.discarding());
+
+        assertThat(response.statusCode()).isEqualTo(403);
+        assertThat(nodes.get(0).cacheManager.getCache(CACHE).get("alice")).isNotNull();
+    }
+
+    @Test
+    void testListensOnTheBindAddressOnly() {
+        assertThat(nodes.get(0).transport.getAddress().getAddress().isLoopbackAddress()).isTrue();
+    }
+
+    @Test
+    void testRequiresASecretOtherThanTheJwtOne() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getCache().getInvalidation().setPort(0);
+        CacheInvalidationTransport transport = transport(applicationProperties);
+
+        assertThatThrownBy(() -> transport.start(invalidation -> {})).isInstanceOf(IllegalStateException.class);
+
+        applicationProperties.getCache().getInvalidation().setSecret(JWT_SECRET);
+        assertThatThrownBy(() -> transport.start(invalidation -> {})).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testRequiresABindAddress() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getCache().getInvalidation().setPort(0);
+        applicationProperties.getCache().getInvalidation().setSecret(SECRET);
+        applicationProperties.getCache().getInvalidation().setBindAddress("");
+        CacheInvalidationTransport transport = transport(applicationProperties);
+
+        assertThatThrownBy(() -> transport.start(invalidation -> {})).isInstanceOf(IllegalStateException.class);
+    }
+
+    private CacheInvalidationTransport transport(ApplicationProperties applicationProperties) {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(JWT_SECRET);
+        return new CacheInvalidationTransport(
+            applicationProperties,
+            jHipsterProperties,
+            new SimpleDiscoveryClient(registry),
+            new ObjectMapper()
+        );
+    }
+
+    private class Node {
+
+        private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(CACHE);
+
+        private final CacheInvalidationTransport transport;
+
+        private final CacheInvalidationBus bus;
+
+        Node() throws Exception {
+            ApplicationProperties applicationProperties = new ApplicationProperties();
+            ApplicationProperties.Cache.Invalidation invalidation = applicationProperties.getCache().getInvalidation();
+            invalidation.setEnabled(true);
+            invalidation.setPort(0);
+            invalidation.setServiceId(SERVICE_ID);
+            invalidation.setSecret(SECRET);
+            transport = transport(applicationProperties);
+            ListeningTimestampsCacheFactory timestampsCacheFactory = new ListeningTimestampsCacheFactory();
+            bus = new CacheInvalidationBus(applicationProperties, transport, cacheManager, entityManagerFactory(), timestampsCacheFactory);
+            bus.start();
+        }
+
+        private EntityManagerFactory entityManagerFactory() {
+            ServiceRegistryImplementor serviceRegistry = mock(ServiceRegistryImplementor.class);
+            when(serviceRegistry.getService(EventListenerRegistry.class)).thenReturn(mock(EventListenerRegistry.class));
+            SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class);
+            when(sessionFactory.getServiceRegistry()).thenReturn(serviceRegistry);
+            EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+            when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+            return entityManagerFactory;
+        }
+    }
+}
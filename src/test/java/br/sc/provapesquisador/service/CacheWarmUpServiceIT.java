@@ -0,0 +1,67 @@
+package br.sc.provapesquisador.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.sc.provapesquisador.IntegrationTest;
+import br.sc.provapesquisador.domain.Pessoa;
+import br.sc.provapesquisador.repository.PessoaRepository;
+import br.sc.provapesquisador.repository.UserRepository;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Objects;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+
+/**
+ * Integration tests for {@link CacheWarmUpService}.
+ */
+@IntegrationTest
+class CacheWarmUpServiceIT {
+
+    @Autowired
+    private CacheWarmUpService cacheWarmUpService;
+
+    @Autowired
+    private PessoaReadTracker pessoaReadTracker;
+
+    @Autowired
+    private PessoaRepository pessoaRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Value("${application.cache.warm-up.pessoa-reads-file}")
+    private String pessoaReadsFile;
+
+    private Pessoa pessoa;
+
+    @BeforeEach
+    public void setup() {
+        Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE)).clear();
+        Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE)).clear();
+        pessoa = pessoaRepository.saveAndFlush(new Pessoa().name("Ana").cpf("93000000001").email("ana@example.com").excluded(false));
+    }
+
+    @AfterEach
+    public void cleanup() throws Exception {
+        pessoaRepository.delete(pessoa);
+        Files.deleteIfExists(Paths.get(pessoaReadsFile));
+    }
+
+    @Test
+    void warmsUpTheUsersAndTheMostReadPessoas() {
+        pessoaReadTracker.record(pessoa.getId());
+        pessoaReadTracker.snapshot();
+
+        long loaded = cacheWarmUpService.warmUp();
+
+        // the activated users of the initial data, admin and user, and the pessoa
+        assertThat(loaded).isGreaterThanOrEqualTo(3);
+        assertThat(Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE)).get("admin")).isNotNull();
+        assertThat(Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE)).get("admin@localhost")).isNotNull();
+    }
+}
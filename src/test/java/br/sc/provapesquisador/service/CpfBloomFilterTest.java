@@ -0,0 +1,50 @@
+package br.sc.provapesquisador.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class CpfBloomFilterTest {
+
+    @Test
+    void testInsertedValuesAreAlwaysFound() {
+        CpfBloomFilter filter = new CpfBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(String.format("%011d", i));
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain(String.format("%011d", i))).isTrue();
+        }
+    }
+
+    @Test
+    void testFalsePositiveRateStaysNearConfiguredProbability() {
+        CpfBloomFilter filter = new CpfBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(String.format("%011d", i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 10_000; i < 110_000; i++) {
+            if (filter.mightContain(String.format("%011d", i))) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+
+    @Test
+    void testEmptyFilterContainsNothing() {
+        CpfBloomFilter filter = new CpfBloomFilter(100, 0.01);
+
+        assertThat(filter.mightContain("12345678909")).isFalse();
+    }
+
+    @Test
+    void testNormalizeStripsCpfPunctuation() {
+        assertThat(PessoaCpfIndex.normalize("123.456.789-09")).isEqualTo("12345678909");
+        assertThat(PessoaCpfIndex.normalize(" 12345678909 ")).isEqualTo("12345678909");
+    }
+}
@@ -0,0 +1,38 @@
+package br.sc.provapesquisador.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.StringReader;
+import org.junit.jupiter.api.Test;
+
+class CsvReaderTest {
+
+    @Test
+    void testReadRecords() throws Exception {
+        CsvReader reader = new CsvReader(new StringReader("a,b,c\r\n1,,3\n"));
+
+        assertThat(reader.readRecord()).containsExactly("a", "b", "c");
+        assertThat(reader.getRecordLine()).isEqualTo(1);
+        assertThat(reader.readRecord()).containsExactly("1", "", "3");
+        assertThat(reader.getRecordLine()).isEqualTo(2);
+        assertThat(reader.readRecord()).isNull();
+    }
+
+    @Test
+    void testReadQuotedFields() throws Exception {
+        CsvReader reader = new CsvReader(new StringReader("\"a,b\",\"say \"\"hi\"\"\",\"two\r\nlines\"\nlast"));
+
+        assertThat(reader.readRecord()).containsExactly("a,b", "say \"hi\"", "two\r\nlines");
+        assertThat(reader.readRecord()).containsExactly("last");
+        assertThat(reader.getRecordLine()).isEqualTo(3);
+        assertThat(reader.readRecord()).isNull();
+    }
+
+    @Test
+    void testReadUnterminatedQuote() throws Exception {
+        CsvReader reader = new CsvReader(new StringReader("a,\"b\nc"));
+
+        assertThat(reader.readRecord()).containsExactly("a", "b\nc");
+        assertThat(reader.readRecord()).isNull();
+    }
+}
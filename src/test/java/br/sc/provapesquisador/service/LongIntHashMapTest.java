@@ -0,0 +1,54 @@
+package br.sc.provapesquisador.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class LongIntHashMapTest {
+
+    @Test
+    void testPutGetAndRemove() {
+        LongIntHashMap map = new LongIntHashMap();
+        map.put(0L, 1);
+        map.put(-7L, 2);
+        map.put(Long.MAX_VALUE, 3);
+        map.put(0L, 4);
+
+        assertThat(map.size()).isEqualTo(3);
+        assertThat(map.get(0L)).isEqualTo(4);
+        assertThat(map.get(-7L)).isEqualTo(2);
+        assertThat(map.get(Long.MAX_VALUE)).isEqualTo(3);
+        assertThat(map.get(1L)).isEqualTo(LongIntHashMap.ABSENT);
+
+        assertThat(map.remove(-7L)).isEqualTo(2);
+        assertThat(map.remove(-7L)).isEqualTo(LongIntHashMap.ABSENT);
+        assertThat(map.get(-7L)).isEqualTo(LongIntHashMap.ABSENT);
+        assertThat(map.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testBehavesLikeAHashMapAcrossGrowthsAndRemovals() {
+        LongIntHashMap map = new LongIntHashMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            // few distinct keys, so that the removals shift back long runs
+            long key = random.nextInt(2_000) * 1024L;
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(key)).isEqualTo(expected.getOrDefault(key, LongIntHashMap.ABSENT));
+                expected.remove(key);
+            } else {
+                map.put(key, i);
+                expected.put(key, i);
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (long key = 0; key < 2_000 * 1024L; key += 1024) {
+            assertThat(map.get(key)).isEqualTo(expected.getOrDefault(key, LongIntHashMap.ABSENT));
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package br.sc.provapesquisador.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.sc.provapesquisador.IntegrationTest;
+import br.sc.provapesquisador.config.ApplicationProperties;
+import br.sc.provapesquisador.domain.OutgoingMail;
+import br.sc.provapesquisador.domain.enumeration.OutgoingMailStatus;
+import br.sc.provapesquisador.management.MailMetersService;
+import br.sc.provapesquisador.repository.OutgoingMailRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Integration tests for the {@link MailOutboxService}, sending to a local SMTP server.
+ */
+@IntegrationTest
+class MailOutboxServiceIT {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    private MailOutboxService mailOutboxService;
+
+    @Autowired
+    private OutgoingMailRepository outgoingMailRepository;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setup() {
+        outgoingMailRepository.deleteAll();
+    }
+
+    @AfterEach
+    public void restoreProperties() {
+        applicationProperties.getMail().getOutbox().setBatchSize(new ApplicationProperties.Mail.Outbox().getBatchSize());
+        applicationProperties.getMail().getOutbox().setMaxAttempts(new ApplicationProperties.Mail.Outbox().getMaxAttempts());
+    }
+
+    @Test
+    void sendsTheDueMailsInBatches() throws Exception {
+        applicationProperties.getMail().getOutbox().setBatchSize(2);
+        double sent = messages("sent");
+        long batches = meterRegistry.get(MailMetersService.SEND_METER_NAME).timer().count();
+        for (int i = 0; i < 5; i++) {
+            mailOutboxService.enqueue("user" + i + "@example.com", "subject " + i, "content", false, false);
+        }
+        assertThat(depth("pending")).isEqualTo(5);
+
+        assertThat(mailOutboxService.sendDueMails()).isEqualTo(5);
+
+        assertThat(greenMail.getReceivedMessages()).hasSize(5);
+        assertThat(greenMail.getReceivedMessages()[0].getSubject()).isEqualTo("subject 0");
+        assertThat(outgoingMailRepository.count()).isZero();
+        assertThat(messages("sent") - sent).isEqualTo(5);
+        assertThat(meterRegistry.get(MailMetersService.SEND_METER_NAME).timer().count() - batches).isEqualTo(3);
+    }
+
+    @Test
+    void retriesTheFailedMailsWithBackoff() {
+        greenMail.stop();
+        double retried = messages("retried");
+        mailOutboxService.enqueue("john.doe@example.com", "subject", "content", false, false);
+
+        assertThat(mailOutboxService.sendDueMails()).isZero();
+
+        OutgoingMail mail = outgoingMailRepository.findAll().get(0);
+        assertThat(mail.getStatus()).isEqualTo(OutgoingMailStatus.PENDING);
+        assertThat(mail.getAttempts()).isEqualTo(1);
+        assertThat(mail.getLastError()).isNotNull();
+        assertThat(mail.getLockedBy()).isNull();
+        assertThat(mail.getNextAttemptDate()).isBetween(Instant.now().plusSeconds(25), Instant.now().plusSeconds(30));
+        assertThat(messages("retried") - retried).isEqualTo(1);
+        // not due yet
+        assertThat(mailOutboxService.sendDueMails()).isZero();
+        assertThat(outgoingMailRepository.findAll().get(0).getAttempts()).isEqualTo(1);
+
+        greenMail.start();
+        outgoingMailRepository.save(mail.nextAttemptDate(Instant.now().minusSeconds(1)));
+
+        assertThat(mailOutboxService.sendDueMails()).isEqualTo(1);
+        assertThat(greenMail.getReceivedMessages()).hasSize(1);
+        assertThat(outgoingMailRepository.count()).isZero();
+    }
+
+    @Test
+    void deadLettersTheMailsAfterTheirLastAttempt() {
+        applicationProperties.getMail().getOutbox().setMaxAttempts(2);
+        greenMail.stop();
+        double dead = messages("dead");
+        mailOutboxService.enqueue("john.doe@example.com", "subject", "content", false, false);
+        mailOutboxService.sendDueMails();
+        outgoingMailRepository.save(outgoingMailRepository.findAll().get(0).nextAttemptDate(Instant.now().minusSeconds(1)));
+
+        mailOutboxService.sendDueMails();
+
+        OutgoingMail mail = outgoingMailRepository.findAll().get(0);
+        assertThat(mail.getStatus()).isEqualTo(OutgoingMailStatus.DEAD);
+        assertThat(mail.getAttempts()).isEqualTo(2);
+        assertThat(messages("dead") - dead).isEqualTo(1);
+        assertThat(depth("dead")).isEqualTo(1);
+        assertThat(depth("pending")).isZero();
+    }
+
+    @Test
+    void deadLettersTheMalformedMailsAtOnce() {
+        mailOutboxService.enqueue("john doe@@example.com", "subject", "content", false, false);
+        mailOutboxService.enqueue("jane.doe@example.com", "subject", "content", false, false);
+
+        assertThat(mailOutboxService.sendDueMails()).isEqualTo(1);
+
+        List<OutgoingMail> mails = outgoingMailRepository.findAll();
+        assertThat(mails).hasSize(1);
+        assertThat(mails.get(0).getRecipient()).isEqualTo("john doe@@example.com");
+        assertThat(mails.get(0).getStatus()).isEqualTo(OutgoingMailStatus.DEAD);
+        assertThat(mails.get(0).getAttempts()).isEqualTo(1);
+    }
+
+    @Test
+    void leavesTheMailsClaimedByAnotherWorker() {
+        mailOutboxService.enqueue("john.doe@example.com", "subject", "content", false, false);
+        OutgoingMail mail = outgoingMailRepository.findAll().get(0);
+        outgoingMailRepository.save(mail.lockedBy("another").lockedUntil(Instant.now().plus(Duration.ofMinutes(1))));
+
+        assertThat(mailOutboxService.sendDueMails()).isZero();
+
+        // the worker died, its lock expired
+        outgoingMailRepository.save(mail.lockedUntil(Instant.now().minusSeconds(1)));
+        assertThat(mailOutboxService.sendDueMails()).isEqualTo(1);
+        assertThat(greenMail.getReceivedMessages()).hasSize(1);
+    }
+
+    private double messages(String result) {
+        return meterRegistry.get(MailMetersService.MESSAGES_METER_NAME).tag("result", result).counter().count();
+    }
+
+    private double depth(String status) {
+        return meterRegistry.get(MailMetersService.OUTBOX_DEPTH_METER_NAME).tag("status", status).gauge().value();
+    }
+}
@@ -0,0 +1,164 @@
+package br.sc.provapesquisador.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import br.sc.provapesquisador.config.ApplicationProperties;
+import br.sc.provapesquisador.domain.PessoaAvatar;
+import br.sc.provapesquisador.repository.PessoaAvatarRepository;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+
+class PessoaAvatarFileStoreTest {
+
+    private static final byte[] CONTENT = { 1, 2, 3 };
+
+    private static final String HASH = PessoaAvatarService.hash(CONTENT);
+
+    @TempDir
+    Path directory;
+
+    private PessoaAvatarRepository pessoaAvatarRepository;
+
+    private PessoaAvatarFileStore store;
+
+    @BeforeEach
+    public void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getPessoa().getAvatarStore().setDirectory(directory.toString());
+        pessoaAvatarRepository = mock(PessoaAvatarRepository.class);
+        store = new PessoaAvatarFileStore(applicationProperties, pessoaAvatarRepository);
+    }
+
+    @Test
+    void testResolveOnlyAcceptsAvatarFileNames() {
+        assertThat(store.resolve(HASH + ".png")).contains(HASH.substring(0, 2) + "/" + HASH + ".png");
+        assertThat(store.resolve(HASH + ".exe")).isEmpty();
+        assertThat(store.resolve("../" + HASH + ".png")).isEmpty();
+        assertThat(store.resolve(HASH.toUpperCase() + ".png")).isEmpty();
+        assertThat(store.resolve(null)).isEmpty();
+    }
+
+    @Test
+    void testWrite() {
+        String fileName = PessoaAvatar.fileName(HASH, "image/png");
+
+        store.write(fileName, CONTENT);
+
+        assertThat(directory.resolve(HASH.substring(0, 2)).resolve(fileName)).hasBinaryContent(CONTENT);
+        assertThat(directory.resolve(HASH.substring(0, 2))).isDirectoryContaining(path -> path.endsWith(fileName));
+    }
+
+    @Test
+    void testMaterializeReadsMissingFilesFromTheDatabase() {
+        String fileName = PessoaAvatar.fileName(HASH, "image/jpeg");
+        when(pessoaAvatarRepository.findContentByHash(eq(HASH), any(Pageable.class))).thenReturn(List.of(CONTENT));
+
+        assertThat(store.materialize(fileName)).isTrue();
+        assertThat(store.materialize(fileName)).isTrue();
+
+        assertThat(directory.resolve(HASH.substring(0, 2)).resolve(fileName)).hasBinaryContent(CONTENT);
+        verify(pessoaAvatarRepository, times(1)).findContentByHash(eq(HASH), any(Pageable.class));
+    }
+
+    @Test
+    void testMaterializeUnknownAvatar() {
+        when(pessoaAvatarRepository.findContentByHash(eq(HASH), any(Pageable.class))).thenReturn(List.of());
+
+        assertThat(store.materialize(HASH + ".png")).isFalse();
+        assertThat(store.materialize("unknown.png")).isFalse();
+    }
+
+    @Test
+    void testThumbnailPicksTheSmallestLargeEnough() {
+        assertThat(store.thumbnail(HASH + ".png", 30)).isEqualTo(HASH + "-48.png");
+        assertThat(store.thumbnail(HASH + ".png", 48)).isEqualTo(HASH + "-48.png");
+        assertThat(store.thumbnail(HASH + ".jpg", 100)).isEqualTo(HASH + "-128.jpg");
+        assertThat(store.thumbnail(HASH + ".gif", 512)).isEqualTo(HASH + "-512.png");
+        assertThat(store.thumbnail(HASH + ".png", 1024)).isEqualTo(HASH + ".png");
+        assertThat(store.thumbnail(HASH + ".webp", 48)).isEqualTo(HASH + ".webp");
+        assertThat(store.thumbnail("unknown.png", 48)).isEqualTo("unknown.png");
+        assertThat(store.resolve(HASH + "-48.png")).contains(HASH.substring(0, 2) + "/" + HASH + "-48.png");
+        assertThat(store.resolve(HASH + "-49.png")).isEmpty();
+    }
+
+    @Test
+    void testWriteThumbnails() throws Exception {
+        store.writeThumbnails(HASH + ".png", image(1000, 500, "png"));
+
+        Path subdirectory = directory.resolve(HASH.substring(0, 2));
+        assertThat(ImageIO.read(subdirectory.resolve(HASH + "-48.png").toFile())).extracting("width", "height").containsExactly(48, 24);
+        assertThat(ImageIO.read(subdirectory.resolve(HASH + "-128.png").toFile())).extracting("width", "height").containsExactly(128, 64);
+        assertThat(ImageIO.read(subdirectory.resolve(HASH + "-512.png").toFile())).extracting("width", "height").containsExactly(512, 256);
+    }
+
+    @Test
+    void testWriteThumbnailsNeverScalesUp() throws Exception {
+        store.writeThumbnails(HASH + ".jpg", image(100, 80, "jpg"));
+
+        Path subdirectory = directory.resolve(HASH.substring(0, 2));
+        assertThat(ImageIO.read(subdirectory.resolve(HASH + "-48.jpg").toFile())).extracting("width", "height").containsExactly(48, 38);
+        assertThat(ImageIO.read(subdirectory.resolve(HASH + "-512.jpg").toFile())).extracting("width", "height").containsExactly(100, 80);
+    }
+
+    @Test
+    void testWriteThumbnailsSkipsUnreadableImages() {
+        store.writeThumbnails(HASH + ".png", CONTENT);
+
+        assertThat(directory.resolve(HASH.substring(0, 2))).doesNotExist();
+    }
+
+    @Test
+    void testWriteThumbnailsSkipsImagesOverThePixelLimit() throws Exception {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getPessoa().getAvatarStore().setDirectory(directory.toString());
+        applicationProperties.getPessoa().getAvatarStore().setMaxImagePixels(100 * 100);
+        store = new PessoaAvatarFileStore(applicationProperties, pessoaAvatarRepository);
+
+        store.writeThumbnails(HASH + ".png", image(101, 100, "png"));
+        store.writeThumbnails(HASH + ".jpg", image(100, 100, "jpg"));
+
+        Path subdirectory = directory.resolve(HASH.substring(0, 2));
+        assertThat(subdirectory.resolve(HASH + "-48.png")).doesNotExist();
+        assertThat(subdirectory.resolve(HASH + "-48.jpg")).exists();
+    }
+
+    @Test
+    void testMaterializeMakesMissingThumbnails() throws Exception {
+        when(pessoaAvatarRepository.findContentByHash(eq(HASH), any(Pageable.class))).thenReturn(List.of(image(300, 300, "jpg")));
+
+        assertThat(store.materialize(HASH + "-128.jpg")).isTrue();
+
+        Path subdirectory = directory.resolve(HASH.substring(0, 2));
+        assertThat(ImageIO.read(subdirectory.resolve(HASH + "-128.jpg").toFile())).extracting("width").isEqualTo(128);
+        assertThat(subdirectory.resolve(HASH + "-48.jpg")).doesNotExist();
+        assertThat(store.find(HASH + "-128.jpg")).contains(subdirectory.resolve(HASH + "-128.jpg"));
+    }
+
+    @Test
+    void testDeleteRemovesEveryExtension() {
+        store.write(HASH + ".png", CONTENT);
+        store.write(HASH + ".bin", CONTENT);
+        store.write(HASH + "-48.png", CONTENT);
+
+        store.delete(HASH);
+
+        assertThat(directory.resolve(HASH.substring(0, 2))).isEmptyDirectory();
+    }
+
+    private static byte[] image(int width, int height, String format) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,77 @@
+package br.sc.provapesquisador.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+import br.sc.provapesquisador.config.ApplicationProperties;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PessoaAvatarThumbnailerTest {
+
+    private static final byte[] CONTENT = { 1, 2, 3 };
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    private ApplicationProperties applicationProperties;
+
+    private PessoaAvatarFileStore store;
+
+    @BeforeEach
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getPessoa().getAvatarStore().setMaxPendingThumbnails(2);
+        store = mock(PessoaAvatarFileStore.class);
+    }
+
+    @Test
+    void testSubmitSkipsAvatarsBeyondThePendingLimit() {
+        PessoaAvatarThumbnailer thumbnailer = new PessoaAvatarThumbnailer(applicationProperties, store, tasks::add);
+
+        assertThat(thumbnailer.submit("a.png", CONTENT)).isTrue();
+        assertThat(thumbnailer.submit("b.png", CONTENT)).isTrue();
+        assertThat(thumbnailer.submit("c.png", CONTENT)).isFalse();
+
+        tasks.get(0).run();
+        verify(store).writeThumbnails("a.png", CONTENT);
+        assertThat(thumbnailer.submit("d.png", CONTENT)).isTrue();
+        assertThat(tasks).hasSize(3);
+    }
+
+    @Test
+    void testSubmitReleasesRejectedTasks() {
+        AtomicBoolean saturated = new AtomicBoolean(true);
+        Executor executor = task -> {
+            if (saturated.get()) {
+                throw new RejectedExecutionException();
+            }
+            tasks.add(task);
+        };
+        PessoaAvatarThumbnailer thumbnailer = new PessoaAvatarThumbnailer(applicationProperties, store, executor);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(thumbnailer.submit("a.png", CONTENT)).isFalse();
+        }
+        saturated.set(false);
+        assertThat(thumbnailer.submit("a.png", CONTENT)).isTrue();
+        assertThat(thumbnailer.submit("b.png", CONTENT)).isTrue();
+        verifyNoInteractions(store);
+    }
+
+    @Test
+    void testSubmitReleasesFailedTasks() {
+        PessoaAvatarThumbnailer thumbnailer = new PessoaAvatarThumbnailer(applicationProperties, store, tasks::add);
+        doThrow(new IllegalStateException()).when(store).writeThumbnails("a.png", CONTENT);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(thumbnailer.submit("a.png", CONTENT)).isTrue();
+            assertThatThrownBy(tasks.get(i)::run).isInstanceOf(IllegalStateException.class);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package br.sc.provapesquisador.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import br.sc.provapesquisador.config.ApplicationProperties;
+import br.sc.provapesquisador.repository.PessoaRepository;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Interleaves the writes of pessoas with the rebuilds of the {@link PessoaCpfIndex}.
+ */
+class PessoaCpfIndexTest {
+
+    private PessoaRepository pessoaRepository;
+
+    private PessoaCpfIndex pessoaCpfIndex;
+
+    @BeforeEach
+    public void setup() {
+        pessoaRepository = mock(PessoaRepository.class);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getPessoa().getCpfIndex().setExpectedInsertions(1000);
+        pessoaCpfIndex = new PessoaCpfIndex(pessoaRepository, applicationProperties);
+        when(pessoaRepository.streamAllCpfs()).thenAnswer(invocation -> Stream.of("11111111111"));
+        pessoaCpfIndex.rebuild();
+    }
+
+    @AfterEach
+    public void teardown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testKeepsTheCpfsAddedWhileStreaming() {
+        when(pessoaRepository.streamAllCpfs())
+            .thenAnswer(invocation -> {
+                // committed after the stream started, so it isn't part of it
+                pessoaCpfIndex.add("222.222.222-22");
+                return Stream.of("11111111111");
+            });
+
+        pessoaCpfIndex.rebuild();
+
+        assertThat(pessoaCpfIndex.mightContain("22222222222")).isTrue();
+        assertThat(pessoaCpfIndex.mightContain("11111111111")).isTrue();
+    }
+
+    @Test
+    void testKeepsTheCpfsOfTheTransactionsInFlight() {
+        TransactionSynchronizationManager.initSynchronization();
+        // added before the rebuild, committed after the stream of the rebuild
+        pessoaCpfIndex.add("33333333333");
+
+        pessoaCpfIndex.rebuild();
+
+        assertThat(pessoaCpfIndex.mightContain("33333333333")).isTrue();
+
+        // rolled back: the next rebuild drops it
+        TransactionSynchronizationManager
+            .getSynchronizations()
+            .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+        pessoaCpfIndex.rebuild();
+
+        assertThat(pessoaCpfIndex.mightContain("33333333333")).isFalse();
+        assertThat(pessoaCpfIndex.mightContain("11111111111")).isTrue();
+    }
+}
@@ -0,0 +1,149 @@
+package br.sc.provapesquisador.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.sc.provapesquisador.IntegrationTest;
+import br.sc.provapesquisador.domain.Pessoa;
+import br.sc.provapesquisador.domain.PessoaImportJob;
+import br.sc.provapesquisador.domain.enumeration.ImportJobStatus;
+import br.sc.provapesquisador.repository.PessoaImportJobRepository;
+import br.sc.provapesquisador.repository.PessoaRepository;
+import br.sc.provapesquisador.service.dto.PessoaImportJobDTO;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * Integration tests for {@link PessoaImportJobService}.
+ * <p>
+ * Not transactional: the jobs run on the import executor, and only see committed data.
+ */
+@IntegrationTest
+class PessoaImportJobServiceIT {
+
+    private static final String CPF_PREFIX = "9100000000";
+
+    private static final String BODY =
+        "{\"name\":\"Ana\",\"cpf\":\"" +
+        CPF_PREFIX +
+        "1\",\"email\":\"ana@example.com\"}\n" +
+        "{\"name\":\"Bruno\",\"cpf\":\"" +
+        CPF_PREFIX +
+        "2\"}\n" +
+        "{\"name\":\"Carla\",\"cpf\":\"" +
+        CPF_PREFIX +
+        "3\",\"email\":\"carla@example.com\"}\n";
+
+    @Autowired
+    private PessoaImportJobService pessoaImportJobService;
+
+    @Autowired
+    private PessoaImportJobRepository pessoaImportJobRepository;
+
+    @Autowired
+    private PessoaRepository pessoaRepository;
+
+    @Value("${application.pessoa.import-jobs.directory}")
+    private String directory;
+
+    @AfterEach
+    public void cleanup() {
+        pessoaRepository.deleteAll(importedPessoas());
+        pessoaImportJobRepository.deleteAll();
+    }
+
+    @Test
+    void importsInTheBackground() throws Exception {
+        PessoaImportJobDTO submitted = pessoaImportJobService.submit(
+            PessoaFileFormat.NDJSON,
+            new ByteArrayInputStream(BODY.getBytes(StandardCharsets.UTF_8))
+        );
+        assertThat(submitted.getStatus()).isIn(ImportJobStatus.QUEUED, ImportJobStatus.RUNNING);
+
+        PessoaImportJobDTO job = awaitEnd(submitted.getId());
+        assertThat(job.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(job.getRowsImported()).isEqualTo(2);
+        assertThat(job.getRowsRejected()).isEqualTo(1);
+        assertThat(job.getRowsProcessed()).isEqualTo(3);
+        assertThat(job.getRowsPerSecond()).isPositive();
+        assertThat(importedPessoas()).extracting(Pessoa::getName).containsExactlyInAnyOrder("Ana", "Carla");
+
+        Path errors = pessoaImportJobService.findErrors(job.getId()).orElseThrow();
+        assertThat(Files.readString(errors)).isEqualTo("{\"line\":2,\"message\":\"email: must not be null\"}\n");
+        // the uploaded file is deleted once imported
+        PessoaImportJob entity = pessoaImportJobRepository.findById(job.getId()).orElseThrow();
+        assertThat(Paths.get(directory, entity.getFileName())).doesNotExist();
+    }
+
+    @Test
+    void resumesAfterTheCheckpoint() throws Exception {
+        // a job interrupted once its first line was committed
+        Files.createDirectories(Paths.get(directory));
+        Files.writeString(Paths.get(directory, "resumed.ndjson"), BODY);
+        PessoaImportJob interrupted = pessoaImportJobRepository.saveAndFlush(
+            new PessoaImportJob()
+                .status(ImportJobStatus.RUNNING)
+                .format("ndjson")
+                .fileName("resumed.ndjson")
+                .createdDate(Instant.now())
+                .startedDate(Instant.now())
+                .checkpointLine(1L)
+                .rowsImported(1L)
+                .rowsRejected(0L)
+                .startedRows(0L)
+        );
+
+        pessoaImportJobService.resumeJobs();
+
+        PessoaImportJobDTO job = awaitEnd(interrupted.getId());
+        assertThat(job.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(job.getRowsImported()).isEqualTo(2);
+        assertThat(job.getRowsRejected()).isEqualTo(1);
+        assertThat(importedPessoas()).extracting(Pessoa::getName).containsExactly("Carla");
+    }
+
+    @Test
+    void skipsJobsWithoutTheirFile() throws Exception {
+        PessoaImportJob lost = pessoaImportJobRepository.saveAndFlush(
+            new PessoaImportJob()
+                .status(ImportJobStatus.QUEUED)
+                .format("csv")
+                .fileName("lost.csv")
+                .createdDate(Instant.now())
+                .checkpointLine(0L)
+                .rowsImported(0L)
+                .rowsRejected(0L)
+                .startedRows(0L)
+        );
+
+        // files of the other nodes are not theirs to resume
+        pessoaImportJobService.resumeJobs();
+
+        Thread.sleep(200);
+        assertThat(pessoaImportJobService.findOne(lost.getId()).orElseThrow().getStatus()).isEqualTo(ImportJobStatus.QUEUED);
+    }
+
+    private List<Pessoa> importedPessoas() {
+        return pessoaRepository.findAll().stream().filter(p -> p.getCpf().startsWith(CPF_PREFIX)).collect(Collectors.toList());
+    }
+
+    private PessoaImportJobDTO awaitEnd(Long id) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        PessoaImportJobDTO job = pessoaImportJobService.findOne(id).orElseThrow();
+        while (!job.getStatus().equals(ImportJobStatus.COMPLETED) && !job.getStatus().equals(ImportJobStatus.FAILED)) {
+            assertThat(System.currentTimeMillis()).as("job end").isLessThan(deadline);
+            Thread.sleep(20);
+            job = pessoaImportJobService.findOne(id).orElseThrow();
+        }
+        return job;
+    }
+}
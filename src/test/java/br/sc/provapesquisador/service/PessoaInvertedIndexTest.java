@@ -0,0 +1,95 @@
+package br.sc.provapesquisador.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.sc.provapesquisador.service.PessoaInvertedIndex.Field;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PessoaInvertedIndexTest {
+
+    private PessoaInvertedIndex index;
+
+    @BeforeEach
+    public void setup() {
+        index = new PessoaInvertedIndex(false);
+        index.put(1L, "maria joaozinho", "maria@example.com", "11122233344");
+        index.put(2L, "joao silva", "joao@example.com", "55566677788");
+        index.put(3L, "ana", "ana@example.com", "99900011122");
+    }
+
+    @Test
+    void testSearchFindsSubstrings() {
+        assertThat(index.search(Field.NAME, "joao")).containsExactly(1L, 2L);
+        assertThat(index.search(Field.EMAIL, "example.com")).containsExactly(1L, 2L, 3L);
+        assertThat(index.search(Field.CPF, "222")).containsExactly(1L);
+        assertThat(index.search(Field.NAME, "pedro")).isEmpty();
+    }
+
+    @Test
+    void testSearchChecksCandidatesAgainstValues() {
+        index.put(4L, "abc bcd", "abc@example.com", "12312312312");
+
+        // "abc bcd" has every trigram of "abcd" without containing it
+        assertThat(index.search(Field.NAME, "abcd")).isEmpty();
+        assertThat(index.search(Field.NAME, "c bc")).containsExactly(4L);
+    }
+
+    @Test
+    void testSearchRankedPutsPrefixMatchesFirst() {
+        assertThat(index.searchRanked(Field.NAME, "joao")).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void testPutReplacesPreviousValues() {
+        index.put(2L, "pedro souza", "pedro@example.com", "55566677788");
+
+        assertThat(index.search(Field.NAME, "joao")).containsExactly(1L);
+        assertThat(index.search(Field.NAME, "pedro")).containsExactly(2L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void testRemove() {
+        index.remove(1L);
+
+        assertThat(index.search(Field.NAME, "joao")).containsExactly(2L);
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testLoadDoesNotOverrideWritesMadeWhileLoading() {
+        PessoaInvertedIndex loading = new PessoaInvertedIndex(true);
+        loading.put(1L, "new name", "new@example.com", "11122233344");
+        loading.remove(2L);
+
+        loading.load(1L, "old name", "old@example.com", "11122233344");
+        loading.load(2L, "joao silva", "joao@example.com", "55566677788");
+        loading.load(3L, "ana", "ana@example.com", "99900011122");
+        loading.finishLoading();
+
+        assertThat(loading.search(Field.NAME, "new")).containsExactly(1L);
+        assertThat(loading.search(Field.NAME, "old")).isEmpty();
+        assertThat(loading.search(Field.NAME, "joao")).isEmpty();
+        assertThat(loading.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testReusesTheSlotsOfRemovedPessoas() {
+        for (long id = 10; id < 1010; id++) {
+            index.put(id, "pessoa " + id, "p" + id + "@example.com", String.format("%011d", id));
+        }
+        for (long id = 10; id < 1010; id += 2) {
+            index.remove(id);
+        }
+        for (long id = 2010; id < 2510; id++) {
+            index.put(id, "pessoa " + id, "p" + id + "@example.com", String.format("%011d", id));
+        }
+
+        assertThat(index.size()).isEqualTo(1003);
+        assertThat(index.search(Field.NAME, "pessoa 10")).containsExactly(101L, 103L, 105L, 107L, 109L, 1001L, 1003L, 1005L, 1007L, 1009L);
+        assertThat(index.search(Field.EMAIL, "p2011@")).containsExactly(2011L);
+        assertThat(index.search(Field.CPF, "00000000012")).isEmpty();
+        assertThat(index.search(Field.NAME, "joao")).containsExactly(1L, 2L);
+    }
+}
@@ -0,0 +1,112 @@
+package br.sc.provapesquisador.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import br.sc.provapesquisador.service.criteria.PessoaCriteria;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyReferenceException;
+
+class PessoaQueryPlannerTest {
+
+    private PessoaQueryPlanner planner;
+
+    @BeforeEach
+    public void setup() {
+        planner = new PessoaQueryPlanner();
+    }
+
+    @Test
+    void testPlanSharesTheShapeOfTheSameFilters() {
+        PessoaCriteria first = new PessoaCriteria();
+        first.name().setContains("João");
+        PessoaCriteria second = new PessoaCriteria();
+        second.name().setContains("Maria");
+
+        PessoaQueryPlanner.Plan firstPlan = planner.plan(first);
+        PessoaQueryPlanner.Plan secondPlan = planner.plan(second);
+
+        assertThat(secondPlan.getShape()).isSameAs(firstPlan.getShape());
+        assertThat(firstPlan.getParameters()).containsExactly("%joao%");
+        assertThat(secondPlan.getParameters()).containsExactly("%maria%");
+    }
+
+    @Test
+    void testPlanOrdersConditionsBySelectivity() {
+        PessoaCriteria criteria = new PessoaCriteria();
+        criteria.excluded().setEquals(false);
+        criteria.name().setNotEquals("Ana");
+        criteria.email().setContains("Example.COM");
+        criteria.birthDate().setGreaterThan(LocalDate.of(2000, 1, 1));
+        criteria.cpf().setEquals("12345678901");
+
+        PessoaQueryPlanner.Plan plan = planner.plan(criteria);
+
+        assertThat(plan.getShape().getCountJpql())
+            .isEqualTo(
+                "select count(p) from Pessoa p where p.cpf = ?1 and p.birthDate > ?2 and lower(p.email) like ?3 " +
+                "and p.excluded = ?4 and p.name <> ?5"
+            );
+        assertThat(plan.getParameters()).containsExactly("12345678901", LocalDate.of(2000, 1, 1), "%example.com%", false, "Ana");
+    }
+
+    @Test
+    void testPlanNormalizesCriteria() {
+        PessoaCriteria criteria = new PessoaCriteria();
+        criteria.setDistinct(true);
+        criteria.id().setSpecified(true);
+        criteria.email().setIn(List.of("ana@example.com", "ana@example.com"));
+        criteria.birthDate().setGreaterThanOrEqual(LocalDate.of(2000, 1, 1));
+        criteria.birthDate().setLessThanOrEqual(LocalDate.of(2000, 12, 31));
+        criteria.excluded().setSpecified(false);
+
+        PessoaQueryPlanner.Plan plan = planner.plan(criteria);
+
+        assertThat(plan.getShape().getCountJpql())
+            .isEqualTo("select count(p) from Pessoa p where p.email = ?1 and p.birthDate between ?2 and ?3 and p.excluded is null");
+        assertThat(plan.getParameters()).containsExactly("ana@example.com", LocalDate.of(2000, 1, 1), LocalDate.of(2000, 12, 31));
+    }
+
+    @Test
+    void testPlanBindsInAsOneCollection() {
+        PessoaCriteria criteria = new PessoaCriteria();
+        criteria.cpf().setIn(List.of("1", "2", "1"));
+
+        PessoaQueryPlanner.Plan plan = planner.plan(criteria);
+
+        assertThat(plan.getShape().getCountJpql()).isEqualTo("select count(p) from Pessoa p where p.cpf in (?1)");
+        assertThat(plan.getParameters()).hasSize(1);
+        assertThat(plan.getParameters().get(0)).isEqualTo(Set.of("1", "2"));
+    }
+
+    @Test
+    void testPlanDetectsUnsatisfiableCriteria() {
+        PessoaCriteria emptyIn = new PessoaCriteria();
+        emptyIn.cpf().setIn(List.of());
+        PessoaCriteria mandatoryNotSpecified = new PessoaCriteria();
+        mandatoryNotSpecified.name().setSpecified(false);
+
+        assertThat(planner.plan(emptyIn).isUnsatisfiable()).isTrue();
+        assertThat(planner.plan(mandatoryNotSpecified).isUnsatisfiable()).isTrue();
+        assertThat(planner.plan(new PessoaCriteria()).isUnsatisfiable()).isFalse();
+        assertThat(planner.plan(null).getShape().getCountJpql()).isEqualTo("select count(p) from Pessoa p");
+    }
+
+    @Test
+    void testShapeSortsThenOrdersById() {
+        PessoaCriteria criteria = new PessoaCriteria();
+        criteria.excluded().setEquals(false);
+        PessoaQueryPlanner.Plan plan = planner.plan(criteria);
+
+        assertThat(plan.getShape().getSelectJpql(Sort.by(Sort.Order.desc("name").ignoreCase())))
+            .isEqualTo("select p from Pessoa p where p.excluded = ?1 order by lower(p.name) desc, p.id asc");
+        assertThat(plan.getShape().getSelectJpql(Sort.by("birthDate", "id")))
+            .isEqualTo("select p from Pessoa p where p.excluded = ?1 order by p.birthDate asc, p.id asc");
+        assertThatThrownBy(() -> plan.getShape().getSelectJpql(Sort.by("avatarHash"))).isInstanceOf(PropertyReferenceException.class);
+    }
+}
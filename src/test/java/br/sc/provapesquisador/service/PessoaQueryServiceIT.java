@@ -0,0 +1,120 @@
+package br.sc.provapesquisador.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.sc.provapesquisador.IntegrationTest;
+import br.sc.provapesquisador.domain.Pessoa;
+import br.sc.provapesquisador.repository.PessoaRepository;
+import br.sc.provapesquisador.service.criteria.PessoaCriteria;
+import br.sc.provapesquisador.service.dto.PessoaDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests of the query cache of {@link PessoaQueryService}.
+ * <p>
+ * Not transactional: cached results are only invalidated by committed writes. The second-level cache, disabled for
+ * the other tests, is enabled for this class.
+ */
+@IntegrationTest
+@TestPropertySource(
+    properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true",
+    }
+)
+class PessoaQueryServiceIT {
+
+    private static final String CPF_PREFIX = "9200000000";
+
+    @Autowired
+    private PessoaQueryService pessoaQueryService;
+
+    @Autowired
+    private PessoaService pessoaService;
+
+    @Autowired
+    private PessoaRepository pessoaRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void cleanup() {
+        pessoaRepository.deleteAll(
+            pessoaRepository.findAll().stream().filter(p -> p.getCpf().startsWith(CPF_PREFIX)).collect(Collectors.toList())
+        );
+    }
+
+    @Test
+    void cachesSearchesUntilAPessoaIsWritten() {
+        PessoaDTO pessoa = pessoaService.save(pessoa("Zuleica Quaresma", "1"));
+        PessoaCriteria criteria = nameContains("QUARESMA");
+        PageRequest page = PageRequest.of(0, 10);
+
+        assertThat(pessoaQueryService.countByCriteria(criteria)).isEqualTo(1);
+        double hits = hitCount();
+        assertThat(pessoaQueryService.countByCriteria(nameContains("quarêsma"))).isEqualTo(1);
+        assertThat(pessoaQueryService.findAll(criteria, page)).extracting(Pessoa::getName).containsExactly("Zuleica Quaresma");
+        assertThat(pessoaQueryService.findAll(criteria, page)).extracting(Pessoa::getName).containsExactly("Zuleica Quaresma");
+        // the normalized criteria share the cached count, then the second page read hits
+        assertThat(hitCount()).isEqualTo(hits + 2);
+
+        pessoa.setName("Zuleica Bastos");
+        pessoaService.update(pessoa);
+
+        assertThat(pessoaQueryService.countByCriteria(criteria)).isZero();
+        assertThat(pessoaQueryService.findAll(criteria, page)).isEmpty();
+    }
+
+    @Test
+    void invalidatesSearchesOnBulkInserts() {
+        PessoaCriteria criteria = nameContains("Quaresma");
+        assertThat(pessoaQueryService.countByCriteria(criteria)).isZero();
+        assertThat(pessoaQueryService.countByCriteria(criteria)).isZero();
+
+        new TransactionTemplate(transactionManager)
+            .executeWithoutResult(status -> {
+                long id = pessoaRepository.allocateIds(1)[0];
+                Pessoa pessoa = new Pessoa().id(id).name("Yara Quaresma").cpf(CPF_PREFIX + "2").email("2@example.com").excluded(false);
+                pessoaRepository.insertAll(List.of(pessoa));
+            });
+
+        assertThat(pessoaQueryService.countByCriteria(criteria)).isEqualTo(1);
+    }
+
+    private double hitCount() {
+        return meterRegistry
+            .get("hibernate.query.cache.requests")
+            .tag("region", PessoaRepository.QUERY_CACHE)
+            .tag("result", "hit")
+            .functionCounter()
+            .count();
+    }
+
+    private static PessoaCriteria nameContains(String name) {
+        PessoaCriteria criteria = new PessoaCriteria();
+        criteria.name().setContains(name);
+        return criteria;
+    }
+
+    private static PessoaDTO pessoa(String name, String cpfSuffix) {
+        PessoaDTO pessoa = new PessoaDTO();
+        pessoa.setName(name);
+        pessoa.setCpf(CPF_PREFIX + cpfSuffix);
+        pessoa.setEmail(cpfSuffix + "@example.com");
+        pessoa.setExcluded(false);
+        return pessoa;
+    }
+}
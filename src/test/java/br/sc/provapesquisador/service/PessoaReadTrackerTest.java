@@ -0,0 +1,75 @@
+package br.sc.provapesquisador.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.sc.provapesquisador.config.ApplicationProperties;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PessoaReadTrackerTest {
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+
+    private PessoaReadTracker tracker;
+
+    @BeforeEach
+    public void setup() {
+        file = directory.resolve("reads").resolve("pessoa-reads.txt");
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getCache().getWarmUp().setPessoas(2);
+        applicationProperties.getCache().getWarmUp().setPessoaReadsFile(file.toString());
+        tracker = new PessoaReadTracker(applicationProperties);
+    }
+
+    @Test
+    void testHottestOrdersByReads() {
+        record(1L, 1);
+        record(2L, 3);
+        record(3L, 2);
+
+        assertThat(tracker.hottest()).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void testTracksABoundedNumberOfIds() {
+        for (long id = 1; id <= 20; id++) {
+            record(id, 1);
+        }
+        record(20L, 5);
+
+        // only 4 times the warmed up pessoas are counted, the later ids are not
+        assertThat(tracker.hottest()).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void testSnapshotWritesTheHottestAndAgesTheCounts() throws Exception {
+        record(1L, 1);
+        record(2L, 4);
+
+        tracker.snapshot();
+
+        assertThat(Files.readAllLines(file)).containsExactly("2", "1");
+        assertThat(tracker.readSnapshot()).containsExactly(2L, 1L);
+        // read once, 1 is forgotten while 2 keeps half of its reads
+        record(3L, 1);
+        assertThat(tracker.hottest()).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void testReadSnapshotWithoutFile() {
+        assertThat(tracker.readSnapshot()).isEmpty();
+    }
+
+    private void record(Long id, int times) {
+        for (int i = 0; i < times; i++) {
+            tracker.record(id);
+        }
+    }
+}
@@ -22,6 +22,8 @@ import org.springframework.data.auditing.AuditingHandler;
 import org.springframework.data.auditing.DateTimeProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.transaction.annotation.Transactional;
 import tech.jhipster.security.RandomUtil;
 
@@ -50,6 +52,12 @@ class UserServiceIT {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
     @Autowired
     private AuditingHandler auditingHandler;
 
@@ -182,4 +190,44 @@ class UserServiceIT {
         Optional<User> maybeDbUser = userRepository.findById(dbUser.getId());
         assertThat(maybeDbUser).contains(dbUser);
     }
+
+    @Test
+    @Transactional
+    void assertThatPasswordResetRevokesTheRefreshTokens() {
+        user.setResetDate(Instant.now().minus(2, ChronoUnit.HOURS));
+        user.setResetKey(RandomUtil.generateResetKey());
+        userRepository.saveAndFlush(user);
+        String refreshToken = refreshTokenService.issue(DEFAULT_LOGIN, true);
+
+        assertThat(userService.completePasswordReset("johndoe2", user.getResetKey())).isPresent();
+
+        assertThat(refreshTokenService.refresh(refreshToken)).isEmpty();
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(DEFAULT_LOGIN)
+    void assertThatPasswordChangeRevokesTheRefreshTokens() {
+        user.setPassword(passwordEncoder.encode("johndoe1"));
+        userRepository.saveAndFlush(user);
+        String refreshToken = refreshTokenService.issue(DEFAULT_LOGIN, true);
+
+        userService.changePassword("johndoe1", "johndoe2");
+
+        assertThat(refreshTokenService.refresh(refreshToken)).isEmpty();
+    }
+
+    @Test
+    @Transactional
+    void assertThatAUserRegisteredWithTheLoginOfADeletedUserDoesNotInheritItsRefreshTokens() {
+        userRepository.saveAndFlush(user);
+        String refreshToken = refreshTokenService.issue(DEFAULT_LOGIN, true);
+        String next = refreshTokenService.refresh(refreshToken).orElseThrow().getRefreshToken();
+
+        userService.deleteUser(DEFAULT_LOGIN);
+        init();
+        userRepository.saveAndFlush(user);
+
+        assertThat(refreshTokenService.refresh(next)).isEmpty();
+    }
 }
@@ -0,0 +1,70 @@
+package br.sc.provapesquisador.web.rest;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import br.sc.provapesquisador.IntegrationTest;
+import br.sc.provapesquisador.security.AuthoritiesConstants;
+import br.sc.provapesquisador.security.jwt.JWTFilter;
+import br.sc.provapesquisador.security.jwt.JwtSigningKeyStore;
+import br.sc.provapesquisador.security.jwt.TokenProvider;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration tests for the {@link JwksResource} REST controller, in the RS256 mode.
+ */
+@AutoConfigureMockMvc
+@IntegrationTest
+@TestPropertySource(
+    properties = {
+        "application.security.jwt.algorithm=RS256",
+        "application.security.jwt.key-encryption-key=a2V5LWVuY3J5cHRpb24ta2V5LW9mLXRoZS10ZXN0cy0=",
+    }
+)
+class JwksResourceIT {
+
+    @Autowired
+    private TokenProvider tokenProvider;
+
+    @Autowired
+    private JwtSigningKeyStore jwtSigningKeyStore;
+
+    @Autowired
+    private MockMvc restMockMvc;
+
+    @Test
+    void getJwks() throws Exception {
+        String kid = jwtSigningKeyStore.getSigningKey().getKid();
+
+        restMockMvc
+            .perform(get("/.well-known/jwks.json"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Cache-Control", "max-age=300, public"))
+            .andExpect(jsonPath("$.keys", hasSize(1)))
+            .andExpect(jsonPath("$.keys[0].kid").value(kid))
+            .andExpect(jsonPath("$.keys[0].kty").value("RSA"))
+            .andExpect(jsonPath("$.keys[0].alg").value("RS256"));
+    }
+
+    @Test
+    void authenticateWithRS256Token() throws Exception {
+        String token = tokenProvider.createToken(
+            new UsernamePasswordAuthenticationToken("user", "", List.of(new SimpleGrantedAuthority(AuthoritiesConstants.USER))),
+            false
+        );
+
+        restMockMvc
+            .perform(get("/api/account").header(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.login", is("user")));
+    }
+}
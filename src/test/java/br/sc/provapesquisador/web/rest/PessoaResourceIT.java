@@ -1,32 +1,52 @@
 package br.sc.provapesquisador.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import br.sc.provapesquisador.IntegrationTest;
 import br.sc.provapesquisador.domain.Pessoa;
+import br.sc.provapesquisador.domain.PessoaAvatar;
+import br.sc.provapesquisador.domain.enumeration.ImportJobStatus;
+import br.sc.provapesquisador.repository.PessoaAvatarRepository;
+import br.sc.provapesquisador.repository.PessoaImportJobRepository;
 import br.sc.provapesquisador.repository.PessoaRepository;
+import br.sc.provapesquisador.security.AuthoritiesConstants;
 import br.sc.provapesquisador.service.criteria.PessoaCriteria;
 import br.sc.provapesquisador.service.dto.PessoaDTO;
 import br.sc.provapesquisador.service.mapper.PessoaMapper;
+import com.jayway.jsonpath.JsonPath;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.ImageIO;
 import javax.persistence.EntityManager;
 import liquibase.pro.packaged.P;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Base64Utils;
 
@@ -51,6 +71,8 @@ class PessoaResourceIT {
     private static final byte[] UPDATED_AVATAR = TestUtil.createByteArray(1, "1");
     private static final String DEFAULT_AVATAR_CONTENT_TYPE = "image/jpg";
     private static final String UPDATED_AVATAR_CONTENT_TYPE = "image/png";
+    private static final String DEFAULT_AVATAR_HASH = "6e340b9cffb37a989ca544e6bb780a2c78901d3fb33738768511a30617afa01d";
+    private static final String UPDATED_AVATAR_HASH = "4bf5122f344554c53bde2ebb8cd2b7e3d1600ad631c385a5d7cce23c7785459a";
 
     private static final LocalDate DEFAULT_BIRTH_DATE = LocalDate.ofEpochDay(0L);
     private static final LocalDate UPDATED_BIRTH_DATE = LocalDate.now(ZoneId.systemDefault());
@@ -71,9 +93,18 @@ class PessoaResourceIT {
     @Autowired
     private PessoaRepository pessoaRepository;
 
+    @Autowired
+    private PessoaAvatarRepository pessoaAvatarRepository;
+
+    @Autowired
+    private PessoaImportJobRepository pessoaImportJobRepository;
+
     @Autowired
     private PessoaMapper pessoaMapper;
 
+    @Value("${application.pessoa.avatar-store.directory}")
+    private String avatarStoreDirectory;
+
     @Autowired
     private EntityManager em;
 
@@ -93,8 +124,8 @@ class PessoaResourceIT {
             .name(DEFAULT_NAME)
             .cpf(DEFAULT_CPF)
             .email(DEFAULT_EMAIL)
-            .avatar(DEFAULT_AVATAR)
             .avatarContentType(DEFAULT_AVATAR_CONTENT_TYPE)
+            .avatarHash(DEFAULT_AVATAR_HASH)
             .birthDate(DEFAULT_BIRTH_DATE)
             .excluded(DEFAULT_EXCLUDED);
         return pessoa;
@@ -111,7 +142,6 @@ class PessoaResourceIT {
             .name(UPDATED_NAME)
             .cpf(UPDATED_CPF)
             .email(UPDATED_EMAIL)
-            .avatar(UPDATED_AVATAR)
             .avatarContentType(UPDATED_AVATAR_CONTENT_TYPE)
             .birthDate(UPDATED_BIRTH_DATE)
             .excluded(UPDATED_EXCLUDED);
@@ -129,6 +159,7 @@ class PessoaResourceIT {
         int databaseSizeBeforeCreate = pessoaRepository.findAll().size();
         // Create the Pessoa
         PessoaDTO pessoaDTO = pessoaMapper.toDto(pessoa);
+        pessoaDTO.setAvatar(DEFAULT_AVATAR);
         restPessoaMockMvc
             .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(pessoaDTO)))
             .andExpect(status().isCreated());
@@ -140,8 +171,11 @@ class PessoaResourceIT {
         assertThat(testPessoa.getName()).isEqualTo(DEFAULT_NAME);
         assertThat(testPessoa.getCpf()).isEqualTo(DEFAULT_CPF);
         assertThat(testPessoa.getEmail()).isEqualTo(DEFAULT_EMAIL);
-        assertThat(testPessoa.getAvatar()).isEqualTo(DEFAULT_AVATAR);
         assertThat(testPessoa.getAvatarContentType()).isEqualTo(DEFAULT_AVATAR_CONTENT_TYPE);
+        assertThat(testPessoa.getAvatarHash()).isEqualTo(DEFAULT_AVATAR_HASH);
+        assertThat(pessoaAvatarRepository.findById(testPessoa.getId()).map(PessoaAvatar::getContent)).contains(DEFAULT_AVATAR);
+        assertThat(Paths.get(avatarStoreDirectory, DEFAULT_AVATAR_HASH.substring(0, 2), DEFAULT_AVATAR_HASH + ".jpg"))
+            .hasBinaryContent(DEFAULT_AVATAR);
         assertThat(testPessoa.getBirthDate()).isEqualTo(DEFAULT_BIRTH_DATE);
         assertThat(testPessoa.getExcluded()).isEqualTo(DEFAULT_EXCLUDED);
     }
@@ -235,7 +269,8 @@ class PessoaResourceIT {
             .andExpect(jsonPath("$.[*].cpf").value(hasItem(DEFAULT_CPF)))
             .andExpect(jsonPath("$.[*].email").value(hasItem(DEFAULT_EMAIL)))
             .andExpect(jsonPath("$.[*].avatarContentType").value(hasItem(DEFAULT_AVATAR_CONTENT_TYPE)))
-            .andExpect(jsonPath("$.[*].avatar").value(hasItem(Base64Utils.encodeToString(DEFAULT_AVATAR))))
+            .andExpect(jsonPath("$.[*].avatarUrl").value(hasItem("/avatars/" + DEFAULT_AVATAR_HASH + ".jpg")))
+            .andExpect(jsonPath("$.[*].avatar").doesNotExist())
             .andExpect(jsonPath("$.[*].birthDate").value(hasItem(DEFAULT_BIRTH_DATE.toString())))
             .andExpect(jsonPath("$.[*].excluded").value(hasItem(DEFAULT_EXCLUDED.booleanValue())));
     }
@@ -245,6 +280,7 @@ class PessoaResourceIT {
     void getPessoa() throws Exception {
         // Initialize the database
         pessoaRepository.saveAndFlush(pessoa);
+        pessoaAvatarRepository.saveAndFlush(new PessoaAvatar().id(pessoa.getId()).content(DEFAULT_AVATAR));
 
         // Get the pessoa
         restPessoaMockMvc
@@ -257,10 +293,94 @@ class PessoaResourceIT {
             .andExpect(jsonPath("$.email").value(DEFAULT_EMAIL))
             .andExpect(jsonPath("$.avatarContentType").value(DEFAULT_AVATAR_CONTENT_TYPE))
             .andExpect(jsonPath("$.avatar").value(Base64Utils.encodeToString(DEFAULT_AVATAR)))
+            .andExpect(jsonPath("$.avatarUrl").value("/avatars/" + DEFAULT_AVATAR_HASH + ".jpg"))
             .andExpect(jsonPath("$.birthDate").value(DEFAULT_BIRTH_DATE.toString()))
             .andExpect(jsonPath("$.excluded").value(DEFAULT_EXCLUDED.booleanValue()));
     }
 
+    @Test
+    @Transactional
+    void getPessoaAvatar() throws Exception {
+        // Initialize the database
+        pessoaRepository.saveAndFlush(pessoa);
+        pessoaAvatarRepository.saveAndFlush(new PessoaAvatar().id(pessoa.getId()).content(DEFAULT_AVATAR));
+
+        restPessoaMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/avatar?v={version}", pessoa.getId(), DEFAULT_AVATAR_HASH))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(DEFAULT_AVATAR_CONTENT_TYPE))
+            .andExpect(content().bytes(DEFAULT_AVATAR))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + DEFAULT_AVATAR_HASH + "\""))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, private"));
+
+        restPessoaMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/avatar", pessoa.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"));
+    }
+
+    @Test
+    @Transactional
+    void getPessoaAvatarThumbnail() throws Exception {
+        // Initialize the database
+        pessoaRepository.saveAndFlush(pessoa);
+        pessoaAvatarRepository.saveAndFlush(new PessoaAvatar().id(pessoa.getId()).content(DEFAULT_AVATAR));
+
+        // the default avatar is not an image, and 1024 is larger than the thumbnails: both get the original
+        restPessoaMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/avatar?size={size}", pessoa.getId(), 48))
+            .andExpect(status().isOk())
+            .andExpect(content().bytes(DEFAULT_AVATAR))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + DEFAULT_AVATAR_HASH + "\""));
+        restPessoaMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/avatar?size={size}", pessoa.getId(), 1024))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(DEFAULT_AVATAR_CONTENT_TYPE))
+            .andExpect(content().bytes(DEFAULT_AVATAR));
+
+        ByteArrayOutputStream image = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(300, 150, BufferedImage.TYPE_INT_RGB), "png", image);
+        String hash = new BigInteger(1, MessageDigest.getInstance("SHA-256").digest(image.toByteArray())).toString(16);
+        hash = "0".repeat(64 - hash.length()) + hash;
+        pessoaRepository.saveAndFlush(pessoa.avatarHash(hash).avatarContentType("image/png"));
+        pessoaAvatarRepository.saveAndFlush(pessoaAvatarRepository.findById(pessoa.getId()).get().content(image.toByteArray()));
+
+        MvcResult result = restPessoaMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/avatar?size={size}", pessoa.getId(), 100))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.IMAGE_PNG))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + hash + "-128\""))
+            .andReturn();
+        assertThat(ImageIO.read(new ByteArrayInputStream(result.getResponse().getContentAsByteArray())))
+            .extracting("width", "height")
+            .containsExactly(128, 64);
+    }
+
+    @Test
+    @Transactional
+    void getPessoaAvatarNotModified() throws Exception {
+        // Initialize the database
+        pessoaRepository.saveAndFlush(pessoa);
+        pessoaAvatarRepository.saveAndFlush(new PessoaAvatar().id(pessoa.getId()).content(DEFAULT_AVATAR));
+
+        restPessoaMockMvc
+            .perform(
+                get(ENTITY_API_URL_ID + "/avatar", pessoa.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"" + DEFAULT_AVATAR_HASH + "\"")
+            )
+            .andExpect(status().isNotModified())
+            .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    @Transactional
+    void getNonExistingPessoaAvatar() throws Exception {
+        // Initialize the database
+        pessoaRepository.saveAndFlush(pessoa.avatarHash(null));
+
+        restPessoaMockMvc.perform(get(ENTITY_API_URL_ID + "/avatar", pessoa.getId())).andExpect(status().isNotFound());
+        restPessoaMockMvc.perform(get(ENTITY_API_URL_ID + "/avatar", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
     /**
      * Executes the search, and checks that the default entity is returned.
      */
@@ -274,7 +394,8 @@ class PessoaResourceIT {
             .andExpect(jsonPath("$.[*].cpf").value(hasItem(DEFAULT_CPF)))
             .andExpect(jsonPath("$.[*].email").value(hasItem(DEFAULT_EMAIL)))
             .andExpect(jsonPath("$.[*].avatarContentType").value(hasItem(DEFAULT_AVATAR_CONTENT_TYPE)))
-            .andExpect(jsonPath("$.[*].avatar").value(hasItem(Base64Utils.encodeToString(DEFAULT_AVATAR))))
+            .andExpect(jsonPath("$.[*].avatarUrl").value(hasItem("/avatars/" + DEFAULT_AVATAR_HASH + ".jpg")))
+            .andExpect(jsonPath("$.[*].avatar").doesNotExist())
             .andExpect(jsonPath("$.[*].birthDate").value(hasItem(DEFAULT_BIRTH_DATE.toString())))
             .andExpect(jsonPath("$.[*].excluded").value(hasItem(DEFAULT_EXCLUDED.booleanValue())));
 
@@ -305,6 +426,114 @@ class PessoaResourceIT {
             .andExpect(content().string("0"));
     }
 
+    @Test
+    @Transactional
+    void getPessoasByIdFiltering() throws Exception {
+        // Initialize the database
+        pessoaRepository.saveAndFlush(pessoa);
+
+        Long id = pessoa.getId();
+
+        defaultPessoaShouldBeFound("id.equals=" + id);
+        defaultPessoaShouldNotBeFound("id.notEquals=" + id);
+
+        defaultPessoaShouldBeFound("id.greaterThanOrEqual=" + id + "&id.lessThanOrEqual=" + id);
+        defaultPessoaShouldNotBeFound("id.greaterThan=" + id);
+
+        defaultPessoaShouldBeFound("id.lessThanOrEqual=" + id);
+        defaultPessoaShouldNotBeFound("id.lessThan=" + id);
+    }
+
+    @Test
+    @Transactional
+    void getAllPessoasByNameIsEqualToSomething() throws Exception {
+        // Initialize the database
+        pessoaRepository.saveAndFlush(pessoa);
+
+        // Get all the pessoaList where name equals to DEFAULT_NAME
+        defaultPessoaShouldBeFound("name.equals=" + DEFAULT_NAME);
+
+        // Get all the pessoaList where name equals to UPDATED_NAME
+        defaultPessoaShouldNotBeFound("name.equals=" + UPDATED_NAME);
+    }
+
+    @Test
+    @Transactional
+    void getAllPessoasByNameContainsSomething() throws Exception {
+        // Initialize the database
+        pessoaRepository.saveAndFlush(pessoa);
+
+        // Get all the pessoaList where name contains DEFAULT_NAME, ignoring case
+        defaultPessoaShouldBeFound("id.equals=" + pessoa.getId() + "&name.contains=" + DEFAULT_NAME.toLowerCase());
+
+        // Get all the pessoaList where name contains UPDATED_NAME
+        defaultPessoaShouldNotBeFound("id.equals=" + pessoa.getId() + "&name.contains=" + UPDATED_NAME);
+    }
+
+    @Test
+    @Transactional
+    void getAllPessoasByCpfIsInShouldWork() throws Exception {
+        // Initialize the database
+        pessoaRepository.saveAndFlush(pessoa);
+
+        // Get all the pessoaList where cpf in DEFAULT_CPF or UPDATED_CPF
+        defaultPessoaShouldBeFound("cpf.in=" + DEFAULT_CPF + "," + UPDATED_CPF);
+
+        // Get all the pessoaList where cpf equals to UPDATED_CPF
+        defaultPessoaShouldNotBeFound("cpf.in=" + UPDATED_CPF);
+    }
+
+    @Test
+    @Transactional
+    void getAllPessoasByEmailDoesNotContainSomething() throws Exception {
+        // Initialize the database
+        pessoaRepository.saveAndFlush(pessoa);
+
+        // Get all the pessoaList where email does not contain DEFAULT_EMAIL
+        defaultPessoaShouldNotBeFound("id.equals=" + pessoa.getId() + "&email.doesNotContain=" + DEFAULT_EMAIL);
+
+        // Get all the pessoaList where email does not contain UPDATED_EMAIL
+        defaultPessoaShouldBeFound("id.equals=" + pessoa.getId() + "&email.doesNotContain=" + UPDATED_EMAIL);
+    }
+
+    @Test
+    @Transactional
+    void getAllPessoasByBirthDateIsInRange() throws Exception {
+        // Initialize the database
+        pessoaRepository.saveAndFlush(pessoa);
+
+        Long id = pessoa.getId();
+
+        defaultPessoaShouldBeFound(
+            "id.equals=" + id + "&birthDate.greaterThanOrEqual=" + SMALLER_BIRTH_DATE + "&birthDate.lessThanOrEqual=" + DEFAULT_BIRTH_DATE
+        );
+        defaultPessoaShouldNotBeFound("id.equals=" + id + "&birthDate.greaterThan=" + DEFAULT_BIRTH_DATE);
+        defaultPessoaShouldBeFound("id.equals=" + id + "&birthDate.specified=true");
+        defaultPessoaShouldNotBeFound("id.equals=" + id + "&birthDate.specified=false");
+    }
+
+    @Test
+    @Transactional
+    void getAllPessoasByExcludedIsEqualToSomething() throws Exception {
+        // Initialize the database
+        pessoa.setExcluded(UPDATED_EXCLUDED);
+        pessoaRepository.saveAndFlush(pessoa);
+
+        // excluded pessoas are only listed when asked for
+        restPessoaMockMvc
+            .perform(get(ENTITY_API_URL + "?id.equals=" + pessoa.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty());
+        restPessoaMockMvc
+            .perform(get(ENTITY_API_URL + "?id.equals=" + pessoa.getId() + "&excluded.equals=" + UPDATED_EXCLUDED))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(pessoa.getId().intValue())));
+        restPessoaMockMvc
+            .perform(get(ENTITY_API_URL + "?id.equals=" + pessoa.getId() + "&excluded.equals=" + DEFAULT_EXCLUDED))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty());
+    }
+
     /**
      * Teste para verificar o salvamento e o getExistingPessoaStartNameWithA.
      * @throws Exception
@@ -350,7 +579,6 @@ class PessoaResourceIT {
             .name(UPDATED_NAME)
             .cpf(UPDATED_CPF)
             .email(UPDATED_EMAIL)
-            .avatar(UPDATED_AVATAR)
             .avatarContentType(UPDATED_AVATAR_CONTENT_TYPE)
             .birthDate(UPDATED_BIRTH_DATE)
             .excluded(UPDATED_EXCLUDED);
@@ -389,7 +617,6 @@ class PessoaResourceIT {
             .name(UPDATED_NAME)
             .cpf(UPDATED_CPF)
             .email(UPDATED_EMAIL)
-            .avatar(UPDATED_AVATAR)
             .avatarContentType(UPDATED_AVATAR_CONTENT_TYPE)
             .birthDate(UPDATED_BIRTH_DATE)
             .excluded(UPDATED_EXCLUDED);
@@ -429,7 +656,6 @@ class PessoaResourceIT {
             .name(UPDATED_NAME)
             .cpf(UPDATED_CPF)
             .email(UPDATED_EMAIL)
-            .avatar(UPDATED_AVATAR)
             .avatarContentType(UPDATED_AVATAR_CONTENT_TYPE)
             .birthDate(UPDATED_BIRTH_DATE)
             .excluded(UPDATED_EXCLUDED);
@@ -440,6 +666,355 @@ class PessoaResourceIT {
         assertThat(pessoa1.getEmail() != pessoaList.get(0).getEmail());
     }
 
+    @Test
+    @Transactional
+    void searchPessoaByNameIgnoresCaseAndAccents() throws Exception {
+        pessoaRepository.saveAndFlush(pessoa.name("João Conceição"));
+        Pessoa other = createUpdatedEntity(em).name("Maria Joãozinho").excluded(false);
+        pessoaRepository.saveAndFlush(other);
+
+        restPessoaMockMvc
+            .perform(get("/api/pessoas-search-name/?name=JOAO"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$.[0].id").value(pessoa.getId().intValue()))
+            .andExpect(jsonPath("$.[1].id").value(other.getId().intValue()));
+
+        restPessoaMockMvc
+            .perform(get("/api/pessoas-search-name/?name=conceicao"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(pessoa.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    void getAllPessoasWithKeysetPagination() throws Exception {
+        pessoaRepository.saveAndFlush(pessoa.name("Carla"));
+        Pessoa second = pessoaRepository.saveAndFlush(createEntity(em).name("Bruno").cpf("CCCCCCCCCC"));
+        Pessoa third = pessoaRepository.saveAndFlush(createEntity(em).name("Bruno").cpf("DDDDDDDDDD"));
+        Pessoa excluded = pessoaRepository.saveAndFlush(createEntity(em).name("Ana").cpf("EEEEEEEEEE").excluded(true));
+
+        MvcResult firstPage = restPessoaMockMvc
+            .perform(get(ENTITY_API_URL + "?after=&size=2&sort=name,asc"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$.[0].id").value(second.getId().intValue()))
+            .andExpect(jsonPath("$.[1].id").value(third.getId().intValue()))
+            .andReturn();
+
+        String next = firstPage.getResponse().getHeader(HttpHeaders.LINK);
+        assertThat(next).endsWith(">; rel=\"next\"");
+        String nextUrl = next.substring(next.indexOf('<') + 1, next.indexOf('>'));
+
+        restPessoaMockMvc
+            .perform(get(nextUrl))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.LINK))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(pessoa.getId().intValue()))
+            .andExpect(jsonPath("$.[*].id").value(not(hasItem(excluded.getId().intValue()))));
+    }
+
+    @Test
+    @Transactional
+    void getAllPessoasWithKeysetPaginationOnANullableProperty() throws Exception {
+        pessoaRepository.saveAndFlush(pessoa.birthDate(LocalDate.of(1990, 1, 1)));
+        Pessoa undated = pessoaRepository.saveAndFlush(createEntity(em).cpf("CCCCCCCCCC").birthDate(null));
+        Pessoa older = pessoaRepository.saveAndFlush(createEntity(em).cpf("DDDDDDDDDD").birthDate(LocalDate.of(1980, 1, 1)));
+
+        assertThat(readKeysetPages("birthDate,asc")).containsExactly(older.getId(), pessoa.getId(), undated.getId());
+        // nulls are greater than any date
+        assertThat(readKeysetPages("birthDate,desc")).containsExactly(undated.getId(), pessoa.getId(), older.getId());
+    }
+
+    private List<Long> readKeysetPages(String sort) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String url = ENTITY_API_URL + "?after=&size=1&sort=" + sort;
+        while (url != null) {
+            MvcResult page = restPessoaMockMvc.perform(get(url)).andExpect(status().isOk()).andReturn();
+            List<Integer> pageIds = JsonPath.read(page.getResponse().getContentAsString(), "$.[*].id");
+            pageIds.forEach(id -> ids.add(id.longValue()));
+            String next = page.getResponse().getHeader(HttpHeaders.LINK);
+            url = next != null ? next.substring(next.indexOf('<') + 1, next.indexOf('>')) : null;
+        }
+        return ids;
+    }
+
+    @Test
+    @Transactional
+    void searchPessoaByInvalidBirthDate() throws Exception {
+        restPessoaMockMvc.perform(get("/api/pessoas-search-birthdate/?birthDate=1990-13-01")).andExpect(status().isBadRequest());
+        restPessoaMockMvc.perform(get("/api/pessoas-search-birthdate/?birthDate=yesterday&after=")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void filterPessoasAlikeInEveryMode() throws Exception {
+        pessoaRepository.saveAndFlush(pessoa.name("João Conceição"));
+        pessoaRepository.saveAndFlush(createEntity(em).name("Joao Excluído").cpf("CCCCCCCCCC").excluded(true));
+
+        restPessoaMockMvc
+            .perform(get(ENTITY_API_URL + "?name.contains=joao"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(pessoa.getId().intValue()));
+        restPessoaMockMvc
+            .perform(get(ENTITY_API_URL + "?name.contains=joao&after="))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(pessoa.getId().intValue()));
+        restPessoaMockMvc
+            .perform(get(ENTITY_API_URL + "/count?name.contains=joao"))
+            .andExpect(status().isOk())
+            .andExpect(content().string("1"));
+        String export = restPessoaMockMvc
+            .perform(get(ENTITY_API_URL + "/export?name.contains=joao"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        assertThat(export.split("\n")).hasSize(1);
+        assertThat(export).startsWith("{\"id\":" + pessoa.getId() + ",");
+
+        restPessoaMockMvc
+            .perform(get(ENTITY_API_URL + "/count?name.contains=joao&excluded.specified=true"))
+            .andExpect(status().isOk())
+            .andExpect(content().string("2"));
+    }
+
+    @Test
+    @Transactional
+    void getAllPessoasWithInvalidCursor() throws Exception {
+        restPessoaMockMvc.perform(get(ENTITY_API_URL + "?after=invalid")).andExpect(status().isBadRequest());
+        restPessoaMockMvc.perform(get(ENTITY_API_URL + "?after=&sort=avatar,asc")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void exportPessoasAsNdjson() throws Exception {
+        pessoaRepository.saveAndFlush(pessoa);
+        Pessoa other = pessoaRepository.saveAndFlush(createEntity(em).name("Bruno \"B\"").cpf("CCCCCCCCCC").avatarHash(null));
+
+        String body = restPessoaMockMvc
+            .perform(get(ENTITY_API_URL + "/export?id.in={first},{second}", pessoa.getId(), other.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+            .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"pessoas.ndjson\""))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+        assertThat(body.split("\n"))
+            .containsExactly(
+                "{\"id\":" +
+                pessoa.getId() +
+                ",\"name\":\"" +
+                DEFAULT_NAME +
+                "\",\"cpf\":\"" +
+                DEFAULT_CPF +
+                "\",\"email\":\"" +
+                DEFAULT_EMAIL +
+                "\",\"birthDate\":\"" +
+                DEFAULT_BIRTH_DATE +
+                "\",\"excluded\":false,\"avatarUrl\":\"/avatars/" +
+                DEFAULT_AVATAR_HASH +
+                ".jpg\"}",
+                "{\"id\":" +
+                other.getId() +
+                ",\"name\":\"Bruno \\\"B\\\"\",\"cpf\":\"CCCCCCCCCC\",\"email\":\"" +
+                DEFAULT_EMAIL +
+                "\",\"birthDate\":\"" +
+                DEFAULT_BIRTH_DATE +
+                "\",\"excluded\":false,\"avatarUrl\":null}"
+            );
+        assertThat(body).endsWith("\n");
+    }
+
+    @Test
+    @Transactional
+    void exportPessoasAsCsv() throws Exception {
+        pessoaRepository.saveAndFlush(pessoa.name("Silva, \"Ana\""));
+        pessoaRepository.saveAndFlush(createEntity(em).cpf("CCCCCCCCCC"));
+
+        restPessoaMockMvc
+            .perform(get(ENTITY_API_URL + "/export?format=csv&id.equals={id}", pessoa.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("text/csv;charset=UTF-8"))
+            .andExpect(
+                content()
+                    .string(
+                        "id,name,cpf,email,birthDate,excluded,avatarUrl\r\n" +
+                        pessoa.getId() +
+                        ",\"Silva, \"\"Ana\"\"\"," +
+                        DEFAULT_CPF +
+                        "," +
+                        DEFAULT_EMAIL +
+                        "," +
+                        DEFAULT_BIRTH_DATE +
+                        ",false,/avatars/" +
+                        DEFAULT_AVATAR_HASH +
+                        ".jpg\r\n"
+                    )
+            );
+
+        restPessoaMockMvc
+            .perform(get(ENTITY_API_URL + "/export?format=csv&id.equals={id}", Long.MAX_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(content().string("id,name,cpf,email,birthDate,excluded,avatarUrl\r\n"));
+    }
+
+    @Test
+    @Transactional
+    void exportPessoasWithUnknownFormat() throws Exception {
+        restPessoaMockMvc.perform(get(ENTITY_API_URL + "/export?format=xml")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    void importPessoasAsNdjson() throws Exception {
+        pessoaRepository.saveAndFlush(pessoa);
+        int databaseSizeBeforeImport = pessoaRepository.findAll().size();
+
+        String body =
+            "{\"id\":1,\"name\":\"Ana\",\"cpf\":\"11111111111\",\"email\":\"ana@example.com\",\"birthDate\":\"1990-01-02\"}\n" +
+            "\n" +
+            "{\"name\":\"Bruno\",\"cpf\":\"" +
+            DEFAULT_CPF +
+            "\",\"email\":\"bruno@example.com\"}\n" +
+            "{\"name\":\"Carla\",\"cpf\":\"22222222222\"}\n" +
+            "{\"name\":\"Dora\",\"cpf\":\"11111111111\",\"email\":\"dora@example.com\"}\n" +
+            "{\"name\":\"Eva\",\"cpf\":\"33333333333\",\"email\":\"eva@example.com\",\"excluded\":true}\n" +
+            "{\"name\":\n";
+
+        restPessoaMockMvc
+            .perform(post(ENTITY_API_URL + "/import").contentType("application/x-ndjson").content(body))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(2))
+            .andExpect(jsonPath("$.rejected").value(4))
+            .andExpect(jsonPath("$.errors.[*].line").value(contains(3, 4, 5, 7)))
+            .andExpect(jsonPath("$.errors.[0].message").value("cpf: already exists"))
+            .andExpect(jsonPath("$.errors.[1].message").value("email: must not be null"))
+            .andExpect(jsonPath("$.errors.[2].message").value("cpf: already imported on line 1"))
+            .andExpect(jsonPath("$.errors.[3].message").value(startsWith("invalid JSON")));
+
+        List<Pessoa> pessoaList = pessoaRepository.findAll();
+        assertThat(pessoaList).hasSize(databaseSizeBeforeImport + 2);
+        Pessoa ana = pessoaList.stream().filter(p -> p.getCpf().equals("11111111111")).findFirst().orElseThrow();
+        assertThat(ana.getId()).isNotEqualTo(1L);
+        assertThat(ana.getName()).isEqualTo("Ana");
+        assertThat(ana.getEmail()).isEqualTo("ana@example.com");
+        assertThat(ana.getBirthDate()).isEqualTo(LocalDate.of(1990, 1, 2));
+        assertThat(ana.getExcluded()).isFalse();
+        Pessoa eva = pessoaList.stream().filter(p -> p.getCpf().equals("33333333333")).findFirst().orElseThrow();
+        assertThat(eva.getExcluded()).isTrue();
+        assertThat(eva.getId()).isNotEqualTo(ana.getId());
+
+        // the imported rows are found by the name search
+        restPessoaMockMvc
+            .perform(get("/api/pessoas-search-name/?name=ana"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(ana.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    void importPessoasAsCsv() throws Exception {
+        int databaseSizeBeforeImport = pessoaRepository.findAll().size();
+
+        String body =
+            "\uFEFFid,name,cpf,email,birthDate,excluded,avatarUrl\r\n" +
+            "7,\"Silva, \"\"Ana\"\"\",44444444444,ana@example.com,1990-01-02,false,/avatars/x.png\r\n" +
+            "8,Bruno,55555555555,bruno@example.com,02/01/1990,,\r\n" +
+            "9,\"Carla\nSouza\",66666666666,carla@example.com,,,\r\n" +
+            "\r\n";
+
+        restPessoaMockMvc
+            .perform(post(ENTITY_API_URL + "/import?format=csv").contentType("text/csv").content(body))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(2))
+            .andExpect(jsonPath("$.rejected").value(1))
+            .andExpect(jsonPath("$.errors.[0].line").value(3))
+            .andExpect(jsonPath("$.errors.[0].message").value("birthDate: not a yyyy-MM-dd date"));
+
+        List<Pessoa> pessoaList = pessoaRepository.findAll();
+        assertThat(pessoaList).hasSize(databaseSizeBeforeImport + 2);
+        assertThat(pessoaList).extracting(Pessoa::getName).contains("Silva, \"Ana\"", "Carla\nSouza");
+    }
+
+    @Test
+    @Transactional
+    void importPessoasIsForbiddenToUsers() throws Exception {
+        restPessoaMockMvc
+            .perform(post(ENTITY_API_URL + "/import").contentType("application/x-ndjson").content("{}"))
+            .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    void importPessoasWithUnknownFormat() throws Exception {
+        restPessoaMockMvc.perform(post(ENTITY_API_URL + "/import?format=xml").content("")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    void submitImportJob() throws Exception {
+        // not transactional: the job runs on the import executor, and only rejected rows are committed
+        String body = "{\"name\":\"Ana\"}\n{\"name\":\n";
+
+        MvcResult result = restPessoaMockMvc
+            .perform(post(ENTITY_API_URL + "/import-jobs").contentType("application/x-ndjson").content(body))
+            .andExpect(status().isAccepted())
+            .andExpect(header().string(HttpHeaders.LOCATION, startsWith("/api/pessoas/import-jobs/")))
+            .andExpect(jsonPath("$.id").isNumber())
+            .andReturn();
+        Long id = ((Number) JsonPath.read(result.getResponse().getContentAsString(), "$.id")).longValue();
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!pessoaImportJobRepository.findById(id).orElseThrow().getStatus().equals(ImportJobStatus.COMPLETED)) {
+            assertThat(System.currentTimeMillis()).as("job end").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+
+        restPessoaMockMvc
+            .perform(get(ENTITY_API_URL + "/import-jobs/{id}", id))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("COMPLETED"))
+            .andExpect(jsonPath("$.rowsProcessed").value(2))
+            .andExpect(jsonPath("$.rowsImported").value(0))
+            .andExpect(jsonPath("$.rowsRejected").value(2))
+            .andExpect(jsonPath("$.rowsPerSecond").isNumber());
+        restPessoaMockMvc
+            .perform(get(ENTITY_API_URL + "/import-jobs/{id}/errors", id))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/x-ndjson"))
+            .andExpect(
+                content().string(startsWith("{\"line\":1,\"message\":\"cpf: must not be null; email: must not be null\"}\n{\"line\":2,"))
+            );
+        pessoaImportJobRepository.deleteById(id);
+    }
+
+    @Test
+    @Transactional
+    void submitImportJobIsForbiddenToUsers() throws Exception {
+        restPessoaMockMvc
+            .perform(post(ENTITY_API_URL + "/import-jobs").contentType("application/x-ndjson").content("{}"))
+            .andExpect(status().isForbidden());
+        restPessoaMockMvc.perform(get(ENTITY_API_URL + "/import-jobs/{id}", 1L)).andExpect(status().isForbidden());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    void getNonExistingImportJob() throws Exception {
+        restPessoaMockMvc.perform(get(ENTITY_API_URL + "/import-jobs/{id}", Long.MAX_VALUE)).andExpect(status().isNotFound());
+        restPessoaMockMvc.perform(get(ENTITY_API_URL + "/import-jobs/{id}/errors", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
     @Test
     @Transactional
     void getNonExistingPessoa() throws Exception {
@@ -463,11 +1038,11 @@ class PessoaResourceIT {
             .name(UPDATED_NAME)
             .cpf(UPDATED_CPF)
             .email(UPDATED_EMAIL)
-            .avatar(UPDATED_AVATAR)
             .avatarContentType(UPDATED_AVATAR_CONTENT_TYPE)
             .birthDate(UPDATED_BIRTH_DATE)
             .excluded(UPDATED_EXCLUDED);
         PessoaDTO pessoaDTO = pessoaMapper.toDto(updatedPessoa);
+        pessoaDTO.setAvatar(UPDATED_AVATAR);
 
         restPessoaMockMvc
             .perform(
@@ -484,8 +1059,9 @@ class PessoaResourceIT {
         assertThat(testPessoa.getName()).isEqualTo(UPDATED_NAME);
         assertThat(testPessoa.getCpf()).isEqualTo(UPDATED_CPF);
         assertThat(testPessoa.getEmail()).isEqualTo(UPDATED_EMAIL);
-        assertThat(testPessoa.getAvatar()).isEqualTo(UPDATED_AVATAR);
         assertThat(testPessoa.getAvatarContentType()).isEqualTo(UPDATED_AVATAR_CONTENT_TYPE);
+        assertThat(testPessoa.getAvatarHash()).isEqualTo(UPDATED_AVATAR_HASH);
+        assertThat(pessoaAvatarRepository.findById(testPessoa.getId()).map(PessoaAvatar::getContent)).contains(UPDATED_AVATAR);
         assertThat(testPessoa.getBirthDate()).isEqualTo(UPDATED_BIRTH_DATE);
         assertThat(testPessoa.getExcluded()).isEqualTo(UPDATED_EXCLUDED);
     }
@@ -570,16 +1146,17 @@ class PessoaResourceIT {
         partialUpdatedPessoa
             .name(UPDATED_NAME)
             .cpf(UPDATED_CPF)
-            .avatar(UPDATED_AVATAR)
             .avatarContentType(UPDATED_AVATAR_CONTENT_TYPE)
             .birthDate(UPDATED_BIRTH_DATE)
             .excluded(UPDATED_EXCLUDED);
+        PessoaDTO partialUpdatedPessoaDTO = pessoaMapper.toDto(partialUpdatedPessoa);
+        partialUpdatedPessoaDTO.setAvatar(UPDATED_AVATAR);
 
         restPessoaMockMvc
             .perform(
                 patch(ENTITY_API_URL_ID, partialUpdatedPessoa.getId())
                     .contentType("application/merge-patch+json")
-                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedPessoa))
+                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedPessoaDTO))
             )
             .andExpect(status().isOk());
 
@@ -590,8 +1167,9 @@ class PessoaResourceIT {
         assertThat(testPessoa.getName()).isEqualTo(UPDATED_NAME);
         assertThat(testPessoa.getCpf()).isEqualTo(UPDATED_CPF);
         assertThat(testPessoa.getEmail()).isEqualTo(DEFAULT_EMAIL);
-        assertThat(testPessoa.getAvatar()).isEqualTo(UPDATED_AVATAR);
         assertThat(testPessoa.getAvatarContentType()).isEqualTo(UPDATED_AVATAR_CONTENT_TYPE);
+        assertThat(testPessoa.getAvatarHash()).isEqualTo(UPDATED_AVATAR_HASH);
+        assertThat(pessoaAvatarRepository.findById(testPessoa.getId()).map(PessoaAvatar::getContent)).contains(UPDATED_AVATAR);
         assertThat(testPessoa.getBirthDate()).isEqualTo(UPDATED_BIRTH_DATE);
         assertThat(testPessoa.getExcluded()).isEqualTo(UPDATED_EXCLUDED);
     }
@@ -612,16 +1190,17 @@ class PessoaResourceIT {
             .name(UPDATED_NAME)
             .cpf(UPDATED_CPF)
             .email(UPDATED_EMAIL)
-            .avatar(UPDATED_AVATAR)
             .avatarContentType(UPDATED_AVATAR_CONTENT_TYPE)
             .birthDate(UPDATED_BIRTH_DATE)
             .excluded(UPDATED_EXCLUDED);
+        PessoaDTO partialUpdatedPessoaDTO = pessoaMapper.toDto(partialUpdatedPessoa);
+        partialUpdatedPessoaDTO.setAvatar(UPDATED_AVATAR);
 
         restPessoaMockMvc
             .perform(
                 patch(ENTITY_API_URL_ID, partialUpdatedPessoa.getId())
                     .contentType("application/merge-patch+json")
-                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedPessoa))
+                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedPessoaDTO))
             )
             .andExpect(status().isOk());
 
@@ -632,8 +1211,9 @@ class PessoaResourceIT {
         assertThat(testPessoa.getName()).isEqualTo(UPDATED_NAME);
         assertThat(testPessoa.getCpf()).isEqualTo(UPDATED_CPF);
         assertThat(testPessoa.getEmail()).isEqualTo(UPDATED_EMAIL);
-        assertThat(testPessoa.getAvatar()).isEqualTo(UPDATED_AVATAR);
         assertThat(testPessoa.getAvatarContentType()).isEqualTo(UPDATED_AVATAR_CONTENT_TYPE);
+        assertThat(testPessoa.getAvatarHash()).isEqualTo(UPDATED_AVATAR_HASH);
+        assertThat(pessoaAvatarRepository.findById(testPessoa.getId()).map(PessoaAvatar::getContent)).contains(UPDATED_AVATAR);
         assertThat(testPessoa.getBirthDate()).isEqualTo(UPDATED_BIRTH_DATE);
         assertThat(testPessoa.getExcluded()).isEqualTo(UPDATED_EXCLUDED);
     }
@@ -705,11 +1285,31 @@ class PessoaResourceIT {
         assertThat(pessoaList).hasSize(databaseSizeBeforeUpdate);
     }
 
+    @Test
+    @Transactional
+    void checkCpfExists() throws Exception {
+        // Initialize the database through the service, so the CPF index sees the new CPF
+        PessoaDTO pessoaDTO = pessoaMapper.toDto(pessoa);
+        restPessoaMockMvc
+            .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(pessoaDTO)))
+            .andExpect(status().isCreated());
+
+        restPessoaMockMvc
+            .perform(get("/api/check-exists/{cpf}", DEFAULT_CPF))
+            .andExpect(status().isOk())
+            .andExpect(content().string("true"));
+        restPessoaMockMvc
+            .perform(get("/api/check-exists/{cpf}", UPDATED_CPF))
+            .andExpect(status().isOk())
+            .andExpect(content().string("false"));
+    }
+
     @Test
     @Transactional
     void deletePessoa() throws Exception {
         // Initialize the database
         pessoaRepository.saveAndFlush(pessoa);
+        pessoaAvatarRepository.saveAndFlush(new PessoaAvatar().id(pessoa.getId()).content(DEFAULT_AVATAR));
 
         int databaseSizeBeforeDelete = pessoaRepository.findAll().size();
 
@@ -721,5 +1321,6 @@ class PessoaResourceIT {
         // Validate the database contains one less item
         List<Pessoa> pessoaList = pessoaRepository.findAll();
         assertThat(pessoaList).hasSize(databaseSizeBeforeDelete - 1);
+        assertThat(pessoaAvatarRepository.existsById(pessoa.getId())).isFalse();
     }
 }
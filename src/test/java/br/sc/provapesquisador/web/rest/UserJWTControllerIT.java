@@ -1,25 +1,36 @@
 package br.sc.provapesquisador.web.rest;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.emptyString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import br.sc.provapesquisador.IntegrationTest;
 import br.sc.provapesquisador.domain.User;
 import br.sc.provapesquisador.repository.UserRepository;
+import br.sc.provapesquisador.security.jwt.JWTFilter;
 import br.sc.provapesquisador.web.rest.vm.LoginVM;
+import br.sc.provapesquisador.web.rest.vm.RefreshTokenVM;
+import com.jayway.jsonpath.JsonPath;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
 
 /**
  * Integration tests for the {@link UserJWTController} REST controller.
@@ -37,8 +48,15 @@ class UserJWTControllerIT {
     @Autowired
     private MockMvc mockMvc;
 
+    @AfterEach
+    public void cleanupUsers() {
+        // the users are committed, as the logins check their password on the authentication executor
+        List
+            .of("user-jwt-controller", "user-jwt-controller-remember-me", "user-jwt-controller-outdated")
+            .forEach(login -> userRepository.findOneByLogin(login).ifPresent(userRepository::delete));
+    }
+
     @Test
-    @Transactional
     void testAuthorize() throws Exception {
         User user = new User();
         user.setLogin("user-jwt-controller");
@@ -51,8 +69,7 @@ class UserJWTControllerIT {
         LoginVM login = new LoginVM();
         login.setUsername("user-jwt-controller");
         login.setPassword("test");
-        mockMvc
-            .perform(post("/api/authenticate").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(login)))
+        authorize(login)
             .andExpect(status().isOk())
             .andExpect(jsonPath("$.id_token").isString())
             .andExpect(jsonPath("$.id_token").isNotEmpty())
@@ -61,7 +78,6 @@ class UserJWTControllerIT {
     }
 
     @Test
-    @Transactional
     void testAuthorizeWithRememberMe() throws Exception {
         User user = new User();
         user.setLogin("user-jwt-controller-remember-me");
@@ -75,8 +91,7 @@ class UserJWTControllerIT {
         login.setUsername("user-jwt-controller-remember-me");
         login.setPassword("test");
         login.setRememberMe(true);
-        mockMvc
-            .perform(post("/api/authenticate").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(login)))
+        authorize(login)
             .andExpect(status().isOk())
             .andExpect(jsonPath("$.id_token").isString())
             .andExpect(jsonPath("$.id_token").isNotEmpty())
@@ -84,15 +99,144 @@ class UserJWTControllerIT {
             .andExpect(header().string("Authorization", not(is(emptyString()))));
     }
 
+    @Test
+    void testAuthorizeUpgradesAnOutdatedPasswordHash() throws Exception {
+        User user = new User();
+        user.setLogin("user-jwt-controller-outdated");
+        user.setEmail("user-jwt-controller-outdated@example.com");
+        user.setActivated(true);
+        user.setPassword(new BCryptPasswordEncoder(4).encode("test"));
+
+        userRepository.saveAndFlush(user);
+
+        LoginVM login = new LoginVM();
+        login.setUsername("user-jwt-controller-outdated");
+        login.setPassword("test");
+        authorize(login).andExpect(status().isOk());
+
+        String upgraded = userRepository.findOneByLogin("user-jwt-controller-outdated").orElseThrow().getPassword();
+        assertThat(upgraded).startsWith("{bcrypt}$2a$10$");
+        assertThat(passwordEncoder.matches("test", upgraded)).isTrue();
+    }
+
     @Test
     void testAuthorizeFails() throws Exception {
         LoginVM login = new LoginVM();
         login.setUsername("wrong-user");
         login.setPassword("wrong password");
-        mockMvc
-            .perform(post("/api/authenticate").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(login)))
+        authorize(login)
             .andExpect(status().isUnauthorized())
             .andExpect(jsonPath("$.id_token").doesNotExist())
             .andExpect(header().doesNotExist("Authorization"));
     }
+
+    @Test
+    void testLogoutRevokesTheToken() throws Exception {
+        LoginVM login = new LoginVM();
+        login.setUsername("user");
+        login.setPassword("user");
+        MvcResult authenticated = authorize(login).andExpect(status().isOk()).andReturn();
+        String authorization = authenticated.getResponse().getHeader(JWTFilter.AUTHORIZATION_HEADER);
+        mockMvc.perform(get("/api/account").header(JWTFilter.AUTHORIZATION_HEADER, authorization)).andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/logout").header(JWTFilter.AUTHORIZATION_HEADER, authorization)).andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/account").header(JWTFilter.AUTHORIZATION_HEADER, authorization)).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void testAdminRulesCheckTheAuthoritiesOfTheToken() throws Exception {
+        String admin = authorization("admin", "admin");
+        String user = authorization("user", "user");
+
+        mockMvc.perform(get("/api/admin/users").header(JWTFilter.AUTHORIZATION_HEADER, admin)).andExpect(status().isOk());
+        mockMvc.perform(get("/management/loggers").header(JWTFilter.AUTHORIZATION_HEADER, admin)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/admin/users").header(JWTFilter.AUTHORIZATION_HEADER, user)).andExpect(status().isForbidden());
+        mockMvc.perform(get("/management/loggers").header(JWTFilter.AUTHORIZATION_HEADER, user)).andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/admin/users")).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void testMethodSecurityChecksTheAuthoritiesOfTheToken() throws Exception {
+        String admin = authorization("admin", "admin");
+        String user = authorization("user", "user");
+
+        // outside of /api/admin/**, only the @PreAuthorize of the endpoint restricts it to the admins
+        mockMvc
+            .perform(get("/api/pessoas/import-jobs/{id}", Long.MAX_VALUE).header(JWTFilter.AUTHORIZATION_HEADER, admin))
+            .andExpect(status().isNotFound());
+        mockMvc
+            .perform(get("/api/pessoas/import-jobs/{id}", Long.MAX_VALUE).header(JWTFilter.AUTHORIZATION_HEADER, user))
+            .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void testRefreshRotatesTheRefreshToken() throws Exception {
+        String refreshToken = authenticate("user", "user");
+
+        MvcResult refreshed = mockMvc
+            .perform(post("/api/authenticate/refresh").contentType(MediaType.APPLICATION_JSON).content(refreshTokenBody(refreshToken)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id_token").isNotEmpty())
+            .andExpect(jsonPath("$.refresh_token").isNotEmpty())
+            .andExpect(jsonPath("$.refresh_token", not(is(refreshToken))))
+            .andReturn();
+
+        String authorization = refreshed.getResponse().getHeader(JWTFilter.AUTHORIZATION_HEADER);
+        mockMvc
+            .perform(get("/api/account").header(JWTFilter.AUTHORIZATION_HEADER, authorization))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.login", is("user")));
+    }
+
+    @Test
+    void testRefreshTokenReplayRevokesItsFamily() throws Exception {
+        String refreshToken = authenticate("user", "user");
+        MvcResult refreshed = mockMvc
+            .perform(post("/api/authenticate/refresh").contentType(MediaType.APPLICATION_JSON).content(refreshTokenBody(refreshToken)))
+            .andExpect(status().isOk())
+            .andReturn();
+        String next = JsonPath.read(refreshed.getResponse().getContentAsString(), "$.refresh_token");
+
+        mockMvc
+            .perform(post("/api/authenticate/refresh").contentType(MediaType.APPLICATION_JSON).content(refreshTokenBody(refreshToken)))
+            .andExpect(status().isUnauthorized())
+            .andExpect(jsonPath("$.id_token").doesNotExist());
+
+        mockMvc
+            .perform(post("/api/authenticate/refresh").contentType(MediaType.APPLICATION_JSON).content(refreshTokenBody(next)))
+            .andExpect(status().isUnauthorized());
+    }
+
+    private ResultActions authorize(LoginVM login) throws Exception {
+        MvcResult started = mockMvc
+            .perform(post("/api/authenticate").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(login)))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        return mockMvc.perform(asyncDispatch(started));
+    }
+
+    private String authorization(String username, String password) throws Exception {
+        LoginVM login = new LoginVM();
+        login.setUsername(username);
+        login.setPassword(password);
+        return authorize(login).andExpect(status().isOk()).andReturn().getResponse().getHeader(JWTFilter.AUTHORIZATION_HEADER);
+    }
+
+    private String authenticate(String username, String password) throws Exception {
+        LoginVM login = new LoginVM();
+        login.setUsername(username);
+        login.setPassword(password);
+        MvcResult authenticated = authorize(login)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.refresh_token").isNotEmpty())
+            .andReturn();
+        return JsonPath.read(authenticated.getResponse().getContentAsString(), "$.refresh_token");
+    }
+
+    private byte[] refreshTokenBody(String refreshToken) throws Exception {
+        RefreshTokenVM refreshTokenVM = new RefreshTokenVM();
+        refreshTokenVM.setRefreshToken(refreshToken);
+        return TestUtil.convertObjectToJsonBytes(refreshTokenVM);
+    }
 }